@@ -50,6 +50,7 @@ module org.xresource {
         requires ch.qos.logback.classic;
 
         opens org.xresource.core.service to spring.core;
+        opens org.xresource.core.aco to spring.core, spring.beans;
 
         opens org.xresource.internal.controller
                         to spring.core, spring.beans, spring.context, spring.web, spring.boot.autoconfigure,
@@ -63,7 +64,7 @@ module org.xresource {
         opens org.xresource.internal.cron to spring.core, spring.beans;
         opens org.xresource.internal.exception to spring.core, spring.beans, spring.web;
         opens org.xresource.internal.openapi to spring.boot, spring.core, spring.beans, spring.context;
-        opens org.xresource.internal.query to spring.core, spring.beans;
+        opens org.xresource.internal.query to spring.core, spring.beans, org.hibernate.orm.core;
         opens org.xresource.internal.util to spring.core, spring.beans;
         opens org.xresource.internal.models to jackson.databind, com.fasterxml.jackson.databind;
 
@@ -1,19 +1,13 @@
 package org.xresource.core.aco;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 
 import org.xresource.core.logging.XLogger;
-import org.xresource.internal.models.XFieldMetadata;
-import org.xresource.internal.models.XResourceMetadata;
 import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.internal.util.XResourceGraphBuilder;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -22,7 +16,7 @@ import lombok.Setter;
 @Setter
 public class ACOEngine {
 
-    private Map<String, Set<String>> relationshipGraph = new HashMap<String, Set<String>>();
+    private AcoGraph relationshipGraph;
     private XResourceMetadataRegistry registry;
     public static ACOEngine instance;
     private final XLogger log = XLogger.forClass(ACOEngine.class);
@@ -51,25 +45,18 @@ public class ACOEngine {
     }
 
     private void buildGrapgh() {
-        for (Map.Entry<String, XResourceMetadata> entry : this.registry.getRegistry().entrySet()) {
-            String sourceResource = entry.getKey();
-            XResourceMetadata resMeta = entry.getValue();
-
-            for (Map.Entry<String, XFieldMetadata> fieldEntry : resMeta.getFields().entrySet()) {
-                XFieldMetadata fieldMeta = fieldEntry.getValue();
-
-                if (fieldMeta.getForeignKeyRefTable() != null && !fieldMeta.getForeignKeyRefTable().isEmpty()) {
-                    String targetResource = fieldMeta.getForeignKeyRefTable();
-                    relationshipGraph.computeIfAbsent(sourceResource, k -> new HashSet<>());
-                    relationshipGraph.get(sourceResource).add(targetResource);
-                }
-            }
-        }
+        this.relationshipGraph = AcoGraph.of(XResourceGraphBuilder.getResourceGraph(registry));
     }
 
     private List<Set<String>> groupVillages(int maxThresholdInAGroup) {
-        Map<String, Set<String>> undirected = makeUndirected(relationshipGraph);
-        List<Set<String>> rawGroups = findConnectedComponents(undirected);
+        List<Set<String>> rawGroups = new ArrayList<>();
+        for (int[] component : relationshipGraph.connectedComponents()) {
+            Set<String> group = new HashSet<>();
+            for (int node : component) {
+                group.add(relationshipGraph.nameOf(node));
+            }
+            rawGroups.add(group);
+        }
 
         List<Set<String>> finalGroups = new ArrayList<>();
         List<Set<String>> pendingMergeGroups = new ArrayList<>();
@@ -110,54 +97,6 @@ public class ACOEngine {
         return mergedGroups;
     }
 
-    private Map<String, Set<String>> makeUndirected(Map<String, Set<String>> graph) {
-        Map<String, Set<String>> undirected = new HashMap<>();
-
-        for (Map.Entry<String, Set<String>> entry : graph.entrySet()) {
-            String from = entry.getKey();
-            Set<String> toSet = entry.getValue();
-
-            undirected.putIfAbsent(from, new HashSet<>());
-            for (String to : toSet) {
-                undirected.get(from).add(to);
-
-                undirected.putIfAbsent(to, new HashSet<>());
-                undirected.get(to).add(from); // Add reverse link
-            }
-        }
-
-        return undirected;
-    }
-
-    private List<Set<String>> findConnectedComponents(Map<String, Set<String>> graph) {
-        Set<String> visited = new HashSet<>();
-        List<Set<String>> components = new ArrayList<>();
-
-        for (String node : graph.keySet()) {
-            if (!visited.contains(node)) {
-                Set<String> component = new HashSet<>();
-                Queue<String> queue = new LinkedList<>();
-                queue.add(node);
-                visited.add(node);
-
-                while (!queue.isEmpty()) {
-                    String current = queue.poll();
-                    component.add(current);
-                    for (String neighbor : graph.getOrDefault(current, Collections.emptySet())) {
-                        if (!visited.contains(neighbor)) {
-                            visited.add(neighbor);
-                            queue.add(neighbor);
-                        }
-                    }
-                }
-
-                components.add(component);
-            }
-        }
-
-        return components;
-    }
-
     private List<Set<String>> splitGroup(Set<String> group, int maxThreshold) {
         List<Set<String>> splitGroups = new ArrayList<>();
         Set<String> temp = new HashSet<>();
@@ -0,0 +1,212 @@
+package org.xresource.core.aco;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xresource.internal.models.XRelationshipMetadata;
+import org.xresource.internal.models.XResourceGraph;
+
+/**
+ * Int-indexed view of the resource graph used by the ant colony.
+ *
+ * <p>
+ * Resources are numbered {@code 0..size()-1} and every pair of resources
+ * connected by at least one foreign key gets one edge, numbered
+ * {@code 0..edgeCount()-1}, carrying the first foreign key between them.
+ * Adjacency is stored as arrays and is undirected: a join can follow a foreign
+ * key either way. The graph is immutable; per-edge state (pheromone, latency)
+ * lives in arrays indexed by edge id owned by the {@link Swarm}.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public final class AcoGraph {
+
+    private final long version;
+    private final String[] nodes;
+    private final Map<String, Integer> nodeIndex;
+    private final int[][] neighbours;
+    private final int[][] neighbourEdges;
+    private final XRelationshipMetadata[] edges;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+
+    private AcoGraph(long version, String[] nodes, Map<String, Integer> nodeIndex, int[][] neighbours,
+            int[][] neighbourEdges, XRelationshipMetadata[] edges, int[] edgeFrom, int[] edgeTo) {
+        this.version = version;
+        this.nodes = nodes;
+        this.nodeIndex = nodeIndex;
+        this.neighbours = neighbours;
+        this.neighbourEdges = neighbourEdges;
+        this.edges = edges;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+    }
+
+    /**
+     * Indexes the resources and foreign keys of a resource graph.
+     */
+    public static AcoGraph of(XResourceGraph graph) {
+        List<String> nodeList = new ArrayList<>(graph.getResources());
+        Map<String, Integer> nodeIndex = new HashMap<>();
+        for (int i = 0; i < nodeList.size(); i++) {
+            nodeIndex.put(nodeList.get(i), i);
+        }
+
+        List<XRelationshipMetadata> edgeList = new ArrayList<>();
+        Map<Long, Integer> edgeByPair = new HashMap<>();
+        List<List<int[]>> adjacency = new ArrayList<>();
+        for (int i = 0; i < nodeList.size(); i++) {
+            adjacency.add(new ArrayList<>());
+        }
+        for (String source : nodeList) {
+            for (XRelationshipMetadata relationship : graph.getOutgoing(source)) {
+                int from = nodeIndex.get(source);
+                int to = nodeIndex.get(relationship.getTargetTable());
+                if (from == to)
+                    continue;
+                long pair = pairKey(Math.min(from, to), Math.max(from, to));
+                if (edgeByPair.containsKey(pair))
+                    continue;
+                int edge = edgeList.size();
+                edgeList.add(relationship);
+                edgeByPair.put(pair, edge);
+                adjacency.get(from).add(new int[] { to, edge });
+                adjacency.get(to).add(new int[] { from, edge });
+            }
+        }
+
+        int size = nodeList.size();
+        int[][] neighbours = new int[size][];
+        int[][] neighbourEdges = new int[size][];
+        for (int i = 0; i < size; i++) {
+            List<int[]> adjacent = adjacency.get(i);
+            neighbours[i] = new int[adjacent.size()];
+            neighbourEdges[i] = new int[adjacent.size()];
+            for (int j = 0; j < adjacent.size(); j++) {
+                neighbours[i][j] = adjacent.get(j)[0];
+                neighbourEdges[i][j] = adjacent.get(j)[1];
+            }
+        }
+        int[] edgeFrom = new int[edgeList.size()];
+        int[] edgeTo = new int[edgeList.size()];
+        for (int e = 0; e < edgeList.size(); e++) {
+            edgeFrom[e] = nodeIndex.get(edgeList.get(e).getSourceTable());
+            edgeTo[e] = nodeIndex.get(edgeList.get(e).getTargetTable());
+        }
+
+        return new AcoGraph(graph.getVersion(), nodeList.toArray(new String[0]), Map.copyOf(nodeIndex),
+                neighbours, neighbourEdges, edgeList.toArray(new XRelationshipMetadata[0]), edgeFrom, edgeTo);
+    }
+
+    /**
+     * @return version of the resource graph this view was built from
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * @return index of the resource, -1 if it has no foreign keys
+     */
+    public int indexOf(String resource) {
+        Integer index = nodeIndex.get(resource);
+        return index != null ? index : -1;
+    }
+
+    public String nameOf(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * @return indexes of the resources joined to {@code node} by a foreign key
+     */
+    public int[] neighbours(int node) {
+        return neighbours[node];
+    }
+
+    /**
+     * @return edge ids parallel to {@link #neighbours(int)}
+     */
+    public int[] neighbourEdges(int node) {
+        return neighbourEdges[node];
+    }
+
+    public XRelationshipMetadata relationship(int edge) {
+        return edges[edge];
+    }
+
+    /**
+     * @return the node on the other side of {@code edge} from {@code node}
+     */
+    public int otherEnd(int edge, int node) {
+        return edgeFrom[edge] == node ? edgeTo[edge] : edgeFrom[edge];
+    }
+
+    /**
+     * @return id of the edge between two resources, -1 if there is none
+     */
+    public int edgeBetween(int a, int b) {
+        int[] adjacent = neighbours[a];
+        for (int i = 0; i < adjacent.length; i++) {
+            if (adjacent[i] == b)
+                return neighbourEdges[a][i];
+        }
+        return -1;
+    }
+
+    /**
+     * @return id of the edge of a foreign key, -1 if it is not part of the
+     *         graph
+     */
+    public int edgeOf(XRelationshipMetadata relationship) {
+        int from = indexOf(relationship.getSourceTable());
+        int to = indexOf(relationship.getTargetTable());
+        return from < 0 || to < 0 ? -1 : edgeBetween(from, to);
+    }
+
+    /**
+     * Groups the resources into connected components, in index order.
+     */
+    public List<int[]> connectedComponents() {
+        int[] component = new int[nodes.length];
+        Arrays.fill(component, -1);
+        List<int[]> components = new ArrayList<>();
+        int[] queue = new int[nodes.length];
+        for (int start = 0; start < nodes.length; start++) {
+            if (component[start] >= 0)
+                continue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            component[start] = components.size();
+            while (head < tail) {
+                int current = queue[head++];
+                for (int next : neighbours[current]) {
+                    if (component[next] < 0) {
+                        component[next] = components.size();
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            components.add(Arrays.copyOf(queue, tail));
+        }
+        return components;
+    }
+
+    private static long pairKey(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+}
@@ -0,0 +1,596 @@
+package org.xresource.core.aco;
+
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_INDEXES_AUTO_CREATE;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_INDEXES_IDLE_TIMEOUT;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_INDEXES_MAX;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_INDEXES_MIN_USAGE;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_UPDATE_INTERVAL;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.sql.ast.spi.AbstractSqlAstWalker;
+import org.hibernate.sql.ast.tree.expression.ColumnReference;
+import org.hibernate.sql.ast.tree.from.NamedTableReference;
+import org.hibernate.sql.ast.tree.from.TableGroupJoin;
+import org.hibernate.sql.ast.tree.select.SelectClause;
+import org.hibernate.sql.ast.tree.select.SortSpecification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.xresource.core.aco.entity.AcoIndexTracking;
+import org.xresource.core.aco.repository.AcoIndexTrackingRepository;
+import org.xresource.core.logging.XLogger;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceUnit;
+
+/**
+ * Learns which columns executed queries filter, join and sort on, and
+ * recommends (or creates) single column indexes for the busiest ones.
+ *
+ * <p>
+ * {@code XQueryExecutor} reports the JPQL and latency of every data query it
+ * runs: {@code @XQuery} reads, intents and lookups by id. Reports are queued;
+ * every {@code xresource.aco.update-interval} seconds a background thread
+ * translates each distinct query to Hibernate's SQL AST (once, the result is
+ * cached) and credits the execution and its latency to every column the query
+ * uses in its {@code WHERE} clause, join conditions or {@code ORDER BY}.
+ * Selected columns are not counted. Working on the SQL AST means columns are
+ * the mapped table columns, whatever the JPQL looked like.
+ * </p>
+ *
+ * <p>
+ * Columns used at least {@code xresource.aco.indexes.min-usage} times, and
+ * within the last {@code idle-timeout} seconds, that are not the leading
+ * column of an existing index are recommended, busiest (by total query time)
+ * first; see {@link #getRecommendations()}. With
+ * {@code xresource.aco.indexes.auto-create=true} the advisor also creates the
+ * recommended indexes, up to {@code max-indexes}, and records them in
+ * {@code aco_index_tracking}. Every query using an indexed column counts as a
+ * use of its index; indexes not used for {@code idle-timeout} seconds are
+ * dropped. Only indexes the advisor created are ever dropped.
+ * </p>
+ *
+ * <p>
+ * On PostgreSQL indexes are created and dropped {@code CONCURRENTLY}, outside
+ * of a transaction, so writes to the table continue while the index is built;
+ * an index left invalid by a failed build is dropped again. Elsewhere a plain
+ * {@code CREATE INDEX} is run: MySQL (InnoDB) builds it online and only locks
+ * the table briefly at the start and end, while other databases, H2 among
+ * them, may block writes to the table for the whole build. Enable
+ * {@code auto-create} there only if that is acceptable for the indexed
+ * tables, or create the recommended indexes by hand.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class AcoIndexAdvisor implements ApplicationRunner {
+
+    private static final XLogger log = XLogger.forClass(AcoIndexAdvisor.class);
+
+    private static final String INDEX_PREFIX = "xr_ix_";
+    private static final int MAX_PENDING_OBSERVATIONS = 10_000;
+    private static final int MAX_PARSED_QUERIES = 1024;
+    private static final int MAX_RECOMMENDATIONS = 50;
+
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    @Autowired(required = false)
+    private AcoIndexTrackingRepository trackingRepository;
+
+    @Value(ACO_UPDATE_INTERVAL)
+    private long updateIntervalSeconds;
+
+    @Value(ACO_INDEXES_AUTO_CREATE)
+    private boolean autoCreate;
+
+    @Value(ACO_INDEXES_MIN_USAGE)
+    private long minUsage;
+
+    @Value(ACO_INDEXES_MAX)
+    private int maxIndexes;
+
+    @Value(ACO_INDEXES_IDLE_TIMEOUT)
+    private long idleTimeoutSeconds;
+
+    private final Queue<Observation> observations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingObservations = new AtomicInteger();
+
+    /** Columns used by each query seen, only touched by the advisor thread. */
+    private final Map<String, List<ColumnUse>> parsedQueries = new HashMap<>();
+    private final Map<ColumnKey, ColumnStats> columnStats = new HashMap<>();
+
+    private volatile List<Recommendation> recommendations = Collections.emptyList();
+
+    private boolean mysql;
+
+    private boolean postgresql;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private record Observation(String jpql, double costMillis) {
+    }
+
+    /**
+     * A column of a table, names as the mapping spells them.
+     */
+    record ColumnKey(String table, String column) {
+    }
+
+    enum Clause {
+        WHERE, JOIN, ORDER_BY
+    }
+
+    record ColumnUse(ColumnKey column, Clause clause) {
+    }
+
+    /**
+     * A column reference of the SQL AST, qualified by its table alias.
+     */
+    private record AliasedColumn(String qualifier, String column, Clause clause) {
+    }
+
+    /**
+     * Index names and leading columns of a table, lower case.
+     */
+    private record TableIndexes(Set<String> names, Set<String> leadingColumns) {
+    }
+
+    private static final class ColumnStats {
+        long filters;
+        long joins;
+        long sorts;
+        double totalMillis;
+        /** Queries using the column since the last update. */
+        long recentUses;
+        LocalDateTime lastUsedAt;
+
+        long uses() {
+            return filters + joins + sorts;
+        }
+    }
+
+    /**
+     * A recommended index.
+     *
+     * @param table         table to index
+     * @param column        column to index
+     * @param filters       executed queries filtering on the column
+     * @param joins         executed queries joining on the column
+     * @param sorts         executed queries sorting on the column
+     * @param averageMillis average latency of those queries
+     * @param totalMillis   total latency of those queries
+     * @param indexName     name the index is (or would be) created with
+     */
+    public record Recommendation(String table, String column, long filters, long joins, long sorts,
+            double averageMillis, double totalMillis, String indexName) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Dialect dialect = emf.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        mysql = dialect instanceof MySQLDialect;
+        postgresql = dialect instanceof PostgreSQLDialect;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("xresource-aco-indexes-");
+        threadFactory.setDaemon(true);
+        executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+        executor.scheduleWithFixedDelay(this::update, updateIntervalSeconds, updateIntervalSeconds,
+                TimeUnit.SECONDS);
+        log.info("ACO index advisor started, automatic index creation %s", autoCreate ? "enabled" : "disabled");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Queues an executed query for analysis; cheap enough to call on every
+     * execution. Reports are dropped while the queue is full.
+     *
+     * @param jpql         the executed JPQL
+     * @param elapsedNanos execution time of the query
+     */
+    public void recordExecution(String jpql, long elapsedNanos) {
+        if (pendingObservations.incrementAndGet() > MAX_PENDING_OBSERVATIONS) {
+            pendingObservations.decrementAndGet();
+            return;
+        }
+        observations.add(new Observation(jpql, elapsedNanos / 1_000_000.0));
+    }
+
+    /**
+     * @return the recommended indexes as of the last update, busiest first;
+     *         columns that are already indexed are not included
+     */
+    public List<Recommendation> getRecommendations() {
+        return recommendations;
+    }
+
+    /**
+     * @return the indexes created by the advisor
+     */
+    public List<AcoIndexTracking> getCreatedIndexes() {
+        return trackingRepository != null ? trackingRepository.findAll().stream()
+                .filter(row -> row.getIndexName().startsWith(INDEX_PREFIX)).toList() : List.of();
+    }
+
+    private void update() {
+        try {
+            analyzeObservations();
+            Map<String, TableIndexes> indexes = new HashMap<>();
+            trackIndexes(indexes);
+            recommend(indexes);
+            for (ColumnStats stats : columnStats.values()) {
+                stats.recentUses = 0;
+            }
+        } catch (RuntimeException e) {
+            log.error("ACO index advisor update failed: %s", e.getMessage(), e);
+        }
+    }
+
+    private void analyzeObservations() {
+        if (observations.isEmpty())
+            return;
+        LocalDateTime now = LocalDateTime.now();
+        EntityManager em = emf.createEntityManager();
+        try {
+            Observation observation;
+            while ((observation = observations.poll()) != null) {
+                pendingObservations.decrementAndGet();
+                List<ColumnUse> uses = parsedQueries.get(observation.jpql());
+                if (uses == null) {
+                    if (parsedQueries.size() >= MAX_PARSED_QUERIES)
+                        parsedQueries.clear();
+                    uses = columnsOf(em, observation.jpql());
+                    parsedQueries.put(observation.jpql(), uses);
+                }
+                for (ColumnUse use : uses) {
+                    ColumnStats stats = columnStats.computeIfAbsent(use.column(), k -> new ColumnStats());
+                    switch (use.clause()) {
+                        case WHERE -> stats.filters++;
+                        case JOIN -> stats.joins++;
+                        case ORDER_BY -> stats.sorts++;
+                    }
+                    stats.totalMillis += observation.costMillis();
+                    stats.recentUses++;
+                    stats.lastUsedAt = now;
+                }
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Columns a query filters, joins or sorts on, each counted once per clause;
+     * package-private for tests.
+     */
+    static List<ColumnUse> columnsOf(EntityManager em, String jpql) {
+        try {
+            ColumnCollector collector = new ColumnCollector();
+            AcoQueryTranslator.translate(em, jpql).ast().accept(collector);
+            Set<ColumnUse> uses = new LinkedHashSet<>();
+            for (AliasedColumn reference : collector.references) {
+                String table = collector.tables.get(reference.qualifier());
+                if (table != null)
+                    uses.add(new ColumnUse(new ColumnKey(table, reference.column()), reference.clause()));
+            }
+            return List.copyOf(uses);
+        } catch (RuntimeException e) {
+            log.debug("Cannot analyze query %s: %s", jpql, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Credits the recent uses of the created indexes and drops the idle ones.
+     */
+    private void trackIndexes(Map<String, TableIndexes> indexes) {
+        if (trackingRepository == null)
+            return;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime idleSince = now.minusSeconds(idleTimeoutSeconds);
+        for (AcoIndexTracking row : trackingRepository.findAll()) {
+            if (!row.getIndexName().startsWith(INDEX_PREFIX))
+                continue;
+            if (!indexesOf(indexes, row.getTableName()).names().contains(normalize(row.getIndexName()))) {
+                log.info("Index %s no longer exists, no longer tracking it", row.getIndexName());
+                trackingRepository.delete(row);
+                continue;
+            }
+
+            ColumnStats stats = columnStats.get(new ColumnKey(row.getTableName(), row.getColumns()));
+            if (stats != null && stats.recentUses > 0) {
+                row.setUsageCount(row.getUsageCount() + stats.recentUses);
+                row.setLastUsedAt(now);
+            }
+            LocalDateTime lastUsed = row.getLastUsedAt() != null ? row.getLastUsedAt() : row.getCreatedAt();
+            if (lastUsed.isBefore(idleSince)) {
+                log.info("Dropping unused index %s on %s(%s)", row.getIndexName(), row.getTableName(),
+                        row.getColumns());
+                try {
+                    dropIndex(row.getIndexName(), row.getTableName());
+                    trackingRepository.delete(row);
+                    indexes.remove(row.getTableName());
+                } catch (RuntimeException e) {
+                    log.error("Failed to drop index %s: %s", row.getIndexName(), e.getMessage(), e);
+                }
+            } else {
+                trackingRepository.save(row);
+            }
+        }
+    }
+
+    /**
+     * Publishes the recommendations and, when enabled, creates the indexes.
+     */
+    private void recommend(Map<String, TableIndexes> indexes) {
+        // Columns idle for as long as an unused index is kept are not
+        // recommended, or dropped indexes would be created again right away
+        LocalDateTime idleSince = LocalDateTime.now().minusSeconds(idleTimeoutSeconds);
+        List<Map.Entry<ColumnKey, ColumnStats>> candidates = new ArrayList<>();
+        for (Map.Entry<ColumnKey, ColumnStats> entry : columnStats.entrySet()) {
+            ColumnStats stats = entry.getValue();
+            if (stats.uses() >= minUsage && stats.lastUsedAt.isAfter(idleSince))
+                candidates.add(entry);
+        }
+        candidates.sort(Comparator.comparingDouble(
+                (Map.Entry<ColumnKey, ColumnStats> entry) -> entry.getValue().totalMillis).reversed());
+
+        List<Recommendation> recommended = new ArrayList<>();
+        for (Map.Entry<ColumnKey, ColumnStats> entry : candidates) {
+            if (recommended.size() >= MAX_RECOMMENDATIONS)
+                break;
+            ColumnKey column = entry.getKey();
+            if (indexesOf(indexes, column.table()).leadingColumns().contains(normalize(column.column())))
+                continue;
+            ColumnStats stats = entry.getValue();
+            recommended.add(new Recommendation(column.table(), column.column(), stats.filters, stats.joins,
+                    stats.sorts, stats.totalMillis / stats.uses(), stats.totalMillis, indexName(column)));
+        }
+        recommendations = Collections.unmodifiableList(recommended);
+
+        if (autoCreate && trackingRepository != null)
+            createIndexes(recommended, indexes);
+    }
+
+    private void createIndexes(List<Recommendation> recommended, Map<String, TableIndexes> indexes) {
+        long created = getCreatedIndexes().size();
+        for (Recommendation recommendation : recommended) {
+            if (created >= maxIndexes)
+                return;
+            try {
+                createIndex(recommendation);
+            } catch (RuntimeException e) {
+                log.error("Failed to create index %s on %s(%s): %s", recommendation.indexName(),
+                        recommendation.table(), recommendation.column(), e.getMessage(), e);
+                continue;
+            }
+            AcoIndexTracking row = new AcoIndexTracking();
+            row.setIndexName(recommendation.indexName());
+            row.setTableName(recommendation.table());
+            row.setColumns(recommendation.column());
+            trackingRepository.save(row);
+            indexes.remove(recommendation.table());
+            created++;
+            log.info("Created index %s on %s(%s)", recommendation.indexName(), recommendation.table(),
+                    recommendation.column());
+        }
+    }
+
+    private void createIndex(Recommendation recommendation) {
+        String columns = " ON " + recommendation.table() + " (" + recommendation.column() + ")";
+        if (!postgresql) {
+            execute(em -> em.createNativeQuery("CREATE INDEX " + recommendation.indexName() + columns)
+                    .executeUpdate());
+            return;
+        }
+        try {
+            executeAutoCommit("CREATE INDEX CONCURRENTLY " + recommendation.indexName() + columns);
+        } catch (RuntimeException e) {
+            // A failed concurrent build leaves an invalid index behind
+            try {
+                dropIndex(recommendation.indexName(), recommendation.table());
+            } catch (RuntimeException dropFailure) {
+                e.addSuppressed(dropFailure);
+            }
+            throw e;
+        }
+    }
+
+    private void dropIndex(String indexName, String table) {
+        if (postgresql)
+            executeAutoCommit("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+        else
+            execute(em -> em.createNativeQuery(mysql
+                    ? "DROP INDEX " + indexName + " ON " + table
+                    : "DROP INDEX IF EXISTS " + indexName).executeUpdate());
+    }
+
+    /**
+     * Reads the indexes of a table from the JDBC metadata, once per update.
+     */
+    private TableIndexes indexesOf(Map<String, TableIndexes> indexes, String table) {
+        TableIndexes known = indexes.get(table);
+        if (known != null)
+            return known;
+        EntityManager em = emf.createEntityManager();
+        try {
+            known = em.unwrap(Session.class).doReturningWork(connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                int dot = table.lastIndexOf('.');
+                String schema = dot > 0 ? identifier(metaData, table.substring(0, dot)) : null;
+                String name = identifier(metaData, table.substring(dot + 1));
+                Set<String> names = new HashSet<>();
+                Set<String> leadingColumns = new HashSet<>();
+                try (ResultSet rows = metaData.getIndexInfo(connection.getCatalog(), schema, name, false, true)) {
+                    while (rows.next()) {
+                        if (rows.getString("INDEX_NAME") != null)
+                            names.add(normalize(rows.getString("INDEX_NAME")));
+                        if (rows.getShort("ORDINAL_POSITION") == 1 && rows.getString("COLUMN_NAME") != null)
+                            leadingColumns.add(normalize(rows.getString("COLUMN_NAME")));
+                    }
+                }
+                return new TableIndexes(names, leadingColumns);
+            });
+        } finally {
+            em.close();
+        }
+        indexes.put(table, known);
+        return known;
+    }
+
+    /**
+     * Runs DDL in a transaction of its own.
+     */
+    private void execute(Consumer<EntityManager> work) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            work.accept(em);
+            tx.commit();
+        } finally {
+            if (tx.isActive())
+                tx.rollback();
+            em.close();
+        }
+    }
+
+    /**
+     * Runs DDL that must not run inside a transaction block, such as
+     * PostgreSQL's {@code CREATE INDEX CONCURRENTLY}, on a connection in
+     * auto-commit mode.
+     */
+    private void executeAutoCommit(String sql) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.unwrap(Session.class).doWork(connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(sql);
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Spells an unquoted identifier the way the database stores it, for
+     * metadata lookups.
+     */
+    private static String identifier(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers())
+            return identifier.toUpperCase(Locale.ROOT);
+        if (metaData.storesLowerCaseIdentifiers())
+            return identifier.toLowerCase(Locale.ROOT);
+        return identifier;
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.replace("\"", "").replace("`", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Name of the index of a column; stable across runs and short enough for
+     * every supported database.
+     */
+    private static String indexName(ColumnKey column) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((column.table() + "." + column.column()).getBytes(StandardCharsets.UTF_8));
+            return INDEX_PREFIX + HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Collects the table of every table alias and the column references
+     * outside of select clauses, tagged with the clause they appear in.
+     */
+    private static final class ColumnCollector extends AbstractSqlAstWalker {
+
+        final Map<String, String> tables = new LinkedHashMap<>();
+        final List<AliasedColumn> references = new ArrayList<>();
+        private Clause clause = Clause.WHERE;
+
+        @Override
+        public void visitSelectClause(SelectClause selectClause) {
+            // Projected columns are read, not searched
+        }
+
+        @Override
+        public void visitNamedTableReference(NamedTableReference tableReference) {
+            tables.put(tableReference.getIdentificationVariable(), tableReference.getTableExpression());
+        }
+
+        @Override
+        public void visitTableGroupJoin(TableGroupJoin tableGroupJoin) {
+            Clause outer = clause;
+            clause = Clause.JOIN;
+            super.visitTableGroupJoin(tableGroupJoin);
+            clause = outer;
+        }
+
+        @Override
+        public void visitSortSpecification(SortSpecification sortSpecification) {
+            Clause outer = clause;
+            clause = Clause.ORDER_BY;
+            super.visitSortSpecification(sortSpecification);
+            clause = outer;
+        }
+
+        @Override
+        public void visitColumnReference(ColumnReference columnReference) {
+            if (columnReference.isColumnExpressionFormula() || columnReference.getQualifier() == null)
+                return;
+            references.add(new AliasedColumn(columnReference.getQualifier(),
+                    columnReference.getColumnExpression(), clause));
+        }
+    }
+}
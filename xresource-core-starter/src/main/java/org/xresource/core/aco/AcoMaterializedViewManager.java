@@ -0,0 +1,588 @@
+package org.xresource.core.aco;
+
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_VIEWS_IDLE_TIMEOUT;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_VIEWS_MAX;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_VIEWS_MIN_USAGE;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_VIEWS_REFRESH_INTERVAL;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.JdbcMapping;
+import org.hibernate.sql.ast.spi.SqlSelection;
+import org.hibernate.sql.exec.spi.JdbcOperationQuerySelect;
+import org.hibernate.type.BasicType;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.xresource.core.aco.entity.AcoMaterializedView;
+import org.xresource.core.aco.repository.AcoMaterializedViewRepository;
+import org.xresource.core.hook.XResourceEventType;
+import org.xresource.core.hook.XResourceHookRegistry;
+import org.xresource.core.logging.XLogger;
+import org.xresource.internal.intent.core.parser.IntentToJPQLTransformer;
+import org.xresource.internal.intent.core.parser.model.CompiledIntentJPQL;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.intent.core.parser.model.JoinMeta;
+import org.xresource.internal.intent.core.parser.model.SelectAttributeMeta;
+import org.xresource.internal.models.XRelationshipMetadata;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.internal.util.XResourceGraphBuilder;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceUnit;
+
+/**
+ * Precomputes the result of the hottest multi-join intents.
+ *
+ * <p>
+ * {@code XQueryExecutor} reports every execution of an intent that joins other
+ * resources. Every {@code xresource.aco.materialized-views.refresh-interval}
+ * seconds a background thread:
+ * </p>
+ * <ol>
+ * <li>drops views that were not read for
+ * {@code xresource.aco.materialized-views.idle-timeout} seconds, that exist for
+ * longer than that but were read fewer than {@code min-usage} times, or that
+ * were built on an older resource graph;</li>
+ * <li>refreshes the remaining views;</li>
+ * <li>materializes the intents executed at least {@code min-usage} times since
+ * the previous run, ranked by executions times the pheromone the
+ * {@link Swarm} holds on their join path, until
+ * {@code max-views} views exist.</li>
+ * </ol>
+ *
+ * <p>
+ * The SQL of a view is the SQL Hibernate generates for the intent's JPQL. On
+ * PostgreSQL it is created as a native materialized view; on other databases
+ * as a plain table filled by {@code INSERT ... SELECT}. Columns are named
+ * {@code c0, c1, ...} after the select attributes of the intent. Only intents
+ * without parameters that select plain attributes (and sort by selected ones)
+ * can be materialized, as the view holds exactly the rows the intent returns.
+ * The Hibernate type of every column is taken from the translated query, so
+ * reads of the view apply the same attribute converters, enum mappings and
+ * temporal types as the intent's JPQL.
+ * </p>
+ *
+ * <p>
+ * Reads of a materialized intent return the rows as of the last refresh. A
+ * create, update or delete through
+ * {@link org.xresource.core.service.XResourceService} of any resource a view
+ * reads marks the view stale, and the intent is queried again until the next
+ * refresh; writes that bypass the framework are only picked up by the next
+ * refresh. Views and their usage are tracked in {@code aco_materialized_view};
+ * views left over by a previous run are dropped on startup.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class AcoMaterializedViewManager implements ApplicationRunner, SmartInitializingSingleton {
+
+    private static final XLogger log = XLogger.forClass(AcoMaterializedViewManager.class);
+
+    private static final String VIEW_PREFIX = "xr_mv_";
+
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private XResourceMetadataRegistry registry;
+
+    @Autowired
+    private XResourceHookRegistry hookRegistry;
+
+    @Autowired(required = false)
+    private AcoMaterializedViewRepository viewRepository;
+
+    @Value(ACO_VIEWS_REFRESH_INTERVAL)
+    private long refreshIntervalSeconds;
+
+    @Value(ACO_VIEWS_IDLE_TIMEOUT)
+    private long idleTimeoutSeconds;
+
+    @Value(ACO_VIEWS_MIN_USAGE)
+    private long minUsage;
+
+    @Value(ACO_VIEWS_MAX)
+    private int maxViews;
+
+    /** Executions of intents that could be materialized. */
+    private final Map<IntentKey, Usage> usage = new ConcurrentHashMap<>();
+
+    /** Active views, by the intent they materialize. */
+    private final Map<IntentKey, View> views = new ConcurrentHashMap<>();
+
+    private boolean nativeViews;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private static final class Usage {
+        final IntentMeta intent;
+        final LongAdder executions = new LongAdder();
+        volatile boolean unsupported;
+
+        Usage(IntentMeta intent) {
+            this.intent = intent;
+        }
+    }
+
+    private record Candidate(Usage usage, double score) {
+    }
+
+    /**
+     * Intent names are only unique per entity.
+     */
+    private record IntentKey(Class<?> entityClass, String name) {
+        static IntentKey of(IntentMeta intent) {
+            return new IntentKey(intent.getEntityClass(), intent.getName());
+        }
+    }
+
+    /**
+     * Native query reading the rows of a materialized intent.
+     *
+     * @param sql         {@code SELECT c0, c1, ... FROM view [ORDER BY ...]}
+     * @param columnTypes Hibernate type of each column, to be registered as
+     *                    scalars of the query so values are converted to the
+     *                    Java types of the select attributes
+     */
+    public record ViewQuery(String sql, List<BasicType<?>> columnTypes) {
+    }
+
+    /**
+     * A materialized intent. {@code selectSql} reads the rows back in the order
+     * of the intent.
+     */
+    private static final class View {
+        final IntentMeta intent;
+        final String viewName;
+        final long graphVersion;
+        final String sql;
+        final String columns;
+        final ViewQuery query;
+        final List<XRelationshipMetadata> joinPath;
+        /** Lower case names of the resources the view reads. */
+        final Set<String> resources;
+        final LongAdder reads = new LongAdder();
+        /** Written to through the framework since the last refresh. */
+        volatile boolean stale;
+
+        View(IntentMeta intent, String viewName, long graphVersion, String sql, String columns, String orderBy,
+                List<BasicType<?>> columnTypes, List<XRelationshipMetadata> joinPath) {
+            this.intent = intent;
+            this.viewName = viewName;
+            this.graphVersion = graphVersion;
+            this.sql = sql;
+            this.columns = columns;
+            this.query = new ViewQuery("SELECT " + columns + " FROM " + viewName + orderBy, columnTypes);
+            this.joinPath = joinPath;
+            this.resources = resourcesOf(intent, joinPath);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        nativeViews = emf.unwrap(SessionFactoryImplementor.class).getJdbcServices()
+                .getDialect() instanceof PostgreSQLDialect;
+        dropLeftovers();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("xresource-aco-views-");
+        threadFactory.setDaemon(true);
+        executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+        executor.scheduleWithFixedDelay(this::maintain, refreshIntervalSeconds, refreshIntervalSeconds,
+                TimeUnit.SECONDS);
+        log.info("ACO materialized views enabled, using %s", nativeViews ? "materialized views" : "tables");
+    }
+
+    /**
+     * Registers the hooks marking views stale for every exposed resource.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String resourceName : registry.getRegistry().keySet()) {
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_CREATE, ctx -> markStale(resourceName));
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_UPDATE, ctx -> markStale(resourceName));
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_DELETE, ctx -> markStale(resourceName));
+        }
+        log.debug("Registered materialized view staleness hooks for %s resources", registry.getRegistry().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Counts an execution of an intent against its database tables. Intents
+     * without joins, with parameters or without explicit select attributes are
+     * ignored, as they cannot be materialized.
+     */
+    public void recordExecution(IntentMeta intent) {
+        if (intent.getJoins() == null || intent.getJoins().isEmpty()
+                || (intent.getParameters() != null && !intent.getParameters().isEmpty())
+                || intent.getSelectAttributes() == null || intent.getSelectAttributes().isEmpty())
+            return;
+        // First execution, or the intent was redefined under the same name
+        Usage counter = usage.compute(IntentKey.of(intent),
+                (key, current) -> current != null && current.intent == intent ? current : new Usage(intent));
+        if (!counter.unsupported)
+            counter.executions.increment();
+    }
+
+    /**
+     * Returns the native query reading the rows of a materialized intent, and
+     * counts the read.
+     *
+     * @return the query, {@code null} if the intent is not materialized for the
+     *         current resource graph or its view is stale
+     */
+    public ViewQuery getViewQuery(IntentMeta intent) {
+        View view = views.get(IntentKey.of(intent));
+        if (view == null || view.intent != intent || view.stale
+                || view.graphVersion != XResourceGraphBuilder.getResourceGraph(registry).getVersion())
+            return null;
+        view.reads.increment();
+        return view.query;
+    }
+
+    /**
+     * Marks the views reading a resource stale until their next refresh.
+     *
+     * @param resourceName the resource written to
+     */
+    public void markStale(String resourceName) {
+        String resource = resourceName.toLowerCase(Locale.ROOT);
+        for (View view : views.values()) {
+            if (view.resources.contains(resource))
+                view.stale = true;
+        }
+    }
+
+    /**
+     * @return whether an intent joining {@code joinPath} is currently served
+     *         from a materialized view
+     */
+    public boolean isMaterialized(List<XRelationshipMetadata> joinPath) {
+        for (View view : views.values()) {
+            if (view.joinPath.equals(joinPath))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * One maintenance run; package-private for tests.
+     */
+    void maintain() {
+        try {
+            long graphVersion = XResourceGraphBuilder.getResourceGraph(registry).getVersion();
+            Map<String, AcoMaterializedView> rows = new HashMap<>();
+            if (viewRepository != null) {
+                for (AcoMaterializedView row : viewRepository.findAll()) {
+                    rows.put(row.getViewName(), row);
+                }
+            }
+            maintainViews(graphVersion, rows);
+            createViews(graphVersion, rows);
+        } catch (RuntimeException e) {
+            log.error("Materialized view maintenance failed: %s", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drops cold or outdated views and refreshes the others.
+     */
+    private void maintainViews(long graphVersion, Map<String, AcoMaterializedView> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime idleSince = now.minusSeconds(idleTimeoutSeconds);
+        for (View view : new ArrayList<>(views.values())) {
+            AcoMaterializedView row = rows.computeIfAbsent(view.viewName, name -> newRow(view));
+            long reads = view.reads.sumThenReset();
+            if (reads > 0) {
+                row.setUsageCount(row.getUsageCount() + reads);
+                row.setLastUsedAt(now);
+            }
+
+            LocalDateTime lastUsed = row.getLastUsedAt() != null ? row.getLastUsedAt() : row.getCreatedAt();
+            boolean cold = lastUsed.isBefore(idleSince)
+                    || (row.getCreatedAt().isBefore(idleSince) && row.getUsageCount() < minUsage);
+            if (cold || view.graphVersion != graphVersion) {
+                log.info("Dropping %s view %s of intent %s", cold ? "cold" : "outdated", view.viewName,
+                        view.intent.getName());
+                drop(view, row);
+                continue;
+            }
+
+            try {
+                // Cleared first, so a write during the refresh keeps it stale
+                view.stale = false;
+                refresh(view);
+                save(row);
+            } catch (RuntimeException e) {
+                log.error("Failed to refresh view %s, dropping it: %s", view.viewName, e.getMessage(), e);
+                drop(view, row);
+            }
+        }
+    }
+
+    /**
+     * Materializes the most used intents, up to the configured number of views.
+     */
+    private void createViews(long graphVersion, Map<String, AcoMaterializedView> rows) {
+        Swarm swarm = Swarm.active();
+        List<Candidate> candidates = new ArrayList<>();
+        for (Usage counter : usage.values()) {
+            long executions = counter.executions.sumThenReset();
+            if (counter.unsupported || executions < minUsage || views.containsKey(IntentKey.of(counter.intent)))
+                continue;
+            CompiledIntentJPQL compiled = counter.intent.getCompiledJPQL();
+            double pheromone = swarm != null && compiled != null ? swarm.getPathPheromone(compiled.joinPath())
+                    : 0;
+            candidates.add(new Candidate(counter, executions * (pheromone > 0 ? pheromone : 1)));
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+
+        for (Candidate next : candidates) {
+            if (views.size() >= maxViews)
+                return;
+            Usage candidate = next.usage();
+            try {
+                View view = define(candidate.intent, graphVersion);
+                if (view == null) {
+                    log.debug("Intent %s cannot be materialized", candidate.intent.getName());
+                    candidate.unsupported = true;
+                    continue;
+                }
+                AcoMaterializedView stale = rows.remove(view.viewName);
+                if (stale != null && viewRepository != null)
+                    viewRepository.delete(stale);
+                create(view);
+                save(newRow(view));
+                views.put(IntentKey.of(candidate.intent), view);
+                log.info("Materialized intent %s as %s", candidate.intent.getName(), view.viewName);
+            } catch (RuntimeException e) {
+                log.error("Failed to materialize intent %s: %s", candidate.intent.getName(), e.getMessage(), e);
+                candidate.unsupported = true;
+            }
+        }
+    }
+
+    /**
+     * Translates the JPQL of an intent to SQL and maps its ORDER BY to view
+     * columns.
+     *
+     * @return the view, {@code null} if the intent cannot be materialized
+     */
+    private View define(IntentMeta intent, long graphVersion) {
+        List<SelectAttributeMeta> attributes = intent.getSelectAttributes();
+        String orderBy = orderBy(intent);
+        if (orderBy == null)
+            return null;
+
+        String jpql = IntentToJPQLTransformer.toCachedJPQL(intent, registry);
+        CompiledIntentJPQL compiled = intent.getCompiledJPQL();
+        EntityManager em = emf.createEntityManager();
+        try {
+            AcoQueryTranslator.Translation translation = AcoQueryTranslator.translate(em, jpql);
+            // Entity valued attributes expand to several columns
+            List<SqlSelection> selections = translation.ast().getQuerySpec().getSelectClause().getSqlSelections();
+            if (selections.size() != attributes.size())
+                return null;
+            List<BasicType<?>> columnTypes = new ArrayList<>(selections.size());
+            for (SqlSelection selection : selections) {
+                JdbcMapping mapping = selection.getExpressionType().getSingleJdbcMapping();
+                if (!(mapping instanceof BasicType<?> type))
+                    return null;
+                columnTypes.add(type);
+            }
+            JdbcOperationQuerySelect select = translation.render();
+            if (!select.getParameterBinders().isEmpty())
+                return null;
+
+            StringBuilder columns = new StringBuilder();
+            for (int i = 0; i < attributes.size(); i++) {
+                if (i > 0)
+                    columns.append(", ");
+                columns.append('c').append(i);
+            }
+            return new View(intent, viewName(intent), graphVersion, select.getSqlString(), columns.toString(),
+                    orderBy, List.copyOf(columnTypes), compiled != null ? compiled.joinPath() : List.of());
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * ORDER BY of the view query, naming the columns of the sort attributes.
+     *
+     * @return the clause, empty when the intent is unsorted, {@code null} if it
+     *         sorts by an attribute it does not select
+     */
+    private static String orderBy(IntentMeta intent) {
+        if (intent.getSortBy() == null || intent.getSortBy().isEmpty())
+            return "";
+        List<SelectAttributeMeta> attributes = intent.getSelectAttributes();
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+        for (String sort : intent.getSortBy()) {
+            String[] parts = sort.trim().split("\\s+", 2);
+            int column = -1;
+            for (int i = 0; i < attributes.size() && column < 0; i++) {
+                SelectAttributeMeta attribute = attributes.get(i);
+                if (parts[0].equals(attribute.getAlias() + "." + attribute.getField())
+                        || parts[0].equals(attribute.getAliasAs()))
+                    column = i;
+            }
+            if (column < 0)
+                return null;
+            if (orderBy.length() > " ORDER BY ".length())
+                orderBy.append(", ");
+            orderBy.append('c').append(column);
+            if (parts.length > 1)
+                orderBy.append(' ').append(parts[1]);
+        }
+        return orderBy.toString();
+    }
+
+    /**
+     * Lower case names of the resources an intent reads: its root, its joins and
+     * the intermediate resources of its join path.
+     */
+    private static Set<String> resourcesOf(IntentMeta intent, List<XRelationshipMetadata> joinPath) {
+        Set<String> resources = new HashSet<>();
+        if (intent.getRootResource() != null)
+            resources.add(intent.getRootResource().toLowerCase(Locale.ROOT));
+        for (JoinMeta join : intent.getJoins()) {
+            resources.add(join.getResource().toLowerCase(Locale.ROOT));
+        }
+        for (XRelationshipMetadata relationship : joinPath) {
+            resources.add(relationship.getSourceTable().toLowerCase(Locale.ROOT));
+            resources.add(relationship.getTargetTable().toLowerCase(Locale.ROOT));
+        }
+        return Set.copyOf(resources);
+    }
+
+    private void create(View view) {
+        String ddl = nativeViews
+                ? "CREATE MATERIALIZED VIEW " + view.viewName + " (" + view.columns + ") AS " + view.sql
+                : "CREATE TABLE " + view.viewName + " (" + view.columns + ") AS " + view.sql;
+        execute(em -> em.createNativeQuery(ddl).executeUpdate());
+    }
+
+    private void refresh(View view) {
+        if (nativeViews) {
+            execute(em -> em.createNativeQuery("REFRESH MATERIALIZED VIEW " + view.viewName).executeUpdate());
+            return;
+        }
+        execute(em -> {
+            em.createNativeQuery("DELETE FROM " + view.viewName).executeUpdate();
+            em.createNativeQuery("INSERT INTO " + view.viewName + " (" + view.columns + ") " + view.sql)
+                    .executeUpdate();
+        });
+    }
+
+    private void drop(View view, AcoMaterializedView row) {
+        views.remove(IntentKey.of(view.intent), view);
+        try {
+            dropView(view.viewName);
+            if (viewRepository != null && row.getId() != null)
+                viewRepository.delete(row);
+        } catch (RuntimeException e) {
+            log.error("Failed to drop view %s: %s", view.viewName, e.getMessage(), e);
+        }
+    }
+
+    private void dropView(String viewName) {
+        execute(em -> em.createNativeQuery(
+                (nativeViews ? "DROP MATERIALIZED VIEW IF EXISTS " : "DROP TABLE IF EXISTS ") + viewName)
+                .executeUpdate());
+    }
+
+    /**
+     * Drops the views recorded by a previous run; which intent they belong to
+     * is not persisted, so usage has to be learnt again.
+     */
+    private void dropLeftovers() {
+        if (viewRepository == null)
+            return;
+        try {
+            for (AcoMaterializedView row : viewRepository.findAll()) {
+                if (!row.getViewName().startsWith(VIEW_PREFIX))
+                    continue;
+                dropView(row.getViewName());
+                viewRepository.delete(row);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to drop leftover materialized views: %s", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs DDL or DML in a transaction of its own.
+     */
+    private void execute(Consumer<EntityManager> work) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            work.accept(em);
+            tx.commit();
+        } finally {
+            if (tx.isActive())
+                tx.rollback();
+            em.close();
+        }
+    }
+
+    private void save(AcoMaterializedView row) {
+        if (viewRepository != null)
+            viewRepository.save(row);
+    }
+
+    private static AcoMaterializedView newRow(View view) {
+        AcoMaterializedView row = new AcoMaterializedView();
+        row.setViewName(view.viewName);
+        row.setDefinition(view.sql);
+        return row;
+    }
+
+    /**
+     * Name of the view of an intent; stable across runs and short enough for
+     * PostgreSQL identifiers.
+     */
+    private static String viewName(IntentMeta intent) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(
+                    (intent.getEntityClass().getName() + "#" + intent.getName()).getBytes(StandardCharsets.UTF_8));
+            return VIEW_PREFIX + HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.xresource.core.aco;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.spi.QueryOptions;
+import org.hibernate.query.sqm.internal.QuerySqmImpl;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.hibernate.sql.ast.tree.select.SelectStatement;
+import org.hibernate.sql.exec.spi.JdbcOperationQuerySelect;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Translates JPQL to Hibernate's SQL AST, the tree it renders SQL from. Table
+ * and column names in the tree are resolved against the mapping, which makes
+ * it the reliable way to learn what a JPQL query does in the database.
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+final class AcoQueryTranslator {
+
+    private AcoQueryTranslator() {
+    }
+
+    /**
+     * A translated select query.
+     *
+     * @param factory session factory the query was translated with
+     * @param ast     the SQL AST
+     * @param options options of the query, needed to render it
+     */
+    record Translation(SessionFactoryImplementor factory, SelectStatement ast, QueryOptions options) {
+
+        /**
+         * @return the query rendered for the dialect, with {@code ?} in place of
+         *         parameters
+         */
+        JdbcOperationQuerySelect render() {
+            return factory.getJdbcServices().getJdbcEnvironment().getSqlAstTranslatorFactory()
+                    .buildSelectTranslator(factory, ast).translate(null, options);
+        }
+    }
+
+    /**
+     * Translates a select query; parameters are left unbound.
+     *
+     * @param em  entity manager of the persistence unit the query is written
+     *            for
+     * @param jpql the query
+     */
+    static Translation translate(EntityManager em, String jpql) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        QuerySqmImpl<?> query = em.unwrap(Session.class).createQuery(jpql, Object[].class)
+                .unwrap(QuerySqmImpl.class);
+        SelectStatement ast = factory.getQueryEngine().getSqmTranslatorFactory()
+                .createSelectTranslator((SqmSelectStatement<?>) query.getSqmStatement(), query.getQueryOptions(),
+                        query.getDomainParameterXref(), query.getQueryParameterBindings(),
+                        session.getLoadQueryInfluencers(), factory, false)
+                .translate().getSqlAst();
+        return new Translation(factory, ast, query.getQueryOptions());
+    }
+}
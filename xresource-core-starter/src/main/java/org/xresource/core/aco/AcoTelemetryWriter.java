@@ -0,0 +1,186 @@
+package org.xresource.core.aco;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the state of the ant colony to the ACO datasource with plain JDBC
+ * batches: one set-based statement for pheromone evaporation, one batch of
+ * updates for the edges that changed, one batch of inserts for new edges and
+ * one for the path statistics, all in a single transaction per flush.
+ *
+ * <p>
+ * The ACO tables use identity keys, which keeps Hibernate from batching their
+ * inserts; writing through JDBC keeps a flush at a handful of round trips
+ * however many edges and paths it carries.
+ * </p>
+ *
+ * <p>
+ * Several instances may share the ACO datasource. Evaporation only applies to
+ * rows that did not decay within the last update interval, so every row
+ * evaporates once per interval however many instances flush. Path
+ * statistics older than the retention are deleted by every flush.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+final class AcoTelemetryWriter {
+
+    private static final String DECAY = "UPDATE aco_schema_graph_edge"
+            + " SET pheromone_level = GREATEST(pheromone_level * ?, ?), last_decay = ? WHERE last_decay <= ?";
+
+    private static final String UPDATE_EDGE = "UPDATE aco_schema_graph_edge SET join_condition = ?, join_hash = ?,"
+            + " hash_updated = ?, pheromone_level = ?, latency = ?, last_decay = ? WHERE id = ?";
+
+    private static final String INSERT_EDGE = "INSERT INTO aco_schema_graph_edge (from_table, to_table,"
+            + " join_condition, join_hash, hash_updated, pheromone_level, latency, last_decay)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_EDGE_IDS = "SELECT id, from_table, to_table FROM aco_schema_graph_edge";
+
+    private static final String DELETE_EXPIRED_PATHS = "DELETE FROM aco_path_request WHERE request_time < ?";
+
+    private static final String INSERT_PATH = "INSERT INTO aco_path_request (request_time, path, cost,"
+            + " pheromone_contribution, materialized_view_created) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long updateIntervalSeconds;
+    private final long pathRetentionSeconds;
+
+    /**
+     * An {@code aco_schema_graph_edge} row to write.
+     *
+     * @param id the row id, {@code null} if the edge was never written
+     */
+    record EdgeRow(Integer id, String fromTable, String toTable, String joinCondition, String joinHash,
+            boolean hashUpdated, double pheromone, double latency) {
+    }
+
+    /**
+     * An {@code aco_path_request} row to insert.
+     */
+    record PathRow(String path, double cost, double pheromoneContribution, boolean materializedViewCreated) {
+    }
+
+    /**
+     * @param dataSource            the ACO datasource
+     * @param updateIntervalSeconds seconds between two evaporations of a row
+     * @param pathRetentionSeconds  seconds {@code aco_path_request} rows are
+     *                              kept, {@code 0} to keep them forever
+     */
+    AcoTelemetryWriter(DataSource dataSource, long updateIntervalSeconds, long pathRetentionSeconds) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.updateIntervalSeconds = updateIntervalSeconds;
+        this.pathRetentionSeconds = pathRetentionSeconds;
+    }
+
+    /**
+     * Evaporates the pheromone of every persisted edge not evaporated within
+     * the last update interval, then writes the given edges (which carry their
+     * pheromone after evaporation) and path statistics, and deletes expired
+     * path statistics.
+     *
+     * @param retained     share of pheromone left after evaporation
+     * @param minPheromone lower bound of the pheromone of an edge
+     * @param edges        edges whose state changed beyond evaporation
+     * @param paths        path statistics to insert
+     * @return ids of the edge rows, by {@link #edgeKey(String, String)}, when
+     *         new edges were inserted; otherwise empty
+     */
+    Map<String, Integer> flush(double retained, double minPheromone, List<EdgeRow> edges, List<PathRow> paths) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime time = LocalDateTime.now();
+            Timestamp now = Timestamp.valueOf(time);
+            jdbcTemplate.update(DECAY, retained, minPheromone, now,
+                    Timestamp.valueOf(time.minusSeconds(updateIntervalSeconds)));
+
+            List<EdgeRow> updates = new ArrayList<>();
+            List<EdgeRow> inserts = new ArrayList<>();
+            Map<String, Integer> ids = new HashMap<>();
+            for (EdgeRow edge : edges) {
+                (edge.id() != null ? updates : inserts).add(edge);
+            }
+            if (!inserts.isEmpty()) {
+                // Rows may exist without the colony knowing their id, e.g.
+                // written by another instance
+                ids = edgeIds();
+                List<EdgeRow> missing = new ArrayList<>();
+                for (EdgeRow edge : inserts) {
+                    Integer id = ids.get(edgeKey(edge.fromTable(), edge.toTable()));
+                    if (id != null)
+                        updates.add(withId(edge, id));
+                    else
+                        missing.add(edge);
+                }
+                inserts = missing;
+            }
+
+            jdbcTemplate.batchUpdate(UPDATE_EDGE, updates, updates.size(), (ps, edge) -> {
+                ps.setString(1, edge.joinCondition());
+                ps.setString(2, edge.joinHash());
+                ps.setBoolean(3, edge.hashUpdated());
+                ps.setDouble(4, edge.pheromone());
+                ps.setDouble(5, edge.latency());
+                ps.setTimestamp(6, now);
+                ps.setInt(7, edge.id());
+            });
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_EDGE, inserts, inserts.size(), (ps, edge) -> {
+                    ps.setString(1, edge.fromTable());
+                    ps.setString(2, edge.toTable());
+                    ps.setString(3, edge.joinCondition());
+                    ps.setString(4, edge.joinHash());
+                    ps.setBoolean(5, edge.hashUpdated());
+                    ps.setDouble(6, edge.pheromone());
+                    ps.setDouble(7, edge.latency());
+                    ps.setTimestamp(8, now);
+                });
+                ids = edgeIds();
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_PATH, paths, paths.size(), (ps, path) -> {
+                ps.setTimestamp(1, now);
+                ps.setString(2, path.path());
+                ps.setDouble(3, path.cost());
+                ps.setDouble(4, path.pheromoneContribution());
+                ps.setBoolean(5, path.materializedViewCreated());
+            });
+            if (pathRetentionSeconds > 0)
+                jdbcTemplate.update(DELETE_EXPIRED_PATHS, Timestamp.valueOf(time.minusSeconds(pathRetentionSeconds)));
+            return ids;
+        });
+    }
+
+    /**
+     * Key of an edge row in the maps returned by {@link #flush}.
+     */
+    static String edgeKey(String fromTable, String toTable) {
+        return fromTable + "\u0000" + toTable;
+    }
+
+    private Map<String, Integer> edgeIds() {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query(SELECT_EDGE_IDS, rs -> {
+            ids.put(edgeKey(rs.getString("from_table"), rs.getString("to_table")), rs.getInt("id"));
+        });
+        return ids;
+    }
+
+    private static EdgeRow withId(EdgeRow edge, int id) {
+        return new EdgeRow(id, edge.fromTable(), edge.toTable(), edge.joinCondition(), edge.joinHash(),
+                edge.hashUpdated(), edge.pheromone(), edge.latency());
+    }
+}
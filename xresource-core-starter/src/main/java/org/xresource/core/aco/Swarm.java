@@ -1,5 +1,689 @@
 package org.xresource.core.aco;
 
-public class Swarm {
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_ANTS;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_EVAPORATION_RATE;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_PATH_REQUEST_RETENTION;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_PATH_STEERING;
+import static org.xresource.internal.config.XResourceConfigProperties.ACO_UPDATE_INTERVAL;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.xresource.core.aco.AcoTelemetryWriter.EdgeRow;
+import org.xresource.core.aco.AcoTelemetryWriter.PathRow;
+import org.xresource.core.aco.entity.AcoSchemaGraphEdge;
+import org.xresource.core.aco.repository.AcoSchemaGraphEdgeRepository;
+import org.xresource.core.logging.XLogger;
+import org.xresource.internal.models.XRelationshipMetadata;
+import org.xresource.internal.models.XResourceGraph;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.internal.util.XResourceGraphBuilder;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ant colony optimizer for intent join paths.
+ *
+ * <p>
+ * Every execution of an intent reports its measured latency together with the
+ * foreign keys its joins traverse ({@link #recordExecution(List, long)}). The
+ * report is only added to lock-free counters kept per join path; a single
+ * background thread drains the counters every
+ * {@code xresource.aco.update-interval} seconds:
+ * </p>
+ * <ol>
+ * <li>each traversed edge's latency estimate moves towards its share of the
+ * mean measured latency, and pheromone inversely proportional to the latency
+ * is deposited on it for every execution;</li>
+ * <li>pheromone on every edge evaporates by
+ * {@code xresource.aco.evaporation-rate};</li>
+ * <li>for every pair of resources an intent had to join through intermediate
+ * resources, {@code xresource.aco.ants} ants walk from one to the other along
+ * the paths with the fewest hops,
+ * choosing each step with probability proportional to
+ * {@code pheromone^ALPHA * (1 / latency)^BETA}, and the cheapest complete walk
+ * becomes the preferred join path of the pair once it is cheaper than the
+ * current one by {@value #SWITCH_MARGIN} of its cost. Edges no execution has
+ * traversed yet are estimated at the mean latency of the measured edges;</li>
+ * <li>evaporation is applied to {@code aco_schema_graph_edge} by a single
+ * update of all rows not evaporated within the interval, by this or another
+ * instance; the edges that changed otherwise are written in one JDBC batch,
+ * and per-path statistics in another to {@code aco_path_request}, which keeps
+ * them for {@code xresource.aco.path-request-retention} seconds.</li>
+ * </ol>
+ *
+ * <p>
+ * Preferred paths are published as an immutable ranking, read without locking
+ * by {@code IntentToJPQLTransformer} through {@link #getPreferredPath}. The
+ * ranking carries a revision that changes whenever a preferred path changes,
+ * so compiled intent JPQL is regenerated for the new path.
+ * </p>
+ *
+ * <p>
+ * Join paths are only steered with {@code xresource.aco.path-steering}
+ * enabled. Two shortest paths between the same resources may join different
+ * rows, so with steering on the rows an intent returns can change when its
+ * preferred path does; only enable it when the alternative foreign key paths
+ * of the joined resources are equivalent. Without it, the swarm still
+ * collects latency and pheromone for the materialized view and index
+ * advisors.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class Swarm implements ApplicationRunner {
+
+    private static final XLogger log = XLogger.forClass(Swarm.class);
+
+    /** Pheromone of an edge nothing is known about, as in the table default. */
+    private static final double INITIAL_PHEROMONE = 0.1;
+    /** Lower bound that keeps every edge reachable for exploring ants. */
+    private static final double MIN_PHEROMONE = 0.001;
+    /**
+     * Latency estimate of every edge while no edge has been measured; unmeasured
+     * edges are otherwise estimated at the mean of the measured ones.
+     */
+    private static final double DEFAULT_LATENCY = 1.0;
+    /** Weight of a new sample in the per-edge latency moving average. */
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final double ALPHA = 1.0;
+    private static final double BETA = 2.0;
+    /**
+     * Fraction by which a new walk must be cheaper than the preferred path of a
+     * pair to replace it, so noise in the estimates does not flip paths.
+     */
+    private static final double SWITCH_MARGIN = 0.15;
+    /** Distinct join paths counted between two updates, others are dropped. */
+    private static final int MAX_PENDING_PATHS = 1024;
+
+    private static volatile Swarm active;
+
+    @Autowired
+    private XResourceMetadataRegistry registry;
+
+    @Autowired(required = false)
+    private AcoSchemaGraphEdgeRepository edgeRepository;
+
+    @Autowired(required = false)
+    @Qualifier("acoDataSource")
+    private DataSource acoDataSource;
+
+    @Autowired(required = false)
+    private AcoMaterializedViewManager materializedViews;
+
+    @Value(ACO_EVAPORATION_RATE)
+    private double evaporationRate;
+
+    @Value(ACO_UPDATE_INTERVAL)
+    private long updateIntervalSeconds;
+
+    @Value(ACO_ANTS)
+    private int ants;
+
+    @Value(ACO_PATH_STEERING)
+    private boolean pathSteering;
+
+    @Value(ACO_PATH_REQUEST_RETENTION)
+    private long pathRetentionSeconds;
+
+    private final Map<List<XRelationshipMetadata>, Executions> executions = new ConcurrentHashMap<>();
+    private final Set<ResourcePair> requestedPairs = ConcurrentHashMap.newKeySet();
+
+    private volatile Ranking ranking;
+
+    /** Pheromone per edge as of the last update, for readers off the update thread. */
+    private volatile PheromoneLevels pheromoneLevels;
+
+    /** Edge state, only touched by the update thread. */
+    private Colony colony;
+    private AcoTelemetryWriter writer;
+    private final SplittableRandom random = new SplittableRandom();
+
+    private ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Executions of one join path since the last update.
+     */
+    private static final class Executions {
+        final LongAdder count = new LongAdder();
+        final DoubleAdder totalMillis = new DoubleAdder();
+        final DoubleAdder deposit = new DoubleAdder();
+    }
+
+    private record ResourcePair(String from, String to) {
+    }
+
+    /**
+     * Preferred join paths of one graph version.
+     */
+    private record Ranking(long graphVersion, long revision, Map<ResourcePair, List<XRelationshipMetadata>> paths) {
+    }
+
+    private record PheromoneLevels(AcoGraph graph, double[] pheromone) {
+    }
+
+    /**
+     * Pheromone and latency per edge of an {@link AcoGraph}, and the executions
+     * seen since the last update, by path.
+     */
+    private static final class Colony {
+        final AcoGraph graph;
+        final double[] pheromone;
+        final double[] latency;
+        /** Edges with a latency sample, measured or persisted. */
+        final boolean[] measured;
+        final Integer[] persistedIds;
+        final boolean[] hashUpdated;
+        /** Edges whose state changed beyond the evaporation of the last update. */
+        final boolean[] dirty;
+        final Map<String, PathStats> pathStats = new LinkedHashMap<>();
+
+        Colony(AcoGraph graph) {
+            this.graph = graph;
+            this.pheromone = new double[graph.edgeCount()];
+            this.latency = new double[graph.edgeCount()];
+            this.measured = new boolean[graph.edgeCount()];
+            this.persistedIds = new Integer[graph.edgeCount()];
+            this.hashUpdated = new boolean[graph.edgeCount()];
+            this.dirty = new boolean[graph.edgeCount()];
+            Arrays.fill(pheromone, INITIAL_PHEROMONE);
+            Arrays.fill(hashUpdated, true);
+            Arrays.fill(dirty, true);
+        }
+    }
+
+    private static final class PathStats {
+        final List<XRelationshipMetadata> path;
+        long executions;
+        double totalCost;
+        double totalDeposit;
+
+        PathStats(List<XRelationshipMetadata> path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * @return the running optimizer, {@code null} when ACO is disabled or not
+     *         started yet
+     */
+    public static Swarm active() {
+        return active;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (acoDataSource != null)
+            writer = new AcoTelemetryWriter(acoDataSource, updateIntervalSeconds, pathRetentionSeconds);
+        colony = loadColony(AcoGraph.of(XResourceGraphBuilder.getResourceGraph(registry)));
+        ranking = new Ranking(colony.graph.getVersion(), 0, Collections.emptyMap());
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("xresource-aco-");
+        threadFactory.setDaemon(true);
+        executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+        executor.scheduleWithFixedDelay(this::update, updateIntervalSeconds, updateIntervalSeconds,
+                TimeUnit.SECONDS);
+        active = this;
+        log.info("ACO swarm started on %s resources and %s edges", colony.graph.size(),
+                colony.graph.edgeCount());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (active == this)
+            active = null;
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Counts the measured latency of an intent execution; cheap enough to call
+     * on every execution. Executions of a path not seen since the last update
+     * are dropped once {@value #MAX_PENDING_PATHS} paths are being counted.
+     *
+     * @param path         foreign keys joined by the intent
+     * @param elapsedNanos execution time of the query
+     */
+    public void recordExecution(List<XRelationshipMetadata> path, long elapsedNanos) {
+        if (path.isEmpty())
+            return;
+        Executions counters = executions.get(path);
+        if (counters == null) {
+            if (executions.size() >= MAX_PENDING_PATHS)
+                return;
+            counters = executions.computeIfAbsent(path, k -> new Executions());
+        }
+        double cost = Math.max(elapsedNanos / 1_000_000.0, 0.001);
+        counters.totalMillis.add(cost);
+        counters.deposit.add(1.0 / cost);
+        counters.count.increment();
+    }
+
+    /**
+     * Returns the best ranked join path between two resources and registers the
+     * pair for ranking by the next update.
+     *
+     * @param graph graph the caller builds its joins from
+     * @param from  resource already joined
+     * @param to    resource to join
+     * @return the foreign keys to join through, one of the paths with the
+     *         fewest hops; {@code null} when path steering is disabled or the
+     *         pair has not been ranked for {@code graph} yet
+     */
+    public List<XRelationshipMetadata> getPreferredPath(XResourceGraph graph, String from, String to) {
+        if (!pathSteering)
+            return null;
+        ResourcePair pair = new ResourcePair(from, to);
+        requestedPairs.add(pair);
+        Ranking current = ranking;
+        if (current == null || current.graphVersion() != graph.getVersion())
+            return null;
+        return current.paths().get(pair);
+    }
+
+    /**
+     * @return revision of the published ranking, changes whenever a preferred
+     *         path does
+     */
+    public long getRevision() {
+        Ranking current = ranking;
+        return current != null ? current.revision() : 0;
+    }
+
+    /**
+     * @return the pheromone on the foreign keys of a join path, summed, as of
+     *         the last update; 0 for foreign keys the colony does not know
+     */
+    public double getPathPheromone(List<XRelationshipMetadata> path) {
+        PheromoneLevels levels = pheromoneLevels;
+        if (levels == null)
+            return 0;
+        double total = 0;
+        for (XRelationshipMetadata relationship : path) {
+            int edge = levels.graph().edgeOf(relationship);
+            if (edge >= 0)
+                total += levels.pheromone()[edge];
+        }
+        return total;
+    }
+
+    private void update() {
+        try {
+            XResourceGraph graph = XResourceGraphBuilder.getResourceGraph(registry);
+            if (graph.getVersion() != colony.graph.getVersion()) {
+                log.info("Resource graph changed, rebuilding ACO graph");
+                colony = loadColony(AcoGraph.of(graph));
+            }
+            depositObservations();
+            evaporate();
+            pheromoneLevels = new PheromoneLevels(colony.graph, colony.pheromone.clone());
+            rank();
+            persist();
+        } catch (RuntimeException e) {
+            log.error("ACO update failed: %s", e.getMessage(), e);
+        }
+    }
+
+    private void depositObservations() {
+        int[] edges = new int[0];
+        for (Map.Entry<List<XRelationshipMetadata>, Executions> entry : executions.entrySet()) {
+            List<XRelationshipMetadata> path = entry.getKey();
+            Executions counters = entry.getValue();
+            long count = counters.count.sumThenReset();
+            double totalMillis = counters.totalMillis.sumThenReset();
+            double deposit = counters.deposit.sumThenReset();
+            if (count == 0) {
+                // Idle for a whole interval; an execution racing with the
+                // removal is lost, which the averages absorb
+                executions.remove(path, counters);
+                continue;
+            }
+
+            if (edges.length < path.size())
+                edges = new int[path.size()];
+            int edgeCount = 0;
+            for (XRelationshipMetadata relationship : path) {
+                int edge = colony.graph.edgeOf(relationship);
+                if (edge >= 0)
+                    edges[edgeCount++] = edge;
+            }
+            if (edgeCount == 0)
+                continue;
+
+            // Same as applying the moving average once per execution with
+            // the mean latency
+            double share = totalMillis / count / edgeCount;
+            double weight = 1.0 - Math.pow(1.0 - LATENCY_SMOOTHING, count);
+            for (int i = 0; i < edgeCount; i++) {
+                int edge = edges[i];
+                if (colony.measured[edge]) {
+                    colony.latency[edge] += weight * (share - colony.latency[edge]);
+                } else {
+                    colony.latency[edge] = share;
+                    colony.measured[edge] = true;
+                }
+                colony.pheromone[edge] += deposit;
+                colony.dirty[edge] = true;
+            }
+
+            PathStats stats = colony.pathStats.computeIfAbsent(pathKey(path), k -> new PathStats(path));
+            stats.executions += count;
+            stats.totalCost += totalMillis;
+            stats.totalDeposit += deposit * edgeCount;
+        }
+    }
+
+    private void evaporate() {
+        double retained = 1.0 - evaporationRate;
+        for (int edge = 0; edge < colony.pheromone.length; edge++) {
+            colony.pheromone[edge] = Math.max(MIN_PHEROMONE, colony.pheromone[edge] * retained);
+        }
+    }
+
+    private void rank() {
+        Ranking previous = ranking;
+        AcoGraph graph = colony.graph;
+        boolean sameGraph = previous.graphVersion() == graph.getVersion();
+        boolean changed = !sameGraph;
+        Map<ResourcePair, List<XRelationshipMetadata>> paths = new HashMap<>();
+        double[] estimates = latencyEstimates();
+
+        for (ResourcePair pair : requestedPairs) {
+            int from = graph.indexOf(pair.from());
+            int to = graph.indexOf(pair.to());
+            if (from < 0 || to < 0 || from == to)
+                continue;
+            int shortest = hopDistance(graph, from, to);
+            if (shortest < 0)
+                continue;
+
+            int[] best = null;
+            double bestCost = Double.MAX_VALUE;
+            for (int ant = 0; ant < ants; ant++) {
+                int[] walk = walk(graph, estimates, from, to, shortest);
+                if (walk != null && cost(estimates, walk) < bestCost) {
+                    best = walk;
+                    bestCost = cost(estimates, walk);
+                }
+            }
+            List<XRelationshipMetadata> incumbent = sameGraph ? previous.paths().get(pair) : null;
+            int[] incumbentEdges = incumbent != null ? toEdges(graph, incumbent) : null;
+            if (incumbentEdges != null
+                    && (best == null || bestCost >= cost(estimates, incumbentEdges) * (1.0 - SWITCH_MARGIN)))
+                best = incumbentEdges;
+            if (best == null)
+                continue;
+
+            List<XRelationshipMetadata> path = new ArrayList<>(best.length);
+            for (int edge : best) {
+                path.add(graph.relationship(edge));
+            }
+            paths.put(pair, Collections.unmodifiableList(path));
+            if (!path.equals(incumbent))
+                changed = true;
+        }
+
+        if (changed || paths.size() != previous.paths().size()) {
+            ranking = new Ranking(graph.getVersion(), previous.revision() + 1, Collections.unmodifiableMap(paths));
+        }
+    }
+
+    /**
+     * Latency estimate of every edge: the moving average of its samples, or the
+     * mean over the sampled edges for an edge without any, so unmeasured edges
+     * are neither favoured nor avoided.
+     */
+    private double[] latencyEstimates() {
+        double total = 0;
+        int sampled = 0;
+        for (int edge = 0; edge < colony.latency.length; edge++) {
+            if (colony.measured[edge]) {
+                total += colony.latency[edge];
+                sampled++;
+            }
+        }
+        double unmeasured = sampled > 0 ? total / sampled : DEFAULT_LATENCY;
+        double[] estimates = new double[colony.latency.length];
+        for (int edge = 0; edge < estimates.length; edge++) {
+            estimates[edge] = colony.measured[edge] ? colony.latency[edge] : unmeasured;
+        }
+        return estimates;
+    }
+
+    /**
+     * One ant walking from {@code from} towards {@code to} without revisiting a
+     * resource.
+     *
+     * @return the edges walked, {@code null} if the ant got stuck or ran out of
+     *         hops
+     */
+    private int[] walk(AcoGraph graph, double[] estimates, int from, int to, int maxHops) {
+        boolean[] visited = new boolean[graph.size()];
+        int[] edges = new int[maxHops];
+        int hops = 0;
+        int node = from;
+        visited[from] = true;
+        while (node != to) {
+            if (hops == maxHops)
+                return null;
+            int[] neighbours = graph.neighbours(node);
+            int[] neighbourEdges = graph.neighbourEdges(node);
+            double[] weights = new double[neighbours.length];
+            double total = 0;
+            for (int i = 0; i < neighbours.length; i++) {
+                if (visited[neighbours[i]])
+                    continue;
+                int edge = neighbourEdges[i];
+                weights[i] = Math.pow(colony.pheromone[edge], ALPHA) * Math.pow(1.0 / estimates[edge], BETA);
+                total += weights[i];
+            }
+            if (total <= 0)
+                return null;
+
+            double pick = random.nextDouble() * total;
+            int choice = -1;
+            for (int i = 0; i < neighbours.length; i++) {
+                if (weights[i] <= 0)
+                    continue;
+                choice = i;
+                pick -= weights[i];
+                if (pick <= 0)
+                    break;
+            }
+            edges[hops++] = neighbourEdges[choice];
+            node = neighbours[choice];
+            visited[node] = true;
+        }
+        return Arrays.copyOf(edges, hops);
+    }
+
+    private static double cost(double[] estimates, int[] edges) {
+        double cost = 0;
+        for (int edge : edges) {
+            cost += estimates[edge];
+        }
+        return cost;
+    }
+
+    private static int[] toEdges(AcoGraph graph, List<XRelationshipMetadata> path) {
+        int[] edges = new int[path.size()];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = graph.edgeOf(path.get(i));
+            if (edges[i] < 0)
+                return null;
+        }
+        return edges;
+    }
+
+    private static int hopDistance(AcoGraph graph, int from, int to) {
+        int[] distance = new int[graph.size()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[graph.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        distance[from] = 0;
+        while (head < tail) {
+            int current = queue[head++];
+            if (current == to)
+                return distance[current];
+            for (int next : graph.neighbours(current)) {
+                if (distance[next] < 0) {
+                    distance[next] = distance[current] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the colony of a graph, seeding pheromone and latency from the
+     * persisted edges whose join condition is unchanged; a persisted latency of
+     * 0 marks an edge without samples. Pheromone evaporates
+     * for the updates missed since the edge last decayed, e.g. while the
+     * application was down.
+     */
+    private Colony loadColony(AcoGraph graph) {
+        Colony loaded = new Colony(graph);
+        if (edgeRepository == null)
+            return loaded;
+        try {
+            double retained = 1.0 - evaporationRate;
+            LocalDateTime now = LocalDateTime.now();
+            Map<String, AcoSchemaGraphEdge> persisted = new HashMap<>();
+            for (AcoSchemaGraphEdge row : edgeRepository.findAll()) {
+                persisted.put(AcoTelemetryWriter.edgeKey(row.getFromTable(), row.getToTable()), row);
+            }
+            for (int edge = 0; edge < graph.edgeCount(); edge++) {
+                XRelationshipMetadata relationship = graph.relationship(edge);
+                AcoSchemaGraphEdge row = persisted
+                        .get(AcoTelemetryWriter.edgeKey(relationship.getSourceTable(), relationship.getTargetTable()));
+                if (row == null)
+                    continue;
+                loaded.persistedIds[edge] = row.getId();
+                if (hash(joinCondition(relationship)).equals(row.getJoinHash())) {
+                    loaded.pheromone[edge] = Math.max(MIN_PHEROMONE,
+                            row.getPheromoneLevel() * Math.pow(retained, missedUpdates(row.getLastDecay(), now)));
+                    if (row.getLatency() > 0) {
+                        loaded.latency[edge] = row.getLatency();
+                        loaded.measured[edge] = true;
+                    }
+                    loaded.hashUpdated[edge] = false;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to load ACO edges: %s", e.getMessage(), e);
+        }
+        return loaded;
+    }
+
+    private long missedUpdates(LocalDateTime lastDecay, LocalDateTime now) {
+        if (lastDecay == null || updateIntervalSeconds <= 0)
+            return 0;
+        return Math.max(0, Duration.between(lastDecay, now).getSeconds() / updateIntervalSeconds);
+    }
+
+    private void persist() {
+        if (writer == null) {
+            colony.pathStats.clear();
+            return;
+        }
+        AcoGraph graph = colony.graph;
+        List<EdgeRow> edges = new ArrayList<>();
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (!colony.dirty[edge])
+                continue;
+            XRelationshipMetadata relationship = graph.relationship(edge);
+            String joinCondition = joinCondition(relationship);
+            edges.add(new EdgeRow(colony.persistedIds[edge], relationship.getSourceTable(),
+                    relationship.getTargetTable(), joinCondition, hash(joinCondition), colony.hashUpdated[edge],
+                    colony.pheromone[edge], colony.latency[edge]));
+        }
+        List<PathRow> paths = new ArrayList<>(colony.pathStats.size());
+        colony.pathStats.forEach((path, stats) -> paths.add(new PathRow(path, stats.totalCost / stats.executions,
+                stats.totalDeposit, materializedViews != null && materializedViews.isMaterialized(stats.path))));
+
+        Map<String, Integer> ids;
+        try {
+            ids = writer.flush(1.0 - evaporationRate, MIN_PHEROMONE, edges, paths);
+        } catch (RuntimeException e) {
+            // Rows missed this evaporation, so rewrite all of them next time
+            Arrays.fill(colony.dirty, true);
+            throw e;
+        }
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (colony.persistedIds[edge] == null) {
+                XRelationshipMetadata relationship = graph.relationship(edge);
+                colony.persistedIds[edge] = ids
+                        .get(AcoTelemetryWriter.edgeKey(relationship.getSourceTable(), relationship.getTargetTable()));
+            }
+        }
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            // A written hash change is cleared by the next write
+            colony.dirty[edge] = colony.hashUpdated[edge];
+            colony.hashUpdated[edge] = false;
+        }
+        colony.pathStats.clear();
+    }
+
+    /**
+     * JSON array of the resources joined by an execution, in join order.
+     */
+    private static String pathKey(List<XRelationshipMetadata> path) {
+        Set<String> resources = new LinkedHashSet<>();
+        for (XRelationshipMetadata relationship : path) {
+            resources.add(relationship.getSourceTable());
+            resources.add(relationship.getTargetTable());
+        }
+        StringBuilder key = new StringBuilder("[");
+        for (String resource : resources) {
+            if (key.length() > 1)
+                key.append(',');
+            key.append('"').append(resource).append('"');
+        }
+        return key.append(']').toString();
+    }
+
+    private static String joinCondition(XRelationshipMetadata relationship) {
+        return relationship.getSourceTable() + "." + relationship.getForeignKeyField() + "="
+                + relationship.getTargetTable() + "." + relationship.getTargetField();
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package org.xresource.core.annotations;
+
+import java.util.Locale;
+
+/**
+ * Strategies used to produce {@code totalElements} for paged responses.
+ *
+ * <ul>
+ * <li>{@link #EXACT} - runs a {@code SELECT COUNT} next to every page query
+ * (default).</li>
+ * <li>{@link #NONE} - no count at all; one extra row is fetched to tell whether
+ * a next page exists.</li>
+ * <li>{@link #CACHED} - exact count, cached per query for a TTL and dropped
+ * when a record of the resource, or of a resource joined by the intent, is
+ * written.</li>
+ * <li>{@link #MAINTAINED} - in-memory counter of the whole resource, seeded
+ * once and kept current by the create/delete hooks. Filtered queries fall
+ * back to {@link #CACHED}.</li>
+ * </ul>
+ *
+ * @see XPageCount
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public enum XCountStrategy {
+    EXACT,
+    NONE,
+    CACHED,
+    MAINTAINED;
+
+    /**
+     * @return the lower case name reported in response envelopes
+     */
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
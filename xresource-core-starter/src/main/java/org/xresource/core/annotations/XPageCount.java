@@ -0,0 +1,50 @@
+package org.xresource.core.annotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Selects how {@code totalElements} is computed for paged responses of a
+ * resource. Can be placed on the repository or the entity class; the
+ * repository wins when both are annotated.
+ *
+ * <p>
+ * A request can still override the strategy with the {@code count} query
+ * parameter (e.g. {@code ?page=3&count=none}).
+ * </p>
+ *
+ * <pre>{@code
+ * &#64;XPageCount(strategy = XCountStrategy.CACHED, ttlSeconds = 300)
+ * public interface AuditLogRepository extends JpaRepository<AuditLog, Long> { }
+ * }</pre>
+ *
+ * @see XCountStrategy
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+@Retention(RUNTIME)
+@Target(TYPE)
+public @interface XPageCount {
+
+    /**
+     * Strategy used for the resource.
+     */
+    XCountStrategy strategy() default XCountStrategy.EXACT;
+
+    /**
+     * Time to live of cached counts, used by {@link XCountStrategy#CACHED}
+     * (and by {@link XCountStrategy#MAINTAINED} for filtered queries). A
+     * negative value falls back to {@code xresource.api.paging.count-cache-ttl}.
+     */
+    long ttlSeconds() default -1;
+
+    /**
+     * Whether exact counts of the resource may run concurrently with the page
+     * query when {@code xresource.api.paging.parallel-count} is enabled. Turn
+     * it off for resources whose counts should not take an extra connection.
+     */
+    boolean parallel() default true;
+}
@@ -0,0 +1,34 @@
+package org.xresource.core.auth;
+
+/**
+ * Marks an {@link XRoleBasedAccessFunction} whose result depends only on its
+ * arguments.
+ * <p>
+ * The framework then evaluates the function once per resource or field and
+ * role list, and reuses the decision for every later request and every
+ * serialized entity with the same roles. Functions that look at anything else
+ * (the current time, the request, the database, a mutable configuration)
+ * must implement {@link XRoleBasedAccessFunction} directly, in which case they
+ * keep being called for every check.
+ * </p>
+ *
+ * <p>
+ * Example:
+ *
+ * <pre>{@code
+ * &#64;Bean
+ * public XAccessEvaluatorDelegate xAccessEvaluatorDelegate() {
+ *     return new XAccessEvaluatorDelegate((XCacheableAccessFunction) (type, level, resource, field, roles) -> {
+ *         return "password".equals(field) ? AccessLevel.NONE : level;
+ *     });
+ * }
+ * }</pre>
+ * </p>
+ *
+ * @see XAccessEvaluatorDelegate
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+@FunctionalInterface
+public interface XCacheableAccessFunction extends XRoleBasedAccessFunction {
+}
@@ -2,13 +2,15 @@ package org.xresource.core.hook;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Registry and executor for XResource lifecycle hooks.
  * <p>
  * Maintains a thread-safe registry of hooks keyed by resource name and event
  * type.
- * Allows dynamic registration and execution of hooks on resource events.
+ * Allows dynamic registration and execution of hooks on resource events; hooks
+ * may be registered while others are being executed.
  * <p>
  * Hooks registered here are executed automatically by the framework at
  * appropriate
@@ -30,8 +32,8 @@ public class XResourceHookRegistry {
      */
     public void registerHook(String resourceName, XResourceEventType eventType, XResourceHook hook) {
         registry
-                .computeIfAbsent(resourceName.toLowerCase(), k -> new EnumMap<>(XResourceEventType.class))
-                .computeIfAbsent(eventType, k -> new ArrayList<>())
+                .computeIfAbsent(resourceName.toLowerCase(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(eventType, k -> new CopyOnWriteArrayList<>())
                 .add(hook);
     }
 
@@ -38,7 +38,8 @@ import lombok.Setter;
 public class XResponseTranformersRegistry {
     /**
      * Transformer applied to all records returned from a `findAll` (GET
-     * /{resourceName}) operation.
+     * /{resourceName}) operation. When the records are streamed as NDJSON, it is
+     * called once per record with a single element list.
      */
     private XResponseTransformer<List<ObjectNode>> findAllTransformer;
 
@@ -68,7 +69,8 @@ public class XResponseTranformersRegistry {
 
     /**
      * Transformer applied to custom query results (GET
-     * /{resourceName}/query/{queryName}).
+     * /{resourceName}/query/{queryName}). When the results are streamed as
+     * NDJSON, it is called once per row with a single element list.
      */
     private XResponseTransformer<List<ObjectNode>> namedQueryTransformer;
 
@@ -3,15 +3,24 @@ package org.xresource.core.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.xresource.core.aco.AcoMaterializedViewManager;
 import org.xresource.core.annotations.AccessLevel;
+import org.xresource.core.annotations.XCountStrategy;
 import org.xresource.core.annotations.XQuery;
 import org.xresource.core.hook.XResourceEventContext;
 import org.xresource.core.hook.XResourceEventType;
 import org.xresource.core.hook.XResourceHookRegistry;
+import org.xresource.internal.query.XCountManager;
+import org.xresource.internal.query.XCountPolicy;
+import org.xresource.internal.query.XKeysetPage;
+import org.xresource.internal.query.XProjection;
 import org.xresource.internal.query.XQueryContextProvider;
 import org.xresource.internal.query.XQueryExecutor;
+import org.xresource.internal.query.XQueryResultCache;
+import org.xresource.internal.query.XQueryTemplate;
 import org.xresource.core.validation.ValidationContext;
 import org.xresource.internal.auth.XAccessManager;
+import org.xresource.internal.context.XSecuritySnapshot;
 import org.xresource.internal.auth.XRoleBasedAccessEvaluator;
 import org.xresource.internal.exception.ResourceNotFoundException;
 import org.xresource.internal.exception.XResourceAlreadyExistsException;
@@ -19,8 +28,8 @@ import org.xresource.internal.exception.XResourceException;
 import org.xresource.internal.models.XFieldMetadata;
 import org.xresource.internal.models.XResourceMetadata;
 import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.internal.util.XEntityAccessor;
 
-import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Id;
@@ -44,9 +53,6 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.query.QueryByExampleExecutor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.lang.reflect.Field;
@@ -57,6 +63,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -83,6 +90,15 @@ public class XResourceService {
     @Autowired
     private XQueryExecutor xQueryExecutor;
 
+    @Autowired
+    private XCountManager countManager;
+
+    @Autowired
+    private XQueryResultCache resultCache;
+
+    @Autowired(required = false)
+    private AcoMaterializedViewManager materializedViews;
+
     @Autowired
     XQueryContextProvider contextProvider;
 
@@ -121,53 +137,82 @@ public class XResourceService {
         return getRepository(resourceName).findAll();
     }
 
-    private List<String> getCurrentUserRoles() {
-        return SecurityContextHolder.getContext().getAuthentication().getAuthorities()
-                .stream()
-                .map(auth -> auth.getAuthority())
-                .collect(Collectors.toList());
-    }
+    /**
+     * Variant of {@link #findAll(String)} that selects only the columns of
+     * {@code projection}.
+     *
+     * @param resourceName the resource to list
+     * @param projection   columns to select, {@code null} to load full entities
+     * @return all (possibly partially populated) records of the resource
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> findAll(String resourceName, XProjection projection) {
+        if (projection == null)
+            return findAll(resourceName);
 
-    public Map<String, Object> getCurrentUserContext() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return Collections.emptyMap();
+        XResourceMetadata metadata = registry.get(resourceName);
+        Map<String, XQuery> autoApplyQueries = Collections.emptyMap();
+        Map<String, Object> context = Collections.emptyMap();
+        if (metadata.isHasAutoApplyQuery()) {
+            autoApplyQueries = getAutoApplyQueriesBasedOnRoles(metadata, getCurrentUserRoles());
+            if (!autoApplyQueries.isEmpty()) {
+                Map<String, Object> userContext = getCurrentUserContext();
+                context = contextProvider.buildContext(userContext, Collections.emptyMap());
+            }
         }
+        return (List<Object>) xQueryExecutor.executeXQueries(metadata.getEntityClass(), autoApplyQueries, context,
+                projection);
+    }
 
-        Map<String, Object> context = new HashMap<>();
-        context.put("loginid", authentication.getName());
-
-        context.put("roles", authentication.getAuthorities()
-                .stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
-
-        Object principal = authentication.getPrincipal();
-
-        // Try to extract properties dynamically (if not just a String username)
-        if (principal != null && !(principal instanceof String)) {
-            for (var method : principal.getClass().getMethods()) {
-                if (method.getParameterCount() == 0 && method.getName().startsWith("get")) {
-                    try {
-                        String propName = Character.toLowerCase(method.getName().charAt(3))
-                                + method.getName().substring(4);
-                        Object value = method.invoke(principal);
-                        context.put(propName, value);
-                    } catch (Exception ignored) {
-                        // skip if inaccessible
-                    }
-                } else if (method.getParameterCount() == 0 && method.getName().startsWith("is")) {
-                    try {
-                        String propName = Character.toLowerCase(method.getName().charAt(2))
-                                + method.getName().substring(3);
-                        Object value = method.invoke(principal);
-                        context.put(propName, value);
-                    } catch (Exception ignored) {
-                        // skip if inaccessible
-                    }
-                }
+    /**
+     * Streams every record of the resource to {@code rowConsumer} without
+     * loading the full result into memory. Auto-apply queries are honoured the
+     * same way as in {@link #findAll(String)}.
+     *
+     * @param resourceName the resource to stream
+     * @param rowConsumer  callback invoked once per entity
+     * @return the number of records streamed
+     */
+    public long streamAll(String resourceName, Consumer<Object> rowConsumer) {
+        return streamAll(resourceName, null, rowConsumer);
+    }
+
+    /**
+     * Variant of {@link #streamAll(String, Consumer)} that selects only the
+     * columns of {@code projection}.
+     *
+     * @param resourceName the resource to stream
+     * @param projection   columns to select, {@code null} to load full entities
+     * @param rowConsumer  callback invoked once per (possibly partially
+     *                     populated) entity
+     * @return the number of records streamed
+     */
+    public long streamAll(String resourceName, XProjection projection, Consumer<Object> rowConsumer) {
+        XResourceMetadata metadata = registry.get(resourceName);
+        Map<String, XQuery> autoApplyQueries = Collections.emptyMap();
+        Map<String, Object> context = Collections.emptyMap();
+        if (metadata.isHasAutoApplyQuery()) {
+            autoApplyQueries = getAutoApplyQueriesBasedOnRoles(metadata, getCurrentUserRoles());
+            if (!autoApplyQueries.isEmpty()) {
+                Map<String, Object> userContext = getCurrentUserContext();
+                context = contextProvider.buildContext(userContext, Collections.emptyMap());
             }
         }
+        return xQueryExecutor.streamXQueries(metadata.getEntityClass(), autoApplyQueries, context, projection,
+                rowConsumer);
+    }
 
-        return context;
+    private List<String> getCurrentUserRoles() {
+        return XSecuritySnapshot.current().getRoles();
+    }
+
+    /**
+     * Returns the login id, roles and principal properties of the current
+     * user, from the {@link XSecuritySnapshot} of the request. The context must
+     * not be modified.
+     */
+    public Map<String, Object> getCurrentUserContext() {
+        return XSecuritySnapshot.current().getUserContext();
     }
 
     public Map<String, XQuery> getAutoApplyQueries(XResourceMetadata metadata) {
@@ -176,28 +221,47 @@ public class XResourceService {
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
+    /**
+     * Returns the auto-apply queries of the resource that apply to any of
+     * {@code userRoles}, memoized per resource and role set.
+     */
     public Map<String, XQuery> getAutoApplyQueriesBasedOnRoles(XResourceMetadata metadata, List<String> userRoles) {
-        return metadata.getXQueriesMap().entrySet().stream()
-                .filter(entry -> {
-                    XQuery query = entry.getValue();
-
-                    if (!query.autoApply())
-                        return false;
+        return metadata.getAutoApplyQueries(userRoles);
+    }
 
-                    String[] applicableRoles = query.appliesToRoles();
-                    if (applicableRoles.length == 1 && "*".equals(applicableRoles[0]))
-                        return true;
-                    if (Arrays.stream(applicableRoles).anyMatch(r -> "*".equals(r)))
-                        return true;
+    public Page<Object> findPaged(String resourceName, int page, int size, String sortBy, String direction) {
+        return findPaged(resourceName, page, size, sortBy, direction, null);
+    }
 
-                    // Check if any user role is included
-                    return userRoles.stream().anyMatch(role -> Arrays.asList(applicableRoles).contains(role));
-                })
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    /**
+     * Paged lookup whose {@code totalElements} is produced according to
+     * {@code countPolicy}. Only exact counts of unfiltered resources go through
+     * the repository; every other strategy is handled by {@link XQueryExecutor}.
+     *
+     * @param resourceName the resource to page through
+     * @param page         page number
+     * @param size         page size
+     * @param sortBy       optional sort field
+     * @param direction    sort direction ("asc" or "desc")
+     * @param countPolicy  how to compute the total, {@code null} for an exact
+     *                     count
+     * @return the requested page
+     */
+    public Page<Object> findPaged(String resourceName, int page, int size, String sortBy, String direction,
+            XCountPolicy countPolicy) {
+        return findPaged(resourceName, page, size, sortBy, direction, countPolicy, null);
     }
 
+    /**
+     * Variant of
+     * {@link #findPaged(String, int, int, String, String, XCountPolicy)} that
+     * selects only the columns of {@code projection}.
+     *
+     * @param projection columns to select, {@code null} to load full entities
+     */
     @SuppressWarnings("unchecked")
-    public Page<Object> findPaged(String resourceName, int page, int size, String sortBy, String direction) {
+    public Page<Object> findPaged(String resourceName, int page, int size, String sortBy, String direction,
+            XCountPolicy countPolicy, XProjection projection) {
         XResourceMetadata metadata = registry.get(resourceName);
 
         if (metadata.isHasAutoApplyQuery()) {
@@ -213,10 +277,18 @@ public class XResourceService {
                         page,
                         size,
                         sortBy,
-                        direction);
+                        direction,
+                        countPolicy,
+                        projection);
             }
         }
 
+        if (projection != null || (countPolicy != null && countPolicy.getStrategy() != XCountStrategy.EXACT)) {
+            return (Page<Object>) xQueryExecutor.executePagedQueries(metadata.getEntityClass(),
+                    Collections.emptyMap(), Collections.emptyMap(), page, size, sortBy, direction, countPolicy,
+                    projection);
+        }
+
         // Fallback to repository-based paging
         if (sortBy != null) {
             Sort sort = Sort.by(Sort.Direction.fromString(direction), sortBy);
@@ -229,6 +301,63 @@ public class XResourceService {
 
     }
 
+    /**
+     * Keyset (cursor) paginated variant of
+     * {@link #findPaged(String, int, int, String, String)}.
+     *
+     * @param resourceName the resource to page through
+     * @param after        cursor of the previous page, blank for the first page
+     * @param size         page size
+     * @param sortBy       optional sort field, the primary key is always used as
+     *                     tie breaker
+     * @param direction    sort direction ("asc" or "desc")
+     * @return the page and the cursor of the next page
+     */
+    @SuppressWarnings("unchecked")
+    public XKeysetPage<Object> findKeyset(String resourceName, String after, int size, String sortBy,
+            String direction) {
+        XResourceMetadata metadata = registry.get(resourceName);
+        Map<String, XQuery> autoApplyQueries = Collections.emptyMap();
+        Map<String, Object> context = Collections.emptyMap();
+
+        if (metadata.isHasAutoApplyQuery()) {
+            autoApplyQueries = getAutoApplyQueriesBasedOnRoles(metadata, getCurrentUserRoles());
+            if (!autoApplyQueries.isEmpty()) {
+                Map<String, Object> userContext = getCurrentUserContext();
+                context = contextProvider.buildContext(userContext, Collections.emptyMap());
+            }
+        }
+
+        return (XKeysetPage<Object>) xQueryExecutor.executeKeysetQueries(metadata.getEntityClass(), metadata,
+                autoApplyQueries, context, after, size, sortBy, direction);
+    }
+
+    /**
+     * Variant of {@link #findById(String, Object)} that selects only the columns
+     * of {@code projection}.
+     *
+     * @param resourceName the resource to look up
+     * @param id           simple primary key value
+     * @param projection   columns to select, {@code null} to load the full entity
+     * @return the (possibly partially populated) record
+     */
+    public Optional<Object> findById(String resourceName, Object id, XProjection projection) {
+        if (projection == null)
+            return findById(resourceName, id);
+
+        XResourceMetadata metadata = registry.get(resourceName);
+        Map<String, XQuery> autoApplyQueries = Collections.emptyMap();
+        Map<String, Object> context = Collections.emptyMap();
+        if (metadata.isHasAutoApplyQuery()) {
+            autoApplyQueries = getAutoApplyQueriesBasedOnRoles(metadata, getCurrentUserRoles());
+            if (!autoApplyQueries.isEmpty()) {
+                Map<String, Object> userContext = getCurrentUserContext();
+                context = contextProvider.buildContext(userContext, Collections.emptyMap());
+            }
+        }
+        return xQueryExecutor.findById(metadata, autoApplyQueries, context, id, projection);
+    }
+
     public Optional<Object> findById(String resourceName, Object id) {
         XResourceMetadata metadata = registry.get(resourceName);
 
@@ -296,25 +425,9 @@ public class XResourceService {
         JpaRepository<Object, Object> repo = getRepository(resourceName);
         Map<String, Object> extra = Map.of(); // Optional hook data
 
-        // Patch non-null values from inputEntity into existingEntity (excluding primary
-        // keys)
-        for (Field field : metadata.getEntityClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                Object value = field.get(inputEntity);
-                if (value != null) {
-                    if (field.isAnnotationPresent(Id.class) || field.isAnnotationPresent(EmbeddedId.class)) {
-                        // Commented for future enhancement:
-                        // if (!metadata.isPrimaryKeyUpdatable(field)) continue;
-                        throw new XResourceException("Can not update primary keys");
-                        // For now, skip primary key fields (no updates allowed)
-                    }
-                    field.set(existingEntity, value);
-                }
-            } catch (IllegalAccessException e) {
-                throw new XResourceException("Failed to patch field: " + field.getName() + "," + e.getMessage());
-            }
-        }
+        // Patch non-null values from inputEntity into existingEntity (primary keys
+        // are rejected)
+        XEntityAccessor.forClass(metadata.getEntityClass()).patchNonNull(existingEntity, inputEntity);
 
         // Fire BEFORE_UPDATE hook
         XResourceEventContext context = new XResourceEventContext(existingEntity,
@@ -363,11 +476,31 @@ public class XResourceService {
     }
 
     public List<Object> saveAll(String resourceName, List<Object> entities) {
-        return getRepository(resourceName).saveAll(entities);
+        try {
+            return getRepository(resourceName).saveAll(entities);
+        } finally {
+            invalidateCaches(resourceName);
+        }
     }
 
     public void deleteAll(String resourceName) {
-        getRepository(resourceName).deleteAll();
+        try {
+            getRepository(resourceName).deleteAll();
+        } finally {
+            invalidateCaches(resourceName);
+        }
+    }
+
+    /**
+     * Bulk writes bypass the hooks, so drop what the hooks would have: cached
+     * counts and cached query results of the resource, and the materialized
+     * views reading it.
+     */
+    private void invalidateCaches(String resourceName) {
+        countManager.invalidate(resourceName);
+        resultCache.invalidate(resourceName);
+        if (materializedViews != null)
+            materializedViews.markStale(resourceName);
     }
 
     public long count(String resourceName) {
@@ -416,8 +549,9 @@ public class XResourceService {
                 }
 
                 // Append XQuery conditions
-                for (XQuery query : autoApplyQueries.values()) {
-                    whereClause.append(" AND (").append(query.where()).append(")");
+                XQueryTemplate template = metadata.getXQueryTemplate(autoApplyQueries.values());
+                if (!template.isUnfiltered()) {
+                    whereClause.append(" AND ").append(template.getPredicate());
                 }
 
                 // Construct full JPQL
@@ -431,23 +565,7 @@ public class XResourceService {
                 }
 
                 // Set dynamic context params from all XQueries
-                for (XQuery query : autoApplyQueries.values()) {
-                    for (String ctxKey : query.contextParams()) {
-                        String paramName = xQueryExecutor.extractParamName(ctxKey);
-                        Object resolvedValue;
-
-                        if (paramName.startsWith("context_loggeduser_")) {
-                            String loggedParam = paramName.substring("context_loggeduser_".length());
-                            resolvedValue = xQueryExecutor.resolveLoggedUserContextValue(loggedParam, context);
-                        } else {
-                            resolvedValue = context.get(paramName);
-                        }
-
-                        if (resolvedValue != null) {
-                            jpaQuery.setParameter(paramName, resolvedValue);
-                        }
-                    }
-                }
+                template.bind(context).forEach(jpaQuery::setParameter);
 
                 List<Object> results = jpaQuery.getResultList();
                 return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
@@ -470,33 +588,8 @@ public class XResourceService {
     }
 
     private Object extractEntityId(Object entity) {
-        Class<?> clazz = entity.getClass();
-
-        // Case 1: @Id on a field
-        for (Field field : clazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Id.class)) {
-                field.setAccessible(true);
-                try {
-                    return field.get(entity);
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException("Cannot access @Id field", e);
-                }
-            }
-        }
-
-        // Case 2: @EmbeddedId
-        for (Field field : clazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(EmbeddedId.class)) {
-                field.setAccessible(true);
-                try {
-                    return field.get(entity);
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException("Cannot access @EmbeddedId field", e);
-                }
-            }
-        }
-
-        return null;
+        // @Id field, else @EmbeddedId field
+        return XEntityAccessor.forEntity(entity).getId(entity);
     }
 
     public List<Map<String, Object>> generateJsonForm(String resourceName, String fieldsCsv) {
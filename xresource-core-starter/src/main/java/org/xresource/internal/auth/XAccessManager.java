@@ -1,38 +1,34 @@
 package org.xresource.internal.auth;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.SerializerProvider;
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 import org.xresource.core.annotations.AccessLevel;
-import org.xresource.core.annotations.XForceAllowResourceRef;
 import org.xresource.core.exception.XValidationException;
+import org.xresource.core.logging.XLogger;
 import org.xresource.core.validation.ValidationContext;
 import org.xresource.core.validation.XValidator;
 import org.xresource.core.validation.XValidatorRegistry;
+import org.xresource.internal.exception.XResourceException;
 import org.xresource.internal.models.ForeignKeyTree;
-import org.xresource.internal.models.XFieldMetadata;
 import org.xresource.internal.models.XResourceMetadata;
 import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.internal.util.XLruCache;
 import org.xresource.internal.util.XResourceLinkResolver;
+import org.xresource.internal.util.XResourceLinkTemplate;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
 import static org.xresource.internal.config.XResourceConfigProperties.ENABLE_ACTION_LINKS;
 
-import java.io.StringWriter;
-import java.lang.reflect.Field;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -59,8 +55,25 @@ public class XAccessManager {
     @Value(ENABLE_ACTION_LINKS)
     private boolean includeActionLinks;
 
+    private final ObjectWriter valueWriter;
+
+    /**
+     * Bounds the compiled plans; role sets are interned per distinct role list,
+     * which the application does not control.
+     */
+    private static final int MAX_PROJECTION_PLANS = 1024;
+
+    private final XLruCache<XProjectionPlan.Key, XProjectionPlan> projectionPlans = new XLruCache<>(
+            MAX_PROJECTION_PLANS);
+
+    private final Map<Class<?>, String> resourceNames = new ConcurrentHashMap<>();
+
+    private static final XLogger log = XLogger.forClass(XAccessManager.class);
+
     public XAccessManager(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        // field values are written mid-document; never flush the target per value
+        this.valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     public ObjectNode filterFieldsByAccess(Object entity, XResourceMetadata metadata, List<String> userRoles,
@@ -75,245 +88,281 @@ public class XAccessManager {
             List<String> userRoles,
             ForeignKeyTree fkTree,
             String baseUrl) {
+        return filterFieldsByAccess(entity, metadata, userRoles, fkTree, baseUrl, null);
+    }
 
-        ObjectNode result = objectMapper.createObjectNode();
-        Map<String, XFieldMetadata> fields = metadata.getFields();
+    /**
+     * Performs recursive access filtering, additionally restricting the top
+     * level fields to the sparse fieldset requested by the client.
+     *
+     * @param fields requested top level fields, {@code null} for all
+     */
+    public ObjectNode filterFieldsByAccess(Object entity, XResourceMetadata metadata,
+            List<String> userRoles,
+            ForeignKeyTree fkTree,
+            String baseUrl,
+            Set<String> fields) {
+        // Render once through the projection plan into a token buffer and read
+        // that back, instead of building one temporary tree per field value.
+        try (TokenBuffer buffer = new TokenBuffer(objectMapper, false)) {
+            writeEntity(buffer, entity, metadata, userRoles, fkTree, baseUrl, null, fields);
+            return objectMapper.readTree(buffer.asParser());
+        } catch (IOException e) {
+            throw new XResourceException("Failed to serialize resource: " + metadata.getResourceName(), e);
+        }
+    }
 
-        for (Map.Entry<String, XFieldMetadata> entry : fields.entrySet()) {
-            String fieldName = entry.getKey();
-            XFieldMetadata fieldMeta = entry.getValue();
-            AccessLevel effectiveAccess = xRoleBasedAccessEvaluator.getFieldEffectiveAccess(userRoles, fieldMeta);
+    /**
+     * Writes the access filtered representation of {@code entity}, followed by
+     * its permalink and URN, directly to {@code generator} without building an
+     * intermediate {@link ObjectNode}. Produces the same document as
+     * {@link #filterFieldsByAccess(Object, XResourceMetadata, List, ForeignKeyTree, String)}
+     * followed by {@link XResourceLinkResolver#injectPermalink}, except that
+     * {@code permalink} and {@code urn} are left out rather than {@code null}
+     * when the URN cannot be computed.
+     *
+     * @param generator    target generator
+     * @param entity       the entity to render
+     * @param resourceName the resource name used for the permalink
+     * @param metadata     metadata of the resource
+     * @param userRoles    roles of the current user
+     * @param fkTree       foreign keys to expand
+     * @param baseUrl      base URL for links
+     * @throws IOException if writing to the generator fails
+     */
+    public void writeFieldsByAccess(JsonGenerator generator, Object entity, String resourceName,
+            XResourceMetadata metadata, List<String> userRoles, ForeignKeyTree fkTree, String baseUrl)
+            throws IOException {
+        writeFieldsByAccess(generator, entity, resourceName, metadata, userRoles, fkTree, baseUrl, null);
+    }
 
-            if (effectiveAccess == AccessLevel.NONE)
-                continue;
+    /**
+     * Variant of
+     * {@link #writeFieldsByAccess(JsonGenerator, Object, String, XResourceMetadata, List, ForeignKeyTree, String)}
+     * that additionally restricts the top level fields to the sparse fieldset
+     * requested by the client.
+     *
+     * @param fields requested top level fields, {@code null} for all
+     * @throws IOException if writing to the generator fails
+     */
+    public void writeFieldsByAccess(JsonGenerator generator, Object entity, String resourceName,
+            XResourceMetadata metadata, List<String> userRoles, ForeignKeyTree fkTree, String baseUrl,
+            Set<String> fields) throws IOException {
+        writeEntity(generator, entity, metadata, userRoles, fkTree, baseUrl, resourceName, fields);
+    }
 
-            Field field = findField(entity.getClass(), fieldName);
-            if (field == null)
+    /**
+     * Resolves the fields of a resource the given roles may read and that the
+     * serializer would render, optionally restricted to a requested sparse
+     * fieldset. This is the set of columns a query has to select.
+     *
+     * @param metadata  the resource
+     * @param userRoles roles of the current user
+     * @param requested fields asked for by the client, {@code null} for all
+     * @return readable field names in declaration order
+     */
+    public Set<String> resolveReadableFields(XResourceMetadata metadata, List<String> userRoles,
+            Set<String> requested) {
+        XProjectionPlan plan = getProjectionPlan(metadata.getEntityClass(), metadata, userRoles);
+        Set<String> readable = new LinkedHashSet<>();
+        List<XProjectionPlan.PlannedField> plannedFields = plan.getFields();
+        for (int i = 0; i < plannedFields.size(); i++) {
+            XProjectionPlan.PlannedField planned = plannedFields.get(i);
+            if (requested != null && !requested.contains(planned.getFieldName()))
                 continue;
+            AccessLevel effectiveAccess = effectiveAccess(plan, i, planned, userRoles);
+            if (effectiveAccess != AccessLevel.NONE)
+                readable.add(planned.getFieldName());
+        }
+        return readable;
+    }
 
-            if (fieldMeta.isHidden())
+    private void writeEntity(JsonGenerator generator, Object entity, XResourceMetadata metadata,
+            List<String> userRoles, ForeignKeyTree fkTree, String baseUrl, String permalinkResource,
+            Set<String> fields) throws IOException {
+        XProjectionPlan plan = getProjectionPlan(entity.getClass(), metadata, userRoles);
+        // URN computed at most once per entity, shared by FK links, actions and permalink
+        XResourceLinkTemplate.Links links = linkResolver.getTemplate(metadata, baseUrl).forEntity(entity);
+
+        generator.writeStartObject();
+        List<XProjectionPlan.PlannedField> plannedFields = plan.getFields();
+        for (int i = 0; i < plannedFields.size(); i++) {
+            XProjectionPlan.PlannedField planned = plannedFields.get(i);
+            if (fields != null && !fields.contains(planned.getFieldName()))
+                continue;
+            AccessLevel effectiveAccess = effectiveAccess(plan, i, planned, userRoles);
+            if (effectiveAccess == AccessLevel.NONE)
                 continue;
 
             try {
-                field.setAccessible(true);
-
-                // Skip if Jackson tells us to
-                if (field.isAnnotationPresent(JsonBackReference.class) || field.isAnnotationPresent(JsonIgnore.class)) {
-                    if (field.isAnnotationPresent(XForceAllowResourceRef.class)) {
-                        // ignore
-                    } else
-                        continue;
-                }
-
-                Object fieldValue = field.get(entity);
-
-                // Skip nulls if @JsonInclude(Include.NON_NULL) is present
-                JsonInclude include = field.getAnnotation(JsonInclude.class);
-                if (include != null && include.value() == JsonInclude.Include.NON_NULL && fieldValue == null) {
-                    continue;
-                }
-
-                // Field rename logic
-                String outputFieldName = fieldName;
-                JsonProperty jsonProp = field.getAnnotation(JsonProperty.class);
-                if (jsonProp != null && !jsonProp.value().isEmpty()) {
-                    outputFieldName = jsonProp.value();
-                }
+                writeField(generator, planned, entity, metadata, userRoles, fkTree, baseUrl, links);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Failed to render field " + planned.getFieldName() + " of resource "
+                        + metadata.getResourceName(), e);
+            }
+        }
 
-                // Check if FK expansion is requested
-                boolean isNestedFkExplicitlyRequested = fkTree.hasChild(fieldName);
-                ForeignKeyTree nestedFkTree = fkTree.getChild(fieldName);
+        if (includeActionLinks) {
+            try {
+                links.writeActions(generator);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Failed to generate actions for " + metadata.getResourceName(), e);
+            }
+        }
 
-                // Handle Hibernate proxy
-                if (fieldValue instanceof HibernateProxy || fieldValue instanceof PersistentCollection) {
-                    if (!isNestedFkExplicitlyRequested) {
+        if (permalinkResource != null) {
+            if (permalinkResource.equals(metadata.getResourceName()))
+                linkResolver.writePermalink(generator, links);
+            else
+                linkResolver.writePermalink(generator, entity, permalinkResource, metadata, baseUrl);
+        }
 
-                        Class<?> fieldValueRealClazz = fieldValue instanceof HibernateProxy
-                                ? ((HibernateProxy) fieldValue)
-                                        .getHibernateLazyInitializer()
-                                        .getPersistentClass()
-                                : ((PersistentCollection<?>) fieldValue).getOwner().getClass();
-                        if (fieldValueRealClazz.isAnnotationPresent(Entity.class)) {
-                            String resourceName = fieldValueRealClazz.getSimpleName();
-                            Table table = fieldValueRealClazz.getAnnotation(Table.class);
-                            if (table != null && !table.name().isEmpty()) {
-                                resourceName = table.name();
-                            }
-                            XResourceMetadata nestedMeta = metadataRegistry.get(resourceName);
-                            if (nestedMeta == null) {
-                                if (metadataRegistry.getEmbeddedResource(resourceName) == null)
-                                    // Ignore as no xresource metadata found
-                                    continue;
-                            }
-                        }
+        generator.writeEndObject();
+    }
 
-                        if (baseUrl != null) {
-                            String refUrl = linkResolver.buildResourceLink(entity, metadata, baseUrl, fieldName);
-                            if (refUrl != null) {
-                                result.put(outputFieldName + "_resource", refUrl);
-                            }
-                        }
-                        continue;
+    private void writeField(JsonGenerator generator, XProjectionPlan.PlannedField planned, Object entity,
+            XResourceMetadata metadata, List<String> userRoles, ForeignKeyTree fkTree, String baseUrl,
+            XResourceLinkTemplate.Links links) throws Exception {
+        String fieldName = planned.getFieldName();
+        String outputFieldName = planned.getOutputName();
+        Object fieldValue = planned.read(entity);
+
+        // Null values are never rendered, whether or not @JsonInclude(NON_NULL) is set
+        if (fieldValue == null)
+            return;
+
+        if (planned.getKind() == XProjectionPlan.Kind.OBJECT) {
+            // Check if FK expansion is requested
+            boolean isNestedFkExplicitlyRequested = fkTree.hasChild(fieldName);
+            ForeignKeyTree nestedFkTree = fkTree.getChild(fieldName);
+
+            // Handle Hibernate proxy
+            if (fieldValue instanceof HibernateProxy || fieldValue instanceof PersistentCollection) {
+                if (!isNestedFkExplicitlyRequested) {
+                    Class<?> fieldValueRealClazz = fieldValue instanceof HibernateProxy
+                            ? ((HibernateProxy) fieldValue)
+                                    .getHibernateLazyInitializer()
+                                    .getPersistentClass()
+                            : ((PersistentCollection<?>) fieldValue).getOwner().getClass();
+                    if (fieldValueRealClazz.isAnnotationPresent(Entity.class)
+                            && resolveExposedMetadata(fieldValueRealClazz) == null) {
+                        // Ignore as no xresource metadata found
+                        return;
                     }
+                    writeResourceLink(generator, links, baseUrl, fieldName, outputFieldName);
+                    return;
+                }
 
-                    Hibernate.initialize(fieldValue);
+                Hibernate.initialize(fieldValue);
 
-                    if (fieldValue instanceof HibernateProxy) {
-                        fieldValue = ((HibernateProxy) fieldValue).getHibernateLazyInitializer().getImplementation();
-                    } else if (fieldValue instanceof PersistentCollection) {
-                        Hibernate.initialize(fieldValue);
-                        fieldValue = ((PersistentCollection<?>) fieldValue).getStoredSnapshot();
-                    }
+                if (fieldValue instanceof HibernateProxy) {
+                    fieldValue = ((HibernateProxy) fieldValue).getHibernateLazyInitializer().getImplementation();
+                } else if (fieldValue instanceof PersistentCollection) {
+                    fieldValue = ((PersistentCollection<?>) fieldValue).getStoredSnapshot();
                 }
 
                 if (fieldValue == null)
-                    continue;
-
-                // Foreign key nested expansion
-                if (fieldValue.getClass().isAnnotationPresent(Entity.class)) {
-                    String resourceName = fieldValue.getClass().getSimpleName();
-                    Table table = fieldValue.getClass().getAnnotation(Table.class);
-                    if (table != null && !table.name().isEmpty()) {
-                        resourceName = table.name();
-                    }
-
-                    XResourceMetadata nestedMeta = metadataRegistry.get(resourceName);
-                    if (nestedMeta != null) {
-                        if (!isNestedFkExplicitlyRequested) {
-                            if (baseUrl != null) {
-                                String refUrl = linkResolver.buildResourceLink(entity, metadata, baseUrl, fieldName);
-                                if (refUrl != null) {
-                                    result.put(outputFieldName + "_resource", refUrl);
-                                }
-                            }
-                            continue;
-                        } else {
-                            ObjectNode nestedNode = filterFieldsByAccess(fieldValue, nestedMeta, userRoles,
-                                    nestedFkTree, baseUrl);
-                            result.set(outputFieldName, nestedNode);
-                            continue;
-                        }
-                    } else {
-                        // Metadata not found which means somehow the resource is skipped from API
-                        // Exposer, Let's check if explicitely exposed for foreign keys
-                        XResourceMetadata exposedAsEmbeddedResource = metadataRegistry
-                                .getEmbeddedResource(resourceName);
-                        if (exposedAsEmbeddedResource != null) {
-                            if (!isNestedFkExplicitlyRequested) {
-                                if (baseUrl != null) {
-                                    String refUrl = linkResolver.buildResourceLink(entity, metadata, baseUrl,
-                                            fieldName);
-                                    if (refUrl != null) {
-                                        result.put(outputFieldName + "_resource", refUrl);
-                                    }
-                                }
-                                continue;
-                            } else {
-                                ObjectNode nestedNode = filterFieldsByAccess(fieldValue,
-                                        exposedAsEmbeddedResource, userRoles,
-                                        nestedFkTree, baseUrl);
-                                result.set(outputFieldName, nestedNode);
-                                continue;
-                            }
-                        } else {
-                            // Ignore
-                            continue;
-                        }
+                    return;
+            }
 
-                    }
+            // Foreign key nested expansion
+            if (fieldValue.getClass().isAnnotationPresent(Entity.class)) {
+                XResourceMetadata nestedMeta = resolveExposedMetadata(fieldValue.getClass());
+                if (nestedMeta == null) {
+                    // Metadata not found and not exposed as embedded resource either, ignore
+                    return;
+                }
+                if (!isNestedFkExplicitlyRequested) {
+                    writeResourceLink(generator, links, baseUrl, fieldName, outputFieldName);
+                } else {
+                    generator.writeFieldName(outputFieldName);
+                    writeEntity(generator, fieldValue, nestedMeta, userRoles, nestedFkTree, baseUrl, null, null);
                 }
+                return;
+            }
 
-                if (fieldValue instanceof List<?>) {
-                    List<?> list = (List<?>) fieldValue;
-
-                    if (!list.isEmpty()) {
-                        Object firstElement = list.get(0);
-                        Class<?> elementClass = Hibernate.unproxy(firstElement).getClass(); // Unwrap Hibernate proxy if
-                                                                                            // needed
-
-                        Table tableAnnotation = elementClass.getAnnotation(Table.class);
-                        if (tableAnnotation != null) {
-                            String listElementResourceName = tableAnnotation.name(); // this is your resource name
-
-                            XResourceMetadata listElementMeta = metadataRegistry.get(listElementResourceName);
-                            if (listElementMeta != null) {
-                                if (!isNestedFkExplicitlyRequested) {
-                                    if (baseUrl != null) {
-                                        String refUrl = linkResolver.buildResourceLink(entity, metadata, baseUrl,
-                                                fieldName);
-                                        if (refUrl != null) {
-                                            result.put(outputFieldName + "_resource", refUrl);
-                                        }
-                                    }
-                                    continue;
-                                } else {
-                                    ArrayNode nestedArray = objectMapper.createArrayNode();
-                                    for (Object element : list) {
-                                        ObjectNode itemNode = filterFieldsByAccess(element, listElementMeta, userRoles,
-                                                nestedFkTree, baseUrl);
-                                        nestedArray.add(itemNode);
-                                    }
-                                    result.set(outputFieldName, nestedArray);
-                                    continue;
-                                }
-                            }
+            if (fieldValue instanceof List<?> list && !list.isEmpty()) {
+                Class<?> elementClass = Hibernate.unproxy(list.get(0)).getClass();
+                XResourceMetadata listElementMeta = elementClass.isAnnotationPresent(Table.class)
+                        ? metadataRegistry.get(resolveResourceName(elementClass))
+                        : null;
+                if (listElementMeta != null) {
+                    if (!isNestedFkExplicitlyRequested) {
+                        writeResourceLink(generator, links, baseUrl, fieldName, outputFieldName);
+                    } else {
+                        generator.writeArrayFieldStart(outputFieldName);
+                        for (Object element : list) {
+                            writeEntity(generator, element, listElementMeta, userRoles, nestedFkTree, baseUrl,
+                                    null, null);
                         }
+                        generator.writeEndArray();
                     }
+                    return;
                 }
+            }
+        }
 
-                // Support for @JsonFormat and @JsonSerialize
-                JsonNode nodeValue;
-                if (field.isAnnotationPresent(JsonSerialize.class)) {
-                    JsonSerializer<?> customSerializer = field.getAnnotation(JsonSerialize.class).using()
-                            .getDeclaredConstructor().newInstance();
-
-                    // Explicitly cast to JsonSerializer<Object> to avoid the compilation error
-                    JsonSerializer<Object> typedSerializer = (JsonSerializer<Object>) customSerializer;
-
-                    // Create a StringWriter and JsonGenerator to serialize the value
-                    StringWriter writer = new StringWriter();
-                    JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
-
-                    // Get the provider to pass into the serializer
-                    SerializerProvider provider = objectMapper.getSerializerProvider();
-
-                    // Manually serialize the object using the custom serializer
-                    typedSerializer.serialize(fieldValue, generator, provider);
-                    generator.close();
-
-                    // Convert the serialized string to a JsonNode
-                    nodeValue = objectMapper.readTree(writer.toString());
-                } else {
-                    // Regular serialization
-                    nodeValue = objectMapper.valueToTree(fieldValue);
-                }
-
-                result.set(outputFieldName, nodeValue);
+        // Support for @JsonFormat and @JsonSerialize
+        generator.writeFieldName(outputFieldName);
+        if (planned.getCustomSerializer() != null) {
+            planned.getCustomSerializer().serialize(fieldValue, generator, objectMapper.getSerializerProvider());
+        } else {
+            valueWriter.writeValue(generator, fieldValue);
+        }
+    }
 
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    private void writeResourceLink(JsonGenerator generator, XResourceLinkTemplate.Links links, String baseUrl,
+            String fieldName, String outputFieldName) throws IOException {
+        if (baseUrl == null)
+            return;
+        String refUrl = links.getFieldLink(fieldName);
+        if (refUrl != null) {
+            generator.writeStringField(outputFieldName + "_resource", refUrl);
         }
+    }
 
-        //
-        if (includeActionLinks)
-            linkResolver.injectXActions(result, entity, metadata.getResourceName(), metadata, baseUrl, objectMapper);
+    /**
+     * Returns the exposed or embedded-only metadata registered for an entity
+     * class, or {@code null} when the entity is not known to XResource.
+     */
+    private XResourceMetadata resolveExposedMetadata(Class<?> entityClass) {
+        String resourceName = resolveResourceName(entityClass);
+        XResourceMetadata nestedMeta = metadataRegistry.get(resourceName);
+        return nestedMeta != null ? nestedMeta : metadataRegistry.getEmbeddedResource(resourceName);
+    }
 
-        return result;
+    private String resolveResourceName(Class<?> entityClass) {
+        return resourceNames.computeIfAbsent(entityClass, clazz -> {
+            Table table = clazz.getAnnotation(Table.class);
+            return table != null && !table.name().isEmpty() ? table.name() : clazz.getSimpleName();
+        });
     }
 
     /**
-     * Safely finds a declared field from a class or its superclasses.
+     * Effective access of a planned field, precomputed in the plan when the
+     * access function is cacheable.
      */
-    private Field findField(Class<?> clazz, String fieldName) {
-        while (clazz != null) {
-            try {
-                return clazz.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException ignored) {
-                clazz = clazz.getSuperclass();
-            }
-        }
-        return null;
+    private AccessLevel effectiveAccess(XProjectionPlan plan, int ordinal, XProjectionPlan.PlannedField planned,
+            List<String> userRoles) {
+        AccessLevel precomputed = plan.getEffectiveAccess(ordinal);
+        return precomputed != null ? precomputed
+                : xRoleBasedAccessEvaluator.getFieldEffectiveAccess(userRoles, planned.getFieldMeta(),
+                        planned.getStaticAccess());
+    }
+
+    private XProjectionPlan getProjectionPlan(Class<?> entityClass, XResourceMetadata metadata,
+            List<String> userRoles) {
+        XProjectionPlan.Key key = new XProjectionPlan.Key(metadata, entityClass,
+                xRoleBasedAccessEvaluator.roleSetId(userRoles));
+        return projectionPlans.computeIfAbsent(key, k -> {
+            log.debug("Compiling projection plan for %s (%s) and roles %s", metadata.getResourceName(),
+                    entityClass.getSimpleName(), userRoles);
+            return XProjectionPlan.compile(entityClass, metadata, userRoles, xRoleBasedAccessEvaluator);
+        });
     }
 
     public void validateEntity(Object entity, ValidationContext.OperationType type) {
@@ -0,0 +1,235 @@
+package org.xresource.internal.auth;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import org.xresource.core.annotations.AccessLevel;
+import org.xresource.core.annotations.XForceAllowResourceRef;
+import org.xresource.core.util.XUtils;
+import org.xresource.internal.models.XFieldMetadata;
+import org.xresource.internal.models.XResourceMetadata;
+
+import java.lang.reflect.Field;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Pre-resolved serialization plan for one entity class of a resource, as seen
+ * by one ordered list of roles.
+ *
+ * <p>
+ * Everything {@link XAccessManager} used to look up reflectively for every
+ * entity and every field (field lookup, accessibility, Jackson annotations,
+ * output name, custom serializer and the static role based access level) is
+ * resolved once when the plan is compiled. Serializing an entity then only
+ * has to walk {@link #getFields()} and read values.
+ * </p>
+ *
+ * <p>
+ * The pluggable {@code XRoleBasedAccessFunction} is only baked into the plan
+ * when it is an {@code XCacheableAccessFunction}; otherwise it is still
+ * consulted per field at serialization time with the cached static level, so
+ * custom access functions keep their semantics.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+final class XProjectionPlan {
+
+    /**
+     * Broad classification of a field, used to skip association handling for
+     * values that can never be entities.
+     */
+    enum Kind {
+        /** Simple value (string, number, date, enum ...) serialized as-is. */
+        SCALAR,
+        /** Anything else: possibly an entity, proxy or collection of entities. */
+        OBJECT
+    }
+
+    /**
+     * A single field of the plan with all of its static information resolved.
+     */
+    static final class PlannedField {
+        private final String fieldName;
+        private final String outputName;
+        private final XFieldMetadata fieldMeta;
+        private final AccessLevel staticAccess;
+        private final Field field;
+        private final JsonSerializer<Object> customSerializer;
+        private final Kind kind;
+
+        private PlannedField(String fieldName, String outputName, XFieldMetadata fieldMeta, AccessLevel staticAccess,
+                Field field, JsonSerializer<Object> customSerializer, Kind kind) {
+            this.fieldName = fieldName;
+            this.outputName = outputName;
+            this.fieldMeta = fieldMeta;
+            this.staticAccess = staticAccess;
+            this.field = field;
+            this.customSerializer = customSerializer;
+            this.kind = kind;
+        }
+
+        String getFieldName() {
+            return fieldName;
+        }
+
+        String getOutputName() {
+            return outputName;
+        }
+
+        XFieldMetadata getFieldMeta() {
+            return fieldMeta;
+        }
+
+        AccessLevel getStaticAccess() {
+            return staticAccess;
+        }
+
+        JsonSerializer<Object> getCustomSerializer() {
+            return customSerializer;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        Object read(Object entity) throws IllegalAccessException {
+            return field.get(entity);
+        }
+    }
+
+    /**
+     * Cache key of a plan. Metadata is compared by identity, roles by their
+     * {@link XRoleBasedAccessEvaluator#roleSetId(List) interned id}, which keeps
+     * their order since the static access resolution picks the first role
+     * granting access.
+     */
+    record Key(XResourceMetadata metadata, Class<?> entityClass, int roleSetId) {
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key other))
+                return false;
+            return metadata == other.metadata && entityClass == other.entityClass && roleSetId == other.roleSetId;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(metadata) * 31 + entityClass.hashCode()) * 31 + roleSetId;
+        }
+    }
+
+    private final List<PlannedField> fields;
+
+    /** Effective access by field ordinal, {@code null} when not cacheable. */
+    private final AccessLevel[] effectiveAccess;
+
+    private XProjectionPlan(List<PlannedField> fields, AccessLevel[] effectiveAccess) {
+        this.fields = Collections.unmodifiableList(fields);
+        this.effectiveAccess = effectiveAccess;
+    }
+
+    List<PlannedField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Effective access of the field at {@code ordinal} in {@link #getFields()},
+     * including the access function.
+     *
+     * @return the level, or {@code null} when the access function is not
+     *         cacheable and has to be consulted per entity
+     */
+    AccessLevel getEffectiveAccess(int ordinal) {
+        return effectiveAccess != null ? effectiveAccess[ordinal] : null;
+    }
+
+    /**
+     * Compiles the plan for the given entity class, resource metadata and roles.
+     * Fields that can never be rendered (hidden, missing on the class or ignored
+     * by Jackson) are dropped here.
+     */
+    @SuppressWarnings("unchecked")
+    static XProjectionPlan compile(Class<?> entityClass, XResourceMetadata metadata, List<String> roles,
+            XRoleBasedAccessEvaluator evaluator) {
+        List<PlannedField> planned = new ArrayList<>();
+
+        for (Map.Entry<String, XFieldMetadata> entry : metadata.getFields().entrySet()) {
+            String fieldName = entry.getKey();
+            XFieldMetadata fieldMeta = entry.getValue();
+
+            Field field = XUtils.findField(entityClass, fieldName);
+            if (field == null || fieldMeta.isHidden())
+                continue;
+
+            if ((field.isAnnotationPresent(JsonBackReference.class) || field.isAnnotationPresent(JsonIgnore.class))
+                    && !field.isAnnotationPresent(XForceAllowResourceRef.class))
+                continue;
+
+            field.setAccessible(true);
+
+            String outputName = fieldName;
+            JsonProperty jsonProp = field.getAnnotation(JsonProperty.class);
+            if (jsonProp != null && !jsonProp.value().isEmpty()) {
+                outputName = jsonProp.value();
+            }
+
+            JsonSerializer<Object> customSerializer = null;
+            JsonSerialize jsonSerialize = field.getAnnotation(JsonSerialize.class);
+            if (jsonSerialize != null && jsonSerialize.using() != JsonSerializer.None.class) {
+                try {
+                    customSerializer = (JsonSerializer<Object>) jsonSerialize.using().getDeclaredConstructor()
+                            .newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(
+                            "Unable to instantiate serializer for field " + fieldName + " of "
+                                    + entityClass.getName(),
+                            e);
+                }
+            }
+
+            AccessLevel staticAccess = evaluator.getEffectiveAccessInternal(roles, fieldMeta);
+            Kind kind = isScalarType(field.getType()) ? Kind.SCALAR : Kind.OBJECT;
+
+            planned.add(new PlannedField(fieldName, outputName, fieldMeta, staticAccess, field, customSerializer,
+                    kind));
+        }
+
+        AccessLevel[] effectiveAccess = null;
+        if (evaluator.isCacheable()) {
+            effectiveAccess = new AccessLevel[planned.size()];
+            for (int i = 0; i < effectiveAccess.length; i++) {
+                PlannedField field = planned.get(i);
+                effectiveAccess[i] = evaluator.getFieldEffectiveAccess(roles, field.getFieldMeta(),
+                        field.getStaticAccess());
+            }
+        }
+
+        return new XProjectionPlan(planned, effectiveAccess);
+    }
+
+    private static boolean isScalarType(Class<?> type) {
+        return type.isPrimitive()
+                || type.isEnum()
+                || (type.isArray() && type.getComponentType().isPrimitive())
+                || CharSequence.class.isAssignableFrom(type)
+                || Number.class.isAssignableFrom(type)
+                || type == Boolean.class
+                || type == Character.class
+                || type == UUID.class
+                || Date.class.isAssignableFrom(type)
+                || Temporal.class.isAssignableFrom(type);
+    }
+}
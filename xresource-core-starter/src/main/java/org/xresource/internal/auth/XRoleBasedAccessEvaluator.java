@@ -2,12 +2,17 @@ package org.xresource.internal.auth;
 
 import org.xresource.core.annotations.AccessLevel;
 import org.xresource.core.auth.XAccessEvaluatorDelegate;
+import org.xresource.core.auth.XCacheableAccessFunction;
 import org.xresource.core.auth.XResourceTypes;
 import org.xresource.core.auth.XRoleBasedAccessFunction;
+import org.xresource.internal.context.XResourceRequestContext;
+import org.xresource.internal.context.XResourceRequestContextHolder;
+import org.xresource.internal.context.XSecuritySnapshot;
 import org.xresource.internal.exception.ResourceNotFoundException;
 import org.xresource.internal.exception.XAccessDeniedException;
 import org.xresource.internal.models.XFieldMetadata;
 import org.xresource.internal.models.XResourceMetadata;
+import org.xresource.internal.util.XLruCache;
 
 import java.util.List;
 
@@ -39,6 +44,8 @@ import java.util.List;
  *          implementation
  *          of {@link XRoleBasedAccessFunction}, and overriding the wrapper bean
  *          {@link XAccessEvaluatorDelegate} with a Spring-managed replacement.
+ *          Functions implementing {@link XCacheableAccessFunction} are
+ *          evaluated once per resource or field and role list.
  * @author soumya
  * @since xresource-core 0.1
  */
@@ -46,6 +53,46 @@ public class XRoleBasedAccessEvaluator {
 
     private final XRoleBasedAccessFunction xRoleBasedAccessFunction;
 
+    private final boolean cacheable;
+
+    /**
+     * Upper bound of cached decisions. There is one per resource or field and
+     * role list, and role lists come from the identity provider, which the
+     * application does not control.
+     */
+    private static final int MAX_DECISIONS = 16384;
+
+    /**
+     * Static levels, and final decisions when the access function is
+     * cacheable, by subject and role list.
+     */
+    private final XLruCache<DecisionKey, AccessLevel> decisions = new XLruCache<>(MAX_DECISIONS);
+
+    private enum Decision {
+        STATIC_READ, STATIC_WRITE, READ, WRITE, FIELD
+    }
+
+    /**
+     * Cache key of an access decision. The subject (resource or field metadata)
+     * is compared by identity.
+     */
+    private record DecisionKey(Object subject, int roleSetId, Decision decision) {
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof DecisionKey other))
+                return false;
+            return subject == other.subject && roleSetId == other.roleSetId && decision == other.decision;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(subject) * 31 + roleSetId) * 31 + decision.ordinal();
+        }
+    }
+
     /**
      * Constructs the access evaluator using the provided delegate.
      * The delegate allows decoupling the evaluator from a specific function
@@ -55,6 +102,30 @@ public class XRoleBasedAccessEvaluator {
      */
     public XRoleBasedAccessEvaluator(XAccessEvaluatorDelegate xAccessEvaluatorDelegate) {
         this.xRoleBasedAccessFunction = xAccessEvaluatorDelegate.getXRoleBasedAccessFunction();
+        this.cacheable = xRoleBasedAccessFunction instanceof XCacheableAccessFunction;
+    }
+
+    /**
+     * @return whether decisions of the access function may be reused for the
+     *         same subject and roles
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Returns the {@link XSecuritySnapshot#roleSetId(List) interned id} of a
+     * role list, taken from the security snapshot of the request when the list
+     * is the snapshot's own.
+     *
+     * @param roles the user roles
+     * @return the id of the role list
+     */
+    public int roleSetId(List<String> roles) {
+        XResourceRequestContext request = XResourceRequestContextHolder.get();
+        XSecuritySnapshot snapshot = request != null ? request.getSecuritySnapshot() : null;
+        return snapshot != null && snapshot.getRoles() == roles ? snapshot.getRoleSetId()
+                : XSecuritySnapshot.roleSetId(roles);
     }
 
     /**
@@ -70,10 +141,7 @@ public class XRoleBasedAccessEvaluator {
         if (metadata == null) {
             throw new ResourceNotFoundException("Resource not found: " + resourceName);
         }
-        AccessLevel effectiveAccessLevel = getEffectiveAccessForResource(roles, metadata);
-        AccessLevel evaluatedAccess = this.xRoleBasedAccessFunction.getEffectiveAccess(
-                XResourceTypes.ENTITY, effectiveAccessLevel, resourceName, null, roles);
-        if (evaluatedAccess == AccessLevel.NONE) {
+        if (resourceAccess(roles, metadata, resourceName, false) == AccessLevel.NONE) {
             throw new XAccessDeniedException("No read access to resource: " + resourceName);
         }
     }
@@ -91,14 +159,34 @@ public class XRoleBasedAccessEvaluator {
         if (metadata == null) {
             throw new ResourceNotFoundException("Resource not found: " + resourceName);
         }
-        AccessLevel effectiveAccessLevel = getEffectiveWriteAccessForResource(roles, metadata);
-        AccessLevel evaluatedAccess = this.xRoleBasedAccessFunction.getEffectiveAccess(
-                XResourceTypes.ENTITY, effectiveAccessLevel, resourceName, null, roles);
-        if (evaluatedAccess == AccessLevel.NONE) {
+        if (resourceAccess(roles, metadata, resourceName, true) == AccessLevel.NONE) {
             throw new XAccessDeniedException("No write access to resource: " + resourceName);
         }
     }
 
+    private AccessLevel resourceAccess(List<String> roles, XResourceMetadata metadata, String resourceName,
+            boolean write) {
+        int roleSetId = roleSetId(roles);
+        DecisionKey key = new DecisionKey(metadata, roleSetId, write ? Decision.WRITE : Decision.READ);
+        AccessLevel decided = cacheable ? decisions.get(key) : null;
+        if (decided != null)
+            return decided;
+
+        decided = this.xRoleBasedAccessFunction.getEffectiveAccess(XResourceTypes.ENTITY,
+                staticResourceAccess(roles, roleSetId, metadata, write), resourceName, null, roles);
+        if (cacheable)
+            decisions.put(key, decided);
+        return decided;
+    }
+
+    private AccessLevel staticResourceAccess(List<String> roles, int roleSetId, XResourceMetadata metadata,
+            boolean write) {
+        return decisions.computeIfAbsent(
+                new DecisionKey(metadata, roleSetId, write ? Decision.STATIC_WRITE : Decision.STATIC_READ),
+                k -> write ? getEffectiveWriteAccessForResource(roles, metadata)
+                        : getEffectiveAccessForResource(roles, metadata));
+    }
+
     /**
      * Computes the effective access level for a given field based on assigned
      * roles.
@@ -113,9 +201,37 @@ public class XRoleBasedAccessEvaluator {
         if (fieldMeta == null) {
             return AccessLevel.NONE;
         }
-        AccessLevel effectiveAccessLevel = getEffectiveAccessInternal(roles, fieldMeta);
+        if (cacheable) {
+            return decisions.computeIfAbsent(new DecisionKey(fieldMeta, roleSetId(roles), Decision.FIELD),
+                    k -> evaluateField(roles, fieldMeta, getEffectiveAccessInternal(roles, fieldMeta)));
+        }
+        return evaluateField(roles, fieldMeta, getEffectiveAccessInternal(roles, fieldMeta));
+    }
+
+    /**
+     * Computes the effective access level for a field whose static access level
+     * has already been resolved (e.g. from a cached projection plan). Only the
+     * pluggable access function is evaluated. Callers on a hot path should
+     * reuse the result themselves when the function is {@link #isCacheable()
+     * cacheable}.
+     *
+     * @param roles              the user roles
+     * @param fieldMeta          the field metadata
+     * @param staticAccessLevel  the level resolved by
+     *                           {@link #getEffectiveAccessInternal(List, XFieldMetadata)}
+     * @return the resolved {@link AccessLevel} for the field
+     */
+    public AccessLevel getFieldEffectiveAccess(List<String> roles, XFieldMetadata fieldMeta,
+            AccessLevel staticAccessLevel) {
+        if (fieldMeta == null) {
+            return AccessLevel.NONE;
+        }
+        return evaluateField(roles, fieldMeta, staticAccessLevel);
+    }
+
+    private AccessLevel evaluateField(List<String> roles, XFieldMetadata fieldMeta, AccessLevel staticAccessLevel) {
         return this.xRoleBasedAccessFunction.getEffectiveAccess(
-                XResourceTypes.FIELD, effectiveAccessLevel, null, fieldMeta.getName(), roles);
+                XResourceTypes.FIELD, staticAccessLevel, null, fieldMeta.getName(), roles);
     }
 
     /**
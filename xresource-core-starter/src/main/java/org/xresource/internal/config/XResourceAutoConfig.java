@@ -6,16 +6,26 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 import org.xresource.core.aco.ACOEngine;
+import org.xresource.core.aco.AcoIndexAdvisor;
+import org.xresource.core.aco.AcoMaterializedViewManager;
+import org.xresource.core.aco.Swarm;
 import org.xresource.core.annotations.XResource;
 import org.xresource.core.auth.XAccessEvaluatorDelegate;
+import org.xresource.core.auth.XCacheableAccessFunction;
 import org.xresource.core.hook.XResourceHookRegistry;
 import org.xresource.internal.intent.core.parser.IntentToJPQLTransformer;
 import org.xresource.internal.intent.core.parser.model.IntentMeta;
 import org.xresource.internal.intent.core.util.IntentsFileReader;
 import org.xresource.internal.intent.core.util.JPQLExecutorUtility;
 import org.xresource.core.logging.XLogger;
+import org.xresource.internal.query.XCountManager;
+import org.xresource.internal.query.XEntityManagerTracker;
+import org.xresource.internal.query.XForeignKeyPrefetcher;
+import org.xresource.internal.query.XIntentCache;
+import org.xresource.internal.query.XParallelCounter;
 import org.xresource.internal.query.XQueryContextProvider;
 import org.xresource.internal.query.XQueryExecutor;
+import org.xresource.internal.query.XQueryResultCache;
 import org.xresource.core.response.XResponseTranformersRegistry;
 import org.xresource.core.validation.XValidatorRegistry;
 import org.xresource.internal.actions.XActionExecutor;
@@ -38,12 +48,15 @@ import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Table;
 import lombok.RequiredArgsConstructor;
 
+import org.hibernate.cfg.SessionEventSettings;
 import org.hibernate.proxy.HibernateProxy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -88,7 +101,7 @@ public class XResourceAutoConfig {
     @Bean
     @ConditionalOnMissingBean(XAccessEvaluatorDelegate.class)
     public XAccessEvaluatorDelegate xAccessEvaluatorDelegate() {
-        return new XAccessEvaluatorDelegate((type, level, resource, field, roles) -> {
+        return new XAccessEvaluatorDelegate((XCacheableAccessFunction) (type, level, resource, field, roles) -> {
             return level;
         });
     }
@@ -132,8 +145,9 @@ public class XResourceAutoConfig {
     @ConditionalOnMissingBean(XJobRunner.class)
     @Order(2)
     public XJobRunner xJobRunner(XJobRegistry registry,
-            XQueryExecutor executor, XResourceMetadataRegistry resourceRegistry, XQueryContextProvider xQueryProvider) {
-        return new XJobRunner(registry, executor, resourceRegistry, xQueryProvider);
+            XQueryExecutor executor, XResourceMetadataRegistry resourceRegistry, XQueryContextProvider xQueryProvider,
+            EntityManagerFactory emf) {
+        return new XJobRunner(registry, executor, resourceRegistry, xQueryProvider, emf);
     }
 
     @Bean
@@ -157,6 +171,76 @@ public class XResourceAutoConfig {
         return new XQueryExecutor();
     }
 
+    /**
+     * Registers {@link XEntityManagerTracker} with Hibernate, unless the
+     * application configured a session events listener of its own.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer xEntityManagerTrackerCustomizer() {
+        return properties -> properties.putIfAbsent(SessionEventSettings.AUTO_SESSION_EVENTS_LISTENER,
+                XEntityManagerTracker.class.getName());
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(XCountManager.class)
+    public XCountManager xCountManager() {
+        return new XCountManager();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(XParallelCounter.class)
+    public XParallelCounter xParallelCounter() {
+        return new XParallelCounter();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(XQueryResultCache.class)
+    public XQueryResultCache xQueryResultCache() {
+        return new XQueryResultCache();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(name = "xresource.aco.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(Swarm.class)
+    public Swarm swarm() {
+        return new Swarm();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(name = { "xresource.aco.enabled",
+            "xresource.aco.materialized-views.enabled" }, havingValue = "true")
+    @ConditionalOnMissingBean(AcoMaterializedViewManager.class)
+    public AcoMaterializedViewManager acoMaterializedViewManager() {
+        return new AcoMaterializedViewManager();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(name = { "xresource.aco.enabled", "xresource.aco.indexes.enabled" }, havingValue = "true")
+    @ConditionalOnMissingBean(AcoIndexAdvisor.class)
+    public AcoIndexAdvisor acoIndexAdvisor() {
+        return new AcoIndexAdvisor();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(XIntentCache.class)
+    public XIntentCache xIntentCache() {
+        return new XIntentCache();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(XForeignKeyPrefetcher.class)
+    public XForeignKeyPrefetcher xForeignKeyPrefetcher() {
+        return new XForeignKeyPrefetcher();
+    }
+
     @Bean
     @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
     @ConditionalOnMissingBean(XResourceHookRegistry.class)
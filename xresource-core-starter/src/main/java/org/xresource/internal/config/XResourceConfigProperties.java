@@ -9,9 +9,33 @@ public class XResourceConfigProperties {
     public static final String ENABLE_ACTION_LINKS = "${xresource.api.actions.href.enabled:true}";
     public static final String AUTO_SCAN_ENABLED = "${xresource.metadata.autoScanEnabled:true}";
     public static final String API_RESPONSE_ERROR_CONTEXT = "${xresource.api.response.error.context:false}";
+    public static final String PAGING_COUNT_STRATEGY = "${xresource.api.paging.count-strategy:exact}";
+    public static final String PAGING_COUNT_CACHE_TTL = "${xresource.api.paging.count-cache-ttl:60}";
+    public static final String PAGING_PARALLEL_COUNT = "${xresource.api.paging.parallel-count:false}";
+    public static final String PAGING_PARALLEL_COUNT_THREADS = "${xresource.api.paging.parallel-count-threads:8}";
 
     public static final String ACO_ENABLED = "${xresource.aco.enabled:false}";
     public static final String ACO_DATASOURCE_ENABLED = "${xresource.aco.datasource.enabled:false}";
+    public static final String ACO_EVAPORATION_RATE = "${xresource.aco.evaporation-rate:0.1}";
+    public static final String ACO_UPDATE_INTERVAL = "${xresource.aco.update-interval:60}";
+    public static final String ACO_ANTS = "${xresource.aco.ants:16}";
+    public static final String ACO_PATH_STEERING = "${xresource.aco.path-steering:false}";
+    public static final String ACO_PATH_REQUEST_RETENTION = "${xresource.aco.path-request-retention:604800}";
+    public static final String ACO_VIEWS_REFRESH_INTERVAL = "${xresource.aco.materialized-views.refresh-interval:300}";
+    public static final String ACO_VIEWS_IDLE_TIMEOUT = "${xresource.aco.materialized-views.idle-timeout:3600}";
+    public static final String ACO_VIEWS_MIN_USAGE = "${xresource.aco.materialized-views.min-usage:100}";
+    public static final String ACO_VIEWS_MAX = "${xresource.aco.materialized-views.max-views:5}";
+    public static final String ACO_INDEXES_AUTO_CREATE = "${xresource.aco.indexes.auto-create:false}";
+    public static final String ACO_INDEXES_MIN_USAGE = "${xresource.aco.indexes.min-usage:100}";
+    public static final String ACO_INDEXES_MAX = "${xresource.aco.indexes.max-indexes:10}";
+    public static final String ACO_INDEXES_IDLE_TIMEOUT = "${xresource.aco.indexes.idle-timeout:86400}";
 
     public static final String INTENTS_FILE_PATH = "${xresource.intents.file.path:}";
+    public static final String INTENTS_CACHE_SIZE = "${xresource.intents.cache-size:256}";
+    public static final String INTENTS_PERSISTED_MAX = "${xresource.intents.persisted-max:1024}";
+
+    public static final String QUERY_CACHE_ENABLED = "${xresource.query-cache.enabled:false}";
+    public static final String QUERY_CACHE_MAX_ROWS = "${xresource.query-cache.max-rows:10000}";
+    public static final String QUERY_CACHE_TTL = "${xresource.query-cache.ttl:60}";
+    public static final String QUERY_CACHE_QUERY_TTL_PREFIX = "xresource.query-cache.queries.";
 }
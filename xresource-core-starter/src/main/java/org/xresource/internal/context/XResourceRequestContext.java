@@ -23,6 +23,9 @@ public class XResourceRequestContext {
     private String actionName;
     private String operationType;
 
+    /** Roles and user context of the caller, see {@link XSecuritySnapshot#current()}. */
+    private XSecuritySnapshot securitySnapshot;
+
     public XResourceRequestContext(HttpServletRequest request, String baseApiPath) {
         this.request = request;
         this.baseApiPath = baseApiPath != null ? baseApiPath : "/api/resources";
@@ -0,0 +1,184 @@
+package org.xresource.internal.context;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.xresource.internal.util.XLruCache;
+
+/**
+ * Immutable view of the current user, taken once per request: the roles, the
+ * interned id of the role list and the user context made available to
+ * queries.
+ *
+ * <p>
+ * {@link #current()} stores the snapshot on the {@link XResourceRequestContext}
+ * of the request, so every layer (controller, service, access evaluation,
+ * OpenAPI generation) shares the same role list and user context instead of
+ * walking the {@link SecurityContextHolder} and reflecting over the principal
+ * again. A new snapshot is taken whenever the authentication of the request
+ * changes. Outside a request (scheduled jobs, startup) a fresh snapshot is
+ * built on every call.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public final class XSecuritySnapshot {
+
+    /**
+     * Upper bound of interned role lists; role lists come from the identity
+     * provider, which the application does not control.
+     */
+    private static final int MAX_ROLE_SETS = 4096;
+
+    /**
+     * Ids of the interned role lists. Ids are never reused, so a list evicted
+     * and interned again gets a new id, and whatever was cached under its old
+     * id simply ages out of the (bounded) caches keyed by it.
+     */
+    private static final XLruCache<List<String>, Integer> ROLE_SET_IDS = new XLruCache<>(MAX_ROLE_SETS);
+    private static final AtomicInteger NEXT_ROLE_SET_ID = new AtomicInteger();
+
+    /** Getters of principal classes, read into the user context. */
+    private static final Map<Class<?>, List<PrincipalProperty>> PRINCIPAL_PROPERTIES = new ConcurrentHashMap<>();
+
+    private static final XSecuritySnapshot ANONYMOUS = new XSecuritySnapshot(null, List.of(),
+            Collections.emptyMap());
+
+    private final Authentication authentication;
+    private final List<String> roles;
+    private final int roleSetId;
+    private final Map<String, Object> userContext;
+
+    /**
+     * A property read from the principal for the user context.
+     */
+    private record PrincipalProperty(String name, Method getter) {
+    }
+
+    private XSecuritySnapshot(Authentication authentication, List<String> roles, Map<String, Object> userContext) {
+        this.authentication = authentication;
+        this.roles = roles;
+        this.roleSetId = roleSetId(roles);
+        this.userContext = userContext;
+    }
+
+    /**
+     * Returns the snapshot of the current user, taking it on first use within
+     * the request.
+     */
+    public static XSecuritySnapshot current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null)
+            return ANONYMOUS;
+
+        XResourceRequestContext request = XResourceRequestContextHolder.get();
+        XSecuritySnapshot snapshot = request != null ? request.getSecuritySnapshot() : null;
+        if (snapshot == null || snapshot.authentication != authentication) {
+            snapshot = take(authentication);
+            if (request != null)
+                request.setSecuritySnapshot(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return role names of the user, in the order of its authorities; not
+     *         modifiable
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * @return the {@link #roleSetId(List) interned id} of {@link #getRoles()}
+     */
+    public int getRoleSetId() {
+        return roleSetId;
+    }
+
+    /**
+     * @return login id, roles and principal properties of an authenticated
+     *         user, empty otherwise; not modifiable
+     */
+    public Map<String, Object> getUserContext() {
+        return userContext;
+    }
+
+    /**
+     * Interns a role list. Lists with the same roles in the same order get the
+     * same id; the order is significant because the first role granting access
+     * determines the static access level.
+     *
+     * @param roles the user roles
+     * @return the id of the role list
+     */
+    public static int roleSetId(List<String> roles) {
+        Integer id = ROLE_SET_IDS.get(roles);
+        if (id != null)
+            return id;
+        return ROLE_SET_IDS.computeIfAbsent(List.copyOf(roles), k -> NEXT_ROLE_SET_ID.getAndIncrement());
+    }
+
+    private static XSecuritySnapshot take(Authentication authentication) {
+        List<String> roles = new ArrayList<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+        roles = Collections.unmodifiableList(roles);
+
+        if (!authentication.isAuthenticated())
+            return new XSecuritySnapshot(authentication, roles, Collections.emptyMap());
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("loginid", authentication.getName());
+        context.put("roles", roles);
+
+        Object principal = authentication.getPrincipal();
+
+        // Try to extract properties dynamically (if not just a String username)
+        if (principal != null && !(principal instanceof String)) {
+            for (PrincipalProperty property : principalProperties(principal.getClass())) {
+                try {
+                    context.put(property.name(), property.getter().invoke(principal));
+                } catch (Exception ignored) {
+                    // skip if inaccessible
+                }
+            }
+        }
+
+        return new XSecuritySnapshot(authentication, roles, Collections.unmodifiableMap(context));
+    }
+
+    /**
+     * Getters ({@code getX()} and {@code isX()}) of a principal class, in
+     * {@link Class#getMethods()} order.
+     */
+    private static List<PrincipalProperty> principalProperties(Class<?> principalClass) {
+        return PRINCIPAL_PROPERTIES.computeIfAbsent(principalClass, type -> {
+            List<PrincipalProperty> properties = new ArrayList<>();
+            for (Method method : type.getMethods()) {
+                if (method.getParameterCount() != 0)
+                    continue;
+                String name = method.getName();
+                if (name.startsWith("get") && name.length() > 3) {
+                    properties.add(new PrincipalProperty(
+                            Character.toLowerCase(name.charAt(3)) + name.substring(4), method));
+                } else if (name.startsWith("is") && name.length() > 2) {
+                    properties.add(new PrincipalProperty(
+                            Character.toLowerCase(name.charAt(2)) + name.substring(3), method));
+                }
+            }
+            return List.copyOf(properties);
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package org.xresource.internal.controller;
+
+import static org.xresource.internal.config.XResourceConfigProperties.API_BASE_PATH;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.xresource.core.aco.AcoIndexAdvisor;
+
+import io.swagger.v3.oas.annotations.Hidden;
+
+/**
+ * Exposes the indexes recommended by the {@link AcoIndexAdvisor} at
+ * {@code {api base path}/_aco/indexes}.
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+@RestController
+@RequestMapping(API_BASE_PATH + "/_aco/indexes")
+@ConditionalOnProperty(name = { "xresource.aco.enabled", "xresource.aco.indexes.enabled" }, havingValue = "true")
+@Hidden
+public class XIndexAdvisorController {
+
+    @Autowired
+    private AcoIndexAdvisor indexAdvisor;
+
+    /**
+     * @return the recommended indexes, busiest column first, and the indexes
+     *         the advisor created
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getIndexes() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("recommendations", indexAdvisor.getRecommendations());
+        response.put("created", indexAdvisor.getCreatedIndexes());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,5 +1,6 @@
 package org.xresource.internal.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -8,12 +9,25 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import io.swagger.v3.oas.annotations.Hidden;
 
+import org.xresource.internal.context.XResourceRequestContext;
+import org.xresource.internal.context.XResourceRequestContextHolder;
+import org.xresource.internal.context.XSecuritySnapshot;
 import org.xresource.core.annotations.XAction;
+import org.xresource.core.annotations.XCountStrategy;
 import org.xresource.core.annotations.XFieldAction;
 import org.xresource.core.annotations.XQuery;
 import org.xresource.core.logging.XLogger;
+import org.xresource.internal.query.XCountManager;
+import org.xresource.internal.query.XCountPolicy;
+import org.xresource.internal.query.XCountedPage;
+import org.xresource.internal.query.XEntityManagerTracker;
+import org.xresource.internal.query.XForeignKeyPrefetcher;
+import org.xresource.internal.query.XIntentCache;
+import org.xresource.internal.query.XKeysetPage;
+import org.xresource.internal.query.XProjection;
 import org.xresource.internal.query.XQueryContextProvider;
 import org.xresource.internal.query.XQueryExecutor;
+import org.xresource.internal.query.XQueryResultCache;
 import org.xresource.core.response.XResponseTranformersRegistry;
 import org.xresource.core.response.XResponseTransformer;
 import org.xresource.core.service.XResourceService;
@@ -26,7 +40,7 @@ import org.xresource.internal.exception.ResourceNotFoundException;
 import org.xresource.internal.exception.XResourceException;
 import org.xresource.internal.intent.core.dsl.IntentDslCompiler;
 import org.xresource.internal.intent.core.parser.model.IntentMeta;
-import org.xresource.internal.intent.core.xml.XmlIntentParser;
+import org.xresource.internal.intent.core.xml.XmlIntentStreamParser;
 import org.xresource.internal.models.ForeignKeyTree;
 import org.xresource.internal.models.XFieldMetadata;
 import org.xresource.internal.models.XResourceMetadata;
@@ -44,26 +58,30 @@ import org.hibernate.Hibernate;
 import org.hibernate.proxy.HibernateProxy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.xml.sax.InputSource;
 
 import static org.xresource.internal.config.XResourceConfigProperties.API_BASE_PATH;
 
+import java.io.IOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
 import java.net.URISyntaxException;
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * REST controller responsible for handling dynamic XResource-based CRUD
@@ -103,9 +121,21 @@ public class XResourceController {
     @Autowired
     private XQueryExecutor queryExecutor;
 
+    @Autowired
+    private XCountManager countManager;
+
+    @Autowired
+    private XForeignKeyPrefetcher fkPrefetcher;
+
     @Autowired
     private XQueryContextProvider contextProvider;
 
+    @Autowired
+    private XIntentCache intentCache;
+
+    @Autowired
+    private XQueryResultCache resultCache;
+
     @Autowired
     private XActionExecutor xActionExecutor;
 
@@ -120,6 +150,8 @@ public class XResourceController {
 
     private static final XLogger log = XLogger.forClass(XResourceController.class);
 
+    private static final int NDJSON_FLUSH_INTERVAL = 100;
+
     /**
      * Retrieves all records for the specified resource.
      *
@@ -135,9 +167,19 @@ public class XResourceController {
      * @param sortBy       optional field name to sort by
      * @param direction    optional sort direction ("asc" or "desc")
      * @param foreignKeys  optional foreign key traversal instructions
+     * @param after        optional keyset cursor; when present (blank for the
+     *                     first page) the page is selected by seeking past the
+     *                     cursor instead of by offset
+     * @param count        optional count strategy of paged results ("exact",
+     *                     "none", "cached" or "maintained"), overriding the
+     *                     resource's {@code @XPageCount}
+     * @param fields       optional comma separated sparse fieldset; only these
+     *                     fields (as far as readable) are selected and rendered
+     * @param stream       optional flag to stream unpaged results as NDJSON (also
+     *                     selected by {@code Accept: application/x-ndjson})
      * @param request      the current HTTP servlet request
      * @return a paginated or complete list of records for the resource, filtered by
-     *         access
+     *         access, or the records as an NDJSON stream
      */
     @GetMapping("/{resourceName}")
     public ResponseEntity<?> findAll(
@@ -147,6 +189,10 @@ public class XResourceController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String direction,
             @RequestParam(required = false) String foreignKeys,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String count,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Boolean stream,
             HttpServletRequest request) {
 
         log.info(
@@ -168,8 +214,26 @@ public class XResourceController {
 
         ForeignKeyTree fkTree = (foreignKeys != null) ? ForeignKeyParser.parse(foreignKeys) : new ForeignKeyTree();
         log.debug("Parsed foreign key tree: %s", fkTree);
+        Set<String> fieldSet = parseFieldSet(fields);
+
+        if (after != null) {
+            int sz = size != null ? size : 10;
+            String dir = direction != null ? direction : "asc";
 
-        if (isPaged) {
+            log.debug("Executing keyset query for resource: %s after=%s, size=%s, sort=%s, direction=%s", resourceName,
+                    after, sz, sortBy, dir);
+
+            XKeysetPage<Object> slice = service.findKeyset(resourceName, after, sz, sortBy, dir);
+            List<ObjectNode> results = toResourceNodes(slice.getContent(), resourceName, metadata, roles, fkTree,
+                    baseUrl, fieldSet);
+
+            // Handle response transformer
+            if (xResponseTranformersRegistry.getFindAllTransformer() != null) {
+                results = applyFindAllTransformer(results, resourceName,
+                        xResponseTranformersRegistry.getFindAllTransformer());
+            }
+            return ResponseEntity.ok(keysetResponse(results, slice));
+        } else if (isPaged) {
             int pg = page != null ? page : 0;
             int sz = size != null ? size : 10;
             String sortField = sortBy != null ? sortBy : null;
@@ -178,12 +242,14 @@ public class XResourceController {
             log.debug("Executing paged query for resource: %s page=%s, size=%s, sort=%s, direction=%s...", resourceName,
                     pg, sz, sortField, dir);
 
-            Page<Object> paged = service.findPaged(resourceName, pg, sz, sortField, dir);
+            XCountPolicy countPolicy = countManager.resolve(metadata, count);
+            Page<Object> paged = service.findPaged(resourceName, pg, sz, sortField, dir, countPolicy,
+                    projectionOf(metadata, roles, fkTree, fieldSet));
+            fkPrefetcher.prefetch(paged.getContent(), fkTree);
             List<ObjectNode> results = paged.getContent().stream()
                     .map(entity -> {
-                        ObjectNode node = fkTree.isEmpty()
-                                ? xAccessManager.filterFieldsByAccess(entity, metadata, roles, baseUrl)
-                                : xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree, baseUrl);
+                        ObjectNode node = xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree,
+                                baseUrl, fieldSet);
                         linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
                         return node;
                     }).collect(Collectors.toList());
@@ -196,22 +262,21 @@ public class XResourceController {
                         xResponseTranformersRegistry.getFindAllTransformer());
             }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("data", results);
-            response.put("page", pg);
-            response.put("size", sz);
-            response.put("totalElements", paged.getTotalElements());
-            response.put("totalPages", paged.getTotalPages());
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(pagedResponse(results, paged));
+        } else if (isStreamRequested(stream, request)) {
+            log.debug("Streaming unpaged query for resource: %s", resourceName);
+            XProjection projection = projectionOf(metadata, roles, fkTree, fieldSet);
+            return streamNdjson(resourceName, metadata, roles, fkTree, baseUrl, fieldSet,
+                    xResponseTranformersRegistry.getFindAllTransformer(),
+                    rowWriter -> service.streamAll(resourceName, projection, rowWriter));
         } else {
             log.debug("Executing unpaged query for resource: %s", resourceName);
-            List<Object> all = service.findAll(resourceName);
+            List<Object> all = service.findAll(resourceName, projectionOf(metadata, roles, fkTree, fieldSet));
+            fkPrefetcher.prefetch(all, fkTree);
             List<ObjectNode> results = all.stream()
                     .map(entity -> {
-                        ObjectNode node = fkTree.isEmpty()
-                                ? xAccessManager.filterFieldsByAccess(entity, metadata, roles, baseUrl)
-                                : xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree, baseUrl);
+                        ObjectNode node = xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree,
+                                baseUrl, fieldSet);
                         linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
                         return node;
                     }).collect(Collectors.toList());
@@ -245,10 +310,16 @@ public class XResourceController {
      * @param sortBy           optional field to sort by
      * @param direction        optional sort direction ("asc" or "desc")
      * @param foreignKeys      optional foreign key traversal instructions
+     * @param after            optional keyset cursor; when present (blank for the
+     *                         first page) keyset pagination is used
+     * @param count            optional count strategy of paged results
      * @param queryFiltersJson optional JSON string containing dynamic query filters
+     * @param fields           optional comma separated sparse fieldset
+     * @param stream           optional flag to stream unpaged results as NDJSON
+     *                         (also selected by {@code Accept: application/x-ndjson})
      * @param request          the current HTTP servlet request
      * @return the result set of the executed query, formatted as a list of JSON
-     *         objects
+     *         objects, or the rows as an NDJSON stream
      */
     @GetMapping("/{resourceName}/query/{queryName}")
     public ResponseEntity<?> executeXQuery(
@@ -259,7 +330,11 @@ public class XResourceController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String direction,
             @RequestParam(required = false) String foreignKeys,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String count,
             @RequestParam(required = false, name = "xQueryParams") String xQueryParamsJson,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Boolean stream,
             HttpServletRequest request) {
 
         log.info("Executing XQuery '%s' on resource: %s", queryName, resourceName);
@@ -276,6 +351,7 @@ public class XResourceController {
                 .toUriString();
 
         ForeignKeyTree fkTree = (foreignKeys != null) ? ForeignKeyParser.parse(foreignKeys) : new ForeignKeyTree();
+        Set<String> fieldSet = parseFieldSet(fields);
         Map<String, String> xQueryParams = parseXQueryParams(xQueryParamsJson);
         Map<String, Object> userContext = service.getCurrentUserContext();
         Map<String, Object> context = contextProvider.buildContext(userContext, xQueryParams);
@@ -283,54 +359,77 @@ public class XResourceController {
         XQuery xQuery = metadata.getXQuery(queryName)
                 .orElseThrow(() -> new XResourceException("Query not found: " + queryName));
 
-        if (isPaged) {
-            int pg = page != null ? page : 0;
+        if (after != null) {
             int sz = size != null ? size : 10;
-            String sortField = sortBy != null ? sortBy : null;
             String dir = direction != null ? direction : "asc";
 
-            log.debug("Running paged query '%s' with page=%s, size=%s, sort=%s, dir=%s", queryName, pg, sz, sortField,
-                    dir);
+            log.debug("Running keyset query '%s' with after=%s, size=%s, sort=%s, dir=%s", queryName, after, sz,
+                    sortBy, dir);
 
-            Page<?> paged = queryExecutor.executePagedQuery(metadata.getEntityClass(), xQuery, context, pg, sz,
-                    sortField, dir);
-            List<ObjectNode> results = paged.getContent().stream()
-                    .map(entity -> {
-                        ObjectNode node = fkTree.isEmpty()
-                                ? xAccessManager.filterFieldsByAccess(entity, metadata, roles, baseUrl)
-                                : xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree, baseUrl);
-                        linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
-                        return node;
-                    }).collect(Collectors.toList());
+            XKeysetPage<?> slice = queryExecutor.executeKeysetQueries(metadata.getEntityClass(), metadata,
+                    Map.of(queryName, xQuery), context, after, sz, sortBy, dir);
+            List<ObjectNode> results = toResourceNodes(slice.getContent(), resourceName, metadata, roles, fkTree,
+                    baseUrl, fieldSet);
 
             // Handle response transformer
             if (xResponseTranformersRegistry.getNamedQueryTransformer() != null) {
                 results = applyFindAllTransformer(results, resourceName,
                         xResponseTranformersRegistry.getNamedQueryTransformer());
             }
-            return ResponseEntity.ok(Map.of(
-                    "data", results,
-                    "page", pg,
-                    "size", sz,
-                    "totalElements", paged.getTotalElements(),
-                    "totalPages", paged.getTotalPages()));
+            return ResponseEntity.ok(keysetResponse(results, slice));
+        } else if (isPaged) {
+            int pg = page != null ? page : 0;
+            int sz = size != null ? size : 10;
+            String sortField = sortBy != null ? sortBy : null;
+            String dir = direction != null ? direction : "asc";
+
+            Map<String, Object> response = resultCache.getOrLoad(metadata, xQuery, context, roles,
+                    !fkTree.isEmpty(), Arrays.asList(pg, sz, sortField, dir, count, fields, foreignKeys, baseUrl),
+                    () -> {
+                        log.debug("Running paged query '%s' with page=%s, size=%s, sort=%s, dir=%s", queryName, pg,
+                                sz, sortField, dir);
+
+                        Page<?> paged = queryExecutor.executePagedQuery(metadata.getEntityClass(), xQuery, context,
+                                pg, sz, sortField, dir, countManager.resolve(metadata, count),
+                                projectionOf(metadata, roles, fkTree, fieldSet));
+                        fkPrefetcher.prefetch(paged.getContent(), fkTree);
+                        List<ObjectNode> results = paged.getContent().stream()
+                                .map(entity -> {
+                                    ObjectNode node = xAccessManager.filterFieldsByAccess(entity, metadata, roles,
+                                            fkTree, baseUrl, fieldSet);
+                                    linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
+                                    return node;
+                                }).collect(Collectors.toList());
+                        return pagedResponse(results, paged);
+                    });
+
+            // Handle response transformer
+            return ResponseEntity.ok(applyNamedQueryTransformer(response, resourceName));
+        } else if (isStreamRequested(stream, request)) {
+            log.debug("Streaming unpaged query '%s'", queryName);
+            XProjection projection = projectionOf(metadata, roles, fkTree, fieldSet);
+            return streamNdjson(resourceName, metadata, roles, fkTree, baseUrl, fieldSet,
+                    xResponseTranformersRegistry.getNamedQueryTransformer(),
+                    rowWriter -> queryExecutor.streamQuery(metadata.getEntityClass(), xQuery, context, projection,
+                            rowWriter));
         } else {
-            log.debug("Running unpaged query '%s'", queryName);
-            List<?> all = queryExecutor.executeQuery(metadata.getEntityClass(), xQuery, context);
-            List<ObjectNode> results = all.stream()
-                    .map(entity -> {
-                        ObjectNode node = fkTree.isEmpty()
-                                ? xAccessManager.filterFieldsByAccess(entity, metadata, roles, baseUrl)
-                                : xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree, baseUrl);
-                        linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
-                        return node;
-                    }).collect(Collectors.toList());
+            Map<String, Object> response = resultCache.getOrLoad(metadata, xQuery, context, roles,
+                    !fkTree.isEmpty(), Arrays.asList(fields, foreignKeys, baseUrl), () -> {
+                        log.debug("Running unpaged query '%s'", queryName);
+                        List<?> all = queryExecutor.executeQuery(metadata.getEntityClass(), xQuery, context,
+                                projectionOf(metadata, roles, fkTree, fieldSet));
+                        fkPrefetcher.prefetch(all, fkTree);
+                        List<ObjectNode> results = all.stream()
+                                .map(entity -> {
+                                    ObjectNode node = xAccessManager.filterFieldsByAccess(entity, metadata, roles,
+                                            fkTree, baseUrl, fieldSet);
+                                    linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
+                                    return node;
+                                }).collect(Collectors.toList());
+                        return Map.of("data", results);
+                    });
             // Handle response transformer
-            if (xResponseTranformersRegistry.getNamedQueryTransformer() != null) {
-                results = applyFindAllTransformer(results, resourceName,
-                        xResponseTranformersRegistry.getNamedQueryTransformer());
-            }
-            return ResponseEntity.ok(Map.of("data", results));
+            return ResponseEntity.ok(applyNamedQueryTransformer(response, resourceName));
         }
     }
 
@@ -365,6 +464,8 @@ public class XResourceController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String direction,
             @RequestParam(required = false) String foreignKeys,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String count,
             @RequestParam(required = false, name = "xIntentParams") String xQueryParamsJson,
             HttpServletRequest request) {
 
@@ -389,16 +490,28 @@ public class XResourceController {
         IntentMeta xIntent = metadata.getXIntent(intentName)
                 .orElseThrow(() -> new XResourceException("Intent not found: " + intentName));
 
-        if (isPaged) {
+        if (after != null) {
+            int sz = size != null ? size : 10;
+            log.debug("Running keyset query for intent '%s' with after=%s, size=%s", intentName, after, sz);
+
+            XKeysetPage<Map<String, Object>> slice = queryExecutor.executeKeysetIntent(xIntent, metadata, context,
+                    after, sz, direction);
+            return ResponseEntity.ok(keysetResponse(slice.getContent(), slice));
+        } else if (isPaged) {
             int pg = page != null ? page : 0;
             int sz = size != null ? size : 10;
             String sortField = sortBy != null ? sortBy : null;
             String dir = direction != null ? direction : "asc";
 
-            log.debug("Running paged query '%s' with page=%s, size=%s, sort=%s, dir=%s", intentName, pg, sz, sortField,
-                    dir);
+            Map<String, Object> response = resultCache.getOrLoad(xIntent, context, roles,
+                    Arrays.asList(pg, sz, sortField, dir, count), () -> {
+                        log.debug("Running paged query '%s' with page=%s, size=%s, sort=%s, dir=%s", intentName, pg,
+                                sz, sortField, dir);
 
-            Page<?> paged = queryExecutor.executePagedIntent(xIntent, context, pg, sz);
+                        Page<?> paged = queryExecutor.executePagedIntent(xIntent, context, pg, sz,
+                                countManager.resolve(metadata, count));
+                        return pagedResponse(paged.getContent(), paged);
+                    });
             /*
              * List<ObjectNode> results = paged.getContent().stream()
              * .map(entity -> {
@@ -413,15 +526,12 @@ public class XResourceController {
 
             // Handle response transformer
 
-            return ResponseEntity.ok(Map.of(
-                    "data", paged.getContent(),
-                    "page", pg,
-                    "size", sz,
-                    "totalElements", paged.getTotalElements(),
-                    "totalPages", paged.getTotalPages()));
+            return ResponseEntity.ok(response);
         } else {
-            log.debug("Running unpaged query  for intent '%s'", intentName);
-            List<?> all = queryExecutor.executeIntent(metadata.getEntityClass(), xIntent, context);
+            Map<String, Object> response = resultCache.getOrLoad(xIntent, context, roles, List.of(), () -> {
+                log.debug("Running unpaged query  for intent '%s'", intentName);
+                return Map.of("data", queryExecutor.executeIntent(metadata.getEntityClass(), xIntent, context));
+            });
             /*
              * List<ObjectNode> results = all.stream()
              * .map(entity -> {
@@ -435,7 +545,7 @@ public class XResourceController {
              */
             // Handle response transformer
 
-            return ResponseEntity.ok(Map.of("data", all));
+            return ResponseEntity.ok(response);
         }
     }
 
@@ -470,6 +580,8 @@ public class XResourceController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String direction,
             @RequestParam(required = false) String foreignKeys,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String count,
             @RequestParam(required = false, name = "xIntentParams") String xQueryParamsJson,
             HttpServletRequest request) {
 
@@ -482,7 +594,6 @@ public class XResourceController {
         xRoleBasedAccessEvaluator.checkReadAccess(roles, metadata, resourceName);
         log.trace("Access verified for resource '%s', roles: %s", resourceName, roles);
 
-        boolean isPaged = page != null || size != null || sortBy != null || direction != null;
         String baseUrl = ServletUriComponentsBuilder.fromRequestUri(request)
                 .replacePath(request.getContextPath())
                 .build()
@@ -493,75 +604,18 @@ public class XResourceController {
         Map<String, Object> userContext = service.getCurrentUserContext();
         Map<String, Object> context = contextProvider.buildContext(userContext, xQueryParams);
 
+        IntentMeta imeta;
         try {
-            IntentDslCompiler compiler = new IntentDslCompiler();
-            Element xml;
-            try {
-                xml = compiler.compile(reqBody);
-                log.debug("Intent compiled XML=" + XmlIntentParser.printXmlElement(xml));
-            } catch (Exception e) {
-                return ResponseEntity.badRequest().body(Map.of("error",
-                        "unable to compile the requested intent, please make sure you are following proper syntax.",
-                        "exception", e.getMessage()));
-            }
-            IntentMeta imeta;
-            try {
-                imeta = XmlIntentParser.compile(xml, resourceName, metadata);
-            } catch (Exception e) {
-                return ResponseEntity.badRequest().body(Map.of("error",
-                        "unable to compile the requested intent, please make sure you are following proper syntax.",
-                        "exception", e.getMessage()));
-
-            }
-            if (isPaged) {
-                int pg = page != null ? page : 0;
-                int sz = size != null ? size : 10;
-                String sortField = sortBy != null ? sortBy : null;
-                String dir = direction != null ? direction : "asc";
-
-                log.debug("Running paged query with page=%s, size=%s, sort=%s, dir=%s", pg, sz, sortField,
-                        dir);
-
-                Page<?> paged = queryExecutor.executePagedIntent(imeta, context, pg, sz);
-                /*
-                 * List<ObjectNode> results = paged.getContent().stream()
-                 * .map(entity -> {
-                 * ObjectNode node = fkTree.isEmpty()
-                 * ? xAccessManager.filterFieldsByAccess(entity, metadata, roles, baseUrl)
-                 * : xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree,
-                 * baseUrl);
-                 * linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
-                 * return node;
-                 * }).collect(Collectors.toList());
-                 */
-
-                // Handle response transformer
-
-                return ResponseEntity.ok(Map.of(
-                        "data", paged.getContent(),
-                        "page", pg,
-                        "size", sz,
-                        "totalElements", paged.getTotalElements(),
-                        "totalPages", paged.getTotalPages()));
-            } else {
-                log.debug("Running unpaged query  for intent");
-                List<?> all = queryExecutor.executeIntent(metadata.getEntityClass(), imeta, context);
-                /*
-                 * List<ObjectNode> results = all.stream()
-                 * .map(entity -> {
-                 * ObjectNode node = fkTree.isEmpty()
-                 * ? xAccessManager.filterFieldsByAccess(entity, metadata, roles, baseUrl)
-                 * : xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree,
-                 * baseUrl);
-                 * linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
-                 * return node;
-                 * }).collect(Collectors.toList());
-                 */
-                // Handle response transformer
-
-                return ResponseEntity.ok(Map.of("data", all));
-            }
+            imeta = intentCache.getOrCompile(resourceName, "dsl", reqBody,
+                    body -> compileDslIntent(body, resourceName, metadata));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "unable to compile the requested intent, please make sure you are following proper syntax.",
+                    "exception", e.getMessage()));
+        }
 
+        try {
+            return executeCompiledIntent(imeta, metadata, context, page, size, sortBy, direction, after, count);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error",
                     "unable to process the requested intent, please make sure you are following proper syntax.",
@@ -579,6 +633,8 @@ public class XResourceController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String direction,
             @RequestParam(required = false) String foreignKeys,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String count,
             @RequestParam(required = false, name = "xIntentParams") String xQueryParamsJson,
             HttpServletRequest request) {
 
@@ -591,7 +647,6 @@ public class XResourceController {
         xRoleBasedAccessEvaluator.checkReadAccess(roles, metadata, resourceName);
         log.trace("Access verified for resource '%s', roles: %s", resourceName, roles);
 
-        boolean isPaged = page != null || size != null || sortBy != null || direction != null;
         String baseUrl = ServletUriComponentsBuilder.fromRequestUri(request)
                 .replacePath(request.getContextPath())
                 .build()
@@ -602,54 +657,165 @@ public class XResourceController {
         Map<String, Object> userContext = service.getCurrentUserContext();
         Map<String, Object> context = contextProvider.buildContext(userContext, xQueryParams);
 
+        IntentMeta imeta;
         try {
-            // Parse raw XML string to org.w3c.dom.Element
-            Element xmlElement;
-            try {
-                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                factory.setNamespaceAware(true);
-                DocumentBuilder builder = factory.newDocumentBuilder();
-                Document doc = builder.parse(new InputSource(new StringReader(xmlBody)));
-                xmlElement = doc.getDocumentElement();
-            } catch (Exception e) {
-                return ResponseEntity.badRequest().body(Map.of("error",
-                        "Failed to parse XML body",
-                        "exception", e.getMessage()));
-            }
+            imeta = intentCache.getOrCompile(resourceName, "xml", xmlBody,
+                    body -> compileXmlIntent(body, resourceName, metadata));
+        } catch (XMLStreamException e) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "Failed to parse XML body",
+                    "exception", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "Unable to compile the XML intent. Check XML structure and schema.",
+                    "exception", e.getMessage()));
+        }
 
-            // Generate IntentMeta from XML
-            IntentMeta imeta;
-            try {
-                imeta = XmlIntentParser.compile(xmlElement, resourceName, metadata);
-            } catch (Exception e) {
-                return ResponseEntity.badRequest().body(Map.of("error",
-                        "Unable to compile the XML intent. Check XML structure and schema.",
-                        "exception", e.getMessage()));
-            }
+        try {
+            return executeCompiledIntent(imeta, metadata, context, page, size, sortBy, direction, after, count);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "Unable to process the requested XML intent.",
+                    "exception", e.getMessage()));
+        }
+    }
 
-            // Paged vs Unpaged Execution (same as before)
-            if (isPaged) {
-                int pg = page != null ? page : 0;
-                int sz = size != null ? size : 10;
-                Page<?> paged = queryExecutor.executePagedIntent(imeta, context, pg, sz);
-                return ResponseEntity.ok(Map.of(
-                        "data", paged.getContent(),
-                        "page", pg,
-                        "size", sz,
-                        "totalElements", paged.getTotalElements(),
-                        "totalPages", paged.getTotalPages()));
-            } else {
-                List<?> all = queryExecutor.executeIntent(metadata.getEntityClass(), imeta, context);
-                return ResponseEntity.ok(Map.of("data", all));
-            }
+    /**
+     * Registers a dynamic intent, so that it can afterwards be executed by its
+     * hash through {@link #executePersistedIntent}, without sending (and
+     * compiling) the intent body again.
+     *
+     * @param resourceName the name of the resource the intent is executed on
+     * @param reqBody      the intent, as DSL or XML
+     * @param format       format of the body, {@code dsl} (default) or
+     *                     {@code xml}
+     * @return the hash identifying the registered intent
+     */
+    @PostMapping("/{resourceName}/intents/persisted")
+    public ResponseEntity<?> registerPersistedIntent(
+            @PathVariable String resourceName,
+            @RequestBody String reqBody,
+            @RequestParam(required = false, defaultValue = "dsl") String format) {
+
+        if (reqBody == null || reqBody.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Request body missing"));
+        }
+        if (!"dsl".equalsIgnoreCase(format) && !"xml".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported intent format: " + format));
+        }
+
+        List<String> roles = getCurrentUserRoles();
+        XResourceMetadata metadata = registry.get(resourceName);
+        xRoleBasedAccessEvaluator.checkReadAccess(roles, metadata, resourceName);
 
+        boolean xml = "xml".equalsIgnoreCase(format);
+        String hash;
+        try {
+            hash = intentCache.register(resourceName, xml ? "xml" : "dsl", reqBody,
+                    body -> xml ? compileXmlIntent(body, resourceName, metadata)
+                            : compileDslIntent(body, resourceName, metadata));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error",
-                    "Unable to process the requested XML intent.",
+                    "unable to compile the requested intent, please make sure you are following proper syntax.",
+                    "exception", e.getMessage()));
+        }
+        log.debug("Persisted intent %s registered for resource %s", hash, resourceName);
+        return ResponseEntity.ok(Map.of("hash", hash));
+    }
+
+    /**
+     * Executes an intent previously registered through
+     * {@link #registerPersistedIntent}.
+     *
+     * <p>
+     * Persisted intents are kept in memory only; when the hash is unknown (the
+     * intent was evicted, or the application restarted) a {@code 404} is
+     * returned and the client is expected to register the intent again.
+     * </p>
+     *
+     * @param resourceName the name of the resource the intent is executed on
+     * @param hash         the hash returned on registration
+     * @return the result of the intent, paged like
+     *         {@link #executeDynamicXIntent}
+     */
+    @GetMapping("/{resourceName}/intents/persisted/{hash}")
+    public ResponseEntity<?> executePersistedIntent(
+            @PathVariable String resourceName,
+            @PathVariable String hash,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String count,
+            @RequestParam(required = false, name = "xIntentParams") String xQueryParamsJson) {
+
+        List<String> roles = getCurrentUserRoles();
+        XResourceMetadata metadata = registry.get(resourceName);
+        xRoleBasedAccessEvaluator.checkReadAccess(roles, metadata, resourceName);
+        log.trace("Access verified for resource '%s', roles: %s", resourceName, roles);
+
+        Optional<IntentMeta> imeta = intentCache.getPersisted(resourceName, hash);
+        if (imeta.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error",
+                    "Intent " + hash + " is not registered for resource " + resourceName
+                            + ", register it again"));
+        }
+
+        Map<String, String> xQueryParams = parseXQueryParams(xQueryParamsJson);
+        Map<String, Object> context = contextProvider.buildContext(service.getCurrentUserContext(), xQueryParams);
+
+        try {
+            return executeCompiledIntent(imeta.get(), metadata, context, page, size, sortBy, direction, after,
+                    count);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "unable to process the requested intent.",
                     "exception", e.getMessage()));
         }
     }
 
+    private IntentMeta compileDslIntent(String body, String resourceName, XResourceMetadata metadata) {
+        return new IntentDslCompiler().compile(body, resourceName, metadata);
+    }
+
+    private IntentMeta compileXmlIntent(String body, String resourceName, XResourceMetadata metadata)
+            throws XMLStreamException {
+        return XmlIntentStreamParser.compile(new StringReader(body), resourceName, metadata);
+    }
+
+    /**
+     * Runs a compiled intent: keyset paginated when {@code after} is given, offset
+     * paginated when any paging parameter is given, unpaged otherwise.
+     */
+    private ResponseEntity<?> executeCompiledIntent(IntentMeta imeta, XResourceMetadata metadata,
+            Map<String, Object> context, Integer page, Integer size, String sortBy, String direction, String after,
+            String count) {
+        boolean isPaged = page != null || size != null || sortBy != null || direction != null;
+        if (after != null) {
+            int sz = size != null ? size : 10;
+            log.debug("Running keyset query with after=%s, size=%s", after, sz);
+
+            XKeysetPage<Map<String, Object>> slice = queryExecutor.executeKeysetIntent(imeta, metadata, context,
+                    after, sz, direction);
+            return ResponseEntity.ok(keysetResponse(slice.getContent(), slice));
+        } else if (isPaged) {
+            int pg = page != null ? page : 0;
+            int sz = size != null ? size : 10;
+            String dir = direction != null ? direction : "asc";
+
+            log.debug("Running paged query with page=%s, size=%s, sort=%s, dir=%s", pg, sz, sortBy, dir);
+
+            Page<?> paged = queryExecutor.executePagedIntent(imeta, context, pg, sz,
+                    countManager.resolve(metadata, count));
+            return ResponseEntity.ok(pagedResponse(paged.getContent(), paged));
+        } else {
+            log.debug("Running unpaged query  for intent");
+            List<?> all = queryExecutor.executeIntent(metadata.getEntityClass(), imeta, context);
+            return ResponseEntity.ok(Map.of("data", all));
+        }
+    }
+
     /**
      * Generates a dynamic JSON form schema for a specified resource based on its
      * metadata configuration.
@@ -703,6 +869,7 @@ public class XResourceController {
      * @param id           The URN-formatted primary key or simple ID.
      * @param foreignKeys  Optional string describing foreign key relationships to
      *                     be resolved.
+     * @param fields       Optional comma separated sparse fieldset.
      * @param request      The HttpServletRequest, used to determine base URL.
      * @return A filtered JSON object representing the requested entity with links
      *         and
@@ -714,6 +881,7 @@ public class XResourceController {
             @PathVariable String resourceName,
             @PathVariable Object id,
             @RequestParam(required = false) String foreignKeys,
+            @RequestParam(required = false) String fields,
             HttpServletRequest request) throws URISyntaxException {
 
         log.info("Received request to fetch resource '%s' with ID '%s'", resourceName, id);
@@ -734,6 +902,7 @@ public class XResourceController {
                 ? ForeignKeyParser.parse(foreignKeys)
                 : new ForeignKeyTree();
         log.debug("Parsed ForeignKeyTree: %s", fkTree);
+        Set<String> fieldSet = parseFieldSet(fields);
 
         Map<String, String> keyMap = urn.getKeyMap();
         log.debug("URN key map: %s", keyMap);
@@ -758,7 +927,7 @@ public class XResourceController {
             String simpleKey = keyMap.get("id");
             log.info("Resource '%s' uses simple key: %s", resourceName, simpleKey);
 
-            entity = service.findById(resourceName, simpleKey)
+            entity = service.findById(resourceName, simpleKey, projectionOf(metadata, roles, fkTree, fieldSet))
                     .orElseThrow(() -> {
                         String errorMsg = resourceName + " with ID " + id + " not found";
                         log.warn(errorMsg);
@@ -766,9 +935,9 @@ public class XResourceController {
                     });
         }
 
-        ObjectNode filtered = fkTree.isEmpty()
-                ? xAccessManager.filterFieldsByAccess(entity, metadata, roles, baseUrl)
-                : xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree, baseUrl);
+        fkPrefetcher.prefetch(List.of(entity), fkTree);
+        ObjectNode filtered = xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree, baseUrl,
+                fieldSet);
         log.debug("Filtered result: %s", filtered);
 
         linkResolver.injectPermalink(filtered, entity, resourceName, metadata, baseUrl);
@@ -1318,15 +1487,189 @@ public class XResourceController {
      */
     private List<String> getCurrentUserRoles() {
         log.enter("getCurrentUserRoles");
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities()
-                .stream()
-                .map(auth -> auth.getAuthority())
-                .collect(Collectors.toList());
+        List<String> roles = XSecuritySnapshot.current().getRoles();
         log.debug("Retrieved roles: %s", roles);
         log.exit("getCurrentUserRoles -> %s", roles);
         return roles;
     }
 
+    /**
+     * Applies access filtering and permalinks to a list of entities of the given
+     * resource.
+     */
+    private List<ObjectNode> toResourceNodes(List<?> entities, String resourceName, XResourceMetadata metadata,
+            List<String> roles, ForeignKeyTree fkTree, String baseUrl, Set<String> fieldSet) {
+        fkPrefetcher.prefetch(entities, fkTree);
+        return entities.stream()
+                .map(entity -> {
+                    ObjectNode node = xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree, baseUrl,
+                            fieldSet);
+                    linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
+                    return node;
+                }).collect(Collectors.toList());
+    }
+
+    /**
+     * Parses the {@code fields} request parameter.
+     *
+     * @return the requested field names, {@code null} when all fields are
+     *         requested
+     */
+    private Set<String> parseFieldSet(String fields) {
+        if (fields == null || fields.isBlank())
+            return null;
+        Set<String> fieldSet = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            if (!field.isBlank())
+                fieldSet.add(field.trim());
+        }
+        return fieldSet;
+    }
+
+    /**
+     * Projection selecting only the fields the caller may read and asked for.
+     * Only requests with a sparse fieldset are projected; expanded foreign keys
+     * need the full entities, so nothing is projected when {@code fkTree} is
+     * not empty either.
+     */
+    private XProjection projectionOf(XResourceMetadata metadata, List<String> roles, ForeignKeyTree fkTree,
+            Set<String> fieldSet) {
+        if (fieldSet == null || !fkTree.isEmpty())
+            return null;
+        return queryExecutor.compileProjection(metadata,
+                xAccessManager.resolveReadableFields(metadata, roles, fieldSet));
+    }
+
+    /**
+     * Builds the response envelope of an offset paginated result.
+     * {@code countStrategy} reports how {@code totalElements} was produced; with
+     * {@code none} no total is known, {@code totalElements} and
+     * {@code totalPages} are {@code null} and only {@code hasNext} is reliable.
+     */
+    private Map<String, Object> pagedResponse(List<?> data, Page<?> paged) {
+        XCountStrategy strategy = paged instanceof XCountedPage<?> counted ? counted.getCountStrategy()
+                : XCountStrategy.EXACT;
+        boolean totalKnown = strategy != XCountStrategy.NONE;
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", data);
+        response.put("page", paged.getNumber());
+        response.put("size", paged.getSize());
+        response.put("totalElements", totalKnown ? paged.getTotalElements() : null);
+        response.put("totalPages", totalKnown ? paged.getTotalPages() : null);
+        response.put("hasNext", paged.hasNext());
+        response.put("countStrategy", strategy.value());
+        return response;
+    }
+
+    /**
+     * Builds the response envelope of a keyset paginated result. {@code nextCursor}
+     * is {@code null} on the last page.
+     */
+    private Map<String, Object> keysetResponse(List<?> data, XKeysetPage<?> slice) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", data);
+        response.put("size", slice.getSize());
+        response.put("hasNext", slice.isHasNext());
+        response.put("nextCursor", slice.getNextCursor());
+        return response;
+    }
+
+    /**
+     * Determines whether the caller asked for a streamed (NDJSON) response, either
+     * through the {@code stream} request parameter or by listing
+     * {@code application/x-ndjson} in the {@code Accept} header. Wildcards do not
+     * select streaming, and neither does a quality of 0.
+     */
+    private boolean isStreamRequested(Boolean stream, HttpServletRequest request) {
+        if (Boolean.TRUE.equals(stream)) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON) && mediaType.getQualityValue() > 0)
+                    return true;
+            }
+        } catch (InvalidMediaTypeException e) {
+            log.debug("Ignoring invalid Accept header: %s", accept);
+        }
+        return false;
+    }
+
+    /**
+     * Streams rows produced by {@code rowSource} as newline delimited JSON. Each
+     * entity is access-filtered, linked and serialized as soon as it is read, so
+     * nothing but the current row is held in memory.
+     *
+     * <p>
+     * The body is written by Spring MVC on an async worker thread once the
+     * handler returned; the request context is carried over to that thread. A
+     * list transformer is applied to each row on its own, as a singleton list,
+     * since the whole list never exists.
+     * </p>
+     *
+     * @param resourceName the resource being streamed
+     * @param metadata     metadata of the resource
+     * @param roles        roles of the current user
+     * @param fkTree       foreign key expansion tree
+     * @param baseUrl      base URL used for links
+     * @param fieldSet     requested sparse fieldset, {@code null} for all fields
+     * @param transformer  optional list transformer, applied to each row on its own
+     * @param rowSource    producer that pushes every entity into the supplied row
+     *                     writer and returns the number of rows
+     * @return the NDJSON response
+     */
+    private ResponseEntity<StreamingResponseBody> streamNdjson(String resourceName, XResourceMetadata metadata,
+            List<String> roles, ForeignKeyTree fkTree, String baseUrl, Set<String> fieldSet,
+            XResponseTransformer<List<ObjectNode>> transformer,
+            ToLongFunction<Consumer<Object>> rowSource) {
+        XResourceRequestContext requestContext = XResourceRequestContextHolder.get();
+
+        StreamingResponseBody body = outputStream -> {
+            XResourceRequestContextHolder.set(requestContext);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // rows are separated by the explicit newline below, not Jackson's default space
+                generator.setRootValueSeparator(null);
+                long[] written = { 0 };
+                long count = rowSource.applyAsLong(entity -> {
+                    try {
+                        if (transformer == null) {
+                            // no transformer: render the entity straight onto the response
+                            xAccessManager.writeFieldsByAccess(generator, entity, resourceName, metadata, roles,
+                                    fkTree, baseUrl, fieldSet);
+                            generator.writeRaw('\n');
+                        } else {
+                            ObjectNode node = xAccessManager.filterFieldsByAccess(entity, metadata, roles, fkTree,
+                                    baseUrl, fieldSet);
+                            linkResolver.injectPermalink(node, entity, resourceName, metadata, baseUrl);
+                            for (ObjectNode row : applyFindAllTransformer(List.of(node), resourceName,
+                                    transformer)) {
+                                generator.writeTree(row);
+                                generator.writeRaw('\n');
+                            }
+                        }
+                        if (++written[0] % NDJSON_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.flush();
+                log.info("Streamed result: %s records fetched from resource: %s", count, resourceName);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                XResourceRequestContextHolder.clear();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Parses a JSON string into a map of xquery params.
      *
@@ -1398,6 +1741,8 @@ public class XResourceController {
         systemInfo.put("javaVersion", System.getProperty("java.version"));
         systemInfo.put("jvmName", System.getProperty("java.vm.name"));
         systemInfo.put("uptime", getUptime());
+        systemInfo.put("openEntityManagers", XEntityManagerTracker.getOpenCount());
+        systemInfo.put("queryCache", resultCache.getStats());
 
         // 3. Construct full response
         response.put("resources", resourcesInfo);
@@ -1471,6 +1816,21 @@ public class XResourceController {
         return transformer.tranform(deepCopiedResponse, resourceName);
     }
 
+    /**
+     * Applies the named query transformer to the {@code data} of a response
+     * body, leaving the (possibly cached) body itself untouched.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> applyNamedQueryTransformer(Map<String, Object> response, String resourceName) {
+        XResponseTransformer<List<ObjectNode>> transformer = xResponseTranformersRegistry.getNamedQueryTransformer();
+        if (transformer == null)
+            return response;
+        Map<String, Object> transformed = new HashMap<>(response);
+        transformed.put("data",
+                applyFindAllTransformer((List<ObjectNode>) response.get("data"), resourceName, transformer));
+        return transformed;
+    }
+
     private ObjectNode applyFindOneTransformer(ObjectNode response, String resourceName,
             XResponseTransformer<ObjectNode> transformer) {
         if (transformer == null || response == null)
@@ -8,8 +8,11 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
 import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.xresource.core.annotations.XQuery;
 import org.xresource.core.logging.XLogger;
 import org.xresource.internal.query.XQueryContextProvider;
@@ -17,12 +20,26 @@ import org.xresource.internal.query.XQueryExecutor;
 import org.xresource.internal.models.XResourceMetadata;
 import org.xresource.internal.registry.XResourceMetadataRegistry;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Schedules the registered {@code @XCronJob}s.
+ *
+ * <p>
+ * Jobs run outside of any request, so every run binds an entity manager of its
+ * own (like open-in-view does for requests) until the task returns: the
+ * records handed to the task stay attached and their lazy associations can be
+ * read.
+ * </p>
+ */
 public class XJobRunner implements ApplicationRunner {
 
     private final XJobRegistry registry;
     private final XQueryExecutor executor;
     private final XResourceMetadataRegistry resourceRegistry;
     private final XQueryContextProvider xQueryProvider;
+    private final EntityManagerFactory emf;
     private final XLogger log = XLogger.forClass(XJobRunner.class);
 
     private final ConcurrentTaskScheduler scheduler = new ConcurrentTaskScheduler();
@@ -32,11 +49,13 @@ public class XJobRunner implements ApplicationRunner {
             XJobRegistry registry,
             XQueryExecutor executor,
             XResourceMetadataRegistry resourceRegistry,
-            XQueryContextProvider xQueryProvider) {
+            XQueryContextProvider xQueryProvider,
+            EntityManagerFactory emf) {
         this.registry = registry;
         this.executor = executor;
         this.resourceRegistry = resourceRegistry;
         this.xQueryProvider = xQueryProvider;
+        this.emf = emf;
     }
 
     @Override
@@ -44,42 +63,63 @@ public class XJobRunner implements ApplicationRunner {
         log.info("🚀 XJobRunner starting...");
 
         for (XRegisteredJob job : registry.getAllJobs()) {
-            Runnable task = () -> {
-                try {
-                    List<?> data = Collections.emptyList();
-
-                    if (!job.getResource().isEmpty() && !job.getQuery().isEmpty()) {
-                        XResourceMetadata metadata = resourceRegistry.get(job.getResource());
-                        if (metadata == null) {
-                            // try from ignored resource
-                            metadata = resourceRegistry.getEmbeddedResource(job.getResource());
-                        }
-                        if (metadata == null) {
-                            metadata = resourceRegistry.getCronResource(job.getResource());
-                        }
-
-                        Optional<XQuery> optQuery = metadata.getXQuery(job.getQuery());
-
-                        if (optQuery.isEmpty()) {
-                            System.err.println("⚠️ XQuery not found: " + job.getQuery());
-                            return;
-                        }
-
-                        XQuery xQuery = optQuery.get();
-                        Map<String, Object> context = xQueryProvider.getEmptyContext(); // or dynamic context building
-                        data = executor.executeQuery(metadata.getEntityClass(), xQuery, context);
-                    }
-
-                    job.getTask().run(data);
-
-                } catch (Exception ex) {
-                    System.err.println("❌ Error in XJob '" + job.getName() + "': " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            };
+            Runnable task = () -> execute(job);
 
             scheduler.schedule(task, new CronTrigger(job.getCron()));
             log.info("📅 Scheduled job: " + job.getName() + " -> " + job.getCron());
         }
     }
+
+    /**
+     * Runs one execution of a job, with an entity manager bound to the current
+     * thread until the task returns.
+     */
+    void execute(XRegisteredJob job) {
+        if (TransactionSynchronizationManager.hasResource(emf)) {
+            runJob(job);
+            return;
+        }
+        EntityManager entityManager = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(entityManager));
+        try {
+            runJob(job);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            EntityManagerFactoryUtils.closeEntityManager(entityManager);
+        }
+    }
+
+    private void runJob(XRegisteredJob job) {
+        try {
+            List<?> data = Collections.emptyList();
+
+            if (!job.getResource().isEmpty() && !job.getQuery().isEmpty()) {
+                XResourceMetadata metadata = resourceRegistry.get(job.getResource());
+                if (metadata == null) {
+                    // try from ignored resource
+                    metadata = resourceRegistry.getEmbeddedResource(job.getResource());
+                }
+                if (metadata == null) {
+                    metadata = resourceRegistry.getCronResource(job.getResource());
+                }
+
+                Optional<XQuery> optQuery = metadata.getXQuery(job.getQuery());
+
+                if (optQuery.isEmpty()) {
+                    System.err.println("⚠️ XQuery not found: " + job.getQuery());
+                    return;
+                }
+
+                XQuery xQuery = optQuery.get();
+                Map<String, Object> context = xQueryProvider.getEmptyContext(); // or dynamic context building
+                data = executor.executeQuery(metadata.getEntityClass(), xQuery, context);
+            }
+
+            job.getTask().run(data);
+
+        } catch (Exception ex) {
+            System.err.println("❌ Error in XJob '" + job.getName() + "': " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
 }
@@ -1,16 +1,29 @@
 package org.xresource.internal.intent.core.dsl;
 
 import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.w3c.dom.Element;
 import org.xresource.internal.intent.core.antlr.IntentDslLexer;
 import org.xresource.internal.intent.core.antlr.IntentDslParser;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.IntentContext;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.models.XResourceMetadata;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
 public class IntentDslCompiler {
+
+  /**
+   * One parser per thread, reset for every input. The DFA built by the
+   * prediction is shared by all parser instances anyway; reusing the parser
+   * also keeps its ATN simulator. The lexer is created per input, as the
+   * indentation tracking of the lexer cannot be reset.
+   */
+  private static final ThreadLocal<IntentDslParser> PARSERS = ThreadLocal
+      .withInitial(() -> new IntentDslParser(null));
+
   /**
    * Compiler for Intent DSL strings into XML DOM structure.
    *
@@ -25,26 +38,72 @@ public class IntentDslCompiler {
    * @throws Exception if any syntax errors are found or parsing fails
    */
   public Element compile(String dslInput) throws Exception {
-    CharStream charStream = CharStreams.fromReader(new StringReader(dslInput));
-    IntentDslLexer lexer = new IntentDslLexer(charStream);
+    // Visit tree to build DOM
+    IntentDslVisitorToXml visitor = new IntentDslVisitorToXml();
+    return visitor.visit(parse(dslInput));
+  }
+
+  /**
+   * Compiles an Intent DSL string directly into {@link IntentMeta}, without
+   * going through the XML representation.
+   *
+   * @param dslInput     the raw Intent DSL string input
+   * @param resourceName the resource the intent is compiled for
+   * @param resourceMeta metadata of that resource
+   * @return the compiled intent
+   * @throws RuntimeException if any syntax errors are found or the intent is
+   *                          invalid for the resource
+   */
+  public IntentMeta compile(String dslInput, String resourceName, XResourceMetadata resourceMeta) {
+    return new IntentDslVisitorToIntentMeta(resourceName, resourceMeta).visit(parse(dslInput));
+  }
+
+  /**
+   * Parses an Intent DSL string.
+   *
+   * <p>
+   * The input is first parsed with SLL prediction, bailing out on the first
+   * error. Only when that fails, which for valid intents is rare, it is parsed
+   * again with full LL prediction, reporting all syntax errors.
+   *
+   * @param dslInput the raw Intent DSL string input
+   * @return the parse tree
+   * @throws RuntimeException if any syntax errors are found
+   */
+  public IntentContext parse(String dslInput) {
+    IntentDslLexer lexer = new IntentDslLexer(CharStreams.fromString(dslInput));
     CommonTokenStream tokens = new CommonTokenStream(lexer);
-    IntentDslParser parser = new IntentDslParser(tokens);
+    IntentDslParser parser = PARSERS.get();
+    parser.setTokenStream(tokens);
+    try {
+      parser.removeErrorListeners(); // remove default console errors
+      parser.setErrorHandler(new BailErrorStrategy());
+      parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+      try {
+        return parser.intent();
+      } catch (ParseCancellationException e) {
+        // Either a syntax error or an ambiguity SLL cannot resolve, retry with LL
+        tokens.seek(0);
+        parser.reset();
 
-    // Custom error listener to collect syntax errors
-    SyntaxErrorCollector errorListener = new SyntaxErrorCollector();
-    parser.removeErrorListeners(); // remove default console errors
-    parser.addErrorListener(errorListener);
+        // Custom error listener to collect syntax errors
+        SyntaxErrorCollector errorListener = new SyntaxErrorCollector();
+        parser.addErrorListener(errorListener);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
 
-    ParseTree tree = parser.intent();
+        IntentContext tree = parser.intent();
 
-    // Throw exception if syntax errors were found
-    if (!errorListener.getErrors().isEmpty()) {
-      throw new RuntimeException("Intent DSL syntax errors:\n" + String.join("\n", errorListener.getErrors()));
+        // Throw exception if syntax errors were found
+        if (!errorListener.getErrors().isEmpty()) {
+          throw new RuntimeException("Intent DSL syntax errors:\n" + String.join("\n", errorListener.getErrors()));
+        }
+        return tree;
+      }
+    } finally {
+      // do not keep the input of the last parse referenced by the thread
+      parser.setTokenStream(null);
     }
-
-    // Visit tree to build DOM
-    IntentDslVisitorToXml visitor = new IntentDslVisitorToXml();
-    return visitor.visit(tree);
   }
 
   /**
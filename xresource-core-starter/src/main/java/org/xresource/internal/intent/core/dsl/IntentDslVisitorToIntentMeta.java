@@ -0,0 +1,235 @@
+package org.xresource.internal.intent.core.dsl;
+
+import org.antlr.v4.runtime.Token;
+import org.xresource.core.intent.core.annotations.BindingType;
+import org.xresource.core.intent.core.annotations.ParamSource;
+import org.xresource.core.logging.XLogger;
+import org.xresource.internal.exception.XInvalidConfigurationException;
+import org.xresource.internal.intent.core.antlr.IntentDslBaseVisitor;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.IntentContext;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.JoinBlockContext;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.JoinFilterBlockContext;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.ParamEntryContext;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.ParameterBlockContext;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.QualifiedNameContext;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.SelectBlockContext;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.SelectListContext;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.intent.core.parser.model.IntentParameterMeta;
+import org.xresource.internal.intent.core.parser.model.JoinFilterMeta;
+import org.xresource.internal.intent.core.parser.model.JoinMeta;
+import org.xresource.internal.intent.core.parser.model.SelectAttributeMeta;
+import org.xresource.internal.intent.core.xml.XmlIntentParser;
+import org.xresource.internal.intent.core.xml.XmlJoinParser;
+import org.xresource.internal.models.XResourceMetadata;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Visitor that compiles a parsed Intent DSL directly into {@link IntentMeta},
+ * without building the intermediate XML document of
+ * {@link IntentDslVisitorToXml}.
+ *
+ * <p>
+ * The resulting metadata is the same as compiling the XML produced by
+ * {@link IntentDslVisitorToXml} with {@link XmlIntentParser#compile}: aliases,
+ * where clause, sort fields and parameter types are resolved through the same
+ * helpers. Like the XML path, only the first Description, Alias, Where,
+ * Paginated, Limit, Select, Parameters, Sort and Group block is used.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class IntentDslVisitorToIntentMeta extends IntentDslBaseVisitor<IntentMeta> {
+
+    private static final XLogger log = XLogger.forClass(IntentDslVisitorToIntentMeta.class);
+
+    private final String resourceName;
+    private final XResourceMetadata resourceMeta;
+
+    /**
+     * @param resourceName the resource the intent is compiled for
+     * @param resourceMeta metadata of that resource
+     */
+    public IntentDslVisitorToIntentMeta(String resourceName, XResourceMetadata resourceMeta) {
+        if (resourceName == null || resourceMeta == null) {
+            throw new XInvalidConfigurationException("Invalid Intent! Unable to locate root resource");
+        }
+        this.resourceName = resourceName;
+        this.resourceMeta = resourceMeta;
+    }
+
+    @Override
+    public IntentMeta visitIntent(IntentContext ctx) {
+        if (!ctx.resourceName.getText().equals(resourceName)) {
+            throw new XInvalidConfigurationException(
+                    "Requested resource and resource defined in intent for process mismatched.");
+        }
+
+        IntentMeta meta = new IntentMeta();
+        meta.setEntityClass(resourceMeta.getEntityClass());
+        meta.setName(ctx.intentName.getText());
+        meta.setRootResource(resourceName);
+        meta.setDescription(first(ctx.descriptionBlock(), "Description") != null
+                ? stripQuotes(ctx.descriptionBlock(0).description.getText())
+                : "");
+        meta.setRootAlias(XmlIntentParser.resolveRootAlias(
+                first(ctx.aliasBlock(), "Alias") != null ? ctx.aliasBlock(0).alias.getText() : null,
+                resourceMeta.getEntityClass()));
+        meta.setPaginated(first(ctx.paginationBlock(), "Pagination") != null
+                && Boolean.parseBoolean(ctx.paginationBlock(0).paginatedValue.getText()));
+        meta.setLimit(first(ctx.limitBlock(), "Limit") != null
+                ? XmlIntentParser.parseInt(ctx.limitBlock(0).limitValue.getText(), 0)
+                : 0);
+
+        // Joins first: their select attributes precede the root ones
+        List<JoinMeta> joins = new ArrayList<>();
+        for (JoinBlockContext joinBlock : ctx.joinBlock()) {
+            collectJoins(joinBlock, false, meta, joins);
+        }
+        meta.setJoins(joins);
+
+        Map<String, String> resourceAliasMap = new HashMap<>();
+        resourceAliasMap.put(resourceMeta.getResourceName(), meta.getRootAlias());
+        for (JoinMeta join : joins) {
+            resourceAliasMap.put(join.getResource(), join.getAlias());
+        }
+
+        List<SelectAttributeMeta> rootSelects = new ArrayList<>();
+        if (first(ctx.selectBlock(), "Select") != null) {
+            for (SelectListContext sl : ctx.selectBlock(0).selectList()) {
+                SelectAttributeMeta sel = new SelectAttributeMeta();
+                sel.setField(sl.field.getText());
+                sel.setAlias(XmlIntentParser.resolveSelectAlias(sel, sl.alias != null ? sl.alias.getText() : null,
+                        resourceAliasMap, meta.getName(), meta.getRootAlias(), resourceMeta));
+                sel.setAliasAs("");
+                rootSelects.add(sel);
+            }
+        }
+        meta.mergeSelectAttributes(rootSelects);
+
+        String where = first(ctx.whereBlock(), "Where") != null
+                ? stripQuotes(ctx.whereBlock(0).condition.getText())
+                : "";
+        meta.setWhere(XmlIntentParser.processWhereClause(where, resourceAliasMap, meta.getRootAlias(),
+                resourceMeta, meta.getName()));
+
+        meta.setParameters(ctx.parameterBlock().isEmpty() ? new ArrayList<>()
+                : parseParameters(ctx.parameterBlock(0)));
+
+        List<String> sortFields = ctx.sortBlock().isEmpty() ? List.of() : texts(ctx.sortBlock(0).sortFields);
+        meta.setSortBy(XmlIntentParser.processSortBy(sortFields.toArray(new String[0]), resourceAliasMap,
+                resourceMeta));
+        meta.setGroupBy(ctx.groupBlock().isEmpty() ? new ArrayList<>() : texts(ctx.groupBlock(0).groupFields));
+
+        return meta;
+    }
+
+    /**
+     * Adds {@code ctx} and, depth first, its nested joins to {@code joins}.
+     * Nested joins are chained to their parent.
+     */
+    private void collectJoins(JoinBlockContext ctx, boolean autoChain, IntentMeta meta, List<JoinMeta> joins) {
+        JoinMeta join = new JoinMeta();
+        join.setResource(ctx.resourceName.getText());
+        join.setAlias(XmlJoinParser.resolveJoinAlias(ctx.alias != null ? ctx.alias.getText() : null,
+                join.getResource()));
+        join.setAutoChain(autoChain);
+
+        for (SelectBlockContext selectBlock : ctx.selectBlock()) {
+            for (SelectListContext sl : selectBlock.selectList()) {
+                SelectAttributeMeta sel = new SelectAttributeMeta();
+                sel.setField(sl.field.getText());
+                sel.setAlias(join.getAlias());
+                if (sl.alias != null) {
+                    sel.setAliasAs(sl.alias.getText());
+                }
+                meta.addSelectAttribute(sel);
+            }
+        }
+
+        List<JoinFilterMeta> filters = new ArrayList<>();
+        for (JoinFilterBlockContext filterBlock : ctx.joinFilterBlock()) {
+            JoinFilterMeta filter = new JoinFilterMeta();
+            filter.setBinding(BindingType.valueOf(filterBlock.binding.getText().toUpperCase()));
+            filter.setField(join.getAlias() + "." + filterBlock.field.getText());
+            filter.setParam(filterBlock.paramName.getText());
+            filters.add(filter);
+        }
+        join.setFilters(filters);
+
+        joins.add(join);
+        for (JoinBlockContext nested : ctx.joinBlock()) {
+            collectJoins(nested, true, meta, joins);
+        }
+    }
+
+    private List<IntentParameterMeta> parseParameters(ParameterBlockContext ctx) {
+        List<IntentParameterMeta> list = new ArrayList<>();
+        for (ParamEntryContext entry : ctx.paramEntry()) {
+            IntentParameterMeta p = new IntentParameterMeta();
+            p.setName(entry.name.getText());
+
+            String type = qualifiedName(entry.type);
+            try {
+                p.setType(XmlIntentParser.resolveType(type));
+            } catch (ClassNotFoundException e) {
+                log.warn("Unknown type %s of intent parameter %s, using String", type, p.getName());
+                p.setType(String.class);
+            }
+
+            ParamSource source = ParamSource.valueOf(entry.source.getText().toUpperCase(Locale.ROOT));
+            if (source == ParamSource.STATIC && entry.defaultValue == null) {
+                throw new IllegalArgumentException(
+                        "Static parameter '" + p.getName() + "' must have a default value.");
+            }
+            p.setSource(source);
+            p.setDefaultValue(entry.defaultValue != null ? stripQuotes(entry.defaultValue.getText()) : "");
+            p.setBinding(entry.bindingType() != null
+                    ? BindingType.valueOf(entry.bindingType().getText().toUpperCase())
+                    : BindingType.EXACT);
+            list.add(p);
+        }
+        return list;
+    }
+
+    private <T> T first(List<T> blocks, String blockName) {
+        if (blocks.isEmpty())
+            return null;
+        if (blocks.size() > 1) {
+            log.warn("Multiple %s blocks found; using the first one.", blockName);
+        }
+        return blocks.get(0);
+    }
+
+    private static List<String> texts(List<Token> tokens) {
+        List<String> values = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            values.add(token.getText());
+        }
+        return values;
+    }
+
+    private static String qualifiedName(QualifiedNameContext ctx) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ctx.IDENTIFIER().size(); i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+            sb.append(ctx.IDENTIFIER(i).getText());
+        }
+        return sb.toString();
+    }
+
+    private static String stripQuotes(String quoted) {
+        if (quoted != null && quoted.length() >= 2 && quoted.startsWith("\"") && quoted.endsWith("\"")) {
+            return quoted.substring(1, quoted.length() - 1);
+        }
+        return quoted;
+    }
+}
@@ -1,8 +1,11 @@
 package org.xresource.internal.intent.core.parser;
 
+import org.xresource.core.aco.Swarm;
 import org.xresource.internal.intent.core.parser.model.*;
 import org.xresource.internal.exception.XResourceException;
 import org.xresource.internal.models.XRelationshipMetadata;
+import org.xresource.internal.models.XResourceGraph;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
 import org.xresource.internal.util.XResourceGraphBuilder;
 
 import java.util.*;
@@ -19,24 +22,85 @@ import java.util.stream.Collectors;
  */
 public class IntentToJPQLTransformer {
 
+    /** Alias of the root resource of intents that do not declare one. */
+    private static final String DEFAULT_ROOT_ALIAS = "root";
+
+    /**
+     * Returns the JPQL of the intent, generating it only on first use and again
+     * after the resource graph was rebuilt.
+     *
+     * @param intentMeta the parsed Intent metadata
+     * @param registry   registry the resource graph is built from
+     * @return JPQL query string ready for execution with parameter bindings
+     */
+    public static String toCachedJPQL(IntentMeta intentMeta, XResourceMetadataRegistry registry) {
+        return compile(intentMeta, registry).jpql();
+    }
+
+    /**
+     * Count query counterpart of
+     * {@link #toCachedJPQL(IntentMeta, XResourceMetadataRegistry)}.
+     *
+     * @param intentMeta the parsed Intent metadata
+     * @param registry   registry the resource graph is built from
+     * @return JPQL count query string ready for execution with parameter bindings
+     */
+    public static String toCachedJPQLCountQuery(IntentMeta intentMeta, XResourceMetadataRegistry registry) {
+        return compile(intentMeta, registry).countJpql();
+    }
+
+    private static CompiledIntentJPQL compile(IntentMeta intentMeta, XResourceMetadataRegistry registry) {
+        XResourceGraph graph = XResourceGraphBuilder.getResourceGraph(registry);
+        Swarm swarm = Swarm.active();
+        long pathRevision = swarm != null ? swarm.getRevision() : 0;
+        CompiledIntentJPQL compiled = intentMeta.getCompiledJPQL();
+        if (compiled == null || compiled.graphVersion() != graph.getVersion()
+                || compiled.pathRevision() != pathRevision) {
+            List<XRelationshipMetadata> joinPath = new ArrayList<>();
+            String jpql = toJPQL(intentMeta, graph, joinPath);
+            compiled = new CompiledIntentJPQL(graph.getVersion(), pathRevision, jpql,
+                    toJPQLCountQuery(intentMeta, graph), List.copyOf(joinPath));
+            intentMeta.setCompiledJPQL(compiled);
+        }
+        return compiled;
+    }
+
     /**
      * Converts IntentMeta into JPQL query string.
      * 
      * @param intentMeta the parsed Intent metadata
      * @return JPQL query string ready for execution with parameter bindings
+     * @deprecated rebuilds the resource graph on every call; use
+     *             {@link #toJPQL(IntentMeta, XResourceGraph)} with
+     *             {@link org.xresource.internal.util.XResourceGraphBuilder#getResourceGraph}
      */
+    @Deprecated
     public static String toJPQL(IntentMeta intentMeta, Map<String, Map<String, XRelationshipMetadata>> graph) {
+        return toJPQL(intentMeta, XResourceGraph.fromRelationshipMap(0, graph));
+    }
+
+    /**
+     * Converts IntentMeta into JPQL query string.
+     * 
+     * @param intentMeta the parsed Intent metadata
+     * @param graph      relationships used to resolve joins without an ON clause
+     * @return JPQL query string ready for execution with parameter bindings
+     */
+    public static String toJPQL(IntentMeta intentMeta, XResourceGraph graph) {
+        return toJPQL(intentMeta, graph, null);
+    }
+
+    private static String toJPQL(IntentMeta intentMeta, XResourceGraph graph,
+            List<XRelationshipMetadata> traversed) {
         StringBuilder jpql = new StringBuilder();
-        String rootAlias = intentMeta.getRootAlias().isEmpty()
-                ? intentMeta.getRootResource().charAt(0) + String.valueOf(UUID.randomUUID())
-                : intentMeta.getRootAlias();
+        String rootAlias = rootAliasOf(intentMeta);
         jpql.append(buildSelectClause(intentMeta.getSelectAttributes(), rootAlias));
 
         jpql.append(buildFromClause(intentMeta.getEntityClass().getSimpleName(), rootAlias));
 
         jpql.append(buildJoinClauses(intentMeta.getRootResource(),
                 rootAlias, intentMeta.getJoins(),
-                graph));
+                graph, traversed));
 
         String whereClause = buildWhereClause(intentMeta);
         if (!whereClause.isEmpty()) {
@@ -58,20 +122,33 @@ public class IntentToJPQLTransformer {
      * 
      * @param intentMeta the parsed Intent metadata
      * @return JPQL count query string ready for execution with parameter bindings
+     * @deprecated rebuilds the resource graph on every call; use
+     *             {@link #toJPQLCountQuery(IntentMeta, XResourceGraph)} with
+     *             {@link org.xresource.internal.util.XResourceGraphBuilder#getResourceGraph}
      */
+    @Deprecated
     public static String toJPQLCountQuery(IntentMeta intentMeta,
             Map<String, Map<String, XRelationshipMetadata>> graph) {
+        return toJPQLCountQuery(intentMeta, XResourceGraph.fromRelationshipMap(0, graph));
+    }
+
+    /**
+     * Converts IntentMeta into JPQL count query string.
+     * 
+     * @param intentMeta the parsed Intent metadata
+     * @param graph      relationships used to resolve joins without an ON clause
+     * @return JPQL count query string ready for execution with parameter bindings
+     */
+    public static String toJPQLCountQuery(IntentMeta intentMeta, XResourceGraph graph) {
         StringBuilder jpql = new StringBuilder();
-        String rootAlias = intentMeta.getRootAlias().isEmpty()
-                ? intentMeta.getRootResource().charAt(0) + String.valueOf(UUID.randomUUID())
-                : intentMeta.getRootAlias();
+        String rootAlias = rootAliasOf(intentMeta);
         jpql.append("SELECT count(" + rootAlias + ")");
 
         jpql.append(buildFromClause(intentMeta.getEntityClass().getSimpleName(), rootAlias));
 
         jpql.append(buildJoinClauses(intentMeta.getRootResource(),
                 rootAlias, intentMeta.getJoins(),
-                graph));
+                graph, null));
 
         String whereClause = buildWhereClause(intentMeta);
         if (!whereClause.isEmpty()) {
@@ -81,6 +158,58 @@ public class IntentToJPQLTransformer {
         return jpql.toString();
     }
 
+    /**
+     * Converts IntentMeta into a keyset paginated JPQL query. The key paths are
+     * appended to the select list (after the intent attributes), optionally
+     * restricted by the seek predicate, and ordered by {@code orderBy}.
+     *
+     * @param intentMeta    the parsed Intent metadata
+     * @param keyPaths      alias qualified key paths, sort fields first
+     * @param seekPredicate predicate selecting rows after the cursor, or
+     *                      {@code null} for the first page
+     * @param orderBy       ORDER BY items over the key paths, matching the seek
+     *                      predicate's direction and null ordering
+     * @return JPQL query string ready for execution with parameter bindings
+     */
+    public static String toKeysetJPQL(IntentMeta intentMeta, XResourceGraph graph, List<String> keyPaths,
+            String seekPredicate, String orderBy) {
+        if (intentMeta.getRootAlias() == null || intentMeta.getRootAlias().isEmpty()) {
+            throw new XResourceException("Keyset pagination requires a root alias on intent " + intentMeta.getName());
+        }
+        String rootAlias = intentMeta.getRootAlias();
+
+        StringBuilder jpql = new StringBuilder();
+        jpql.append(buildSelectClause(intentMeta.getSelectAttributes(), rootAlias).trim())
+                .append(", ").append(String.join(", ", keyPaths)).append(" ");
+
+        jpql.append(buildFromClause(intentMeta.getEntityClass().getSimpleName(), rootAlias));
+
+        jpql.append(buildJoinClauses(intentMeta.getRootResource(),
+                rootAlias, intentMeta.getJoins(),
+                graph, null));
+
+        String whereClause = buildWhereClause(intentMeta);
+        if (seekPredicate != null) {
+            whereClause = whereClause.isEmpty() ? seekPredicate : "(" + whereClause + ") AND " + seekPredicate;
+        }
+        if (!whereClause.isEmpty()) {
+            jpql.append(" WHERE ").append(whereClause);
+        }
+
+        jpql.append(" ORDER BY ").append(orderBy);
+
+        return jpql.toString();
+    }
+
+    /**
+     * Declared root alias, or a fixed default so that the generated JPQL (and
+     * Hibernate's interpretation of it) is the same on every execution.
+     */
+    private static String rootAliasOf(IntentMeta intentMeta) {
+        String rootAlias = intentMeta.getRootAlias();
+        return rootAlias == null || rootAlias.isEmpty() ? DEFAULT_ROOT_ALIAS : rootAlias;
+    }
+
     private static String buildSelectClause(List<SelectAttributeMeta> selectAttributes, String rootAlias) {
         if (selectAttributes == null || selectAttributes.isEmpty()) {
             // Default select all from root alias
@@ -108,7 +237,7 @@ public class IntentToJPQLTransformer {
     }
 
     private static String buildJoinClauses(String rootResource, String rootResourceAlias, List<JoinMeta> joins,
-            Map<String, Map<String, XRelationshipMetadata>> graph) {
+            XResourceGraph graph, List<XRelationshipMetadata> traversed) {
         if (joins == null || joins.isEmpty()) {
             return "";
         }
@@ -116,6 +245,7 @@ public class IntentToJPQLTransformer {
         StringBuilder joinBuilder = new StringBuilder();
         JoinMeta prevJoin = null;
         for (JoinMeta join : joins) {
+            int joinStart = joinBuilder.length();
             joinBuilder.append(" JOIN ")
                     .append(join.getResource())
                     .append(" ")
@@ -127,13 +257,15 @@ public class IntentToJPQLTransformer {
                 // If autochain and prev join is not null , use the prev join entity as the
                 // parent resource
 
-                XRelationshipMetadata relationshipMetadata = findForeignkeyBiDirection(graph, join.getResource(),
+                XRelationshipMetadata relationshipMetadata = graph.findRelationship(join.getResource(),
                         prevJoin.getResource());
                 if (relationshipMetadata == null) {
-                    throw new XResourceException(
-                            "Unable to find a foreign key between resource :"
-                                    + join.getResource() + " and resource :" + prevJoin.getResource());
+                    // Not directly related, join through the shortest foreign key path
+                    appendJoinPath(joinBuilder, joinStart, graph, prevJoin.getResource(), prevJoin.getAlias(), join,
+                            traversed);
                 } else {
+                    if (traversed != null)
+                        traversed.add(relationshipMetadata);
                     if (join.getResource().equals(relationshipMetadata.getSourceTable())) {
                         joinBuilder.append(join.getAlias() + "." + relationshipMetadata.getForeignKeyField() + "="
                                 + prevJoin.getAlias());
@@ -146,13 +278,14 @@ public class IntentToJPQLTransformer {
             } else if ((join.getOn() == null || join.getOn().isEmpty())
                     && (join.isAutoChain() && prevJoin == null || !join.isAutoChain())) {
                 // If autochain and prev join is null , use the root resource as parent
-                XRelationshipMetadata relationshipMetadata = findForeignkeyBiDirection(graph, rootResource,
+                XRelationshipMetadata relationshipMetadata = graph.findRelationship(rootResource,
                         join.getResource());
                 if (relationshipMetadata == null) {
-                    throw new XResourceException(
-                            "Unable to find a foreign key between resource :"
-                                    + rootResource + " and resource :" + join.getResource());
+                    // Not directly related, join through the shortest foreign key path
+                    appendJoinPath(joinBuilder, joinStart, graph, rootResource, rootResourceAlias, join, traversed);
                 } else {
+                    if (traversed != null)
+                        traversed.add(relationshipMetadata);
                     joinBuilder.append(join.getAlias() + "." + relationshipMetadata.getForeignKeyField() + "="
                             + rootResourceAlias);
                 }
@@ -224,24 +357,65 @@ public class IntentToJPQLTransformer {
         return s.substring(0, 1).toUpperCase() + s.substring(1);
     }
 
-    private static XRelationshipMetadata findForeignkeyBiDirection(
-            Map<String, Map<String, XRelationshipMetadata>> graph,
-            String source, String target) {
-        // Let's check from source to target
-        if (graph.get(source) != null) {
-            Map<String, XRelationshipMetadata> relationMap = graph.get(source);
-            if (relationMap.get(target) != null) {
-                // Found a foreign key from source to target
-                return relationMap.get(target);
-            }
+    /**
+     * Joins {@code join} to an already joined resource it has no direct foreign
+     * key to. The intermediate resources of the shortest foreign key path are
+     * inserted at {@code joinStart}, ahead of the join itself, under the
+     * aliases {@code <join alias>_hop1}, {@code _hop2}, ...; the ON condition of
+     * the last step is appended to the join. When the ACO swarm is running with
+     * {@code xresource.aco.path-steering} enabled, its best ranked path among
+     * the shortest ones is used instead; the rows of the intent may then change
+     * with the ranking.
+     */
+    private static void appendJoinPath(StringBuilder joinBuilder, int joinStart, XResourceGraph graph,
+            String fromResource, String fromAlias, JoinMeta join, List<XRelationshipMetadata> traversed) {
+        Swarm swarm = Swarm.active();
+        List<XRelationshipMetadata> path = swarm != null
+                ? swarm.getPreferredPath(graph, fromResource, join.getResource())
+                : null;
+        if (path == null)
+            path = graph.getJoinPath(fromResource, join.getResource());
+        if (path.isEmpty()) {
+            throw new XResourceException(
+                    "Unable to find a foreign key between resource :"
+                            + fromResource + " and resource :" + join.getResource());
         }
-        if (graph.get(target) != null) {
-            Map<String, XRelationshipMetadata> relationMap = graph.get(target);
-            if (relationMap.get(source) != null) {
-                // Found a foreign key from target to source
-                return relationMap.get(source);
-            }
+        path.forEach(graph::requireUnambiguous);
+
+        StringBuilder hops = new StringBuilder();
+        String currentResource = fromResource;
+        String currentAlias = fromAlias;
+        for (int i = 0; i < path.size() - 1; i++) {
+            XRelationshipMetadata step = path.get(i);
+            String nextResource = step.getSourceTable().equals(currentResource) ? step.getTargetTable()
+                    : step.getSourceTable();
+            String nextAlias = join.getAlias() + "_hop" + (i + 1);
+            hops.append(" JOIN ")
+                    .append(nextResource)
+                    .append(" ")
+                    .append(nextAlias)
+                    .append(" ON ")
+                    .append(joinCondition(step, currentResource, currentAlias, nextAlias))
+                    .append(" ");
+            currentResource = nextResource;
+            currentAlias = nextAlias;
+        }
+        joinBuilder.insert(joinStart, hops);
+        if (traversed != null)
+            traversed.addAll(path);
+        joinBuilder.append(joinCondition(path.get(path.size() - 1), currentResource, currentAlias, join.getAlias()));
+    }
+
+    /**
+     * ON condition joining {@code newAlias} to {@code knownAlias} (an alias of
+     * {@code knownResource}) through one foreign key, whichever side declares
+     * it.
+     */
+    private static String joinCondition(XRelationshipMetadata relationship, String knownResource,
+            String knownAlias, String newAlias) {
+        if (relationship.getSourceTable().equals(knownResource)) {
+            return knownAlias + "." + relationship.getForeignKeyField() + "=" + newAlias;
         }
-        return null;
+        return newAlias + "." + relationship.getForeignKeyField() + "=" + knownAlias;
     }
 }
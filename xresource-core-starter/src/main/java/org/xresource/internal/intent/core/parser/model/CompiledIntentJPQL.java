@@ -0,0 +1,23 @@
+package org.xresource.internal.intent.core.parser.model;
+
+import java.util.List;
+
+import org.xresource.internal.models.XRelationshipMetadata;
+
+/**
+ * Data and count JPQL generated for an intent, together with the version of
+ * the resource graph and of the ACO join path ranking they were generated
+ * against.
+ *
+ * @param graphVersion version of the resource relationship graph
+ * @param pathRevision revision of the ACO join path ranking, 0 without ACO
+ * @param jpql         data query
+ * @param countJpql    count query
+ * @param joinPath     foreign keys traversed by the joins of the query
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public record CompiledIntentJPQL(long graphVersion, long pathRevision, String jpql, String countJpql,
+        List<XRelationshipMetadata> joinPath) {
+}
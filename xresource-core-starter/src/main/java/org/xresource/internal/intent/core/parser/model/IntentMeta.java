@@ -2,6 +2,8 @@ package org.xresource.internal.intent.core.parser.model;
 
 import lombok.*;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +32,15 @@ public class IntentMeta {
     private boolean paginated;
     private int limit;
 
+    /**
+     * JPQL generated for this intent, reused until the resource graph changes.
+     * The intent must not be modified once it has been executed.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile CompiledIntentJPQL compiledJPQL;
+
     public void addSelectAttribute(SelectAttributeMeta meta) {
         if (this.selectAttributes == null)
             this.selectAttributes = new ArrayList<>();
@@ -3,25 +3,20 @@ package org.xresource.internal.intent.core.util;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.xml.sax.InputSource;
 import org.xresource.core.logging.XLogger;
 import org.xresource.internal.exception.XInvalidConfigurationException;
+import org.xresource.internal.intent.core.antlr.IntentDslParser.IntentContext;
 import org.xresource.internal.intent.core.dsl.IntentDslCompiler;
+import org.xresource.internal.intent.core.dsl.IntentDslVisitorToIntentMeta;
 import org.xresource.internal.intent.core.parser.model.IntentMeta;
-import org.xresource.internal.intent.core.xml.XmlIntentParser;
+import org.xresource.internal.intent.core.xml.XmlIntentStreamParser;
 import org.xresource.internal.models.XResourceMetadata;
 import org.xresource.internal.registry.XResourceMetadataRegistry;
 
@@ -138,10 +133,10 @@ public class IntentsFileReader {
             log.trace("IQL content: \n%s", content);
 
             IntentDslCompiler compiler = new IntentDslCompiler();
-            Element xml = compiler.compile(content);
-            log.debug("Compiled IQL to XML successfully for: %s", resource.getFilename());
+            IntentContext tree = compiler.parse(content);
+            log.debug("Parsed IQL successfully for: %s", resource.getFilename());
 
-            String xresource = xml.getAttribute("resource");
+            String xresource = tree.resourceName.getText();
             log.trace("Extracted resource attribute: %s", xresource);
 
             if (xresource == null || xresource.isBlank()) {
@@ -156,9 +151,8 @@ public class IntentsFileReader {
             }
 
             log.debug("Metadata found for resource: %s", xresource);
-            log.trace("Parsed XML Element:\n%s", XmlIntentParser.printXmlElement(xml));
 
-            IntentMeta imeta = XmlIntentParser.compile(xml, xresource, xMeta);
+            IntentMeta imeta = new IntentDslVisitorToIntentMeta(xresource, xMeta).visit(tree);
             xMeta.addXIntent(imeta);
             log.info("Successfully loaded IQL: %s", resource.getFilename());
         } catch (Exception e) {
@@ -168,36 +162,12 @@ public class IntentsFileReader {
     }
 
     private void processXMLFile(Resource resource, XResourceMetadataRegistry registry) {
-        log.trace("Entering processIqlFile for: %s", resource.getFilename());
+        log.trace("Entering processXMLFile for: %s", resource.getFilename());
         try (InputStream is = resource.getInputStream()) {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            String xmlContent = new String(is.readAllBytes(), StandardCharsets.UTF_8);
-            Document doc = builder.parse(new InputSource(new StringReader(xmlContent)));
-
-            Element xml = doc.getDocumentElement();
-
-            log.debug("Parsed  the XML successfully for: %s", resource.getFilename());
-
-            String xresource = xml.getAttribute("resource");
-            log.trace("Extracted resource attribute: %s", xresource);
-
-            if (xresource == null || xresource.isBlank()) {
-                log.error("No resource attribute found in IQL XML.");
-                throw new XInvalidConfigurationException("Requested resource not found");
-            }
-
-            XResourceMetadata xMeta = registry.get(xresource);
-            if (xMeta == null) {
-                log.error("No metadata found for resource: %s", xresource);
-                throw new XInvalidConfigurationException("Metadata for requested resource not found");
-            }
-
-            log.debug("Metadata found for resource: %s", xresource);
-            log.trace("Parsed XML Element:\n%s", XmlIntentParser.printXmlElement(xml));
+            IntentMeta imeta = XmlIntentStreamParser.compile(is, registry);
+            log.debug("Parsed the XML successfully for: %s", resource.getFilename());
 
-            IntentMeta imeta = XmlIntentParser.compile(xml, xresource, xMeta);
+            XResourceMetadata xMeta = registry.get(imeta.getRootResource());
             xMeta.addXIntent(imeta);
             log.info("Successfully loaded XML: %s", resource.getFilename());
         } catch (Exception e) {
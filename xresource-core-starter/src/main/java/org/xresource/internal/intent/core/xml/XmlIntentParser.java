@@ -55,6 +55,10 @@ public class XmlIntentParser {
 
     private static final String SCHEMA_FILE = "/org/xresource/internal/intent/core/xml/intentSchema.xsd";
 
+    private static final Pattern WHERE_FIELD_PATTERN = Pattern.compile(
+            "\\b([a-zA-Z_][a-zA-Z0-9_]*)(\\.[a-zA-Z0-9_]+)?\\b\\s*(=|>|<|>=|<=|!=|LIKE)",
+            Pattern.CASE_INSENSITIVE);
+
     /**
      * Validates and compiles an XML <Intent> element into an {@link IntentMeta}
      * object.
@@ -84,7 +88,7 @@ public class XmlIntentParser {
         meta.setDescription(intentElement.getAttribute("description"));
 
         // Resolve root alias
-        String rootAlias = resolveRootAlias(intentElement, resourceMeta.getEntityClass());
+        String rootAlias = resolveRootAlias(intentElement.getAttribute("rootAlias"), resourceMeta.getEntityClass());
         meta.setRootAlias(rootAlias);
 
         meta.setPaginated(Boolean.parseBoolean(intentElement.getAttribute("paginated")));
@@ -112,6 +116,26 @@ public class XmlIntentParser {
         return meta;
     }
 
+    /**
+     * Intent schema, loaded once; {@link Schema} is thread safe.
+     */
+    private static final class SchemaHolder {
+        private static final Schema SCHEMA = loadSchema();
+
+        private static Schema loadSchema() {
+            InputStream schemaStream = XmlIntentParser.class.getResourceAsStream(SCHEMA_FILE);
+            if (schemaStream == null) {
+                throw new XInvalidConfigurationException("Schema file not found at: " + SCHEMA_FILE);
+            }
+            try (schemaStream) {
+                SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+                return schemaFactory.newSchema(new javax.xml.transform.stream.StreamSource(schemaStream));
+            } catch (SAXException | java.io.IOException e) {
+                throw new XInvalidConfigurationException("Unable to load intent schema " + SCHEMA_FILE, e);
+            }
+        }
+    }
+
     private static void validateAgainstSchema(Element element) {
         try {
             // Convert Element back to Document
@@ -122,15 +146,7 @@ public class XmlIntentParser {
             Element copied = (Element) document.importNode(element, true);
             document.appendChild(copied);
 
-            // Load schema
-            InputStream schemaStream = XmlIntentParser.class.getResourceAsStream(SCHEMA_FILE);
-            if (schemaStream == null) {
-                throw new XInvalidConfigurationException("Schema file not found at: " + SCHEMA_FILE);
-            }
-
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = schemaFactory.newSchema(new javax.xml.transform.stream.StreamSource(schemaStream));
-            Validator validator = schema.newValidator();
+            Validator validator = SchemaHolder.SCHEMA.newValidator();
             validator.validate(new javax.xml.transform.dom.DOMSource(document));
 
         } catch (SAXException e) {
@@ -156,8 +172,8 @@ public class XmlIntentParser {
 
                 SelectAttributeMeta sel = new SelectAttributeMeta();
                 sel.setField(el.getAttribute("field"));
-                String selectAlias = resolveSelectAlias(sel, el, joinedResourceMap, intentName, rootResourceAlias,
-                        resourceMeta);
+                String selectAlias = resolveSelectAlias(sel, el.getAttribute("alias"), joinedResourceMap, intentName,
+                        rootResourceAlias, resourceMeta);
                 sel.setAlias(selectAlias);
                 sel.setAliasAs(el.getAttribute("aliasAs"));
                 list.add(sel);
@@ -166,26 +182,35 @@ public class XmlIntentParser {
         return list;
     }
 
-    private static String resolveSelectAlias(
-            SelectAttributeMeta sel, Element attr, Map<String, String> joinedResourceMap,
+    /**
+     * Resolves the entity alias a root level select attribute is read from: the
+     * explicit alias, the resource prefix of the field ({@code Resource.field},
+     * which is then stripped from the field) or the root alias.
+     *
+     * @param sel   the select attribute, its field already set
+     * @param alias explicitly declared alias, may be {@code null} or empty
+     * @return the resolved alias
+     */
+    public static String resolveSelectAlias(
+            SelectAttributeMeta sel, String alias, Map<String, String> joinedResourceMap,
             String intentName, String rootResourceAlias, XResourceMetadata resourceMeta) {
-        if (attr.getAttribute("alias") != null && !attr.getAttribute("alias").isEmpty()) {
+        if (alias != null && !alias.isEmpty()) {
             boolean aliasFound = false;
             for (Entry<String, String> entry : joinedResourceMap.entrySet()) {
-                if (entry.getValue().equals(attr.getAttribute("alias"))) {
+                if (entry.getValue().equals(alias)) {
                     aliasFound = true;
                     break;
                 }
             }
             if (!aliasFound) {
                 throw new XInvalidConfigurationException("Invalid configuration while processing intent :" + intentName
-                        + ". Alias defined for select attribute " + attr.getAttribute("alias")
+                        + ". Alias defined for select attribute " + alias
                         + " is not found in the joined resources list.");
             } else {
-                return attr.getAttribute("alias");
+                return alias;
             }
         } else {
-            String fieldName = attr.getAttribute("field");
+            String fieldName = sel.getField();
             if (fieldName.contains(".")) {
                 String[] fieldNameArray = fieldName.split("\\.");
                 if (fieldNameArray.length == 2) {
@@ -195,8 +220,7 @@ public class XmlIntentParser {
                         return joinedResourceMap.get(resourceName);
                     } else {
                         throw new XInvalidConfigurationException("Invalid configuration while processing intent :"
-                                + intentName + ". Resource defined in field for select attribute " + attr
-                                        .getAttribute("field")
+                                + intentName + ". Resource defined in field for select attribute " + fieldName
                                 + " is not found in the joined resources list.");
 
                     }
@@ -208,7 +232,7 @@ public class XmlIntentParser {
                     return rootResourceAlias;
                 } else {
                     throw new XInvalidConfigurationException("Invalid configuration while processing intent :"
-                            + intentName + "." + "No alias defined for select attribute " + attr.getAttribute("field")
+                            + intentName + "." + "No alias defined for select attribute " + fieldName
                             + ", and the field is not present in the root resource :" + resourceMeta.getResourceName());
                 }
             }
@@ -257,7 +281,7 @@ public class XmlIntentParser {
         return values;
     }
 
-    private static int parseInt(String value, int defaultVal) {
+    public static int parseInt(String value, int defaultVal) {
         try {
             return value != null && !value.isBlank() ? Integer.parseInt(value) : defaultVal;
         } catch (NumberFormatException e) {
@@ -265,9 +289,12 @@ public class XmlIntentParser {
         }
     }
 
-    private static String resolveRootAlias(Element element, Class<?> clazz) {
-        if (!element.getAttribute("rootAlias").isBlank()) {
-            return element.getAttribute("rootAlias");
+    /**
+     * Returns the declared root alias, or generates one from the entity name.
+     */
+    public static String resolveRootAlias(String rootAlias, Class<?> clazz) {
+        if (rootAlias != null && !rootAlias.isBlank()) {
+            return rootAlias;
         }
         String name = clazz.getSimpleName();
         if (name.isEmpty())
@@ -275,7 +302,11 @@ public class XmlIntentParser {
         return name.substring(0, 1).toLowerCase() + "_" + (int) (Math.random() * 10000);
     }
 
-    private static Class<?> resolveType(String typeString) throws ClassNotFoundException {
+    /**
+     * Resolves an intent parameter type: a short name of a common type, an
+     * {@code @entity(...)} reference or a fully qualified class name.
+     */
+    public static Class<?> resolveType(String typeString) throws ClassNotFoundException {
         if (typeString == null || typeString.isBlank()) {
             throw new IllegalArgumentException("Type string cannot be null or blank");
         }
@@ -326,15 +357,17 @@ public class XmlIntentParser {
         }
     }
 
-    private static String processWhereClause(String whereClause, Map<String, String> joinedResourceMap,
+    /**
+     * Qualifies the fields of an intent where clause with the alias of their
+     * resource.
+     */
+    public static String processWhereClause(String whereClause, Map<String, String> joinedResourceMap,
             String rootAlias, XResourceMetadata resourceMeta, String intentName) {
         if (whereClause == null || whereClause.isBlank())
             return whereClause;
 
         StringBuilder processed = new StringBuilder();
-        Pattern pattern = Pattern.compile("\\b([a-zA-Z_][a-zA-Z0-9_]*)(\\.[a-zA-Z0-9_]+)?\\b\\s*(=|>|<|>=|<=|!=|LIKE)",
-                Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(whereClause);
+        Matcher matcher = WHERE_FIELD_PATTERN.matcher(whereClause);
 
         int lastEnd = 0;
 
@@ -380,7 +413,10 @@ public class XmlIntentParser {
         return processed.toString();
     }
 
-    private static List<String> processSortBy(String[] sortBy, Map<String, String> joinedResourceMap,
+    /**
+     * Qualifies sort fields with the alias of their resource.
+     */
+    public static List<String> processSortBy(String[] sortBy, Map<String, String> joinedResourceMap,
             XResourceMetadata resourceMeta) {
         List<String> result = new ArrayList<String>();
         for (String field : sortBy) {
@@ -388,7 +424,7 @@ public class XmlIntentParser {
                 String[] fieldArray = field.split("\\.");
                 String resourceName = fieldArray[0];
                 if (joinedResourceMap.containsKey(resourceName)) {
-                    result.add(joinedResourceMap.containsKey(resourceName) + "." + fieldArray[1]);
+                    result.add(joinedResourceMap.get(resourceName) + "." + fieldArray[1]);
                 } else {
                     throw new XInvalidConfigurationException("sortBy field " + field + "is invalid. No resource "
                             + resourceName + " found on joined resources list.");
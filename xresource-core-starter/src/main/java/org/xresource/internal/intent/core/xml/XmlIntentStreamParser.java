@@ -0,0 +1,401 @@
+package org.xresource.internal.intent.core.xml;
+
+import lombok.experimental.UtilityClass;
+import org.xresource.core.intent.core.annotations.BindingType;
+import org.xresource.core.intent.core.annotations.ParamSource;
+import org.xresource.core.logging.XLogger;
+import org.xresource.internal.exception.XInvalidConfigurationException;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.intent.core.parser.model.IntentParameterMeta;
+import org.xresource.internal.intent.core.parser.model.JoinFilterMeta;
+import org.xresource.internal.intent.core.parser.model.JoinMeta;
+import org.xresource.internal.intent.core.parser.model.SelectAttributeMeta;
+import org.xresource.internal.models.XResourceMetadata;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming (StAX) counterpart of {@link XmlIntentParser}: compiles an XML
+ * {@code <Intent>} into {@link IntentMeta} in a single pass over the input,
+ * without building a DOM.
+ *
+ * <p>
+ * The structure is checked while reading, against the same rules as
+ * {@code intentSchema.xsd} (element order and multiplicity, required and
+ * allowed attributes), and the result is the same as
+ * {@link XmlIntentParser#compile} for a valid document. DTDs and external
+ * entities are not supported. The input factory is configured once and shared.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+@UtilityClass
+public class XmlIntentStreamParser {
+
+    private static final XLogger log = XLogger.forClass(XmlIntentStreamParser.class);
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    /**
+     * Schema rules of one element.
+     *
+     * @param required attributes that must be present
+     * @param optional attributes that may be present
+     * @param children allowed child elements, in schema order
+     * @param single   child elements that may occur at most once
+     */
+    private record ElementRule(Set<String> required, Set<String> optional, List<String> children,
+            Set<String> single) {
+    }
+
+    private static final Map<String, ElementRule> RULES = Map.of(
+            "Intent", new ElementRule(Set.of("name", "resource"),
+                    Set.of("description", "rootAlias", "where", "paginated", "limit"),
+                    List.of("SelectAttribute", "parameters", "sortBy", "groupBy", "ResourceDrill"),
+                    Set.of("parameters", "ResourceDrill")),
+            "parameters", new ElementRule(Set.of(), Set.of(), List.of("IntentParameter"), Set.of()),
+            "IntentParameter", new ElementRule(Set.of("name", "type", "source"), Set.of("defaultValue", "binding"),
+                    List.of(), Set.of()),
+            "sortBy", new ElementRule(Set.of(), Set.of(), List.of("value"), Set.of()),
+            "groupBy", new ElementRule(Set.of(), Set.of(), List.of("value"), Set.of()),
+            "ResourceDrill", new ElementRule(Set.of(), Set.of(), List.of("XResource"), Set.of()),
+            "XResource", new ElementRule(Set.of("name"), Set.of("alias"),
+                    List.of("SelectAttribute", "JoinFilter", "XResource"), Set.of()),
+            "SelectAttribute", new ElementRule(Set.of("field"), Set.of("alias", "aliasAs"), List.of(), Set.of()),
+            "JoinFilter", new ElementRule(Set.of("field", "binding", "param"), Set.of(), List.of(), Set.of()));
+
+    /** A root level select attribute, resolved once all joins are known. */
+    private record RawSelect(String field, String alias, String aliasAs) {
+    }
+
+    /**
+     * Compiles an XML intent for the given resource.
+     *
+     * @param reader       the XML intent
+     * @param resourceName the resource the intent is compiled for
+     * @param resourceMeta metadata of that resource
+     * @return the compiled intent
+     * @throws XMLStreamException             if the input is not well-formed
+     *                                        XML
+     * @throws XInvalidConfigurationException if the intent is invalid
+     */
+    public static IntentMeta compile(Reader reader, String resourceName, XResourceMetadata resourceMeta)
+            throws XMLStreamException {
+        XMLStreamReader xml = INPUT_FACTORY.createXMLStreamReader(reader);
+        try {
+            return compile(xml, resourceName, resourceMeta, null);
+        } finally {
+            xml.close();
+        }
+    }
+
+    /**
+     * Compiles an XML intent for the resource named in its {@code resource}
+     * attribute.
+     *
+     * @param in       the XML intent
+     * @param registry used to look up the resource
+     * @return the compiled intent
+     * @throws XMLStreamException             if the input is not well-formed
+     *                                        XML
+     * @throws XInvalidConfigurationException if the resource is unknown or the
+     *                                        intent is invalid
+     */
+    public static IntentMeta compile(InputStream in, XResourceMetadataRegistry registry) throws XMLStreamException {
+        XMLStreamReader xml = INPUT_FACTORY.createXMLStreamReader(in);
+        try {
+            return compile(xml, null, null, registry);
+        } finally {
+            xml.close();
+        }
+    }
+
+    private static IntentMeta compile(XMLStreamReader xml, String resourceName, XResourceMetadata resourceMeta,
+            XResourceMetadataRegistry registry) throws XMLStreamException {
+        xml.nextTag();
+        if (!"Intent".equals(xml.getLocalName())) {
+            throw new XInvalidConfigurationException(
+                    "XML validation error: expected <Intent> but found <" + xml.getLocalName() + ">");
+        }
+        checkAttributes(xml, RULES.get("Intent"));
+
+        String declaredResource = attribute(xml, "resource");
+        if (registry != null) {
+            resourceName = declaredResource;
+            resourceMeta = registry.get(declaredResource);
+        }
+        if (resourceName == null || resourceMeta == null) {
+            throw new XInvalidConfigurationException("Invalid Intent! Unable to locate root resource");
+        }
+        if (!declaredResource.isEmpty() && !declaredResource.equals(resourceName)) {
+            throw new XInvalidConfigurationException(
+                    "Requested resource and resource defined in intent for process mismatched.");
+        }
+
+        IntentMeta meta = new IntentMeta();
+        meta.setEntityClass(resourceMeta.getEntityClass());
+        meta.setName(attribute(xml, "name"));
+        meta.setRootResource(resourceName);
+        meta.setDescription(attribute(xml, "description"));
+        meta.setRootAlias(XmlIntentParser.resolveRootAlias(attribute(xml, "rootAlias"),
+                resourceMeta.getEntityClass()));
+        meta.setPaginated(Boolean.parseBoolean(attribute(xml, "paginated")));
+        meta.setLimit(XmlIntentParser.parseInt(attribute(xml, "limit"), 0));
+        String where = attribute(xml, "where");
+
+        List<RawSelect> rootSelects = new ArrayList<>();
+        List<JoinMeta> joins = new ArrayList<>();
+        List<IntentParameterMeta> parameters = new ArrayList<>();
+        List<String> sortBy = null;
+        List<String> groupBy = null;
+
+        ChildCursor children = new ChildCursor(xml, RULES.get("Intent"));
+        while (children.next()) {
+            switch (xml.getLocalName()) {
+                case "SelectAttribute":
+                    rootSelects.add(new RawSelect(attribute(xml, "field"), attribute(xml, "alias"),
+                            attribute(xml, "aliasAs")));
+                    skipEmpty(xml);
+                    break;
+                case "parameters":
+                    parseParameters(xml, parameters);
+                    break;
+                case "sortBy":
+                    List<String> sortValues = parseValues(xml);
+                    if (sortBy == null)
+                        sortBy = sortValues;
+                    break;
+                case "groupBy":
+                    List<String> groupValues = parseValues(xml);
+                    if (groupBy == null)
+                        groupBy = groupValues;
+                    break;
+                default: // ResourceDrill
+                    parseJoins(xml, false, meta, joins);
+                    break;
+            }
+        }
+        meta.setJoins(joins);
+
+        Map<String, String> resourceAliasMap = new HashMap<>();
+        resourceAliasMap.put(resourceMeta.getResourceName(), meta.getRootAlias());
+        for (JoinMeta join : joins) {
+            resourceAliasMap.put(join.getResource(), join.getAlias());
+        }
+
+        List<SelectAttributeMeta> selects = new ArrayList<>(rootSelects.size());
+        for (RawSelect raw : rootSelects) {
+            SelectAttributeMeta sel = new SelectAttributeMeta();
+            sel.setField(raw.field());
+            sel.setAlias(XmlIntentParser.resolveSelectAlias(sel, raw.alias(), resourceAliasMap, meta.getName(),
+                    meta.getRootAlias(), resourceMeta));
+            sel.setAliasAs(raw.aliasAs());
+            selects.add(sel);
+        }
+        meta.mergeSelectAttributes(selects);
+        meta.setWhere(XmlIntentParser.processWhereClause(where, resourceAliasMap, meta.getRootAlias(), resourceMeta,
+                meta.getName()));
+        meta.setParameters(parameters);
+        meta.setSortBy(XmlIntentParser.processSortBy(
+                sortBy != null ? sortBy.toArray(new String[0]) : new String[0], resourceAliasMap, resourceMeta));
+        meta.setGroupBy(groupBy != null ? groupBy : new ArrayList<>());
+        return meta;
+    }
+
+    /**
+     * Reads the {@code XResource} children of the current element (a
+     * {@code ResourceDrill} or an {@code XResource}) into {@code joins}, depth
+     * first, each join before its nested joins.
+     */
+    private static void parseJoins(XMLStreamReader xml, boolean autoChain, IntentMeta meta, List<JoinMeta> joins)
+            throws XMLStreamException {
+        ChildCursor children = new ChildCursor(xml, RULES.get(xml.getLocalName()));
+        JoinMeta current = null;
+        List<JoinFilterMeta> filters = null;
+        if ("XResource".equals(xml.getLocalName())) {
+            current = new JoinMeta();
+            current.setResource(attribute(xml, "name"));
+            current.setAlias(XmlJoinParser.resolveJoinAlias(attribute(xml, "alias"), current.getResource()));
+            current.setAutoChain(autoChain);
+            filters = new ArrayList<>();
+            current.setFilters(filters);
+            joins.add(current);
+        }
+
+        while (children.next()) {
+            switch (xml.getLocalName()) {
+                case "SelectAttribute":
+                    SelectAttributeMeta sel = new SelectAttributeMeta();
+                    sel.setField(attribute(xml, "field"));
+                    sel.setAlias(current.getAlias());
+                    String aliasAs = attribute(xml, "aliasAs");
+                    if (!aliasAs.isEmpty())
+                        sel.setAliasAs(aliasAs);
+                    meta.addSelectAttribute(sel);
+                    skipEmpty(xml);
+                    break;
+                case "JoinFilter":
+                    filters.add(parseJoinFilter(xml, current.getAlias()));
+                    skipEmpty(xml);
+                    break;
+                default: // XResource
+                    parseJoins(xml, current != null, meta, joins);
+                    break;
+            }
+        }
+    }
+
+    private static JoinFilterMeta parseJoinFilter(XMLStreamReader xml, String joinAlias) {
+        JoinFilterMeta filter = new JoinFilterMeta();
+        String binding = attribute(xml, "binding");
+        if (!binding.isEmpty()) {
+            try {
+                filter.setBinding(BindingType.valueOf(binding));
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid binding type encountered: %s for field %s", binding, attribute(xml, "field"));
+            }
+        }
+        filter.setField(joinAlias + "." + attribute(xml, "field"));
+        filter.setParam(attribute(xml, "param"));
+        return filter;
+    }
+
+    private static void parseParameters(XMLStreamReader xml, List<IntentParameterMeta> parameters)
+            throws XMLStreamException {
+        ChildCursor children = new ChildCursor(xml, RULES.get("parameters"));
+        while (children.next()) {
+            IntentParameterMeta p = new IntentParameterMeta();
+            p.setName(attribute(xml, "name"));
+            String type = attribute(xml, "type");
+            try {
+                p.setType(XmlIntentParser.resolveType(type));
+            } catch (ClassNotFoundException e) {
+                log.warn("Unknown type %s of intent parameter %s, using String", type, p.getName());
+                p.setType(String.class);
+            }
+            p.setDefaultValue(attribute(xml, "defaultValue"));
+            String source = attribute(xml, "source");
+            p.setSource(source.isEmpty() ? ParamSource.STATIC : ParamSource.valueOf(source));
+            String binding = attribute(xml, "binding");
+            p.setBinding(binding.isEmpty() ? BindingType.EXACT : BindingType.valueOf(binding));
+            parameters.add(p);
+            skipEmpty(xml);
+        }
+    }
+
+    private static List<String> parseValues(XMLStreamReader xml) throws XMLStreamException {
+        List<String> values = new ArrayList<>();
+        ChildCursor children = new ChildCursor(xml, RULES.get(xml.getLocalName()));
+        while (children.next()) {
+            values.add(xml.getElementText().trim());
+        }
+        if (values.isEmpty()) {
+            throw new XInvalidConfigurationException("XML validation error: <" + xml.getLocalName()
+                    + "> requires at least one <value>");
+        }
+        return values;
+    }
+
+    /**
+     * Steps through the child elements of the current element, checking them
+     * against the element's rule. Text content other than whitespace is
+     * rejected.
+     */
+    private static final class ChildCursor {
+
+        private final XMLStreamReader xml;
+        private final String parent;
+        private final ElementRule rule;
+        private int lastIndex = -1;
+        private String last;
+
+        ChildCursor(XMLStreamReader xml, ElementRule rule) {
+            this.xml = xml;
+            this.parent = xml.getLocalName();
+            this.rule = rule;
+        }
+
+        /**
+         * Moves to the next child element.
+         *
+         * @return {@code false} once the end of the parent is reached
+         */
+        boolean next() throws XMLStreamException {
+            int event = xml.nextTag();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return false;
+
+            String name = xml.getLocalName();
+            int index = rule.children().indexOf(name);
+            if (index < 0 || index < lastIndex || (index == lastIndex && rule.single().contains(name))) {
+                throw new XInvalidConfigurationException(
+                        "XML validation error: unexpected element <" + name + "> in <" + parent + ">"
+                                + (last != null ? " after <" + last + ">" : ""));
+            }
+            lastIndex = index;
+            last = name;
+            ElementRule childRule = RULES.get(name);
+            if (childRule != null) {
+                checkAttributes(xml, childRule);
+            }
+            return true;
+        }
+    }
+
+    private static void checkAttributes(XMLStreamReader xml, ElementRule rule) {
+        for (String required : rule.required()) {
+            if (xml.getAttributeValue(null, required) == null) {
+                throw new XInvalidConfigurationException("XML validation error: attribute '" + required
+                        + "' is required on <" + xml.getLocalName() + ">");
+            }
+        }
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            String name = xml.getAttributeLocalName(i);
+            if (!rule.required().contains(name) && !rule.optional().contains(name)) {
+                throw new XInvalidConfigurationException("XML validation error: attribute '" + name
+                        + "' is not allowed on <" + xml.getLocalName() + ">");
+            }
+        }
+    }
+
+    /**
+     * Consumes an element that must not have child elements.
+     */
+    private static void skipEmpty(XMLStreamReader xml) throws XMLStreamException {
+        if (xml.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            throw new XInvalidConfigurationException(
+                    "XML validation error: <" + xml.getLocalName() + "> is not allowed here");
+        }
+    }
+
+    /**
+     * @return the attribute value, or an empty string when absent (as
+     *         {@link org.w3c.dom.Element#getAttribute})
+     */
+    private static String attribute(XMLStreamReader xml, String name) {
+        String value = xml.getAttributeValue(null, name);
+        return value != null ? value : "";
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
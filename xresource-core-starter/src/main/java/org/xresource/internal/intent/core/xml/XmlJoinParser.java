@@ -86,7 +86,7 @@ public class XmlJoinParser {
             if (tag.equals("XResource")) {
                 JoinMeta join = new JoinMeta();
                 join.setResource(el.getAttribute("name"));
-                join.setAlias(resolveJoinAlias(el, el.getAttribute("name")));
+                join.setAlias(resolveJoinAlias(el.getAttribute("alias"), el.getAttribute("name")));
                 // Optional attributes, retrieve if present, otherwise set to null or default
                 Optional.ofNullable(el.getAttribute("on")).filter(s -> !s.isEmpty()).ifPresent(join::setOn);
 
@@ -164,12 +164,14 @@ public class XmlJoinParser {
         return filtersList;
     }
 
-    private static String resolveJoinAlias(Element joinElement, String tagName) {
-        String alias = joinElement.getAttribute("alias");
+    /**
+     * Returns the declared join alias, or generates one from the resource name.
+     */
+    public static String resolveJoinAlias(String alias, String resourceName) {
         if (alias != null && !alias.isEmpty()) {
             return alias;
         } else {
-            return tagName.substring(0, 1).toUpperCase() + "_" + (int) (Math.random() * 10000);
+            return resourceName.substring(0, 1).toUpperCase() + "_" + (int) (Math.random() * 10000);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,254 @@
+package org.xresource.internal.models;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.xresource.internal.exception.XResourceException;
+
+/**
+ * Immutable snapshot of the foreign key relationships between resources.
+ *
+ * <p>
+ * Every foreign key is kept as its own edge, so a resource referencing the
+ * same table through several fields has one edge per field. On construction
+ * the graph also precomputes, for every pair of connected resources, the
+ * shortest join path between them, treating foreign keys as navigable in both
+ * directions. Shortest paths that avoid resources connected by several
+ * foreign keys are preferred; only when every shortest path crosses such a
+ * pair does the path hold the first of its foreign keys, which callers have to
+ * reject (see {@link #requireUnambiguous}). Lookups afterwards are plain map
+ * reads, so a published graph can be shared by any number of threads without
+ * locking.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public final class XResourceGraph {
+
+    private final long version;
+
+    /** Outgoing foreign keys, by source resource, in discovery order. */
+    private final Map<String, List<XRelationshipMetadata>> outgoing;
+
+    /** All foreign keys between two resources, in either direction. */
+    private final Map<String, Map<String, List<XRelationshipMetadata>>> edgesBetween;
+
+    /** Shortest join path, by source then target resource. */
+    private final Map<String, Map<String, List<XRelationshipMetadata>>> joinPaths;
+
+    /** Outgoing foreign keys as source -> target -> first relationship. */
+    private final Map<String, Map<String, XRelationshipMetadata>> relationshipMap;
+
+    /**
+     * Builds the graph of the given foreign keys.
+     *
+     * @param version       version of the graph, increasing with every rebuild
+     * @param relationships the foreign keys
+     */
+    public XResourceGraph(long version, Collection<XRelationshipMetadata> relationships) {
+        this.version = version;
+
+        Map<String, List<XRelationshipMetadata>> out = new LinkedHashMap<>();
+        Map<String, Map<String, List<XRelationshipMetadata>>> between = new LinkedHashMap<>();
+        Map<String, Map<String, XRelationshipMetadata>> firstBySource = new LinkedHashMap<>();
+        for (XRelationshipMetadata relationship : relationships) {
+            String source = relationship.getSourceTable();
+            String target = relationship.getTargetTable();
+            out.computeIfAbsent(source, k -> new ArrayList<>()).add(relationship);
+            between.computeIfAbsent(source, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(target, k -> new ArrayList<>()).add(relationship);
+            if (!source.equals(target)) {
+                between.computeIfAbsent(target, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(source, k -> new ArrayList<>()).add(relationship);
+            }
+            firstBySource.computeIfAbsent(source, k -> new LinkedHashMap<>()).putIfAbsent(target, relationship);
+        }
+
+        this.outgoing = freezeLists(out);
+        this.edgesBetween = freezeNested(between);
+        this.relationshipMap = freeze(firstBySource);
+        this.joinPaths = computeJoinPaths(between);
+    }
+
+    /**
+     * Builds a graph from the {@code source -> target -> relationship} map form.
+     * The graph is rebuilt on every call, so callers should keep the result.
+     */
+    public static XResourceGraph fromRelationshipMap(long version,
+            Map<String, Map<String, XRelationshipMetadata>> graph) {
+        List<XRelationshipMetadata> relationships = new ArrayList<>();
+        for (Map<String, XRelationshipMetadata> targets : graph.values()) {
+            relationships.addAll(targets.values());
+        }
+        return new XResourceGraph(version, relationships);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return names of the resources with at least one foreign key, in either
+     *         direction
+     */
+    public Set<String> getResources() {
+        return edgesBetween.keySet();
+    }
+
+    /**
+     * @return the foreign keys declared by {@code source}, empty if none
+     */
+    public List<XRelationshipMetadata> getOutgoing(String source) {
+        return outgoing.getOrDefault(source, Collections.emptyList());
+    }
+
+    /**
+     * @return every foreign key from {@code a} to {@code b} or from {@code b}
+     *         to {@code a}, empty if the resources are not directly related
+     */
+    public List<XRelationshipMetadata> getRelationships(String a, String b) {
+        Map<String, List<XRelationshipMetadata>> edges = edgesBetween.get(a);
+        return edges != null ? edges.getOrDefault(b, Collections.emptyList()) : Collections.emptyList();
+    }
+
+    /**
+     * Finds the foreign key joining two resources: the one declared by
+     * {@code source}, or else the one declared by {@code target}. There is no
+     * implicit choice between several foreign keys of the same side (e.g.
+     * {@code createdBy} and {@code updatedBy} both referencing a user); such
+     * joins need an explicit condition.
+     *
+     * @return the relationship, {@code null} if the resources are not directly
+     *         related
+     * @throws XResourceException if several foreign keys qualify
+     */
+    public XRelationshipMetadata findRelationship(String source, String target) {
+        List<XRelationshipMetadata> edges = getRelationships(source, target);
+        List<XRelationshipMetadata> declared = edges.stream()
+                .filter(edge -> edge.getSourceTable().equals(source))
+                .collect(Collectors.toList());
+        List<XRelationshipMetadata> candidates = declared.isEmpty() ? edges : declared;
+        if (candidates.size() > 1)
+            throw ambiguous(source, target, candidates);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /**
+     * Checks that a step of a {@link #getJoinPath join path} is the only
+     * foreign key between its two resources.
+     *
+     * @throws XResourceException if the resources are related by several
+     *                            foreign keys
+     */
+    public void requireUnambiguous(XRelationshipMetadata step) {
+        List<XRelationshipMetadata> edges = getRelationships(step.getSourceTable(), step.getTargetTable());
+        if (edges.size() > 1)
+            throw ambiguous(step.getSourceTable(), step.getTargetTable(), edges);
+    }
+
+    private static XResourceException ambiguous(String a, String b, List<XRelationshipMetadata> edges) {
+        return new XResourceException("Ambiguous join between resource :" + a + " and resource :" + b
+                + ", related through " + edges.stream()
+                        .map(edge -> edge.getSourceTable() + "." + edge.getForeignKeyField())
+                        .collect(Collectors.joining(", "))
+                + "; declare the join condition with 'on'");
+    }
+
+    /**
+     * Returns the shortest chain of foreign keys connecting two resources. Each
+     * step is returned as declared, so it may point either way along the path.
+     *
+     * @return the relationships from {@code from} to {@code to}, empty if
+     *         {@code from} equals {@code to} or the resources are not connected
+     */
+    public List<XRelationshipMetadata> getJoinPath(String from, String to) {
+        Map<String, List<XRelationshipMetadata>> paths = joinPaths.get(from);
+        return paths != null ? paths.getOrDefault(to, Collections.emptyList()) : Collections.emptyList();
+    }
+
+    /**
+     * @return the outgoing foreign keys as {@code source -> target ->
+     *         relationship}, keeping the first foreign key of each pair
+     */
+    public Map<String, Map<String, XRelationshipMetadata>> asRelationshipMap() {
+        return relationshipMap;
+    }
+
+    /**
+     * Breadth first search from every resource over the undirected foreign key
+     * graph. A resource is reached first by a shortest path; a later path of
+     * the same length replaces it while it crosses an ambiguous pair of
+     * resources and the new one does not. All paths to a resource are known
+     * before it is expanded, so its descendants extend its final path.
+     */
+    private static Map<String, Map<String, List<XRelationshipMetadata>>> computeJoinPaths(
+            Map<String, Map<String, List<XRelationshipMetadata>>> between) {
+        Map<String, Map<String, List<XRelationshipMetadata>>> paths = new HashMap<>();
+        for (String start : between.keySet()) {
+            Map<String, List<XRelationshipMetadata>> fromStart = new HashMap<>();
+            Map<String, List<XRelationshipMetadata>> pathTo = new HashMap<>();
+            Set<String> ambiguousPathTo = new HashSet<>();
+            pathTo.put(start, List.of());
+            Deque<String> pending = new ArrayDeque<>();
+            pending.add(start);
+            while (!pending.isEmpty()) {
+                String current = pending.poll();
+                List<XRelationshipMetadata> currentPath = pathTo.get(current);
+                boolean currentAmbiguous = ambiguousPathTo.contains(current);
+                for (Map.Entry<String, List<XRelationshipMetadata>> neighbour : between.get(current).entrySet()) {
+                    String next = neighbour.getKey();
+                    boolean ambiguous = currentAmbiguous || neighbour.getValue().size() > 1;
+                    List<XRelationshipMetadata> known = pathTo.get(next);
+                    if (known != null && (ambiguous || !ambiguousPathTo.contains(next)
+                            || known.size() != currentPath.size() + 1))
+                        continue;
+                    List<XRelationshipMetadata> path = new ArrayList<>(currentPath.size() + 1);
+                    path.addAll(currentPath);
+                    path.add(neighbour.getValue().get(0));
+                    List<XRelationshipMetadata> frozen = Collections.unmodifiableList(path);
+                    pathTo.put(next, frozen);
+                    fromStart.put(next, frozen);
+                    if (ambiguous)
+                        ambiguousPathTo.add(next);
+                    else
+                        ambiguousPathTo.remove(next);
+                    if (known == null)
+                        pending.add(next);
+                }
+            }
+            paths.put(start, Collections.unmodifiableMap(fromStart));
+        }
+        return Collections.unmodifiableMap(paths);
+    }
+
+    private static <V> Map<String, Map<String, V>> freeze(Map<String, Map<String, V>> map) {
+        Map<String, Map<String, V>> frozen = new LinkedHashMap<>();
+        map.forEach((key, value) -> frozen.put(key, Collections.unmodifiableMap(value)));
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    private static Map<String, List<XRelationshipMetadata>> freezeLists(
+            Map<String, List<XRelationshipMetadata>> map) {
+        Map<String, List<XRelationshipMetadata>> frozen = new LinkedHashMap<>();
+        map.forEach((key, value) -> frozen.put(key, List.copyOf(value)));
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    private static Map<String, Map<String, List<XRelationshipMetadata>>> freezeNested(
+            Map<String, Map<String, List<XRelationshipMetadata>>> map) {
+        Map<String, Map<String, List<XRelationshipMetadata>>> frozen = new LinkedHashMap<>();
+        map.forEach((key, value) -> frozen.put(key, freezeLists(value)));
+        return Collections.unmodifiableMap(frozen);
+    }
+}
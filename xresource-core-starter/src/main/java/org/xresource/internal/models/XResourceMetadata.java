@@ -5,9 +5,11 @@ import java.util.Optional;
 
 import org.xresource.core.annotations.AccessLevel;
 import org.xresource.core.annotations.XAction;
+import org.xresource.core.annotations.XCountStrategy;
 import org.xresource.core.annotations.XFieldAction;
 import org.xresource.core.annotations.XQuery;
 import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.query.XQueryTemplate;
 import org.xresource.internal.exception.XInvalidConfigurationException;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -17,9 +19,12 @@ import lombok.Setter;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 @Setter
@@ -42,10 +47,21 @@ public class XResourceMetadata {
     private String resourceName;
     private boolean isExposedForEmbbededReferencesOnly = false;
     private boolean isExposedForCron = false;
+    private XCountStrategy countStrategy;
+    private long countCacheTtlSeconds = -1;
+    private boolean parallelCount = true;
 
     @JsonIgnore
     private String rawSchema;
 
+    /** Compiled XQuery templates, by {@link XQueryTemplate#key(Collection)}. */
+    @JsonIgnore
+    private final Map<String, XQueryTemplate> xQueryTemplates = new ConcurrentHashMap<>();
+
+    /** Auto-apply queries, by the role set they were resolved for. */
+    @JsonIgnore
+    private final Map<Set<String>, Map<String, XQuery>> autoApplyQueriesByRoles = new ConcurrentHashMap<>();
+
     public void addField(String fieldName, XFieldMetadata metadata) {
         this.fields.put(fieldName, metadata);
     }
@@ -75,12 +91,54 @@ public class XResourceMetadata {
 
     public void addXQuery(XQuery query) {
         this.xQueriesMap.put(query.name(), query);
+        this.autoApplyQueriesByRoles.clear();
     }
 
     public Optional<XQuery> getXQuery(String name) {
         return Optional.ofNullable(xQueriesMap.get(name));
     }
 
+    /**
+     * Returns the compiled template of the given queries combined with
+     * {@code AND}, compiling it on first use.
+     *
+     * @param queries queries of this resource, may be empty
+     * @return the cached template
+     */
+    public XQueryTemplate getXQueryTemplate(Collection<XQuery> queries) {
+        return xQueryTemplates.computeIfAbsent(XQueryTemplate.key(queries),
+                k -> XQueryTemplate.compile(entityClass.getSimpleName(), queries));
+    }
+
+    /**
+     * Returns the auto-apply queries of this resource that apply to any of the
+     * given roles, resolving them (and compiling their combined template) once
+     * per distinct role set.
+     *
+     * @param roles roles of the caller, in any order
+     * @return the applicable queries by name, not modifiable
+     */
+    public Map<String, XQuery> getAutoApplyQueries(Collection<String> roles) {
+        return autoApplyQueriesByRoles.computeIfAbsent(Set.copyOf(roles), this::resolveAutoApplyQueries);
+    }
+
+    private Map<String, XQuery> resolveAutoApplyQueries(Set<String> roles) {
+        Map<String, XQuery> applicable = new HashMap<>();
+        for (XQuery query : xQueriesMap.values()) {
+            if (!query.autoApply())
+                continue;
+            for (String role : query.appliesToRoles()) {
+                if ("*".equals(role) || roles.contains(role)) {
+                    applicable.put(query.name(), query);
+                    break;
+                }
+            }
+        }
+        if (!applicable.isEmpty())
+            getXQueryTemplate(applicable.values());
+        return Collections.unmodifiableMap(applicable);
+    }
+
     public void addXAction(XAction action) {
         this.xActionsMap.put(action.name(), action);
     }
@@ -1,6 +1,6 @@
 package org.xresource.internal.openapi;
 
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.xresource.internal.context.XSecuritySnapshot;
 import org.xresource.core.annotations.AccessLevel;
 import org.xresource.core.annotations.XAction;
 import org.xresource.core.annotations.XForceAllowResourceRef;
@@ -436,10 +436,7 @@ public class XOpenApiGenerator {
      */
     private List<String> getCurrentUserRoles() {
         log.enter("getCurrentUserRoles");
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities()
-                .stream()
-                .map(auth -> auth.getAuthority())
-                .collect(Collectors.toList());
+        List<String> roles = XSecuritySnapshot.current().getRoles();
         log.debug("Retrieved roles: %s", roles);
         log.exit("getCurrentUserRoles -> %s", roles);
         return roles;
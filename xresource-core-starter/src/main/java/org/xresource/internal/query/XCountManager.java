@@ -0,0 +1,284 @@
+package org.xresource.internal.query;
+
+import static org.xresource.internal.config.XResourceConfigProperties.PAGING_COUNT_CACHE_TTL;
+import static org.xresource.internal.config.XResourceConfigProperties.PAGING_COUNT_STRATEGY;
+import static org.xresource.internal.config.XResourceConfigProperties.PAGING_PARALLEL_COUNT;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.xresource.core.annotations.XCountStrategy;
+import org.xresource.core.hook.XResourceEventType;
+import org.xresource.core.hook.XResourceHookRegistry;
+import org.xresource.core.logging.XLogger;
+import org.xresource.internal.exception.XResourceException;
+import org.xresource.internal.models.XResourceMetadata;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.internal.util.XLruCache;
+
+/**
+ * Produces the {@code totalElements} of paged query results according to the
+ * {@link XCountStrategy} of the request or resource.
+ *
+ * <p>
+ * Cached counts are kept per resource and per count query (JPQL plus bound
+ * parameters) and are dropped as soon as a record of the resource, or of a
+ * resource the counted intent joins, is created, updated or deleted through
+ * {@link org.xresource.core.service.XResourceService}. Maintained counters are seeded with one exact count and then adjusted by the
+ * same hooks, so they only see writes made through the framework; writes that
+ * bypass it (native SQL, other services) are picked up again once the counter
+ * is reseeded via {@link #invalidate(String)}.
+ * </p>
+ *
+ * <p>
+ * The invalidation hooks are registered once all singletons (and with them
+ * the resource registry) are initialized, before the application serves
+ * requests, so no write can slip past them.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class XCountManager implements SmartInitializingSingleton {
+
+    private static final XLogger log = XLogger.forClass(XCountManager.class);
+
+    /**
+     * Upper bound of cached counts per resource; the least recently used
+     * counts are evicted past this.
+     */
+    private static final int MAX_CACHED_COUNTS_PER_RESOURCE = 1024;
+
+    @Autowired
+    private XResourceHookRegistry hookRegistry;
+
+    @Autowired
+    private XResourceMetadataRegistry registry;
+
+    @Value(PAGING_COUNT_STRATEGY)
+    private String defaultStrategy;
+
+    @Value(PAGING_COUNT_CACHE_TTL)
+    private long defaultTtlSeconds;
+
+    @Value(PAGING_PARALLEL_COUNT)
+    private boolean parallelCount;
+
+    private final Map<String, XLruCache<String, CachedCount>> cachedCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> maintainedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Writes seen per resource, so that seeding a maintained counter can tell
+     * whether a write slipped in between the exact count and publishing the
+     * counter.
+     */
+    private final Map<String, AtomicLong> writeSequences = new ConcurrentHashMap<>();
+
+    /**
+     * Resources whose cached counts join another resource, by the joined
+     * resource.
+     */
+    private final Map<String, Set<String>> dependentResources = new ConcurrentHashMap<>();
+
+    private record CachedCount(long count, long expiresAt) {
+    }
+
+    /**
+     * Registers the invalidation hooks for every exposed resource.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String resourceName : registry.getRegistry().keySet()) {
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_CREATE,
+                    ctx -> onWrite(resourceName, 1));
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_UPDATE,
+                    ctx -> onWrite(resourceName, 0));
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_DELETE,
+                    ctx -> onWrite(resourceName, -1));
+        }
+        log.debug("Registered count invalidation hooks for %s resources", registry.getRegistry().size());
+    }
+
+    /**
+     * Resolves the count policy of a paged request.
+     *
+     * @param metadata  the resource the count belongs to
+     * @param requested strategy requested by the client, may be {@code null}
+     * @return the policy to pass to {@link XQueryExecutor}
+     */
+    public XCountPolicy resolve(XResourceMetadata metadata, String requested) {
+        XCountStrategy strategy;
+        if (requested != null && !requested.isBlank()) {
+            strategy = parseStrategy(requested);
+        } else if (metadata.getCountStrategy() != null) {
+            strategy = metadata.getCountStrategy();
+        } else {
+            strategy = parseStrategy(defaultStrategy);
+        }
+
+        long ttlSeconds = metadata.getCountCacheTtlSeconds() >= 0 ? metadata.getCountCacheTtlSeconds()
+                : defaultTtlSeconds;
+        return new XCountPolicy(metadata.getResourceName(), strategy, TimeUnit.SECONDS.toMillis(ttlSeconds),
+                parallelCount && metadata.isParallelCount(), Set.of());
+    }
+
+    /**
+     * Parses a strategy name as given in a request parameter or configuration
+     * property (case insensitive).
+     *
+     * @throws XResourceException if the name is unknown
+     */
+    private static XCountStrategy parseStrategy(String value) {
+        try {
+            return XCountStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new XResourceException("Unknown count strategy: " + value);
+        }
+    }
+
+    /**
+     * Builds the page of a query that was executed with
+     * {@link XCountPolicy#fetchSize(int)} rows.
+     *
+     * @param rows        fetched rows, possibly including the probe row
+     * @param page        page number
+     * @param size        page size
+     * @param policy      count policy, {@code null} for an exact count
+     * @param countQuery  count JPQL, used as cache key
+     * @param params      parameters bound to the count query
+     * @param unfiltered  whether the count covers the whole resource
+     * @param exactCount  runs the count query
+     * @return the page, reporting the strategy that produced its total
+     */
+    public <T> Page<T> toPage(List<T> rows, int page, int size, XCountPolicy policy, String countQuery,
+            Map<String, Object> params, boolean unfiltered, LongSupplier exactCount) {
+        Pageable pageable = PageRequest.of(page, size);
+        XCountStrategy strategy = policy != null ? policy.getStrategy() : XCountStrategy.EXACT;
+
+        if (strategy == XCountStrategy.NONE) {
+            boolean nextPage = rows.size() > size;
+            return XCountedPage.uncounted(nextPage ? rows.subList(0, size) : rows, pageable, nextPage);
+        }
+
+        // A short page already tells the exact total, no need to count
+        if (rows.size() < size && (page == 0 || !rows.isEmpty())) {
+            return new XCountedPage<>(rows, pageable, pageable.getOffset() + rows.size(), XCountStrategy.EXACT);
+        }
+
+        switch (strategy) {
+            case MAINTAINED:
+                if (unfiltered) {
+                    return new XCountedPage<>(rows, pageable, maintainedCount(policy.getResourceName(), exactCount),
+                            XCountStrategy.MAINTAINED);
+                }
+                // counters only exist for the whole resource
+            case CACHED:
+                return new XCountedPage<>(rows, pageable, cachedCount(policy, countQuery, params, exactCount),
+                        XCountStrategy.CACHED);
+            default:
+                return new XCountedPage<>(rows, pageable, exactCount.getAsLong(), XCountStrategy.EXACT);
+        }
+    }
+
+    /**
+     * Drops every cached count of the resource and its maintained counter, which
+     * is reseeded on next use.
+     *
+     * @param resourceName the resource whose records changed
+     */
+    public void invalidate(String resourceName) {
+        writeSequence(resourceName).incrementAndGet();
+        dropCachedCounts(resourceName);
+        maintainedCounts.remove(key(resourceName));
+    }
+
+    private void onWrite(String resourceName, int delta) {
+        // bumped before the counter is read, see maintainedCount
+        writeSequence(resourceName).incrementAndGet();
+        dropCachedCounts(resourceName);
+        AtomicLong counter = maintainedCounts.get(key(resourceName));
+        if (counter != null) {
+            counter.addAndGet(delta);
+        }
+    }
+
+    private void dropCachedCounts(String resourceName) {
+        cachedCounts.remove(key(resourceName));
+        Set<String> dependents = dependentResources.get(key(resourceName));
+        if (dependents != null) {
+            dependents.forEach(cachedCounts::remove);
+        }
+    }
+
+    private long cachedCount(XCountPolicy policy, String countQuery, Map<String, Object> params,
+            LongSupplier exactCount) {
+        for (String joined : policy.getJoinedResources()) {
+            dependentResources.computeIfAbsent(key(joined), k -> ConcurrentHashMap.newKeySet())
+                    .add(key(policy.getResourceName()));
+        }
+        XLruCache<String, CachedCount> counts = cachedCounts.computeIfAbsent(key(policy.getResourceName()),
+                k -> new XLruCache<>(MAX_CACHED_COUNTS_PER_RESOURCE));
+        String cacheKey = countQuery + '|' + new TreeMap<>(params);
+        long now = System.currentTimeMillis();
+
+        CachedCount cached = counts.get(cacheKey);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.count();
+        }
+
+        long count = exactCount.getAsLong();
+        counts.put(cacheKey, new CachedCount(count, now + policy.getTtlMillis()));
+        return count;
+    }
+
+    /**
+     * Returns the maintained counter of a resource, seeding it with an exact
+     * count on first use. A write whose hook runs while the seed is counted
+     * may or may not be part of the count, and finds no counter to adjust; if
+     * the write sequence moved during seeding the counter is therefore
+     * discarded again and the next request seeds anew. Writes whose hook runs
+     * after the sequence is checked find the published counter.
+     */
+    private long maintainedCount(String resourceName, LongSupplier exactCount) {
+        AtomicLong counter = maintainedCounts.get(key(resourceName));
+        if (counter != null) {
+            return Math.max(counter.get(), 0);
+        }
+
+        log.debug("Seeding maintained count of resource %s", resourceName);
+        AtomicLong writes = writeSequence(resourceName);
+        long seenWrites = writes.get();
+        long count = exactCount.getAsLong();
+        AtomicLong seeded = new AtomicLong(count);
+        counter = maintainedCounts.putIfAbsent(key(resourceName), seeded);
+        if (counter != null) {
+            return Math.max(counter.get(), 0);
+        }
+        if (writes.get() != seenWrites) {
+            log.debug("Discarding maintained count of resource %s, written to while seeding", resourceName);
+            maintainedCounts.remove(key(resourceName), seeded);
+        }
+        return Math.max(count, 0);
+    }
+
+    private AtomicLong writeSequence(String resourceName) {
+        return writeSequences.computeIfAbsent(key(resourceName), k -> new AtomicLong());
+    }
+
+    private static String key(String resourceName) {
+        return resourceName.toLowerCase();
+    }
+}
@@ -0,0 +1,67 @@
+package org.xresource.internal.query;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.xresource.core.annotations.XCountStrategy;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Count strategy resolved for one paged request, see
+ * {@link XCountManager#resolve(org.xresource.internal.models.XResourceMetadata, String)}.
+ */
+@AllArgsConstructor
+@Getter
+public class XCountPolicy {
+
+    /** Resource whose writes invalidate cached counts. */
+    private final String resourceName;
+    private final XCountStrategy strategy;
+    private final long ttlMillis;
+
+    /**
+     * Whether an exact count may run concurrently with the page query, see
+     * {@link XParallelCounter}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final boolean parallel;
+
+    /**
+     * Further resources whose writes invalidate cached counts, e.g. those joined
+     * by an intent.
+     */
+    private final Set<String> joinedResources;
+
+    /**
+     * @param resources resources the counted query joins
+     * @return this policy, additionally invalidated by writes of
+     *         {@code resources}
+     */
+    public XCountPolicy joining(Collection<String> resources) {
+        Set<String> joined = new HashSet<>(joinedResources);
+        joined.addAll(resources);
+        joined.remove(resourceName);
+        return new XCountPolicy(resourceName, strategy, ttlMillis, parallel, Set.copyOf(joined));
+    }
+
+    /**
+     * @return the number of rows the page query has to fetch; one extra row is
+     *         probed when no count is run
+     */
+    public int fetchSize(int size) {
+        return strategy == XCountStrategy.NONE ? size + 1 : size;
+    }
+
+    /**
+     * @return whether the count query should be started alongside the page
+     *         query; only exact counts are, cached and maintained counts
+     *         rarely hit the database
+     */
+    public boolean isParallel() {
+        return parallel && strategy == XCountStrategy.EXACT;
+    }
+}
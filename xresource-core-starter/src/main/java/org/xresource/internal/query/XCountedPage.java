@@ -0,0 +1,65 @@
+package org.xresource.internal.query;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.xresource.core.annotations.XCountStrategy;
+
+/**
+ * {@link PageImpl} that remembers which {@link XCountStrategy} produced its
+ * total. With {@link XCountStrategy#NONE} the total is unknown; it is only a
+ * lower bound and {@link #hasNext()} comes from probing one extra row.
+ */
+public class XCountedPage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final XCountStrategy countStrategy;
+    private final boolean nextPage;
+
+    public XCountedPage(List<T> content, Pageable pageable, long total, XCountStrategy countStrategy) {
+        super(content, pageable, total);
+        this.countStrategy = countStrategy;
+        this.nextPage = super.hasNext();
+    }
+
+    private XCountedPage(List<T> content, Pageable pageable, boolean nextPage) {
+        super(content, pageable, pageable.getOffset() + content.size() + (nextPage ? 1 : 0));
+        this.countStrategy = XCountStrategy.NONE;
+        this.nextPage = nextPage;
+    }
+
+    /**
+     * Creates a page whose total was not counted.
+     *
+     * @param content  rows of the page, without the probe row
+     * @param pageable the requested page
+     * @param nextPage whether the probe row was found
+     */
+    public static <T> XCountedPage<T> uncounted(List<T> content, Pageable pageable, boolean nextPage) {
+        return new XCountedPage<>(content, pageable, nextPage);
+    }
+
+    public XCountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    /**
+     * @return {@code false} when {@link #getTotalElements()} is only a lower
+     *         bound
+     */
+    public boolean isTotalKnown() {
+        return countStrategy != XCountStrategy.NONE;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextPage;
+    }
+
+    @Override
+    public boolean isLast() {
+        return !nextPage;
+    }
+}
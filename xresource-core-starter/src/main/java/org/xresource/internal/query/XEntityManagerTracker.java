@@ -0,0 +1,47 @@
+package org.xresource.internal.query;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Keeps track of the number of currently open {@code EntityManager}s
+ * (Hibernate sessions) of the application.
+ *
+ * <p>
+ * Registered as the automatic session events listener
+ * ({@code hibernate.session.events.auto}), so Hibernate creates one instance
+ * per opened session and calls {@link #end()} when it is closed. A steadily
+ * growing value points at entity managers that are never closed.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class XEntityManagerTracker implements SessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final AtomicInteger openCount = new AtomicInteger();
+
+    private boolean ended;
+
+    public XEntityManagerTracker() {
+        openCount.incrementAndGet();
+    }
+
+    @Override
+    public void end() {
+        if (!ended) {
+            ended = true;
+            openCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of entity managers opened and not yet closed
+     */
+    public static int getOpenCount() {
+        return openCount.get();
+    }
+}
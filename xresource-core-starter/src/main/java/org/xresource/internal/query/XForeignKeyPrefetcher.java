@@ -0,0 +1,212 @@
+package org.xresource.internal.query;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.AbstractPersistentCollection;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.xresource.core.logging.XLogger;
+import org.xresource.core.util.XUtils;
+import org.xresource.internal.models.ForeignKeyTree;
+
+import jakarta.persistence.Entity;
+
+/**
+ * Loads the associations requested through {@code foreignKeys} for a whole
+ * page of entities before it is serialized, so that
+ * {@link org.xresource.internal.auth.XAccessManager} finds them initialized
+ * instead of initializing them one parent at a time.
+ *
+ * <p>
+ * The {@link ForeignKeyTree} is walked level by level. For every path the
+ * lazy to-one proxies of all parents are loaded with one batched multi-id
+ * load per entity type, and the lazy collections of all parents with one
+ * {@code JOIN FETCH ... WHERE o IN (...)} query. The number of queries thus
+ * depends on the shape of the tree, not on the size of the page.
+ * </p>
+ *
+ * <p>
+ * Prefetching is best effort: detached entities (closed session) are skipped
+ * and any failure is logged and left to the lazy loading done during
+ * serialization.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class XForeignKeyPrefetcher {
+
+    private static final XLogger log = XLogger.forClass(XForeignKeyPrefetcher.class);
+
+    /** Maximum number of identifiers bound to a single {@code IN} list. */
+    private static final int IN_BATCH_SIZE = 500;
+
+    /**
+     * Initializes every association of {@code entities} named by
+     * {@code fkTree}, recursively.
+     *
+     * @param entities loaded entities (may be proxies)
+     * @param fkTree   requested foreign key expansion
+     */
+    public void prefetch(Collection<?> entities, ForeignKeyTree fkTree) {
+        if (entities == null || entities.isEmpty() || fkTree == null || fkTree.isEmpty())
+            return;
+        try {
+            prefetchLevel(unproxyAll(entities), fkTree);
+        } catch (Exception e) {
+            log.warn("Foreign key prefetch failed, falling back to lazy loading: %s", e.getMessage());
+        }
+    }
+
+    private void prefetchLevel(List<Object> parents, ForeignKeyTree fkTree) {
+        if (parents.isEmpty() || fkTree == null || fkTree.isEmpty())
+            return;
+
+        Map<Class<?>, List<Object>> parentsByClass = new LinkedHashMap<>();
+        for (Object parent : parents) {
+            parentsByClass.computeIfAbsent(parent.getClass(), k -> new ArrayList<>()).add(parent);
+        }
+
+        for (String fieldName : fkTree.getKeys()) {
+            List<Object> values = new ArrayList<>();
+            for (Map.Entry<Class<?>, List<Object>> entry : parentsByClass.entrySet()) {
+                Field field = XUtils.findField(entry.getKey(), fieldName);
+                if (field == null)
+                    continue;
+                field.setAccessible(true);
+                List<Object> classValues = new ArrayList<>();
+                for (Object parent : entry.getValue()) {
+                    try {
+                        Object value = field.get(parent);
+                        if (value != null)
+                            classValues.add(value);
+                    } catch (IllegalAccessException e) {
+                        break;
+                    }
+                }
+                initializeCollections(fieldName, classValues);
+                values.addAll(classValues);
+            }
+            initializeProxies(values);
+
+            ForeignKeyTree nested = fkTree.getChild(fieldName);
+            if (nested != null && !nested.isEmpty()) {
+                prefetchLevel(children(values), nested);
+            }
+        }
+    }
+
+    /**
+     * Loads all uninitialized to-one proxies with one batched multi-id load per
+     * session and entity type.
+     */
+    private void initializeProxies(List<Object> values) {
+        Map<SharedSessionContractImplementor, Map<String, List<Object>>> idsBySession = new IdentityHashMap<>();
+        for (Object value : values) {
+            if (!(value instanceof HibernateProxy proxy))
+                continue;
+            LazyInitializer initializer = proxy.getHibernateLazyInitializer();
+            SharedSessionContractImplementor session = initializer.getSession();
+            if (!initializer.isUninitialized() || !isUsable(session))
+                continue;
+            idsBySession.computeIfAbsent(session, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(initializer.getEntityName(), k -> new ArrayList<>())
+                    .add(initializer.getInternalIdentifier());
+        }
+
+        idsBySession.forEach((session, idsByEntity) -> {
+            SessionImplementor sessionImplementor = session.asSessionImplementor();
+            idsByEntity.forEach((entityName, ids) -> {
+                log.trace("Batch loading %s %s references", ids.size(), entityName);
+                sessionImplementor.byMultipleIds(entityName)
+                        .withBatchSize(IN_BATCH_SIZE)
+                        .multiLoad(ids);
+            });
+        });
+    }
+
+    /**
+     * Loads all uninitialized collections of {@code fieldName} with one fetch
+     * join query per chunk of owners.
+     */
+    private void initializeCollections(String fieldName, List<Object> values) {
+        Map<SharedSessionContractImplementor, List<Object>> ownersBySession = new IdentityHashMap<>();
+        for (Object value : values) {
+            if (!(value instanceof AbstractPersistentCollection<?> collection) || collection.wasInitialized())
+                continue;
+            SharedSessionContractImplementor session = collection.getSession();
+            if (!isUsable(session) || collection.getOwner() == null)
+                continue;
+            ownersBySession.computeIfAbsent(session, k -> new ArrayList<>()).add(collection.getOwner());
+        }
+
+        ownersBySession.forEach((session, sessionOwners) -> {
+            SessionImplementor sessionImplementor = session.asSessionImplementor();
+            String entityName = sessionImplementor.getEntityName(sessionOwners.get(0));
+            String hql = "SELECT o FROM " + entityName + " o LEFT JOIN FETCH o." + fieldName
+                    + " WHERE o IN :owners";
+            log.trace("Batch loading %s.%s for %s owners", entityName, fieldName, sessionOwners.size());
+            for (int from = 0; from < sessionOwners.size(); from += IN_BATCH_SIZE) {
+                List<Object> chunk = sessionOwners.subList(from,
+                        Math.min(from + IN_BATCH_SIZE, sessionOwners.size()));
+                sessionImplementor.createQuery(hql, Object.class)
+                        .setParameter("owners", chunk)
+                        .getResultList();
+            }
+        });
+    }
+
+    /**
+     * Entities reachable from the loaded association values, used as parents of
+     * the next level.
+     */
+    private List<Object> children(List<Object> values) {
+        List<Object> children = new ArrayList<>();
+        for (Object value : values) {
+            if (value instanceof PersistentCollection<?> collection && !collection.wasInitialized())
+                continue;
+            if (value instanceof Collection<?> elements) {
+                for (Object element : elements) {
+                    addIfLoadedEntity(children, element);
+                }
+            } else {
+                addIfLoadedEntity(children, value);
+            }
+        }
+        return children;
+    }
+
+    private static void addIfLoadedEntity(List<Object> target, Object value) {
+        if (value == null)
+            return;
+        if (value instanceof HibernateProxy proxy && proxy.getHibernateLazyInitializer().isUninitialized()
+                && !isUsable(proxy.getHibernateLazyInitializer().getSession()))
+            return;
+        // proxies loaded by the batch above resolve from the persistence context
+        Object entity = Hibernate.unproxy(value);
+        if (entity.getClass().isAnnotationPresent(Entity.class))
+            target.add(entity);
+    }
+
+    private static List<Object> unproxyAll(Collection<?> entities) {
+        List<Object> result = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            addIfLoadedEntity(result, entity);
+        }
+        return result;
+    }
+
+    private static boolean isUsable(SharedSessionContractImplementor session) {
+        return session != null && session.isOpen() && session.isSessionImplementor();
+    }
+}
@@ -0,0 +1,134 @@
+package org.xresource.internal.query;
+
+import static org.xresource.internal.config.XResourceConfigProperties.INTENTS_CACHE_SIZE;
+import static org.xresource.internal.config.XResourceConfigProperties.INTENTS_PERSISTED_MAX;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.xresource.core.logging.XLogger;
+import org.xresource.internal.exception.XResourceException;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.util.XLruCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps compiled dynamic intents, so that posting the same intent body again
+ * skips the DSL/XML parsing and the intent compilation (and, through the
+ * JPQL cached on the {@link IntentMeta}, the JPQL generation).
+ *
+ * <p>
+ * Two bounded {@link XLruCache}s are kept, both keyed by resource and the SHA-256 hash
+ * of the intent body:
+ * </p>
+ * <ul>
+ * <li>ad hoc intents, filled as bodies are posted;</li>
+ * <li>persisted intents, registered explicitly so that clients can afterwards
+ * execute them by hash only. A client receiving "not registered" for a hash
+ * (e.g. after a restart or an eviction) simply registers the body again.</li>
+ * </ul>
+ *
+ * <p>
+ * Cached {@link IntentMeta} instances are shared between requests and must
+ * not be modified.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class XIntentCache {
+
+    private static final XLogger log = XLogger.forClass(XIntentCache.class);
+
+    /**
+     * Compiles an intent body.
+     */
+    @FunctionalInterface
+    public interface IntentCompiler {
+        IntentMeta compile(String body) throws Exception;
+    }
+
+    @Value(INTENTS_CACHE_SIZE)
+    private int cacheSize;
+
+    @Value(INTENTS_PERSISTED_MAX)
+    private int persistedMax;
+
+    private XLruCache<String, IntentMeta> compiled;
+    private XLruCache<String, IntentMeta> persisted;
+
+    @PostConstruct
+    public void init() {
+        this.compiled = new XLruCache<>(cacheSize);
+        this.persisted = new XLruCache<>(persistedMax);
+    }
+
+    /**
+     * Returns the compiled intent of {@code body}, compiling and caching it on a
+     * miss.
+     *
+     * @param resourceName the resource the intent is executed on
+     * @param format       body format ({@code "dsl"} or {@code "xml"})
+     * @param body         the intent body
+     * @param compiler     compiles the body on a cache miss
+     * @return the compiled intent
+     * @throws Exception if the body cannot be compiled
+     */
+    public IntentMeta getOrCompile(String resourceName, String format, String body, IntentCompiler compiler)
+            throws Exception {
+        String key = key(resourceName, hash(format, body));
+        IntentMeta intent = compiled.get(key);
+        if (intent == null) {
+            intent = compiler.compile(body);
+            compiled.put(key, intent);
+            log.debug("Compiled and cached %s intent for resource %s", format, resourceName);
+        }
+        return intent;
+    }
+
+    /**
+     * Compiles and registers an intent body, to be executed later by hash.
+     *
+     * @return the hash identifying the intent
+     * @throws Exception if the body cannot be compiled
+     */
+    public String register(String resourceName, String format, String body, IntentCompiler compiler)
+            throws Exception {
+        String hash = hash(format, body);
+        persisted.put(key(resourceName, hash), getOrCompile(resourceName, format, body, compiler));
+        log.debug("Registered persisted intent %s for resource %s", hash, resourceName);
+        return hash;
+    }
+
+    /**
+     * @return the persisted intent registered under {@code hash}, if still
+     *         present
+     */
+    public Optional<IntentMeta> getPersisted(String resourceName, String hash) {
+        return Optional.ofNullable(persisted.get(key(resourceName, hash)));
+    }
+
+    /**
+     * Hash identifying an intent body, as returned by
+     * {@link #register(String, String, String, IntentCompiler)}.
+     */
+    public static String hash(String format, String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(format.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return HexFormat.of().formatHex(digest.digest(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new XResourceException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String key(String resourceName, String hash) {
+        return resourceName.toLowerCase() + ':' + hash;
+    }
+}
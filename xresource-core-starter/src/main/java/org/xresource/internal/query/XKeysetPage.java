@@ -0,0 +1,21 @@
+package org.xresource.internal.query;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One page of a keyset (cursor) paginated result. Unlike
+ * {@link org.springframework.data.domain.Page} no total count is computed;
+ * {@link #getNextCursor()} is passed back as {@code after} to fetch the next
+ * page.
+ */
+@AllArgsConstructor
+@Getter
+public class XKeysetPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
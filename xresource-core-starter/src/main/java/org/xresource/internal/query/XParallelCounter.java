@@ -0,0 +1,201 @@
+package org.xresource.internal.query;
+
+import static org.xresource.internal.config.XResourceConfigProperties.PAGING_PARALLEL_COUNT_THREADS;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.xresource.core.logging.XLogger;
+import org.xresource.internal.exception.XResourceException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+
+/**
+ * Runs the count query of a paged request concurrently with its page query.
+ *
+ * <p>
+ * The count is started before the page is read, on a pool thread with its own
+ * entity manager (and therefore its own connection), so a paged request takes
+ * about as long as the slower of the two queries. The pool is bounded by
+ * {@code xresource.api.paging.parallel-count-threads}, which also bounds the
+ * extra connections taken from the pool; when every thread is busy the count
+ * simply runs on the request thread after the page, as it would without
+ * parallel counting.
+ * </p>
+ *
+ * <p>
+ * A request waiting for its count may hold a pooled connection itself (e.g.
+ * with open-in-view), while the count thread needs another one. Were there as
+ * many count threads as pooled connections, every connection could end up held
+ * by a waiting request and no count could ever get one. The threads are
+ * therefore capped at one below the maximum size of the connection pool when
+ * the pool reports it (HikariCP, Tomcat JDBC and Commons DBCP do), and
+ * parallel counting is off with a single connection. With other pools, keep
+ * the configured threads below the pool size.
+ * </p>
+ *
+ * <p>
+ * The count runs outside the transaction of the request and may therefore see
+ * a slightly different snapshot than the page.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class XParallelCounter {
+
+    private static final XLogger log = XLogger.forClass(XParallelCounter.class);
+
+    /** Bean properties holding the maximum size of well known connection pools. */
+    private static final String[] POOL_SIZE_PROPERTIES = { "maximumPoolSize", "maxActive", "maxTotal" };
+
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    @Autowired(required = false)
+    private DataSource dataSource;
+
+    @Value(PAGING_PARALLEL_COUNT_THREADS)
+    private int threads;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Count of one paged request, either running in the background or run on
+     * demand by the requesting thread.
+     */
+    public static final class PendingCount implements LongSupplier {
+
+        private final Future<Long> future;
+        private final LongSupplier sequential;
+
+        private PendingCount(Future<Long> future, LongSupplier sequential) {
+            this.future = future;
+            this.sequential = sequential;
+        }
+
+        /**
+         * Waits for the count, or runs it when it was not started in the
+         * background.
+         */
+        @Override
+        public long getAsLong() {
+            if (future == null)
+                return sequential.getAsLong();
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new XResourceException("Interrupted while waiting for the count query", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime)
+                    throw runtime;
+                throw new XResourceException("Count query failed", e.getCause());
+            }
+        }
+
+        /**
+         * Drops the count if it is not needed after all (e.g. a short page
+         * already tells the total) and has not started yet.
+         */
+        public void cancel() {
+            if (future != null)
+                future.cancel(false);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int poolSize = maxPoolSize(dataSource);
+        if (poolSize > 0 && threads >= poolSize) {
+            log.info("Capping parallel count threads at %s, below the connection pool size of %s",
+                    poolSize - 1, poolSize);
+            threads = poolSize - 1;
+        }
+        if (threads <= 0) {
+            log.info("Parallel counting disabled, no connection to spare for count threads");
+            return;
+        }
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                threadFactory());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Starts the count of a paged request.
+     *
+     * @param policy     count policy of the request; the count only runs in the
+     *                   background when it is {@link XCountPolicy#isParallel()
+     *                   parallel}
+     * @param count      runs the count query on the given entity manager
+     * @param sequential runs the count query on the request's entity manager
+     * @return the pending count, to be {@link PendingCount#cancel() cancelled}
+     *         once the page is built
+     */
+    public PendingCount start(XCountPolicy policy, Function<EntityManager, Long> count, LongSupplier sequential) {
+        if (policy == null || !policy.isParallel() || executor == null)
+            return new PendingCount(null, sequential);
+        try {
+            return new PendingCount(executor.submit(() -> {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    return count.apply(em);
+                } finally {
+                    em.close();
+                }
+            }), sequential);
+        } catch (RejectedExecutionException e) {
+            log.debug("All %s count threads busy, counting sequentially", threads);
+            return new PendingCount(null, sequential);
+        }
+    }
+
+    /**
+     * @return the maximum size of the connection pool behind
+     *         {@code dataSource}, or {@code -1} if it is not known
+     */
+    private static int maxPoolSize(DataSource dataSource) {
+        if (dataSource == null)
+            return -1;
+        try {
+            BeanWrapper pool = new BeanWrapperImpl(dataSource);
+            for (String property : POOL_SIZE_PROPERTIES) {
+                if (pool.isReadableProperty(property) && pool.getPropertyValue(property) instanceof Integer size)
+                    return size;
+            }
+        } catch (BeansException e) {
+            log.debug("Unable to read the connection pool size: %s", e.getMessage());
+        }
+        return -1;
+    }
+
+    private static CustomizableThreadFactory threadFactory() {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("xresource-count-");
+        factory.setDaemon(true);
+        return factory;
+    }
+}
@@ -0,0 +1,193 @@
+package org.xresource.internal.query;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.xresource.core.util.XUtils;
+import org.xresource.internal.exception.XResourceException;
+import org.xresource.internal.models.XResourceMetadata;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Inheritance;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+
+/**
+ * Column projection of a resource query: only the primary key and the given
+ * attributes are selected, and every row is materialized into a detached,
+ * partially populated entity instance.
+ *
+ * <p>
+ * Unselected attributes stay {@code null} and are therefore never rendered by
+ * {@link org.xresource.internal.auth.XAccessManager}. To-one associations
+ * are selected as the target's identifier (through a {@code LEFT JOIN}) and
+ * set as lazy references, so resource links and URNs render exactly as for a
+ * fully loaded entity.
+ * </p>
+ *
+ * <p>
+ * Only basic, embedded and single valued association attributes can be
+ * projected; {@link #compile} returns {@code null} for anything else (and
+ * when the projection would select every attribute anyway), in which case
+ * the caller loads full entities.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public final class XProjection {
+
+    /** Alias of the queried entity, shared with the XQuery where clauses. */
+    private static final String ROOT_ALIAS = "e";
+
+    private record Selection(Field field, Class<?> referenceType) {
+    }
+
+    private final Constructor<?> constructor;
+    private final String selectClause;
+    private final String joinClause;
+    private final List<Selection> selections;
+
+    private XProjection(Constructor<?> constructor, String selectClause, String joinClause,
+            List<Selection> selections) {
+        this.constructor = constructor;
+        this.selectClause = selectClause;
+        this.joinClause = joinClause;
+        this.selections = selections;
+    }
+
+    /**
+     * Compiles the projection of {@code fields} for a resource.
+     *
+     * @param metamodel JPA metamodel
+     * @param metadata  the resource
+     * @param fields    attributes to select besides the primary key
+     * @return the projection, or {@code null} if the resource cannot (or need
+     *         not) be projected
+     */
+    static XProjection compile(Metamodel metamodel, XResourceMetadata metadata, Set<String> fields) {
+        Class<?> entityClass = metadata.getEntityClass();
+        if (Modifier.isAbstract(entityClass.getModifiers()) || entityClass.isAnnotationPresent(Inheritance.class))
+            return null;
+
+        EntityType<?> entityType;
+        Constructor<?> constructor;
+        try {
+            entityType = metamodel.entity(entityClass);
+            constructor = entityClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (IllegalArgumentException | ReflectiveOperationException e) {
+            return null;
+        }
+
+        Set<String> attributes = new LinkedHashSet<>();
+        if (metadata.hasCompositeKey()) {
+            // @IdClass keys span several attributes, only @EmbeddedId is projected
+            if (metadata.getEmbeddedKeyFieldName() == null)
+                return null;
+            attributes.add(metadata.getEmbeddedKeyFieldName());
+        } else if (metadata.getPrimaryKey() != null) {
+            attributes.add(metadata.getPrimaryKey());
+        } else {
+            return null;
+        }
+        attributes.addAll(fields);
+        if (attributes.size() >= entityType.getAttributes().size())
+            return null;
+
+        StringBuilder select = new StringBuilder();
+        StringBuilder joins = new StringBuilder();
+        List<Selection> selections = new ArrayList<>();
+        for (String name : attributes) {
+            Attribute<?, ?> attribute;
+            try {
+                attribute = entityType.getAttribute(name);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            Field field = XUtils.findField(entityClass, name);
+            if (field == null)
+                return null;
+            field.setAccessible(true);
+
+            if (select.length() > 0)
+                select.append(", ");
+
+            switch (attribute.getPersistentAttributeType()) {
+                case BASIC:
+                case EMBEDDED:
+                    select.append(ROOT_ALIAS).append('.').append(name);
+                    selections.add(new Selection(field, null));
+                    break;
+                case MANY_TO_ONE:
+                case ONE_TO_ONE:
+                    Class<?> targetClass = attribute.getJavaType();
+                    String targetId = singleIdAttribute(metamodel, targetClass);
+                    if (targetId == null)
+                        return null;
+                    String alias = "xp_" + selections.size();
+                    joins.append(" LEFT JOIN ").append(ROOT_ALIAS).append('.').append(name).append(' ')
+                            .append(alias);
+                    select.append(alias).append('.').append(targetId);
+                    selections.add(new Selection(field, targetClass));
+                    break;
+                default:
+                    return null;
+            }
+        }
+
+        return new XProjection(constructor, select.toString(), joins.toString(), selections);
+    }
+
+    /**
+     * @return {@code SELECT ... FROM <entityName> e [LEFT JOIN ...]}, to be
+     *         followed by the where and order by clauses of the query
+     */
+    public String selectFrom(String entityName) {
+        return "SELECT " + selectClause + " FROM " + entityName + " " + ROOT_ALIAS + joinClause;
+    }
+
+    /**
+     * Builds the partially populated entity of one result row.
+     *
+     * @param row           the selected values, in projection order
+     * @param entityManager used to create references for to-one associations
+     */
+    public Object materialize(Object[] row, EntityManager entityManager) {
+        try {
+            Object entity = constructor.newInstance();
+            for (int i = 0; i < selections.size(); i++) {
+                Object value = row[i];
+                if (value == null)
+                    continue;
+                Selection selection = selections.get(i);
+                if (selection.referenceType() != null) {
+                    value = entityManager.getReference(selection.referenceType(), value);
+                }
+                selection.field().set(entity, value);
+            }
+            return entity;
+        } catch (ReflectiveOperationException e) {
+            throw new XResourceException("Unable to materialize projected " + constructor.getName(), e);
+        }
+    }
+
+    private static String singleIdAttribute(Metamodel metamodel, Class<?> entityClass) {
+        try {
+            EntityType<?> type = metamodel.entity(entityClass);
+            if (!type.hasSingleIdAttribute())
+                return null;
+            SingularAttribute<?, ?> id = type.getId(type.getIdType().getJavaType());
+            return id.getName();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
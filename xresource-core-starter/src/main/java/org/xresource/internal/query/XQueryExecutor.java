@@ -1,64 +1,382 @@
 package org.xresource.internal.query;
 
+import org.xresource.core.aco.AcoIndexAdvisor;
+import org.xresource.core.aco.AcoMaterializedViewManager;
+import org.xresource.core.aco.Swarm;
 import org.xresource.core.annotations.XQuery;
 import org.xresource.core.intent.core.annotations.ParamSource;
+import org.xresource.core.util.XUtils;
 import org.xresource.internal.exception.XResourceException;
 import org.xresource.internal.intent.core.parser.IntentToJPQLTransformer;
+import org.xresource.internal.intent.core.parser.model.CompiledIntentJPQL;
 import org.xresource.internal.intent.core.parser.model.IntentMeta;
 import org.xresource.internal.intent.core.parser.model.IntentParameterMeta;
+import org.xresource.internal.intent.core.parser.model.JoinMeta;
 import org.xresource.internal.models.XResourceMetadata;
 import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.internal.util.XLruCache;
+import org.xresource.internal.util.XPageCursor;
 import org.xresource.internal.util.XResourceGraphBuilder;
 
 import jakarta.persistence.*;
 
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.BasicType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import java.lang.reflect.Field;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class XQueryExecutor {
 
+    /**
+     * Number of rows fetched per JDBC round trip while streaming, and the
+     * interval at which the streaming persistence context is cleared.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    /** Maximum number of rows fetched per JDBC round trip by regular reads. */
+    private static final int READ_FETCH_SIZE = 500;
+
+    /** Prefix of the JPQL parameters carrying the keyset (seek) values. */
+    private static final String KEYSET_PARAM_PREFIX = "xks_";
+
+    /**
+     * Bounds the compiled projections; field sets are chosen by clients.
+     */
+    private static final int MAX_PROJECTIONS = 1024;
+
+    private record ProjectionKey(Class<?> entityClass, Set<String> fields) {
+    }
+
+    /** Compiled projections, {@code null} for field sets that are not projected. */
+    private final XLruCache<ProjectionKey, XProjection> projections = new XLruCache<>(MAX_PROJECTIONS);
+
     @PersistenceUnit
     private EntityManagerFactory emf;
 
+    /**
+     * Shared, transaction (or open-in-view) scoped entity manager; every query
+     * runs in the persistence context of the current request instead of one
+     * created (and never closed) per call.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private XResourceMetadataRegistry registry;
 
-    private EntityManager getEntityManager() {
-        if (!emf.isOpen()) {
-            throw new IllegalStateException("EntityManagerFactory is closed");
-        }
-        return emf.createEntityManager();
-    }
+    @Autowired
+    private XCountManager countManager;
+
+    @Autowired
+    private XParallelCounter parallelCounter;
+
+    @Autowired(required = false)
+    private AcoMaterializedViewManager materializedViews;
+
+    @Autowired(required = false)
+    private AcoIndexAdvisor indexAdvisor;
 
     public <T> List<T> executeQuery(Class<T> entityClass, XQuery query, Map<String, Object> context) {
-        EntityManager entityManager = getEntityManager();
+        return executeQuery(entityClass, query, context, null);
+    }
+
+    /**
+     * Executes an {@link XQuery}, selecting only the columns of
+     * {@code projection} when given.
+     *
+     * @param projection columns to select, {@code null} to load full entities
+     */
+    public <T> List<T> executeQuery(Class<T> entityClass, XQuery query, Map<String, Object> context,
+            XProjection projection) {
         if (query == null)
             throw new XResourceException("No XQuery provided for entity: " + entityClass.getSimpleName());
 
-        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e WHERE " + query.where();
-        TypedQuery<T> jpaQuery = entityManager.createQuery(jpql, entityClass);
+        XQueryTemplate template = templateFor(entityClass, List.of(query));
+        String jpql = selectFrom(entityClass, template, projection);
+        Query jpaQuery = withFetchSize(createSelectQuery(jpql, entityClass, projection), READ_FETCH_SIZE);
 
         // Inject dynamic context variables into query
-        for (String ctxKey : query.contextParams()) {
-            String paramName = extractParamName(ctxKey); // e.g. user.id -> id
+        template.bind(context).forEach(jpaQuery::setParameter);
 
-            if (paramName.startsWith("context_loggeduser")) {
-                String loggedUserContextParam = paramName.substring("context_loggeduser_".length());
-                Object resolvedValue = resolveLoggedUserContextValue(loggedUserContextParam, context);
-                jpaQuery.setParameter(paramName, resolvedValue);
-            } else {
-                Object resolvedValue = resolveContextValue(ctxKey, context);
-                jpaQuery.setParameter(paramName, resolvedValue);
+        return readResults(jpql, jpaQuery, entityClass, projection);
+    }
+
+    /**
+     * Streams the rows matched by the given {@link XQuery} to {@code rowConsumer}
+     * one at a time instead of materializing the whole result list. Rows are
+     * read through a forward-only cursor and the persistence context is cleared
+     * periodically, so memory stays bounded regardless of the result size.
+     *
+     * @param entityClass the entity class being queried
+     * @param query       the query to execute
+     * @param context     the resolved query context
+     * @param rowConsumer callback invoked for every row, while the row is still
+     *                    attached (lazy associations can be initialized)
+     * @return the number of rows streamed
+     */
+    public <T> long streamQuery(Class<T> entityClass, XQuery query, Map<String, Object> context,
+            Consumer<? super T> rowConsumer) {
+        return streamQuery(entityClass, query, context, null, rowConsumer);
+    }
+
+    /**
+     * Variant of {@link #streamQuery(Class, XQuery, Map, Consumer)} that
+     * selects only the columns of {@code projection} when given.
+     *
+     * @param projection columns to select, {@code null} to load full entities
+     */
+    public <T> long streamQuery(Class<T> entityClass, XQuery query, Map<String, Object> context,
+            XProjection projection, Consumer<? super T> rowConsumer) {
+        if (query == null)
+            throw new XResourceException("No XQuery provided for entity: " + entityClass.getSimpleName());
+
+        XQueryTemplate template = templateFor(entityClass, List.of(query));
+        return streamResults(entityClass, selectFrom(entityClass, template, projection), template.bind(context),
+                projection, rowConsumer);
+    }
+
+    /**
+     * Streams all rows of the entity, restricted by the given (auto-applied)
+     * queries combined with {@code AND}. An empty query map streams the whole
+     * table.
+     *
+     * @param entityClass the entity class being queried
+     * @param xQueries    queries to combine, may be empty
+     * @param context     the resolved query context
+     * @param rowConsumer callback invoked for every row
+     * @return the number of rows streamed
+     */
+    public <T> long streamXQueries(Class<T> entityClass, Map<String, XQuery> xQueries,
+            Map<String, Object> context, Consumer<? super T> rowConsumer) {
+        return streamXQueries(entityClass, xQueries, context, null, rowConsumer);
+    }
+
+    /**
+     * Variant of {@link #streamXQueries(Class, Map, Map, Consumer)} that
+     * selects only the columns of {@code projection} when given.
+     *
+     * @param projection columns to select, {@code null} to load full entities
+     */
+    public <T> long streamXQueries(Class<T> entityClass, Map<String, XQuery> xQueries,
+            Map<String, Object> context, XProjection projection, Consumer<? super T> rowConsumer) {
+        XQueryTemplate template = templateFor(entityClass, xQueries.values());
+        return streamResults(entityClass, selectFrom(entityClass, template, projection), template.bind(context),
+                projection, rowConsumer);
+    }
+
+    private <T> long streamResults(Class<T> entityClass, String jpql, Map<String, Object> paramMap,
+            XProjection projection, Consumer<? super T> rowConsumer) {
+        if (!emf.isOpen()) {
+            throw new IllegalStateException("EntityManagerFactory is closed");
+        }
+        // The cursor gets an entity manager of its own, as it is cleared while
+        // streaming. A (read-only) transaction keeps the connection pinned for
+        // the cursor; some drivers (e.g. PostgreSQL) only honour the fetch size
+        // inside one.
+        EntityManager streamingEntityManager = emf.createEntityManager();
+        EntityTransaction tx = streamingEntityManager.getTransaction();
+        long count = 0;
+        try {
+            tx.begin();
+            Query jpaQuery = readOnly(projection == null ? streamingEntityManager.createQuery(jpql, entityClass)
+                    : streamingEntityManager.createQuery(jpql, Object[].class), STREAM_FETCH_SIZE);
+            paramMap.forEach(jpaQuery::setParameter);
+
+            try (Stream<?> rows = jpaQuery.getResultStream()) {
+                Iterator<?> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    Object row = iterator.next();
+                    rowConsumer.accept(entityClass.cast(projection == null ? row
+                            : projection.materialize((Object[]) row, streamingEntityManager)));
+                    if (++count % STREAM_FETCH_SIZE == 0) {
+                        streamingEntityManager.clear();
+                    }
+                }
+            }
+            return count;
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
             }
+            streamingEntityManager.close();
+        }
+    }
+
+    /**
+     * Fetches one page of the entity using keyset (seek) pagination. Rows are
+     * ordered by {@code sortBy} (if any) and then by the primary key, and the
+     * page following {@code after} is selected with a
+     * {@code (sortKey, id) > (:last sortKey, :last id)} predicate instead of an
+     * offset, so every page costs the same regardless of its depth. Null sort
+     * values order after all others ascending and before them descending.
+     *
+     * @param entityClass the entity class being queried
+     * @param metadata    metadata of the resource (used for the primary key)
+     * @param xQueries    queries to combine with {@code AND}, may be empty
+     * @param context     the resolved query context
+     * @param after       cursor returned with the previous page, blank for the
+     *                    first page
+     * @param size        page size
+     * @param sortBy      optional sort field
+     * @param direction   sort direction ("asc" or "desc")
+     * @return the requested page and the cursor of the next one
+     */
+    public <T> XKeysetPage<T> executeKeysetQueries(
+            Class<T> entityClass,
+            XResourceMetadata metadata,
+            Map<String, XQuery> xQueries,
+            Map<String, Object> context,
+            String after,
+            int size,
+            String sortBy,
+            String direction) {
+        boolean descending = "desc".equalsIgnoreCase(direction);
 
+        List<String> keys = new ArrayList<>();
+        if (sortBy != null && !sortBy.isBlank()) {
+            keys.add(sortBy.trim());
         }
+        int sortKeys = keys.size();
+        for (String pk : primaryKeyPaths(metadata, null)) {
+            if (!keys.contains(pk))
+                keys.add(pk);
+        }
+        String signature = String.join(",", keys) + (descending ? ":desc" : ":asc");
+        List<Class<?>> keyTypes = keys.stream().<Class<?>>map(k -> pathType(entityClass, k))
+                .collect(Collectors.toList());
+        List<Object> afterValues = XPageCursor.decode(after, signature, keyTypes);
 
-        return jpaQuery.getResultList();
+        XQueryTemplate template = templateFor(entityClass, xQueries.values());
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> paramMap = new HashMap<>(template.bind(context));
+        if (!template.isUnfiltered()) {
+            predicates.add(template.getPredicate());
+        }
+
+        List<String> keyPaths = keys.stream().map(k -> "e." + k).collect(Collectors.toList());
+        if (!afterValues.isEmpty()) {
+            predicates.add(buildKeysetPredicate(keyPaths, afterValues, sortKeys, descending, paramMap));
+        }
+
+        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e"
+                + (predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates))
+                + " ORDER BY " + keysetOrder(keyPaths, sortKeys, descending);
+
+        TypedQuery<T> jpaQuery = withFetchSize(entityManager.createQuery(jpql, entityClass), size + 1);
+        paramMap.forEach(jpaQuery::setParameter);
+        jpaQuery.setMaxResults(size + 1);
+
+        long start = System.nanoTime();
+        List<T> rows = jpaQuery.getResultList();
+        recordPredicates(jpql, start);
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            T last = content.get(content.size() - 1);
+            List<Object> lastValues = new ArrayList<>();
+            for (String key : keys) {
+                lastValues.add(readPath(last, key));
+            }
+            nextCursor = XPageCursor.encode(signature, lastValues);
+        }
+        return new XKeysetPage<>(content, size, hasNext, nextCursor);
+    }
+
+    /**
+     * Keyset paginated variant of
+     * {@link #executePagedIntent(IntentMeta, Map, int, int)}. The intent's
+     * {@code sortBy} fields followed by the root resource primary key form the
+     * seek key; their values are selected alongside the intent attributes and
+     * stripped from the returned rows.
+     *
+     * @param intent       the intent to execute
+     * @param rootMetadata metadata of the intent's root resource
+     * @param context      the resolved query context
+     * @param after        cursor returned with the previous page, blank for the
+     *                     first page
+     * @param size         page size
+     * @param direction    sort direction of all keys ("asc" or "desc")
+     * @return the requested page and the cursor of the next one
+     */
+    public XKeysetPage<Map<String, Object>> executeKeysetIntent(
+            IntentMeta intent,
+            XResourceMetadata rootMetadata,
+            Map<String, Object> context,
+            String after,
+            int size,
+            String direction) {
+
+        if (intent == null)
+            throw new XResourceException("No XIntent provided");
+        boolean descending = "desc".equalsIgnoreCase(direction);
+
+        List<String> keyPaths = new ArrayList<>();
+        if (intent.getSortBy() != null) {
+            keyPaths.addAll(intent.getSortBy());
+        }
+        int sortKeys = keyPaths.size();
+        for (String pk : primaryKeyPaths(rootMetadata, intent.getRootAlias())) {
+            if (!keyPaths.contains(pk))
+                keyPaths.add(pk);
+        }
+        String signature = String.join(",", keyPaths) + (descending ? ":desc" : ":asc");
+        List<Class<?>> keyTypes = keyPaths.stream().<Class<?>>map(k -> intentPathType(intent, k))
+                .collect(Collectors.toList());
+        List<Object> afterValues = XPageCursor.decode(after, signature, keyTypes);
+
+        Map<String, Object> keysetParams = new HashMap<>();
+        String seekPredicate = afterValues.isEmpty() ? null
+                : buildKeysetPredicate(keyPaths, afterValues, sortKeys, descending, keysetParams);
+
+        String jpql = IntentToJPQLTransformer.toKeysetJPQL(intent, XResourceGraphBuilder.getResourceGraph(registry),
+                keyPaths, seekPredicate, keysetOrder(keyPaths, sortKeys, descending));
+
+        TypedQuery<Object[]> jpaQuery = withFetchSize(entityManager.createQuery(jpql, Object[].class), size + 1);
+        bindIntentParameters(jpaQuery, intent, context);
+        keysetParams.forEach(jpaQuery::setParameter);
+        jpaQuery.setMaxResults(size + 1);
+
+        long start = System.nanoTime();
+        List<Object[]> rawResults = jpaQuery.getResultList();
+        recordPredicates(jpql, start);
+        boolean hasNext = rawResults.size() > size;
+        if (hasNext) {
+            rawResults = rawResults.subList(0, size);
+        }
+
+        List<String> aliases = intent.getSelectAttributes().stream()
+                .map(attr -> attr.getAliasAs() != null
+                        ? attr.getAliasAs().isBlank() ? attr.getField() : attr.getAliasAs()
+                        : attr.getField())
+                .collect(Collectors.toList());
+
+        List<Map<String, Object>> resultRows = new ArrayList<>(rawResults.size());
+        for (Object[] row : rawResults) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < aliases.size(); i++) {
+                map.put(aliases.get(i), i < row.length ? row[i] : null);
+            }
+            resultRows.add(map);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Object[] last = rawResults.get(rawResults.size() - 1);
+            int offset = last.length - keyPaths.size();
+            nextCursor = XPageCursor.encode(signature, Arrays.asList(Arrays.copyOfRange(last, offset, last.length)));
+        }
+        return new XKeysetPage<>(resultRows, size, hasNext, nextCursor);
     }
 
     public <T> Page<T> executePagedQuery(
@@ -69,38 +387,72 @@ public class XQueryExecutor {
             int size,
             String sortBy,
             String direction) {
+        return executePagedQuery(entityClass, query, context, page, size, sortBy, direction, null);
+    }
+
+    /**
+     * Paged variant of {@link #executeQuery(Class, XQuery, Map)} whose total is
+     * produced according to {@code countPolicy}.
+     *
+     * @param countPolicy how to compute the total, {@code null} for an exact
+     *                    count
+     */
+    public <T> Page<T> executePagedQuery(
+            Class<T> entityClass,
+            XQuery query,
+            Map<String, Object> context,
+            int page,
+            int size,
+            String sortBy,
+            String direction,
+            XCountPolicy countPolicy) {
+        return executePagedQuery(entityClass, query, context, page, size, sortBy, direction, countPolicy, null);
+    }
+
+    /**
+     * Variant of
+     * {@link #executePagedQuery(Class, XQuery, Map, int, int, String, String, XCountPolicy)}
+     * selecting only the columns of {@code projection} when given.
+     *
+     * @param projection columns to select, {@code null} to load full entities
+     */
+    public <T> Page<T> executePagedQuery(
+            Class<T> entityClass,
+            XQuery query,
+            Map<String, Object> context,
+            int page,
+            int size,
+            String sortBy,
+            String direction,
+            XCountPolicy countPolicy,
+            XProjection projection) {
         if (query == null)
             throw new XResourceException("No XQuery provided for entity: " + entityClass.getSimpleName());
 
-        EntityManager entityManager = getEntityManager();
-        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e WHERE " + query.where();
+        XQueryTemplate template = templateFor(entityClass, List.of(query));
+        String jpql = selectFrom(entityClass, template, projection);
 
         if (sortBy != null && !sortBy.isBlank()) {
             jpql += " ORDER BY e." + sortBy + " " + direction;
         }
 
-        TypedQuery<T> jpaQuery = entityManager.createQuery(jpql, entityClass);
-
-        for (String ctxKey : query.contextParams()) {
-            String paramName = extractParamName(ctxKey);
-            Object resolvedValue = resolveContextValue(ctxKey, context);
-            jpaQuery.setParameter(paramName, resolvedValue);
-        }
+        Map<String, Object> paramMap = template.bind(context);
 
+        int fetchSize = countPolicy != null ? countPolicy.fetchSize(size) : size;
+        Query jpaQuery = withFetchSize(createSelectQuery(jpql, entityClass, projection), fetchSize);
+        paramMap.forEach(jpaQuery::setParameter);
         jpaQuery.setFirstResult(page * size);
-        jpaQuery.setMaxResults(size);
-
-        // Total count query
-        String countJpql = "SELECT COUNT(e) FROM " + entityClass.getSimpleName() + " e WHERE " + query.where();
-        TypedQuery<Long> countQuery = entityManager.createQuery(countJpql, Long.class);
-        for (String ctxKey : query.contextParams()) {
-            String paramName = extractParamName(ctxKey);
-            Object resolvedValue = resolveContextValue(ctxKey, context);
-            countQuery.setParameter(paramName, resolvedValue);
+        jpaQuery.setMaxResults(fetchSize);
+
+        // Total count query, only run when the count strategy needs it
+        String countJpql = template.getCountJpql();
+        XParallelCounter.PendingCount count = startCount(countPolicy, countJpql, paramMap);
+        try {
+            List<T> rows = readResults(jpql, jpaQuery, entityClass, projection);
+            return countManager.toPage(rows, page, size, countPolicy, countJpql, paramMap, false, count);
+        } finally {
+            count.cancel();
         }
-
-        long total = countQuery.getSingleResult();
-        return new PageImpl<>(jpaQuery.getResultList(), PageRequest.of(page, size), total);
     }
 
     public List<Map<String, Object>> executeIntent(
@@ -111,23 +463,10 @@ public class XQueryExecutor {
         if (intent == null)
             throw new XResourceException("No XIntent provided for entity: " + entityClass.getSimpleName());
 
-        EntityManager entityManager = getEntityManager();
-        String jpql = IntentToJPQLTransformer.toJPQL(intent, XResourceGraphBuilder.getGraph(registry));
-
-        // Use Object[] because there are multiple fields
-        TypedQuery<Object[]> jpaQuery = entityManager.createQuery(jpql, Object[].class);
-
-        for (IntentParameterMeta intentPara : intent.getParameters()) {
-            String paramName = intentPara.getName();
-            Object resolvedValue = intentPara.getSource() == ParamSource.REQUEST ? context.get(intentPara.getName())
-                    : intentPara.getDefaultValue();
-            if (resolvedValue == null) {
-                throw new XResourceException("Missing context value for:" + intentPara.getName());
-            }
-            jpaQuery.setParameter(paramName, resolvedValue);
-        }
-
-        List<Object[]> results = jpaQuery.getResultList();
+        AcoMaterializedViewManager.ViewQuery viewQuery = materializedViews != null
+                ? materializedViews.getViewQuery(intent)
+                : null;
+        List<Object[]> results = viewQuery != null ? readView(viewQuery) : queryIntent(intent, context);
 
         // Extract the aliases from the intent metadata
         List<String> aliases = intent.getSelectAttributes().stream()
@@ -151,36 +490,97 @@ public class XQueryExecutor {
         return mappedResults;
     }
 
+    private List<Object[]> queryIntent(IntentMeta intent, Map<String, Object> context) {
+        String jpql = IntentToJPQLTransformer.toCachedJPQL(intent, registry);
+
+        // Use Object[] because there are multiple fields
+        TypedQuery<Object[]> jpaQuery = withFetchSize(entityManager.createQuery(jpql, Object[].class),
+                READ_FETCH_SIZE);
+
+        for (IntentParameterMeta intentPara : intent.getParameters()) {
+            String paramName = intentPara.getName();
+            Object resolvedValue = intentPara.getSource() == ParamSource.REQUEST ? context.get(intentPara.getName())
+                    : intentPara.getDefaultValue();
+            if (resolvedValue == null) {
+                throw new XResourceException("Missing context value for:" + intentPara.getName());
+            }
+            jpaQuery.setParameter(paramName, resolvedValue);
+        }
+
+        long start = System.nanoTime();
+        List<Object[]> results = jpaQuery.getResultList();
+        recordJoinLatency(intent, start);
+        recordPredicates(jpql, start);
+        if (materializedViews != null)
+            materializedViews.recordExecution(intent);
+        return results;
+    }
+
+    /**
+     * Reads the rows of an intent from its materialized view; columns are in the
+     * order of the intent's select attributes. Every column is read with the
+     * type of its attribute, so converted and enum values come back as the
+     * intent's JPQL returns them rather than as raw JDBC values.
+     */
+    private List<Object[]> readView(AcoMaterializedViewManager.ViewQuery viewQuery) {
+        Query query = withFetchSize(entityManager.createNativeQuery(viewQuery.sql()), READ_FETCH_SIZE);
+        NativeQuery<?> nativeQuery = query.unwrap(NativeQuery.class);
+        List<BasicType<?>> columnTypes = viewQuery.columnTypes();
+        for (int i = 0; i < columnTypes.size(); i++) {
+            nativeQuery.addScalar("c" + i, columnTypes.get(i));
+        }
+        List<?> rows = query.getResultList();
+        List<Object[]> results = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            // Single column queries return the bare values
+            results.add(row instanceof Object[] values ? values : new Object[] { row });
+        }
+        return results;
+    }
+
     public Page<Map<String, Object>> executePagedIntent(
             IntentMeta intent,
             Map<String, Object> context,
             int page,
             int size) {
+        return executePagedIntent(intent, context, page, size, null);
+    }
+
+    /**
+     * Paged intent execution whose total is produced according to
+     * {@code countPolicy}. Cached totals are also dropped on writes of the
+     * resources the intent joins.
+     *
+     * @param countPolicy how to compute the total, {@code null} for an exact
+     *                    count
+     */
+    public Page<Map<String, Object>> executePagedIntent(
+            IntentMeta intent,
+            Map<String, Object> context,
+            int page,
+            int size,
+            XCountPolicy countPolicy) {
 
         if (intent == null)
             throw new XResourceException("No XIntent provided");
-
-        EntityManager entityManager = getEntityManager();
+        if (countPolicy != null && intent.getJoins() != null) {
+            countPolicy = countPolicy.joining(intent.getJoins().stream()
+                    .map(JoinMeta::getResource)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()));
+        }
 
         // Generate JPQL for data
-        String jpql = IntentToJPQLTransformer.toJPQL(intent, XResourceGraphBuilder.getGraph(registry));
+        String jpql = IntentToJPQLTransformer.toCachedJPQL(intent, registry);
+        Map<String, Object> paramMap = resolveIntentParameters(intent, context);
 
         // Execute as raw Object[]
-        TypedQuery<Object[]> jpaQuery = entityManager.createQuery(jpql, Object[].class);
-        for (IntentParameterMeta intentPara : intent.getParameters()) {
-            String paramName = intentPara.getName();
-            Object resolvedValue = intentPara.getSource() == ParamSource.REQUEST ? context.get(intentPara.getName())
-                    : intentPara.getDefaultValue();
-            if (resolvedValue == null) {
-                throw new XResourceException("Missing context value for:" + intentPara.getName());
-            }
-            jpaQuery.setParameter(paramName, resolvedValue);
-        }
+        int fetchSize = countPolicy != null ? countPolicy.fetchSize(size) : size;
+        TypedQuery<Object[]> jpaQuery = withFetchSize(entityManager.createQuery(jpql, Object[].class), fetchSize);
+        paramMap.forEach(jpaQuery::setParameter);
 
         jpaQuery.setFirstResult(page * size);
-        jpaQuery.setMaxResults(size);
-
-        List<Object[]> rawResults = jpaQuery.getResultList();
+        jpaQuery.setMaxResults(fetchSize);
 
         // Map to field aliases
         List<String> aliases = intent.getSelectAttributes().stream()
@@ -189,30 +589,27 @@ public class XQueryExecutor {
                         : attr.getField())
                 .collect(Collectors.toList());
 
-        List<Map<String, Object>> resultRows = rawResults.stream().map(row -> {
-            Map<String, Object> map = new LinkedHashMap<>();
-            for (int i = 0; i < aliases.size(); i++) {
-                map.put(aliases.get(i), i < row.length ? row[i] : null);
-            }
-            return map;
-        }).collect(Collectors.toList());
+        // Count query, only run when the count strategy needs it
+        String countJpql = IntentToJPQLTransformer.toCachedJPQLCountQuery(intent, registry);
+        XParallelCounter.PendingCount count = startCount(countPolicy, countJpql, paramMap);
+        try {
+            long start = System.nanoTime();
+            List<Object[]> rawResults = jpaQuery.getResultList();
+            recordJoinLatency(intent, start);
+            recordPredicates(jpql, start);
+
+            List<Map<String, Object>> resultRows = rawResults.stream().map(row -> {
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < aliases.size(); i++) {
+                    map.put(aliases.get(i), i < row.length ? row[i] : null);
+                }
+                return map;
+            }).collect(Collectors.toList());
 
-        // Count query
-        String countJpql = IntentToJPQLTransformer.toJPQLCountQuery(intent, XResourceGraphBuilder.getGraph(registry));
-        TypedQuery<Long> countQuery = entityManager.createQuery(countJpql, Long.class);
-        for (IntentParameterMeta intentPara : intent.getParameters()) {
-            String paramName = intentPara.getName();
-            Object resolvedValue = intentPara.getSource() == ParamSource.REQUEST ? context.get(intentPara.getName())
-                    : intentPara.getDefaultValue();
-            if (resolvedValue == null) {
-                throw new XResourceException("Missing context value for:" + intentPara.getName());
-            }
-            countQuery.setParameter(paramName, resolvedValue);
+            return countManager.toPage(resultRows, page, size, countPolicy, countJpql, paramMap, false, count);
+        } finally {
+            count.cancel();
         }
-
-        long total = countQuery.getSingleResult();
-
-        return new PageImpl<>(resultRows, PageRequest.of(page, size), total);
     }
 
     public <T> Page<T> executePagedQueries(
@@ -226,103 +623,106 @@ public class XQueryExecutor {
         if (xQueries == null || xQueries.isEmpty()) {
             throw new XResourceException("No XQueries provided for entity: " + entityClass.getSimpleName());
         }
+        return executePagedQueries(entityClass, xQueries, context, page, size, sortBy, direction, null);
+    }
 
-        StringBuilder whereBuilder = new StringBuilder();
-        Map<String, Object> paramMap = new HashMap<>();
-        boolean first = true;
-
-        EntityManager entityManager = getEntityManager();
-
-        for (XQuery query : xQueries.values()) {
-            String where = query.where().trim();
-            if (where.isEmpty())
-                continue;
-
-            if (!first) {
-                whereBuilder.append(" AND ");
-            } else {
-                whereBuilder.append(" WHERE ");
-                first = false;
-            }
-
-            whereBuilder.append("(").append(where).append(")");
-
-            for (String ctxKey : query.contextParams()) {
-                String paramName = extractParamName(ctxKey);
-                Object resolvedValue;
-
-                if (paramName.startsWith("context_loggeduser_")) {
-                    String loggedParam = paramName.substring("context_loggeduser_".length());
-                    resolvedValue = resolveLoggedUserContextValue(loggedParam, context);
-                } else {
-                    resolvedValue = resolveContextValue(ctxKey, context);
-                }
-
-                if (resolvedValue != null) {
-                    paramMap.put(paramName, resolvedValue);
-                }
-            }
-        }
+    /**
+     * Paged variant of {@link #executeXQueries(Class, Map, Map)} whose total is
+     * produced according to {@code countPolicy}. An empty query map pages
+     * through the whole table.
+     *
+     * @param countPolicy how to compute the total, {@code null} for an exact
+     *                    count
+     */
+    public <T> Page<T> executePagedQueries(
+            Class<T> entityClass,
+            Map<String, XQuery> xQueries,
+            Map<String, Object> context,
+            int page,
+            int size,
+            String sortBy,
+            String direction,
+            XCountPolicy countPolicy) {
+        return executePagedQueries(entityClass, xQueries, context, page, size, sortBy, direction, countPolicy,
+                null);
+    }
 
-        String whereClause = whereBuilder.toString();
-        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e " + whereClause;
+    /**
+     * Variant of
+     * {@link #executePagedQueries(Class, Map, Map, int, int, String, String, XCountPolicy)}
+     * selecting only the columns of {@code projection} when given.
+     *
+     * @param projection columns to select, {@code null} to load full entities
+     */
+    public <T> Page<T> executePagedQueries(
+            Class<T> entityClass,
+            Map<String, XQuery> xQueries,
+            Map<String, Object> context,
+            int page,
+            int size,
+            String sortBy,
+            String direction,
+            XCountPolicy countPolicy,
+            XProjection projection) {
+        XQueryTemplate template = templateFor(entityClass, xQueries.values());
+        Map<String, Object> paramMap = template.bind(context);
+        String jpql = selectFrom(entityClass, template, projection);
 
         if (sortBy != null && !sortBy.isBlank()) {
             jpql += " ORDER BY e." + sortBy + " " + direction;
         }
 
-        TypedQuery<T> jpaQuery = entityManager.createQuery(jpql, entityClass);
+        int fetchSize = countPolicy != null ? countPolicy.fetchSize(size) : size;
+        Query jpaQuery = withFetchSize(createSelectQuery(jpql, entityClass, projection), fetchSize);
         paramMap.forEach(jpaQuery::setParameter);
         jpaQuery.setFirstResult(page * size);
-        jpaQuery.setMaxResults(size);
-
-        String countJpql = "SELECT COUNT(e) FROM " + entityClass.getSimpleName() + " e " + whereClause;
-        TypedQuery<Long> countQuery = entityManager.createQuery(countJpql, Long.class);
-        paramMap.forEach(countQuery::setParameter);
-        long total = countQuery.getSingleResult();
-
-        return new PageImpl<>(jpaQuery.getResultList(), PageRequest.of(page, size), total);
+        jpaQuery.setMaxResults(fetchSize);
+
+        String countJpql = template.getCountJpql();
+        XParallelCounter.PendingCount count = startCount(countPolicy, countJpql, paramMap);
+        try {
+            List<T> rows = readResults(jpql, jpaQuery, entityClass, projection);
+            return countManager.toPage(rows, page, size, countPolicy, countJpql, paramMap,
+                    template.isUnfiltered(), count);
+        } finally {
+            count.cancel();
+        }
     }
 
     public Optional<Object> findById(XResourceMetadata metadata, Map<String, XQuery> xQueries,
             Map<String, Object> context, Object id) {
+        return findById(metadata, xQueries, context, id, null);
+    }
+
+    /**
+     * Looks up a record by its simple primary key, applying the given
+     * (auto-apply) queries and selecting only the columns of {@code projection}
+     * when given.
+     *
+     * @param projection columns to select, {@code null} to load the full entity
+     */
+    public Optional<Object> findById(XResourceMetadata metadata, Map<String, XQuery> xQueries,
+            Map<String, Object> context, Object id, XProjection projection) {
 
-        EntityManager entityManager = getEntityManager();
         // Build where clause combining ID and auto-apply queries
         String whereClause = "e.id = :id";
-        for (Entry<String, XQuery> entry : xQueries.entrySet()) {
-            XQuery query = entry.getValue();
-            whereClause += " AND (" + query.where() + ")";
+        if (!metadata.hasCompositeKey() && metadata.getPrimaryKey() != null) {
+            whereClause = "e." + metadata.getPrimaryKey() + " = :id";
+            id = convertId(metadata, id);
+        }
+        XQueryTemplate template = metadata.getXQueryTemplate(xQueries.values());
+        if (!template.isUnfiltered()) {
+            whereClause += " AND " + template.getPredicate();
         }
 
-        String jpql = "SELECT e FROM " + metadata.getEntityClass().getSimpleName() + " e WHERE " + whereClause;
-        TypedQuery<Object> jpaQuery = (TypedQuery<Object>) entityManager.createQuery(jpql, metadata.getEntityClass());
+        String jpql = selectFrom(metadata.getEntityClass(), null, projection) + " WHERE " + whereClause;
+        Query jpaQuery = createSelectQuery(jpql, metadata.getEntityClass(), projection);
         jpaQuery.setParameter("id", id);
 
         // Set dynamic context params
-        Map<String, Object> paramMap = new HashMap<>();
-        for (Entry<String, XQuery> entry : xQueries.entrySet()) {
-            XQuery query = entry.getValue();
-            for (String ctxKey : query.contextParams()) {
-                String paramName = extractParamName(ctxKey);
-                Object resolvedValue;
-
-                if (paramName.startsWith("context_loggeduser_")) {
-                    String loggedParam = paramName.substring("context_loggeduser_".length());
-                    resolvedValue = resolveLoggedUserContextValue(loggedParam, context);
-                } else {
-                    resolvedValue = resolveContextValue(ctxKey, context);
-                }
+        template.bind(context).forEach(jpaQuery::setParameter);
 
-                if (resolvedValue != null) {
-                    paramMap.put(paramName, resolvedValue);
-                }
-            }
-        }
-
-        paramMap.forEach(jpaQuery::setParameter);
-
-        List<Object> results = jpaQuery.getResultList();
+        List<?> results = readResults(jpql, jpaQuery, metadata.getEntityClass(), projection);
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
 
@@ -331,52 +731,320 @@ public class XQueryExecutor {
         if (xQueries == null || xQueries.isEmpty()) {
             throw new XResourceException("No XQueries provided for entity: " + entityClass.getSimpleName());
         }
-        EntityManager entityManager = getEntityManager();
-        StringBuilder whereBuilder = new StringBuilder();
-        Map<String, Object> paramMap = new HashMap<>();
-        boolean first = true;
+        return executeXQueries(entityClass, xQueries, context, null);
+    }
 
-        for (XQuery query : xQueries.values()) {
-            String where = query.where().trim();
-            if (where.isEmpty())
-                continue;
+    /**
+     * Executes the given queries combined with {@code AND}, selecting only the
+     * columns of {@code projection} when given. An empty query map selects the
+     * whole table.
+     *
+     * @param projection columns to select, {@code null} to load full entities
+     */
+    public <T> List<T> executeXQueries(Class<T> entityClass, Map<String, XQuery> xQueries,
+            Map<String, Object> context, XProjection projection) {
+        XQueryTemplate template = templateFor(entityClass, xQueries.values());
+        String jpql = selectFrom(entityClass, template, projection);
+        Query jpaQuery = withFetchSize(createSelectQuery(jpql, entityClass, projection), READ_FETCH_SIZE);
 
-            if (!first) {
-                whereBuilder.append(" AND ");
-            } else {
-                first = false;
-                whereBuilder.append(" WHERE ");
-            }
+        // Set parameters
+        template.bind(context).forEach(jpaQuery::setParameter);
 
-            whereBuilder.append("(").append(where).append(")");
+        return readResults(jpql, jpaQuery, entityClass, projection);
+    }
 
-            // Resolve each context param
-            for (String ctxKey : query.contextParams()) {
-                String paramName = extractParamName(ctxKey); // e.g. user.id -> id
+    /**
+     * Compiles the column projection of a resource for the given attributes.
+     * Projections are cached per resource and field set.
+     *
+     * @param metadata the resource
+     * @param fields   attributes the response will render
+     * @return the projection, or {@code null} when full entities have to be
+     *         loaded
+     */
+    public XProjection compileProjection(XResourceMetadata metadata, Set<String> fields) {
+        return projections.computeIfAbsent(new ProjectionKey(metadata.getEntityClass(), Set.copyOf(fields)),
+                k -> XProjection.compile(emf.getMetamodel(), metadata, fields));
+    }
 
-                Object resolvedValue;
-                if (paramName.startsWith("context_loggeduser_")) {
-                    String loggedParam = paramName.substring("context_loggeduser_".length());
-                    resolvedValue = resolveLoggedUserContextValue(loggedParam, context);
-                } else {
-                    resolvedValue = resolveContextValue(ctxKey, context);
-                }
+    /**
+     * Resolves the parameter values an {@link XQuery} would be executed with.
+     *
+     * @throws XResourceException if a value is missing from the context
+     */
+    public Map<String, Object> bindParameters(Class<?> entityClass, XQuery query, Map<String, Object> context) {
+        return templateFor(entityClass, List.of(query)).bind(context);
+    }
 
-                if (resolvedValue != null) {
-                    paramMap.put(paramName, resolvedValue);
-                }
+    /**
+     * Reports the latency of an intent query to the ACO swarm, if it is running
+     * and the intent joins other resources.
+     */
+    private void recordJoinLatency(IntentMeta intent, long startNanos) {
+        Swarm swarm = Swarm.active();
+        CompiledIntentJPQL compiled = intent.getCompiledJPQL();
+        if (swarm != null && compiled != null && !compiled.joinPath().isEmpty())
+            swarm.recordExecution(compiled.joinPath(), System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Reports an executed data query to the ACO index advisor, if it is running.
+     */
+    private void recordPredicates(String jpql, long startNanos) {
+        if (indexAdvisor != null)
+            indexAdvisor.recordExecution(jpql, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Resolves the parameter values an intent would be executed with.
+     *
+     * @throws XResourceException if a value is missing from the context
+     */
+    public Map<String, Object> bindParameters(IntentMeta intent, Map<String, Object> context) {
+        return resolveIntentParameters(intent, context);
+    }
+
+    /**
+     * Returns the compiled template of the given queries of an entity, cached on
+     * the resource metadata when the entity is an exposed resource.
+     *
+     * @param entityClass the queried entity
+     * @param queries     queries combined with {@code AND}, may be empty
+     */
+    public XQueryTemplate templateFor(Class<?> entityClass, Collection<XQuery> queries) {
+        XResourceMetadata metadata = registry.getByEntityClass(entityClass);
+        return metadata != null ? metadata.getXQueryTemplate(queries)
+                : XQueryTemplate.compile(entityClass.getSimpleName(), queries);
+    }
+
+    /**
+     * {@code SELECT ... FROM ... [WHERE ...]} of a template, or of the bare
+     * entity when {@code template} is {@code null}.
+     */
+    private String selectFrom(Class<?> entityClass, XQueryTemplate template, XProjection projection) {
+        if (projection == null && template != null)
+            return template.getDataJpql();
+        String whereClause = template != null ? template.getWhereClause() : "";
+        return projection == null ? "SELECT e FROM " + entityClass.getSimpleName() + " e" + whereClause
+                : projection.selectFrom(entityClass.getSimpleName()) + whereClause;
+    }
+
+    private Query createSelectQuery(String jpql, Class<?> entityClass, XProjection projection) {
+        return projection == null ? entityManager.createQuery(jpql, entityClass)
+                : entityManager.createQuery(jpql, Object[].class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> readResults(String jpql, Query jpaQuery, Class<T> entityClass, XProjection projection) {
+        long start = System.nanoTime();
+        List<?> rows = jpaQuery.getResultList();
+        recordPredicates(jpql, start);
+        if (projection == null)
+            return (List<T>) rows;
+        List<T> entities = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            entities.add(entityClass.cast(projection.materialize((Object[]) row, entityManager)));
+        }
+        return entities;
+    }
+
+    /**
+     * Starts the count of a paged query; in the background when the policy
+     * allows it, otherwise the count runs on demand on the shared entity manager.
+     */
+    private XParallelCounter.PendingCount startCount(XCountPolicy countPolicy, String countJpql,
+            Map<String, Object> paramMap) {
+        return parallelCounter.start(countPolicy, em -> count(em, countJpql, paramMap),
+                () -> count(entityManager, countJpql, paramMap));
+    }
+
+    private static long count(EntityManager em, String countJpql, Map<String, Object> paramMap) {
+        TypedQuery<Long> countQuery = withFetchSize(em.createQuery(countJpql, Long.class), 1);
+        paramMap.forEach(countQuery::setParameter);
+        return countQuery.getSingleResult();
+    }
+
+    /**
+     * Fetches the rows of a query in round trips of {@code fetchSize} rows,
+     * capped at {@link #READ_FETCH_SIZE}.
+     */
+    private static <Q extends Query> Q withFetchSize(Q query, int fetchSize) {
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, Math.max(1, Math.min(fetchSize, READ_FETCH_SIZE)));
+        return query;
+    }
+
+    /**
+     * Marks a query as a pure read: loaded entities are not snapshotted for
+     * dirty checking and the persistence context is not flushed before it runs.
+     * Entities stay read-only for the rest of their persistence context, so this
+     * is only used on entity managers private to the read; queries on the shared
+     * entity manager only get {@link #withFetchSize}.
+     */
+    private static <Q extends Query> Q readOnly(Q query, int fetchSize) {
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        query.setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        return withFetchSize(query, fetchSize);
+    }
+
+    private Object convertId(XResourceMetadata metadata, Object id) {
+        Field idField = XUtils.findField(metadata.getEntityClass(), metadata.getPrimaryKey());
+        if (id == null || idField == null || idField.getType().isInstance(id))
+            return id;
+        return DefaultConversionService.getSharedInstance().convert(id, idField.getType());
+    }
+
+    private void bindIntentParameters(Query jpaQuery, IntentMeta intent, Map<String, Object> context) {
+        resolveIntentParameters(intent, context).forEach(jpaQuery::setParameter);
+    }
+
+    private Map<String, Object> resolveIntentParameters(IntentMeta intent, Map<String, Object> context) {
+        Map<String, Object> paramMap = new LinkedHashMap<>();
+        for (IntentParameterMeta intentPara : intent.getParameters()) {
+            Object resolvedValue = intentPara.getSource() == ParamSource.REQUEST ? context.get(intentPara.getName())
+                    : intentPara.getDefaultValue();
+            if (resolvedValue == null) {
+                throw new XResourceException("Missing context value for:" + intentPara.getName());
             }
+            paramMap.put(intentPara.getName(), resolvedValue);
         }
+        return paramMap;
+    }
 
-        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e " + whereBuilder.toString();
-        TypedQuery<T> jpaQuery = entityManager.createQuery(jpql, entityClass);
+    /**
+     * Primary key attribute paths of a resource, optionally qualified with an
+     * alias. Composite keys expand to one path per embedded id attribute.
+     */
+    private List<String> primaryKeyPaths(XResourceMetadata metadata, String alias) {
+        String prefix = alias == null || alias.isEmpty() ? "" : alias + ".";
+        List<String> paths = new ArrayList<>();
+        if (metadata.hasCompositeKey()) {
+            for (String key : metadata.getPrimaryKey().split(",")) {
+                paths.add(prefix + metadata.getEmbeddedKeyFieldName() + "." + key.trim());
+            }
+        } else {
+            paths.add(prefix + metadata.getPrimaryKey());
+        }
+        return paths;
+    }
 
-        // Set parameters
-        for (Map.Entry<String, Object> entry : paramMap.entrySet()) {
-            jpaQuery.setParameter(entry.getKey(), entry.getValue());
+    /**
+     * Builds the lexicographic seek predicate
+     * {@code k0 > :v0 OR (k0 = :v0 AND (k1 > :v1 OR (...)))}, which is the
+     * portable JPQL spelling of the row value comparison
+     * {@code (k0, k1, ...) > (:v0, :v1, ...)}.
+     *
+     * <p>
+     * The first {@code nullableKeys} keys are sort keys that may be null; they
+     * are ordered by {@link #keysetOrder}, which places nulls as if they were
+     * greater than every value. Past a null ascending nothing but other nulls
+     * follow; descending every non-null value does.
+     * </p>
+     */
+    private String buildKeysetPredicate(List<String> keyPaths, List<Object> values, int nullableKeys,
+            boolean descending, Map<String, Object> paramMap) {
+        if (values.size() != keyPaths.size()) {
+            throw new XResourceException("Invalid page cursor");
         }
+        int last = keyPaths.size() - 1;
+        String predicate = null;
+        for (int i = last; i >= 0; i--) {
+            String key = keyPaths.get(i);
+            Object value = values.get(i);
+            String param = ":" + KEYSET_PARAM_PREFIX + i;
+            if (value == null && i >= nullableKeys) {
+                throw new XResourceException("Invalid page cursor");
+            }
 
-        return jpaQuery.getResultList();
+            String beyond;
+            if (value == null) {
+                beyond = descending ? key + " IS NOT NULL" : null;
+            } else if (descending) {
+                beyond = key + " < " + param;
+            } else {
+                beyond = i < nullableKeys ? "(" + key + " > " + param + " OR " + key + " IS NULL)"
+                        : key + " > " + param;
+            }
+            if (predicate != null) {
+                String equal = value == null ? key + " IS NULL" : key + " = " + param;
+                String tie = equal + " AND (" + predicate + ")";
+                predicate = beyond == null ? tie : beyond + " OR (" + tie + ")";
+            } else {
+                predicate = beyond;
+            }
+            if (value != null) {
+                paramMap.put(KEYSET_PARAM_PREFIX + i, value);
+            }
+        }
+        return "(" + predicate + ")";
+    }
+
+    /**
+     * ORDER BY items of a keyset query; the first {@code nullableKeys} keys
+     * order nulls last ascending and first descending.
+     */
+    private static String keysetOrder(List<String> keyPaths, int nullableKeys, boolean descending) {
+        List<String> items = new ArrayList<>(keyPaths.size());
+        for (int i = 0; i < keyPaths.size(); i++) {
+            String nulls = i < nullableKeys ? descending ? " NULLS FIRST" : " NULLS LAST" : "";
+            items.add(keyPaths.get(i) + (descending ? " DESC" : " ASC") + nulls);
+        }
+        return String.join(", ", items);
+    }
+
+    /**
+     * Declared type of an attribute path of an entity, {@code null} if it cannot
+     * be resolved.
+     */
+    private static Class<?> pathType(Class<?> entityClass, String path) {
+        Class<?> type = entityClass;
+        for (String segment : path.split("\\.")) {
+            Field field = type != null ? XUtils.findField(type, segment) : null;
+            if (field == null)
+                return null;
+            type = field.getType();
+        }
+        return type;
+    }
+
+    /**
+     * Declared type of an alias qualified attribute path of an intent,
+     * {@code null} if it cannot be resolved.
+     */
+    private Class<?> intentPathType(IntentMeta intent, String path) {
+        int dot = path.indexOf('.');
+        if (dot < 0)
+            return pathType(intent.getEntityClass(), path);
+        String alias = path.substring(0, dot);
+        Class<?> entityClass = null;
+        if (alias.equals(intent.getRootAlias())) {
+            entityClass = intent.getEntityClass();
+        } else if (intent.getJoins() != null) {
+            for (JoinMeta join : intent.getJoins()) {
+                XResourceMetadata joined = alias.equals(join.getAlias()) ? registry.get(join.getResource()) : null;
+                if (joined != null)
+                    entityClass = joined.getEntityClass();
+            }
+        }
+        return entityClass != null ? pathType(entityClass, path.substring(dot + 1)) : null;
+    }
+
+    private Object readPath(Object entity, String path) {
+        Object value = entity;
+        for (String segment : path.split("\\.")) {
+            if (value == null)
+                return null;
+            value = Hibernate.unproxy(value);
+            Field field = XUtils.findField(value.getClass(), segment);
+            if (field == null)
+                throw new XResourceException("Unknown sort field: " + path);
+            try {
+                field.setAccessible(true);
+                value = field.get(value);
+            } catch (IllegalAccessException e) {
+                throw new XResourceException("Unable to read sort field: " + path, e);
+            }
+        }
+        return value;
     }
 
     public String extractParamName(String ctxKey) {
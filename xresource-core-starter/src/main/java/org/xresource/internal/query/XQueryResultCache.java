@@ -0,0 +1,493 @@
+package org.xresource.internal.query;
+
+import static org.xresource.internal.config.XResourceConfigProperties.QUERY_CACHE_ENABLED;
+import static org.xresource.internal.config.XResourceConfigProperties.QUERY_CACHE_MAX_ROWS;
+import static org.xresource.internal.config.XResourceConfigProperties.QUERY_CACHE_QUERY_TTL_PREFIX;
+import static org.xresource.internal.config.XResourceConfigProperties.QUERY_CACHE_TTL;
+
+import java.lang.reflect.Array;
+import java.time.temporal.Temporal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+import org.xresource.core.annotations.XQuery;
+import org.xresource.core.hook.XResourceEventType;
+import org.xresource.core.hook.XResourceHookRegistry;
+import org.xresource.core.logging.XLogger;
+import org.xresource.internal.auth.XRoleBasedAccessEvaluator;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.intent.core.parser.model.JoinMeta;
+import org.xresource.internal.intent.core.parser.model.SelectAttributeMeta;
+import org.xresource.internal.models.XRelationshipMetadata;
+import org.xresource.internal.models.XResourceGraph;
+import org.xresource.internal.models.XResourceMetadata;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.internal.util.XResourceGraphBuilder;
+
+/**
+ * Caches the rendered results of named {@link XQuery XQueries} and named
+ * intents, so that lookups over rarely changing tables (dropdowns, reference
+ * data) do not hit the database on every call.
+ *
+ * <p>
+ * Entries are keyed by the query or intent, its bound parameter values, the
+ * role set of the caller and the request options (paging, sorting, fields,
+ * foreign keys). Every entry remembers the resources its result depends on:
+ * the queried resource, the joined resources of an intent and, when the query
+ * navigates associations or renders foreign keys, every resource reachable
+ * from them in the {@link XResourceGraphBuilder resource graph}. A create,
+ * update or delete of any of those resources through
+ * {@link org.xresource.core.service.XResourceService} drops the entry; writes
+ * that bypass the framework are only picked up once the entry expires.
+ * </p>
+ *
+ * <p>
+ * The cache is bounded by the total number of cached rows
+ * ({@code xresource.query-cache.max-rows}) and evicts approximately least
+ * recently used entries first. Lookups take no lock, and an invalidation only
+ * visits the entries depending on the written resource. Entries live {@code xresource.query-cache.ttl} seconds, which
+ * can be overridden per query or intent with
+ * {@code xresource.query-cache.queries.<resource>.<name>.ttl}; a TTL of
+ * {@code 0} disables caching of that query.
+ * </p>
+ *
+ * <p>
+ * Responses are only cached while the access function is
+ * {@link XRoleBasedAccessEvaluator#isCacheable() cacheable}, i.e. its
+ * decisions depend on nothing but the roles in the key. Queries bound to
+ * parameter values other than plain values (strings, numbers, dates, enums,
+ * UUIDs and collections of them) are not cached either.
+ * </p>
+ *
+ * <p>
+ * Cached response bodies are shared between requests and must not be
+ * modified.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public class XQueryResultCache implements SmartInitializingSingleton {
+
+    private static final XLogger log = XLogger.forClass(XQueryResultCache.class);
+
+    /** An association path such as {@code team.teamId} in an XQuery where. */
+    private static final Pattern XQUERY_PATH = Pattern.compile("(?<![:\\w.])[A-Za-z_]\\w*\\.\\w+");
+
+    /** An alias qualified association path such as {@code u.team.name}. */
+    private static final Pattern INTENT_PATH = Pattern.compile("(?<![:\\w.])[A-Za-z_]\\w*\\.\\w+\\.\\w+");
+
+    @Autowired
+    private XResourceHookRegistry hookRegistry;
+
+    @Autowired
+    private XResourceMetadataRegistry registry;
+
+    @Autowired
+    private XQueryExecutor queryExecutor;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private XRoleBasedAccessEvaluator accessEvaluator;
+
+    @Value(QUERY_CACHE_ENABLED)
+    private boolean enabled;
+
+    @Value(QUERY_CACHE_MAX_ROWS)
+    private long maxRows;
+
+    @Value(QUERY_CACHE_TTL)
+    private long defaultTtlSeconds;
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<String, Long> ttls = new ConcurrentHashMap<>();
+    private final Map<String, CachedResult> entries = new ConcurrentHashMap<>();
+    /** Cached results by the resources they depend on, lower case. */
+    private final Map<String, Set<CachedResult>> dependents = new ConcurrentHashMap<>();
+    private final AtomicLong cachedRows = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * A cached response body with the generations of the resources it was read
+     * from. Indexed by identity, so a result replaced under the same key is
+     * never confused with its successor.
+     */
+    private static final class CachedResult {
+        final String key;
+        final Map<String, Object> body;
+        final int rows;
+        final String[] dependencies;
+        final long[] generations;
+        final long expiresAt;
+        volatile long lastAccess;
+
+        CachedResult(String key, Map<String, Object> body, int rows, String[] dependencies, long[] generations,
+                long expiresAt) {
+            this.key = key;
+            this.body = body;
+            this.rows = rows;
+            this.dependencies = dependencies;
+            this.generations = generations;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private record Candidate(CachedResult result, long lastAccess) {
+    }
+
+    /**
+     * Registers the invalidation hooks for every exposed resource, once all
+     * singletons are initialized and before requests are served.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled)
+            return;
+        for (String resourceName : registry.getRegistry().keySet()) {
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_CREATE, ctx -> invalidate(resourceName));
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_UPDATE, ctx -> invalidate(resourceName));
+            hookRegistry.registerHook(resourceName, XResourceEventType.AFTER_DELETE, ctx -> invalidate(resourceName));
+        }
+        log.debug("Registered query cache invalidation hooks for %s resources", registry.getRegistry().size());
+    }
+
+    /**
+     * Returns the cached response of a named XQuery, loading and caching it on a
+     * miss.
+     *
+     * @param metadata             the queried resource
+     * @param query                the query
+     * @param context              the resolved query context
+     * @param roles                roles of the caller
+     * @param traversesForeignKeys whether the response renders foreign key
+     *                             records
+     * @param options              request options the response depends on
+     *                             (paging, sorting, fields, ...)
+     * @param loader               executes the query and builds the response
+     *                             body, whose {@code data} entry is the list of
+     *                             rows
+     * @return the response body
+     */
+    public Map<String, Object> getOrLoad(XResourceMetadata metadata, XQuery query, Map<String, Object> context,
+            List<String> roles, boolean traversesForeignKeys, List<?> options, Supplier<Map<String, Object>> loader) {
+        String resourceName = metadata.getResourceName();
+        long ttlMillis = ttlMillis(resourceName, query.name());
+        if (ttlMillis <= 0)
+            return loader.get();
+
+        String key = key("query", resourceName, query.name(),
+                queryExecutor.bindParameters(metadata.getEntityClass(), query, context), roles, options);
+        if (key == null)
+            return loader.get();
+        boolean navigates = traversesForeignKeys || XQUERY_PATH.matcher(query.where()).find();
+        return getOrLoad(key, dependencies(List.of(resourceName), navigates), ttlMillis, loader);
+    }
+
+    /**
+     * Returns the cached response of a named intent, loading and caching it on
+     * a miss.
+     *
+     * @param intent  the intent
+     * @param context the resolved query context
+     * @param roles   roles of the caller
+     * @param options request options the response depends on
+     * @param loader  executes the intent and builds the response body, whose
+     *                {@code data} entry is the list of rows
+     * @return the response body
+     */
+    public Map<String, Object> getOrLoad(IntentMeta intent, Map<String, Object> context, List<String> roles,
+            List<?> options, Supplier<Map<String, Object>> loader) {
+        String resourceName = intent.getRootResource();
+        long ttlMillis = ttlMillis(resourceName, intent.getName());
+        if (ttlMillis <= 0)
+            return loader.get();
+        String key = key("intent", resourceName, intent.getName(), queryExecutor.bindParameters(intent, context),
+                roles, options);
+        if (key == null)
+            return loader.get();
+
+        List<String> direct = new ArrayList<>();
+        direct.add(resourceName);
+        boolean navigates = intent.getWhere() != null && INTENT_PATH.matcher(intent.getWhere()).find();
+        if (intent.getJoins() != null) {
+            for (JoinMeta join : intent.getJoins()) {
+                direct.add(join.getResource());
+            }
+        }
+        if (intent.getSelectAttributes() != null) {
+            for (SelectAttributeMeta select : intent.getSelectAttributes()) {
+                navigates |= select.getField() != null && select.getField().contains(".");
+            }
+        }
+        return getOrLoad(key, dependencies(direct, navigates), ttlMillis, loader);
+    }
+
+    /**
+     * Drops every cached result that depends on the given resource.
+     */
+    public void invalidate(String resourceName) {
+        String resource = resourceName.toLowerCase();
+        // Bumped first: a result stored concurrently is either found below or
+        // sees the new generation and removes itself
+        generations.computeIfAbsent(resource, k -> new AtomicLong()).incrementAndGet();
+        Set<CachedResult> dependent = dependents.get(resource);
+        if (dependent == null)
+            return;
+        for (CachedResult cached : dependent) {
+            if (discard(cached))
+                invalidations.increment();
+        }
+    }
+
+    /**
+     * @return hit, miss, eviction and invalidation counters and the current
+     *         size of the cache
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("entries", entries.size());
+        stats.put("rows", cachedRows.get());
+        stats.put("maxRows", maxRows);
+        return stats;
+    }
+
+    private Map<String, Object> getOrLoad(String key, String[] dependencies, long ttlMillis,
+            Supplier<Map<String, Object>> loader) {
+        long now = System.currentTimeMillis();
+        CachedResult cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now && isCurrent(cached)) {
+                cached.lastAccess = clock.get();
+                hits.increment();
+                return cached.body;
+            }
+            discard(cached);
+        }
+        misses.increment();
+
+        // Generations are taken before loading, so a write racing with the
+        // query leaves the entry stale instead of caching outdated rows
+        long[] loadedAt = currentGenerations(dependencies);
+        Map<String, Object> body = Collections.unmodifiableMap(loader.get());
+        int rows = body.get("data") instanceof List<?> data ? data.size() : 1;
+        if (rows > maxRows)
+            return body;
+
+        CachedResult result = new CachedResult(key, body, rows, dependencies, loadedAt, now + ttlMillis);
+        if (!isCurrent(result))
+            return body;
+        result.lastAccess = clock.incrementAndGet();
+        for (String dependency : dependencies) {
+            dependents.computeIfAbsent(dependency, k -> ConcurrentHashMap.newKeySet()).add(result);
+        }
+        CachedResult previous = entries.put(key, result);
+        cachedRows.addAndGet(rows);
+        if (previous != null) {
+            cachedRows.addAndGet(-previous.rows);
+            unindex(previous);
+        }
+        // Indexed before the generation check, see invalidate
+        if (!isCurrent(result)) {
+            discard(result);
+            return body;
+        }
+        if (cachedRows.get() > maxRows)
+            evict();
+        return body;
+    }
+
+    /**
+     * Removes a cached result, unless it was removed or replaced already.
+     *
+     * @return whether this call removed it
+     */
+    private boolean discard(CachedResult cached) {
+        if (!entries.remove(cached.key, cached))
+            return false;
+        cachedRows.addAndGet(-cached.rows);
+        unindex(cached);
+        return true;
+    }
+
+    private void unindex(CachedResult cached) {
+        for (String dependency : cached.dependencies) {
+            Set<CachedResult> dependent = dependents.get(dependency);
+            if (dependent != null)
+                dependent.remove(cached);
+        }
+    }
+
+    /**
+     * Evicts the least recently used results until the cache holds a tenth
+     * less than {@code maxRows}, so eviction cost is amortized over many
+     * inserts. Only one thread evicts at a time; the others go on.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock())
+            return;
+        try {
+            if (cachedRows.get() <= maxRows)
+                return;
+            // Stamps keep changing while sorting, so sort a snapshot of them
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            for (CachedResult cached : entries.values()) {
+                candidates.add(new Candidate(cached, cached.lastAccess));
+            }
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+            long target = maxRows - maxRows / 10;
+            for (Candidate candidate : candidates) {
+                if (cachedRows.get() <= target)
+                    break;
+                if (discard(candidate.result()))
+                    evictions.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean isCurrent(CachedResult cached) {
+        String[] dependencies = cached.dependencies;
+        for (int i = 0; i < dependencies.length; i++) {
+            if (generation(dependencies[i]) != cached.generations[i])
+                return false;
+        }
+        return true;
+    }
+
+    private long[] currentGenerations(String[] dependencies) {
+        long[] current = new long[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            current[i] = generation(dependencies[i]);
+        }
+        return current;
+    }
+
+    private long generation(String resource) {
+        AtomicLong generation = generations.get(resource);
+        return generation != null ? generation.get() : 0;
+    }
+
+    /**
+     * TTL of a query or intent in milliseconds, {@code 0} when its results are
+     * not cached.
+     */
+    private long ttlMillis(String resourceName, String name) {
+        if (!enabled || !accessEvaluator.isCacheable())
+            return 0;
+        return ttls.computeIfAbsent(resourceName + '.' + name, queryKey -> TimeUnit.SECONDS.toMillis(
+                environment.getProperty(QUERY_CACHE_QUERY_TTL_PREFIX + queryKey + ".ttl", Long.class,
+                        defaultTtlSeconds)));
+    }
+
+    /**
+     * The given resources and, when the query navigates associations, every
+     * resource reachable from them through foreign keys.
+     */
+    private String[] dependencies(List<String> resources, boolean navigates) {
+        Set<String> dependencies = new LinkedHashSet<>(resources);
+        if (navigates) {
+            XResourceGraph graph = XResourceGraphBuilder.getResourceGraph(registry);
+            Deque<String> pending = new ArrayDeque<>(resources);
+            while (!pending.isEmpty()) {
+                for (XRelationshipMetadata relationship : graph.getOutgoing(pending.poll())) {
+                    if (dependencies.add(relationship.getTargetTable()))
+                        pending.add(relationship.getTargetTable());
+                }
+            }
+        }
+        return dependencies.stream().map(String::toLowerCase).distinct().toArray(String[]::new);
+    }
+
+    /**
+     * Cache key of a query execution, {@code null} if a parameter value cannot
+     * be normalized. Every value is written with its type and length, so that
+     * distinct parameters never render to the same key.
+     */
+    private static String key(String kind, String resourceName, String name, Map<String, Object> params,
+            List<String> roles, List<?> options) {
+        StringBuilder key = new StringBuilder(kind).append(':').append(resourceName).append(':').append(name);
+        for (Map.Entry<String, Object> param : new TreeMap<>(params).entrySet()) {
+            appendString(key.append(" p"), param.getKey());
+            if (!appendValue(key, param.getValue()))
+                return null;
+        }
+        key.append(" r");
+        if (!appendValue(key, roles != null ? new TreeSet<>(roles) : Collections.emptySet()))
+            return null;
+        key.append(" o");
+        return appendValue(key, options) ? key.toString() : null;
+    }
+
+    private static boolean appendValue(StringBuilder key, Object value) {
+        if (value == null) {
+            key.append('N');
+        } else if (value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof UUID || value instanceof Temporal) {
+            appendString(key.append(value.getClass().getSimpleName()), value.toString());
+        } else if (value instanceof Date date) {
+            appendString(key.append(value.getClass().getSimpleName()), Long.toString(date.getTime()));
+        } else if (value instanceof Enum<?> constant) {
+            appendString(key.append(constant.getDeclaringClass().getName()), constant.name());
+        } else if (value instanceof Collection<?> values) {
+            key.append('[').append(values.size());
+            for (Object element : values) {
+                if (!appendValue(key.append(','), element))
+                    return false;
+            }
+            key.append(']');
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            key.append('[').append(length);
+            for (int i = 0; i < length; i++) {
+                if (!appendValue(key.append(','), Array.get(value, i)))
+                    return false;
+            }
+            key.append(']');
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static void appendString(StringBuilder key, String value) {
+        key.append(':').append(value.length()).append(':').append(value);
+    }
+}
@@ -0,0 +1,170 @@
+package org.xresource.internal.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.xresource.core.annotations.XQuery;
+import org.xresource.internal.exception.XResourceException;
+
+/**
+ * Compiled form of one {@link XQuery}, or of several combined with
+ * {@code AND} (the auto-apply queries of a role set).
+ *
+ * <p>
+ * The data and count JPQL and the context parameter binders are derived once,
+ * so executing the query only has to resolve and bind the parameter values.
+ * The queries are combined in name order, which keeps the generated JPQL
+ * identical between requests and lets Hibernate reuse its interpretation of
+ * the query string.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public final class XQueryTemplate {
+
+    /** Alias of the queried entity in every XQuery where clause. */
+    private static final String ROOT_ALIAS = "e";
+
+    private static final String LOGGED_USER_PREFIX = "context_loggeduser_";
+
+    /**
+     * Binds one named parameter from the query context.
+     *
+     * @param paramName  the JPQL parameter name
+     * @param contextKey key of the value in the context, or in the user context
+     *                   for logged user parameters
+     * @param loggedUser whether the value comes from the logged user context
+     */
+    private record Binder(String paramName, String contextKey, boolean loggedUser) {
+    }
+
+    private final String predicate;
+    private final String dataJpql;
+    private final String countJpql;
+    private final List<Binder> binders;
+
+    private XQueryTemplate(String predicate, String dataJpql, String countJpql, List<Binder> binders) {
+        this.predicate = predicate;
+        this.dataJpql = dataJpql;
+        this.countJpql = countJpql;
+        this.binders = binders;
+    }
+
+    /**
+     * Compiles the given queries, combined with {@code AND}.
+     *
+     * @param entityName JPQL entity name of the queried resource
+     * @param queries    the queries, may be empty
+     * @return the compiled template
+     */
+    public static XQueryTemplate compile(String entityName, Collection<XQuery> queries) {
+        List<String> predicates = new ArrayList<>();
+        List<Binder> binders = new ArrayList<>();
+        for (XQuery query : sorted(queries)) {
+            String where = query.where().trim();
+            if (where.isEmpty())
+                continue;
+            predicates.add("(" + where + ")");
+
+            for (String ctxKey : query.contextParams()) {
+                // e.g. user.id -> id
+                String paramName = ctxKey.contains(".") ? ctxKey.substring(ctxKey.lastIndexOf('.') + 1) : ctxKey;
+                if (paramName.startsWith(LOGGED_USER_PREFIX)) {
+                    binders.add(new Binder(paramName, paramName.substring(LOGGED_USER_PREFIX.length()), true));
+                } else {
+                    binders.add(new Binder(paramName, ctxKey, false));
+                }
+            }
+        }
+
+        String predicate = String.join(" AND ", predicates);
+        String from = " FROM " + entityName + " " + ROOT_ALIAS + (predicate.isEmpty() ? "" : " WHERE " + predicate);
+        return new XQueryTemplate(predicate, "SELECT " + ROOT_ALIAS + from, "SELECT COUNT(" + ROOT_ALIAS + ")" + from,
+                Collections.unmodifiableList(binders));
+    }
+
+    /**
+     * Cache key of a combination of queries, independent of their order.
+     */
+    public static String key(Collection<XQuery> queries) {
+        return sorted(queries).stream().map(XQuery::name).collect(Collectors.joining(","));
+    }
+
+    /**
+     * @return the combined predicate, empty when nothing is filtered
+     */
+    public String getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return {@code " WHERE <predicate>"}, or an empty string when nothing is
+     *         filtered
+     */
+    public String getWhereClause() {
+        return predicate.isEmpty() ? "" : " WHERE " + predicate;
+    }
+
+    /**
+     * @return whether the template selects the whole table
+     */
+    public boolean isUnfiltered() {
+        return predicate.isEmpty();
+    }
+
+    /**
+     * @return {@code SELECT e FROM <entity> e [WHERE ...]}
+     */
+    public String getDataJpql() {
+        return dataJpql;
+    }
+
+    /**
+     * @return {@code SELECT COUNT(e) FROM <entity> e [WHERE ...]}
+     */
+    public String getCountJpql() {
+        return countJpql;
+    }
+
+    /**
+     * Resolves the values of all parameters of the template.
+     *
+     * @param context the resolved query context
+     * @return parameter values by name
+     * @throws XResourceException if a value is missing from the context
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> bind(Map<String, Object> context) {
+        if (binders.isEmpty())
+            return Collections.emptyMap();
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        for (Binder binder : binders) {
+            Object value;
+            if (binder.loggedUser()) {
+                Map<String, Object> userContext = (Map<String, Object>) context.get("user");
+                value = userContext != null ? userContext.get(binder.contextKey()) : null;
+            } else {
+                value = context.get(binder.contextKey());
+            }
+            if (value == null) {
+                throw new XResourceException("Missing context value for: " + binder.contextKey());
+            }
+            params.put(binder.paramName(), value);
+        }
+        return params;
+    }
+
+    private static List<XQuery> sorted(Collection<XQuery> queries) {
+        List<XQuery> sorted = new ArrayList<>(queries);
+        sorted.sort(Comparator.comparing(XQuery::name));
+        return sorted;
+    }
+}
@@ -4,6 +4,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.xresource.internal.models.XResourceMetadata;
+import org.xresource.internal.util.XEntityAccessor;
 
 public class XResourceMetadataRegistry {
     private final Map<String, XResourceMetadata> registry = new ConcurrentHashMap<>();
@@ -17,14 +18,26 @@ public class XResourceMetadataRegistry {
     // like session etc
     private final Map<String, XResourceMetadata> cronResourceregistry = new ConcurrentHashMap<>();
 
+    // Exposed resources by entity class, for callers that only know the class
+    private final Map<Class<?>, XResourceMetadata> byEntityClass = new ConcurrentHashMap<>();
+
     public void register(String tableName, XResourceMetadata metadata) {
         registry.put(tableName, metadata);
+        if (metadata.getEntityClass() != null) {
+            byEntityClass.put(metadata.getEntityClass(), metadata);
+            // Build the field accessors at startup rather than on the first request
+            XEntityAccessor.forClass(metadata.getEntityClass());
+        }
     }
 
     public XResourceMetadata get(String tableName) {
         return registry.get(tableName);
     }
 
+    public XResourceMetadata getByEntityClass(Class<?> entityClass) {
+        return byEntityClass.get(entityClass);
+    }
+
     public boolean contains(String tableName) {
         return registry.containsKey(tableName);
     }
@@ -1,6 +1,6 @@
 package org.xresource.internal.scanner;
 
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.xresource.internal.context.XSecuritySnapshot;
 import org.xresource.core.annotations.*;
 import org.xresource.internal.intent.core.parser.model.IntentMeta;
 import org.xresource.core.logging.XLogger;
@@ -59,8 +59,10 @@ public class XMetadataScanner {
         metadata.setResourceName(tableName);
 
         this.scanAndRegisterXQueries(repository, entityClass, metadata);
+        this.compileXQueryTemplates(metadata);
         this.scanAndRegisterXActions(repository, entityClass, metadata);
         this.scanAndRegisterXJSONFormValidators(repository, entityClass, metadata);
+        this.scanPageCount(repository, entityClass, metadata);
 
         Map<String, JsonNode> externalFieldSchema = new HashMap<>();
         String rawSchema = null;
@@ -334,6 +336,63 @@ public class XMetadataScanner {
         }
     }
 
+    /**
+     * Compiles the template of every registered XQuery, and of the auto-apply
+     * query combinations of the wildcard role and of each role named in
+     * {@code appliesToRoles}. Combinations of several roles are compiled on
+     * first use.
+     *
+     * @param meta the XResourceMetadata holding the queries and templates
+     */
+    private void compileXQueryTemplates(XResourceMetadata meta) {
+        List<XQuery> autoApply = new ArrayList<>();
+        Set<String> roles = new TreeSet<>();
+        for (XQuery q : meta.getXQueriesMap().values()) {
+            meta.getXQueryTemplate(List.of(q));
+            if (q.autoApply()) {
+                autoApply.add(q);
+                roles.addAll(Arrays.asList(q.appliesToRoles()));
+            }
+        }
+        roles.remove("*");
+
+        if (!autoApply.isEmpty()) {
+            meta.getXQueryTemplate(autoApplyQueriesOf(autoApply, null));
+            for (String role : roles) {
+                meta.getXQueryTemplate(autoApplyQueriesOf(autoApply, role));
+            }
+        }
+        log.debug("Compiled %s XQuery templates for resource '%s'.", meta.getXQueryTemplates().size(),
+                meta.getResourceName());
+    }
+
+    private List<XQuery> autoApplyQueriesOf(List<XQuery> autoApply, String role) {
+        return autoApply.stream()
+                .filter(q -> Arrays.asList(q.appliesToRoles()).contains("*")
+                        || (role != null && Arrays.asList(q.appliesToRoles()).contains(role)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the {@link XPageCount} configuration of the resource, the repository
+     * annotation taking precedence over the entity one.
+     *
+     * @param repoClass   the repository class
+     * @param entityClass the entity class
+     * @param meta        the XResourceMetadata to configure
+     */
+    private void scanPageCount(Class<?> repoClass, Class<?> entityClass, XResourceMetadata meta) {
+        XPageCount pageCount = repoClass.isAnnotationPresent(XPageCount.class)
+                ? repoClass.getAnnotation(XPageCount.class)
+                : entityClass.getAnnotation(XPageCount.class);
+        if (pageCount != null) {
+            log.debug("Resource '%s' uses count strategy %s", meta.getResourceName(), pageCount.strategy());
+            meta.setCountStrategy(pageCount.strategy());
+            meta.setCountCacheTtlSeconds(pageCount.ttlSeconds());
+            meta.setParallelCount(pageCount.parallel());
+        }
+    }
+
     /**
      * Scans the repository and entity classes for XAction annotations and registers
      * them.
@@ -686,10 +745,7 @@ public class XMetadataScanner {
      */
     private List<String> getCurrentUserRoles() {
         log.enter("getCurrentUserRoles");
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities()
-                .stream()
-                .map(auth -> auth.getAuthority())
-                .collect(Collectors.toList());
+        List<String> roles = XSecuritySnapshot.current().getRoles();
         log.debug("Retrieved roles: %s", roles);
         log.exit("getCurrentUserRoles -> %s", roles);
         return roles;
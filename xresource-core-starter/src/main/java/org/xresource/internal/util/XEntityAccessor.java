@@ -0,0 +1,211 @@
+package org.xresource.internal.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.xresource.internal.exception.XResourceException;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Id;
+
+/**
+ * Field accessors of one entity (or embeddable key) class, built once from
+ * method handles and shared by every caller that used to reflect over the
+ * entity per row or per request: identifier extraction on create, permalink
+ * and URN generation, and patching on update.
+ *
+ * <p>
+ * Only the fields declared by the class itself are covered, as was the case
+ * for the reflective code it replaces. Hibernate proxies are read through
+ * their lazy initializer: the identifier without initializing the proxy,
+ * other fields after initializing it.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public final class XEntityAccessor {
+
+    private static final ClassValue<XEntityAccessor> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected XEntityAccessor computeValue(Class<?> type) {
+            return new XEntityAccessor(type);
+        }
+    };
+
+    /**
+     * Accessors of a single declared instance field.
+     */
+    private record FieldAccessor(String name, MethodHandle getter, MethodHandle setter, boolean key) {
+    }
+
+    private final Class<?> type;
+    private final FieldAccessor[] fields;
+    private final Map<String, FieldAccessor> fieldsByName;
+    private final FieldAccessor id;
+    private final boolean embeddedId;
+
+    private XEntityAccessor(Class<?> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<FieldAccessor> accessors = new ArrayList<>();
+        FieldAccessor idField = null;
+        FieldAccessor embeddedIdField = null;
+
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic())
+                continue;
+            boolean isId = field.isAnnotationPresent(Id.class);
+            boolean isEmbeddedId = field.isAnnotationPresent(EmbeddedId.class);
+            FieldAccessor accessor;
+            try {
+                field.setAccessible(true);
+                accessor = new FieldAccessor(field.getName(), lookup.unreflectGetter(field), setter(lookup, field),
+                        isId || isEmbeddedId);
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new XResourceException("Cannot access field " + field.getName() + " of " + type.getName(), e);
+            }
+            accessors.add(accessor);
+            if (isId && idField == null)
+                idField = accessor;
+            if (isEmbeddedId && embeddedIdField == null)
+                embeddedIdField = accessor;
+        }
+
+        this.fields = accessors.toArray(new FieldAccessor[0]);
+        this.fieldsByName = new HashMap<>();
+        for (FieldAccessor accessor : fields) {
+            fieldsByName.put(accessor.name(), accessor);
+        }
+        this.id = idField != null ? idField : embeddedIdField;
+        this.embeddedId = idField == null && embeddedIdField != null;
+    }
+
+    /**
+     * @return the accessor of {@code type}, built on first use
+     */
+    public static XEntityAccessor forClass(Class<?> type) {
+        return ACCESSORS.get(type);
+    }
+
+    /**
+     * @return the accessor of the entity's class, or of the proxied class for a
+     *         Hibernate proxy
+     */
+    public static XEntityAccessor forEntity(Object entity) {
+        if (entity instanceof HibernateProxy proxy)
+            return forClass(proxy.getHibernateLazyInitializer().getPersistentClass());
+        return forClass(entity.getClass());
+    }
+
+    /**
+     * @return whether the identifier is an {@code @EmbeddedId} rather than an
+     *         {@code @Id} field
+     */
+    public boolean hasEmbeddedId() {
+        return embeddedId;
+    }
+
+    /**
+     * Reads the {@code @Id} field or, if there is none, the {@code @EmbeddedId}
+     * field of an entity.
+     *
+     * @return the identifier, {@code null} when unset or when the class declares
+     *         no identifier
+     */
+    public Object getId(Object entity) {
+        if (entity instanceof HibernateProxy proxy)
+            return proxy.getHibernateLazyInitializer().getIdentifier();
+        return id != null ? read(id, entity) : null;
+    }
+
+    /**
+     * Reads a declared field.
+     *
+     * @throws XResourceException if the class declares no such field
+     */
+    public Object get(Object entity, String fieldName) {
+        FieldAccessor accessor = fieldsByName.get(fieldName);
+        if (accessor == null)
+            throw new XResourceException("Failed to access field '" + fieldName + "' of " + type.getName());
+        if (entity instanceof HibernateProxy proxy) {
+            if (accessor == id)
+                return proxy.getHibernateLazyInitializer().getIdentifier();
+            entity = proxy.getHibernateLazyInitializer().getImplementation();
+        }
+        return read(accessor, entity);
+    }
+
+    /**
+     * Reads the given fields of the embedded key of an entity, as strings.
+     *
+     * @param entity           the entity
+     * @param embeddedKeyField name of the {@code @EmbeddedId} field
+     * @param keyFields        names of the key fields on the embeddable
+     * @return key field values by name, in the order of {@code keyFields}
+     * @throws IllegalStateException if the embedded key is {@code null}
+     */
+    public Map<String, Object> getKeyValues(Object entity, String embeddedKeyField, String[] keyFields) {
+        Object key = get(entity, embeddedKeyField);
+        if (key == null)
+            throw new IllegalStateException("Embedded key object is null");
+        XEntityAccessor keyAccessor = forClass(key.getClass());
+        Map<String, Object> keyMap = new LinkedHashMap<>();
+        for (String field : keyFields) {
+            keyMap.put(field, keyAccessor.get(key, field).toString());
+        }
+        return keyMap;
+    }
+
+    /**
+     * Copies every non-null field of {@code source} onto {@code target}.
+     *
+     * @throws XResourceException if {@code source} carries a value for an
+     *                            identifier field, or a field cannot be written
+     */
+    public void patchNonNull(Object target, Object source) {
+        if (target instanceof HibernateProxy proxy)
+            target = proxy.getHibernateLazyInitializer().getImplementation();
+        for (FieldAccessor accessor : fields) {
+            Object value = read(accessor, source);
+            if (value == null)
+                continue;
+            if (accessor.key()) {
+                // Commented for future enhancement:
+                // if (!metadata.isPrimaryKeyUpdatable(field)) continue;
+                throw new XResourceException("Can not update primary keys");
+            }
+            if (accessor.setter() == null)
+                throw new XResourceException("Failed to patch field: " + accessor.name() + ", field is final");
+            try {
+                accessor.setter().invoke(target, value);
+            } catch (Throwable e) {
+                throw new XResourceException("Failed to patch field: " + accessor.name() + "," + e.getMessage());
+            }
+        }
+    }
+
+    private static Object read(FieldAccessor accessor, Object entity) {
+        try {
+            return accessor.getter().invoke(entity);
+        } catch (Throwable e) {
+            throw new XResourceException("Failed to access field '" + accessor.name() + "'", e);
+        }
+    }
+
+    private static MethodHandle setter(MethodHandles.Lookup lookup, Field field) {
+        try {
+            return lookup.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.xresource.internal.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Size bounded cache with approximately least-recently-used eviction, for
+ * caches on the request path whose keys are (partly) chosen by clients.
+ *
+ * <p>
+ * Lookups are a {@link ConcurrentHashMap} read plus a volatile write of the
+ * entry's access stamp; no lock is taken. Once the cache grows past
+ * {@code maxEntries}, the inserting thread evicts the least recently stamped
+ * tenth of the entries, so eviction cost is amortized over many inserts.
+ * {@code null} values are cached like any other value.
+ * </p>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public final class XLruCache<K, V> {
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private static final class Entry<V> {
+        final V value;
+        volatile long lastAccess;
+
+        Entry(V value, long lastAccess) {
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private record Candidate<K, V>(K key, Entry<V> entry, long lastAccess) {
+    }
+
+    /**
+     * @param maxEntries number of entries the cache holds at most
+     */
+    public XLruCache(int maxEntries) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached value of {@code key}, computing and caching it first
+     * when absent. A failing {@code loader} caches nothing.
+     *
+     * @param key    the key
+     * @param loader computes the value of an absent key, may return
+     *               {@code null}
+     * @return the cached value, possibly {@code null}
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            // Reads only stamp with the current time; ties are broken arbitrarily
+            entry.lastAccess = clock.get();
+            return entry.value;
+        }
+        entry = entries.computeIfAbsent(key, k -> new Entry<>(loader.apply(k), clock.incrementAndGet()));
+        if (entries.size() > maxEntries)
+            evict();
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached value of {@code key} without loading it.
+     *
+     * @param key the key
+     * @return the cached value, {@code null} when absent (or cached as
+     *         {@code null})
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null)
+            return null;
+        entry.lastAccess = clock.get();
+        return entry.value;
+    }
+
+    /**
+     * Caches {@code value} under {@code key}, replacing any previous value.
+     * Unlike {@link #computeIfAbsent}, the value is computed by the caller
+     * without holding a lock on the key.
+     *
+     * @param key   the key
+     * @param value the value, may be {@code null}
+     */
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, clock.incrementAndGet()));
+        if (entries.size() > maxEntries)
+            evict();
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock())
+            return;
+        try {
+            int excess = entries.size() - maxEntries;
+            if (excess <= 0)
+                return;
+            // Stamps keep changing while sorting, so sort a snapshot of them
+            List<Candidate<K, V>> candidates = new ArrayList<>(entries.size());
+            for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+                candidates.add(new Candidate<>(e.getKey(), e.getValue(), e.getValue().lastAccess));
+            }
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+            int toRemove = Math.min(candidates.size(), excess + maxEntries / 10);
+            for (int i = 0; i < toRemove; i++) {
+                Candidate<K, V> candidate = candidates.get(i);
+                entries.remove(candidate.key(), candidate.entry());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package org.xresource.internal.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.xresource.internal.exception.XResourceException;
+
+/**
+ * Opaque cursor used by keyset (seek) pagination. A cursor carries the sort
+ * key values of the last row of a page (sort columns followed by the primary
+ * key) and is encoded the same way as {@link XURNEncoder} keys: a
+ * {@code k=v&...} string rendered as Base62.
+ *
+ * <pre>
+ *     s={signature}&amp;k0={type}:{value}&amp;k1={type}:{value}...
+ * </pre>
+ *
+ * <p>
+ * Values are tagged with a short type code so that they can be bound back to
+ * JPQL parameters with their original Java type. Only the well known value
+ * types listed below, enums and {@code null} are supported. Enum constants are
+ * resolved against the declared type of their sort key, never against a type
+ * named by the cursor; the signature ties a cursor to the sort specification it
+ * was produced for.
+ * </p>
+ */
+public final class XPageCursor {
+
+    private static final String SIGNATURE_KEY = "s";
+    private static final String VALUE_KEY_PREFIX = "k";
+    private static final String NULL_CODE = "0";
+    private static final String ENUM_CODE = "E";
+
+    private XPageCursor() {
+    }
+
+    /**
+     * Encodes the key values of the last row of a page.
+     *
+     * @param signature identifies the ordering the values belong to
+     * @param values    sort key values followed by the primary key value(s), sort
+     *                  key values may be {@code null}
+     * @return opaque, URL safe cursor
+     */
+    public static String encode(String signature, List<Object> values) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(SIGNATURE_KEY).append('=').append(urlEncode(signature));
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value == null) {
+                sb.append('&').append(VALUE_KEY_PREFIX).append(i).append('=').append(NULL_CODE).append(':');
+                continue;
+            }
+            sb.append('&').append(VALUE_KEY_PREFIX).append(i).append('=')
+                    .append(typeCode(value)).append(':').append(urlEncode(format(value)));
+        }
+        return XURNEncoder.encodeBase62(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(String, List)}.
+     *
+     * @param cursor    the cursor received from the client; blank means "first
+     *                  page"
+     * @param signature the ordering the caller is about to use
+     * @param keyTypes  declared type of each key, used to resolve enum
+     *                  constants; an entry may be {@code null} when unknown
+     * @return the typed key values, empty for a blank cursor
+     * @throws XResourceException if the cursor is malformed or was produced for
+     *                            a different ordering
+     */
+    public static List<Object> decode(String cursor, String signature, List<Class<?>> keyTypes) {
+        if (cursor == null || cursor.isBlank()) {
+            return Collections.emptyList();
+        }
+        String decoded;
+        try {
+            decoded = new String(XURNEncoder.decodeBase62(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new XResourceException("Invalid page cursor", e);
+        }
+
+        String cursorSignature = null;
+        List<Object> values = new ArrayList<>();
+        for (String part : decoded.split("&")) {
+            String[] pair = part.split("=", 2);
+            if (pair.length != 2) {
+                throw new XResourceException("Invalid page cursor");
+            }
+            if (SIGNATURE_KEY.equals(pair[0])) {
+                cursorSignature = urlDecode(pair[1]);
+            } else if (pair[0].equals(VALUE_KEY_PREFIX + values.size())) {
+                String[] typed = pair[1].split(":", 2);
+                if (typed.length != 2) {
+                    throw new XResourceException("Invalid page cursor");
+                }
+                Class<?> keyType = values.size() < keyTypes.size() ? keyTypes.get(values.size()) : null;
+                values.add(parse(typed[0], urlDecode(typed[1]), keyType));
+            } else {
+                throw new XResourceException("Invalid page cursor");
+            }
+        }
+
+        if (!signature.equals(cursorSignature)) {
+            throw new XResourceException("Page cursor does not match the requested sort order");
+        }
+        return values;
+    }
+
+    private static String typeCode(Object value) {
+        if (value instanceof String)
+            return "S";
+        if (value instanceof Integer)
+            return "I";
+        if (value instanceof Long)
+            return "J";
+        if (value instanceof Short)
+            return "H";
+        if (value instanceof Double)
+            return "D";
+        if (value instanceof Float)
+            return "F";
+        if (value instanceof BigDecimal)
+            return "N";
+        if (value instanceof BigInteger)
+            return "B";
+        if (value instanceof Boolean)
+            return "Z";
+        if (value instanceof Character)
+            return "C";
+        if (value instanceof UUID)
+            return "U";
+        if (value instanceof LocalDate)
+            return "LD";
+        if (value instanceof LocalDateTime)
+            return "LDT";
+        if (value instanceof LocalTime)
+            return "LT";
+        if (value instanceof OffsetDateTime)
+            return "ODT";
+        if (value instanceof ZonedDateTime)
+            return "ZDT";
+        if (value instanceof Instant)
+            return "INS";
+        if (value instanceof Timestamp)
+            return "TS";
+        if (value instanceof java.sql.Date)
+            return "SD";
+        if (value instanceof Date)
+            return "DT";
+        if (value instanceof Enum<?>)
+            return ENUM_CODE;
+        throw new XResourceException(
+                "Keyset pagination does not support sort values of type " + value.getClass().getName());
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Timestamp ts)
+            return ts.toInstant().toString();
+        if (value instanceof java.sql.Date sd)
+            return sd.toLocalDate().toString();
+        if (value instanceof Date date)
+            return date.toInstant().toString();
+        if (value instanceof Enum<?> e)
+            return e.name();
+        return value.toString();
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object parse(String code, String raw, Class<?> keyType) {
+        try {
+            switch (code) {
+                case NULL_CODE:
+                    return null;
+                case "S":
+                    return raw;
+                case "I":
+                    return Integer.valueOf(raw);
+                case "J":
+                    return Long.valueOf(raw);
+                case "H":
+                    return Short.valueOf(raw);
+                case "D":
+                    return Double.valueOf(raw);
+                case "F":
+                    return Float.valueOf(raw);
+                case "N":
+                    return new BigDecimal(raw);
+                case "B":
+                    return new BigInteger(raw);
+                case "Z":
+                    return Boolean.valueOf(raw);
+                case "C":
+                    return raw.charAt(0);
+                case "U":
+                    return UUID.fromString(raw);
+                case "LD":
+                    return LocalDate.parse(raw);
+                case "LDT":
+                    return LocalDateTime.parse(raw);
+                case "LT":
+                    return LocalTime.parse(raw);
+                case "ODT":
+                    return OffsetDateTime.parse(raw);
+                case "ZDT":
+                    return ZonedDateTime.parse(raw);
+                case "INS":
+                    return Instant.parse(raw);
+                case "TS":
+                    return Timestamp.from(Instant.parse(raw));
+                case "SD":
+                    return java.sql.Date.valueOf(LocalDate.parse(raw));
+                case "DT":
+                    return Date.from(Instant.parse(raw));
+                case ENUM_CODE:
+                    if (keyType != null && keyType.isEnum()) {
+                        return Enum.valueOf((Class<? extends Enum>) keyType, raw);
+                    }
+                    throw new XResourceException("Invalid page cursor");
+                default:
+                    throw new XResourceException("Invalid page cursor");
+            }
+        } catch (XResourceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new XResourceException("Invalid page cursor", e);
+        }
+    }
+
+    private static String urlEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String urlDecode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -4,26 +4,52 @@ import java.util.*;
 
 import org.xresource.internal.models.XFieldMetadata;
 import org.xresource.internal.models.XRelationshipMetadata;
+import org.xresource.internal.models.XResourceGraph;
 import org.xresource.internal.models.XResourceMetadata;
 import org.xresource.internal.registry.XResourceMetadataRegistry;
 
+/**
+ * Builds and publishes the {@link XResourceGraph} of the registered resources.
+ * The graph is built once and published through a volatile field, so readers
+ * never lock; {@link #reset()} drops it and the next reader builds a new
+ * version.
+ */
 public class XResourceGraphBuilder {
 
-    private static Map<String, Map<String, XRelationshipMetadata>> cachedGraph;
+    private static volatile XResourceGraph cachedGraph;
+
+    // Incremented on every reset, lets callers detect a rebuilt graph
+    private static volatile long version;
 
     private XResourceGraphBuilder() {
     }
 
-    public static synchronized Map<String, Map<String, XRelationshipMetadata>> getGraph(
-            XResourceMetadataRegistry registry) {
-        if (cachedGraph == null) {
-            cachedGraph = buildGraph(registry);
+    /**
+     * @return the relationship graph, built on first use
+     */
+    public static XResourceGraph getResourceGraph(XResourceMetadataRegistry registry) {
+        XResourceGraph graph = cachedGraph;
+        if (graph != null)
+            return graph;
+        synchronized (XResourceGraphBuilder.class) {
+            if (cachedGraph == null) {
+                cachedGraph = buildGraph(registry, version);
+            }
+            return cachedGraph;
         }
-        return cachedGraph;
     }
 
-    private static Map<String, Map<String, XRelationshipMetadata>> buildGraph(XResourceMetadataRegistry registry) {
-        Map<String, Map<String, XRelationshipMetadata>> graph = new HashMap<>();
+    /**
+     * @return the outgoing foreign keys as {@code source -> target ->
+     *         relationship}; only the first foreign key between two resources
+     *         is included, see {@link XResourceGraph#getRelationships} for all
+     */
+    public static Map<String, Map<String, XRelationshipMetadata>> getGraph(XResourceMetadataRegistry registry) {
+        return getResourceGraph(registry).asRelationshipMap();
+    }
+
+    private static XResourceGraph buildGraph(XResourceMetadataRegistry registry, long version) {
+        List<XRelationshipMetadata> relationships = new ArrayList<>();
 
         for (Map.Entry<String, XResourceMetadata> entry : registry.getRegistry().entrySet()) {
             String sourceResource = entry.getKey();
@@ -45,16 +71,20 @@ public class XResourceGraphBuilder {
                             fieldMeta.isCompositeForeignKey(),
                             fieldMeta.getCompositeForeignKeyMap());
 
-                    graph.computeIfAbsent(sourceResource, k -> new HashMap<String, XRelationshipMetadata>())
-                            .put(targetResource, relationship);
+                    relationships.add(relationship);
                 }
             }
         }
 
-        return graph;
+        return new XResourceGraph(version, relationships);
+    }
+
+    public static long getVersion() {
+        return version;
     }
 
     public static synchronized void reset() {
         cachedGraph = null;
+        version++;
     }
 }
@@ -1,22 +1,19 @@
 package org.xresource.internal.util;
 
-import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.xresource.core.logging.XLogger;
-import org.xresource.core.util.XUtils;
 import org.xresource.internal.models.XResourceMetadata;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import static org.xresource.internal.config.XResourceConfigProperties.API_BASE_PATH;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,18 +22,40 @@ public class XResourceLinkResolver {
     @Value(API_BASE_PATH)
     private String baseAPIURL;
 
+    /**
+     * Base URLs come from the request host, so the number of distinct ones is
+     * not under our control; the least recently used templates are evicted
+     * past this.
+     */
+    private static final int MAX_TEMPLATES = 1024;
+
+    private final XLruCache<TemplateKey, XResourceLinkTemplate> templates = new XLruCache<>(MAX_TEMPLATES);
+
+    private record TemplateKey(XResourceMetadata metadata, String baseUrl) {
+    }
+
     private static final XLogger log = XLogger.forClass(XResourceLinkResolver.class);
 
-    public String buildResourceLink(Object entity, XResourceMetadata metadata, String baseUrl, String fieldName) {
-        String urn = XURNEncoder.getURN(entity, metadata.getResourceName(), metadata);
-        String resourceURI = baseUrl + baseAPIURL + "/" + metadata.getResourceName() + "/" + urn + "/" + fieldName;
+    /**
+     * Returns the precomputed link template of a resource under the given base
+     * URL.
+     *
+     * @param metadata the resource
+     * @param baseUrl  base URL of the request
+     * @return the template, built on first use
+     */
+    public XResourceLinkTemplate getTemplate(XResourceMetadata metadata, String baseUrl) {
+        return templates.computeIfAbsent(new TemplateKey(metadata, baseUrl),
+                k -> new XResourceLinkTemplate(metadata, baseUrl, baseAPIURL));
+    }
 
-        return resourceURI;
+    public String buildResourceLink(Object entity, XResourceMetadata metadata, String baseUrl, String fieldName) {
+        return getTemplate(metadata, baseUrl).forEntity(entity).getFieldLink(fieldName);
     }
 
     public String buildResourceLink(Object entity, String baseUrl) {
         try {
-            Object idValue = extractEntityId(entity.getClass(), entity);
+            Object idValue = extractEntityId(entity);
             if (idValue == null)
                 return null;
 
@@ -63,18 +82,9 @@ public class XResourceLinkResolver {
         }
     }
 
-    private Object extractEntityId(Class<?> entityClass, Object instance) {
-        for (Field field : entityClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Id.class)) {
-                field.setAccessible(true);
-                try {
-                    return field.get(instance);
-                } catch (IllegalAccessException e) {
-                    return null;
-                }
-            }
-        }
-        return null;
+    private Object extractEntityId(Object instance) {
+        XEntityAccessor accessor = XEntityAccessor.forEntity(instance);
+        return accessor.hasEmbeddedId() ? null : accessor.getId(instance);
     }
 
     /**
@@ -91,35 +101,16 @@ public class XResourceLinkResolver {
             String baseUrl) {
         log.enter("injectPermalink(entity=%s, resourceName=%s, baseUrl=%s)", entity, resourceName, baseUrl);
         try {
-            Map<String, Object> keyMap = new LinkedHashMap<>();
-            String primaryKeys = metadata.getPrimaryKey();
-            String[] compositeKeys;
             String urn;
-
-            if (metadata.hasCompositeKey()) {
-                log.debug("Handling composite key for resource: %s", resourceName);
-                Method getter = entity.getClass()
-                        .getMethod("get" + XUtils.capitalize(metadata.getEmbeddedKeyFieldName()));
-                Object embeddedKeyObj = getter.invoke(entity);
-
-                if (embeddedKeyObj == null) {
-                    throw new IllegalStateException("Embedded key object is null");
-                }
-
-                compositeKeys = primaryKeys.split(",");
-                for (String field : compositeKeys) {
-                    Method emIdFieldGetter = embeddedKeyObj.getClass().getMethod("get" + XUtils.capitalize(field));
-                    Object embeddedKeyFieldObj = emIdFieldGetter.invoke(embeddedKeyObj);
-                    keyMap.put(field, embeddedKeyFieldObj.toString());
-                }
-                urn = XURNEncoder.encode(resourceName, keyMap);
+            String permalink;
+            if (resourceName.equals(metadata.getResourceName())) {
+                XResourceLinkTemplate.Links links = getTemplate(metadata, baseUrl).forEntity(entity);
+                urn = resolveURN(links);
+                permalink = links.getPermalink();
             } else {
-                log.debug("Handling simple key for resource: %s", resourceName);
-                Object idValue = XURNEncoder.getFieldValue(entity, primaryKeys);
-                urn = XURNEncoder.encode(resourceName, idValue);
+                urn = resolveURN(entity, resourceName, metadata);
+                permalink = baseUrl + baseAPIURL + "/" + resourceName + "/" + urn;
             }
-
-            String permalink = baseUrl + baseAPIURL + "/" + resourceName + "/" + urn;
             log.debug("Generated permalink: %s", permalink);
 
             node.put("permalink", permalink);
@@ -132,6 +123,70 @@ public class XResourceLinkResolver {
         log.exit("injectPermalink completed for resource: %s", resourceName);
     }
 
+    /**
+     * Streaming counterpart of
+     * {@link #injectPermalink(ObjectNode, Object, String, XResourceMetadata, String)}:
+     * writes the {@code permalink} and {@code urn} fields into the object
+     * currently open on the generator. Nothing is written when the URN cannot
+     * be computed.
+     *
+     * @param generator    The generator positioned inside a JSON object.
+     * @param entity       The entity from which to extract ID fields.
+     * @param resourceName The name of the resource (usually the entity/table name).
+     * @param metadata     Metadata describing the entity and its primary key(s).
+     * @param baseUrl      The base URL to use for generating the permalink.
+     * @throws IOException if writing to the generator fails
+     */
+    public void writePermalink(JsonGenerator generator, Object entity, String resourceName,
+            XResourceMetadata metadata, String baseUrl) throws IOException {
+        if (resourceName.equals(metadata.getResourceName())) {
+            writePermalink(generator, getTemplate(metadata, baseUrl).forEntity(entity));
+            return;
+        }
+        String urn;
+        try {
+            urn = resolveURN(entity, resourceName, metadata);
+        } catch (Exception ex) {
+            log.error("Failed to generate permalink for %s: %s", resourceName, ex.getMessage(), ex);
+            return;
+        }
+        generator.writeStringField("permalink", baseUrl + baseAPIURL + "/" + resourceName + "/" + urn);
+        generator.writeStringField("urn", urn);
+    }
+
+    /**
+     * Writes the {@code permalink} and {@code urn} fields of an entity from its
+     * link template; nothing is written when the URN cannot be computed.
+     *
+     * @param generator The generator positioned inside a JSON object.
+     * @param links     The links of the entity.
+     * @throws IOException if writing to the generator fails
+     */
+    public void writePermalink(JsonGenerator generator, XResourceLinkTemplate.Links links) throws IOException {
+        String urn;
+        try {
+            urn = resolveURN(links);
+        } catch (Exception ex) {
+            log.error("Failed to generate permalink for %s: %s", links.getResourceName(), ex.getMessage(), ex);
+            return;
+        }
+        generator.writeStringField("permalink", links.getPermalink());
+        generator.writeStringField("urn", urn);
+    }
+
+    private String resolveURN(Object entity, String resourceName, XResourceMetadata metadata) {
+        log.debug("Resolving %s key for resource: %s", metadata.hasCompositeKey() ? "composite" : "simple",
+                resourceName);
+        return XURNEncoder.toURN(entity, resourceName, metadata);
+    }
+
+    private String resolveURN(XResourceLinkTemplate.Links links) {
+        String urn = links.getURN();
+        if (urn == null)
+            throw new IllegalStateException("URN could not be computed for resource " + links.getResourceName());
+        return urn;
+    }
+
     /**
      * Injects a permalink and URN into the given JSON node for the specified
      * entity.
@@ -146,29 +201,7 @@ public class XResourceLinkResolver {
             String baseUrl, ObjectMapper objectMapper) {
         log.enter("injectPermalink(entity=%s, resourceName=%s, baseUrl=%s)", entity, resourceName, baseUrl);
         try {
-            String urn = XURNEncoder.getURN(entity, metadata.getResourceName(), metadata);
-
-            List<Map<String, Map<String, Object>>> actions = new ArrayList<Map<String, Map<String, Object>>>();
-
-            metadata.getXActionsMap().values().stream().forEach((action) -> {
-                actions.add(Map.of(action.name(),
-                        Map.of("_href",
-                                baseUrl + baseAPIURL + "/" + resourceName + "/" + urn + "/" + "actions" + "/"
-                                        + action.name(),
-                                "_meta", Map.of(
-                                        "type", action.type()))));
-            });
-
-            metadata.getAllXFieldActions().values().stream().forEach((actionMap) -> {
-                actionMap.forEach((name, action) -> {
-                    actions.add(Map.of(action.name(),
-                            Map.of("_href",
-                                    baseUrl + baseAPIURL + "/" + resourceName + "/" + urn + "/" + "actions" + "/"
-                                            + action.name(),
-                                    "_meta", Map.of(
-                                            "type", "POST"))));
-                });
-            });
+            List<Map<String, Map<String, Object>>> actions = buildXActions(entity, resourceName, metadata, baseUrl);
             if (!actions.isEmpty())
                 node.put("_actions", objectMapper.valueToTree(actions));
         } catch (Exception ex) {
@@ -179,4 +212,19 @@ public class XResourceLinkResolver {
         log.exit("injectPermalink completed for resource: %s", resourceName);
     }
 
+    /**
+     * Builds the {@code _actions} links (resource and field actions) of the
+     * given entity.
+     *
+     * @param entity       The entity the actions apply to.
+     * @param resourceName The name of the resource.
+     * @param metadata     Metadata describing the entity and its actions.
+     * @param baseUrl      The base URL to use for generating the links.
+     * @return the action descriptors, empty when the resource declares none
+     */
+    public List<Map<String, Map<String, Object>>> buildXActions(Object entity, String resourceName,
+            XResourceMetadata metadata, String baseUrl) {
+        return getTemplate(metadata, baseUrl).forEntity(entity).getActions();
+    }
+
 }
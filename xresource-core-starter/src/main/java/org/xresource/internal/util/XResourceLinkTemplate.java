@@ -0,0 +1,165 @@
+package org.xresource.internal.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xresource.core.annotations.XAction;
+import org.xresource.core.annotations.XFieldAction;
+import org.xresource.internal.models.XResourceMetadata;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Links of one resource under one base URL, precomputed so that rendering an
+ * entity only has to splice its URN into fixed prefixes and suffixes.
+ *
+ * <p>
+ * Templates are obtained from
+ * {@link XResourceLinkResolver#getTemplate(XResourceMetadata, String)}. Per
+ * entity, a {@link Links} instance computes the URN once and shares it between
+ * the permalink, the {@code _resource} links of foreign keys and the
+ * {@code _actions} block.
+ * </p>
+ *
+ * @author soumya
+ * @since xresource-core 0.2
+ */
+public final class XResourceLinkTemplate {
+
+    /**
+     * One entry of the {@code _actions} block:
+     * {@code {name: {_href: hrefPrefix + urn + hrefSuffix, _meta: {type}}}}.
+     */
+    private record ActionTemplate(String name, String hrefSuffix, String type) {
+    }
+
+    private final XResourceMetadata metadata;
+    private final String resourcePrefix;
+    private final ActionTemplate[] actions;
+
+    XResourceLinkTemplate(XResourceMetadata metadata, String baseUrl, String baseAPIURL) {
+        this.metadata = metadata;
+        this.resourcePrefix = baseUrl + baseAPIURL + "/" + metadata.getResourceName() + "/";
+
+        List<ActionTemplate> templates = new ArrayList<>();
+        for (XAction action : metadata.getXActionsMap().values()) {
+            templates.add(new ActionTemplate(action.name(), "/actions/" + action.name(), action.type().name()));
+        }
+        for (Map<String, XFieldAction> fieldActions : metadata.getAllXFieldActions().values()) {
+            for (XFieldAction action : fieldActions.values()) {
+                templates.add(new ActionTemplate(action.name(), "/actions/" + action.name(), "POST"));
+            }
+        }
+        this.actions = templates.toArray(new ActionTemplate[0]);
+    }
+
+    /**
+     * @return the links of {@code entity}; its URN is computed on first use
+     */
+    public Links forEntity(Object entity) {
+        return new Links(entity);
+    }
+
+    /**
+     * @return whether the resource declares resource or field actions
+     */
+    public boolean hasActions() {
+        return actions.length > 0;
+    }
+
+    /**
+     * Links of a single entity.
+     */
+    public final class Links {
+
+        private final Object entity;
+        private String urn;
+        private boolean resolved;
+
+        private Links(Object entity) {
+            this.entity = entity;
+        }
+
+        /**
+         * @return the URN of the entity, {@code null} if it cannot be computed
+         */
+        public String getURN() {
+            if (!resolved) {
+                try {
+                    urn = XURNEncoder.toURN(entity, metadata.getResourceName(), metadata);
+                } catch (RuntimeException e) {
+                    urn = null;
+                }
+                resolved = true;
+            }
+            return urn;
+        }
+
+        /**
+         * @return name of the resource the entity belongs to
+         */
+        public String getResourceName() {
+            return metadata.getResourceName();
+        }
+
+        /**
+         * @return {@code {baseUrl}{api}/{resource}/{urn}}
+         */
+        public String getPermalink() {
+            String entityUrn = getURN();
+            return entityUrn != null ? resourcePrefix + entityUrn : null;
+        }
+
+        /**
+         * @return {@code {baseUrl}{api}/{resource}/{urn}/{fieldName}}
+         */
+        public String getFieldLink(String fieldName) {
+            return resourcePrefix + getURN() + "/" + fieldName;
+        }
+
+        /**
+         * Writes the {@code _actions} field, if the resource declares any
+         * action, into the object currently open on the generator.
+         *
+         * @throws IOException if writing to the generator fails
+         */
+        public void writeActions(JsonGenerator generator) throws IOException {
+            if (actions.length == 0)
+                return;
+            String hrefPrefix = resourcePrefix + getURN();
+            generator.writeArrayFieldStart("_actions");
+            for (ActionTemplate action : actions) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart(action.name());
+                generator.writeStringField("_href", hrefPrefix + action.hrefSuffix());
+                generator.writeObjectFieldStart("_meta");
+                generator.writeStringField("type", action.type());
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+
+        /**
+         * @return the {@code _actions} entries as maps, for callers building a
+         *         tree rather than writing to a generator
+         */
+        public List<Map<String, Map<String, Object>>> getActions() {
+            List<Map<String, Map<String, Object>>> result = new ArrayList<>(actions.length);
+            if (actions.length == 0)
+                return result;
+            String hrefPrefix = resourcePrefix + getURN();
+            for (ActionTemplate action : actions) {
+                Map<String, Object> link = new LinkedHashMap<>();
+                link.put("_href", hrefPrefix + action.hrefSuffix());
+                link.put("_meta", Map.of("type", action.type()));
+                result.add(Map.of(action.name(), link));
+            }
+            return result;
+        }
+    }
+}
@@ -1,32 +1,61 @@
 package org.xresource.internal.util;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.math.BigInteger;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.xresource.internal.models.XResourceMetadata;
 
 /**
- * Utility class for encoding and decoding URNs (Uniform Resource Names)
- * using a compact Base62 format. A URN identifies a resource by combining
- * the resource name and its key(s) into a unique string format:
+ * Utility class for encoding and decoding URNs (Uniform Resource Names). A URN
+ * identifies a resource by combining the resource name and its key(s) into a
+ * unique string format:
  *
  * <pre>
- *     uxr:{resource}:{base62EncodedKeyString}
+ *     uxr2:{resource}:{base64UrlEncodedKeyString}
  * </pre>
+ *
+ * <p>
+ * The key string is encoded with unpadded Base64url, which takes time linear in
+ * the key length. URNs of the original format,
+ * {@code uxr:{resource}:{base62EncodedKeyString}}, are still accepted by
+ * {@link #decode(String)}, so links handed out before the format change keep
+ * working. Decoding is cheap enough not to be cached: one pass over the URN
+ * for the current format.
+ * </p>
  */
 public class XURNEncoder {
 
-    private static final String URN_PREFIX = "uxr:";
-    private static final Pattern URN_PATTERN = Pattern.compile("^uxr:([a-zA-Z0-9_-]+):([a-zA-Z0-9]+)$");
+    private static final String URN_PREFIX = "uxr2:";
+    private static final String LEGACY_URN_PREFIX = "uxr:";
     private static final char[] BASE62_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
             .toCharArray();
 
+    /** Value of each character in {@link #BASE62_CHARS}, -1 for other ASCII characters. */
+    private static final byte[] BASE62_INDEX = new byte[128];
+
+    /**
+     * Number of base62 digits processed per {@link BigInteger} operation;
+     * 62^10 still fits in a long.
+     */
+    private static final int BASE62_CHUNK_DIGITS = 10;
+    private static final BigInteger[] BASE62_POWERS = new BigInteger[BASE62_CHUNK_DIGITS + 1];
+
+    private static final Base64.Encoder KEY_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder KEY_DECODER = Base64.getUrlDecoder();
+
+    static {
+        Arrays.fill(BASE62_INDEX, (byte) -1);
+        for (int i = 0; i < BASE62_CHARS.length; i++) {
+            BASE62_INDEX[BASE62_CHARS[i]] = (byte) i;
+        }
+        BASE62_POWERS[0] = BigInteger.ONE;
+        for (int i = 1; i < BASE62_POWERS.length; i++) {
+            BASE62_POWERS[i] = BASE62_POWERS[i - 1].multiply(BigInteger.valueOf(62));
+        }
+    }
+
     // ------------------- PUBLIC ENCODE -------------------
 
     /**
@@ -37,9 +66,7 @@ public class XURNEncoder {
      * @return encoded URN string
      */
     public static String encode(String resourceName, Object id) {
-        Map<String, Object> keyMap = new LinkedHashMap<>();
-        keyMap.put("id", id);
-        return encode(resourceName, keyMap);
+        return toURN(resourceName, "id=" + id);
     }
 
     /**
@@ -50,36 +77,64 @@ public class XURNEncoder {
      * @return encoded URN string
      */
     public static String encode(String resourceName, Map<String, Object> keyMap) {
+        List<String> keys = new ArrayList<>(keyMap.keySet());
+        Collections.sort(keys);
+
         StringBuilder sb = new StringBuilder();
-        keyMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> sb.append(entry.getKey()).append('=').append(entry.getValue()).append('&'));
-
-        if (sb.length() > 0)
-            sb.setLength(sb.length() - 1); // trim trailing '&'
-        byte[] utf8Bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
-        String encoded = encodeBase62(utf8Bytes);
+        for (String key : keys) {
+            if (sb.length() > 0)
+                sb.append('&');
+            sb.append(key).append('=').append(keyMap.get(key));
+        }
+        return toURN(resourceName, sb.toString());
+    }
+
+    private static String toURN(String resourceName, String keyString) {
+        String encoded = KEY_ENCODER.encodeToString(keyString.getBytes(StandardCharsets.UTF_8));
         return URN_PREFIX + resourceName + ":" + encoded;
     }
 
     // ------------------- PUBLIC DECODE -------------------
 
     /**
-     * Decodes a URN into its resource name and key map.
+     * Decodes a URN into its resource name and key map. Both the current and the
+     * legacy ({@code uxr:}) format are accepted.
      *
      * @param urn the URN string to decode
      * @return URN object containing resource name and key-value map
      * @throws URISyntaxException if the URN is invalid
      */
     public static URN decode(String urn) throws URISyntaxException {
-        Matcher matcher = URN_PATTERN.matcher(urn);
-        if (!matcher.matches()) {
+        boolean legacy;
+        int nameStart;
+        if (urn.startsWith(URN_PREFIX)) {
+            legacy = false;
+            nameStart = URN_PREFIX.length();
+        } else if (urn.startsWith(LEGACY_URN_PREFIX)) {
+            legacy = true;
+            nameStart = LEGACY_URN_PREFIX.length();
+        } else {
             throw new URISyntaxException(urn, "URN format is invalid");
         }
 
-        String resourceName = matcher.group(1);
-        String base62Part = matcher.group(2);
-        byte[] decodedBytes = decodeBase62(base62Part);
+        int separator = urn.indexOf(':', nameStart);
+        if (separator <= nameStart || !isResourceName(urn, nameStart, separator))
+            throw new URISyntaxException(urn, "URN format is invalid");
+
+        String resourceName = urn.substring(nameStart, separator);
+        String keyPart = urn.substring(separator + 1);
+        byte[] decodedBytes;
+        try {
+            if (legacy) {
+                if (keyPart.isEmpty())
+                    throw new IllegalArgumentException("Empty key");
+                decodedBytes = decodeBase62(keyPart);
+            } else {
+                decodedBytes = KEY_DECODER.decode(keyPart);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new URISyntaxException(urn, "URN format is invalid");
+        }
         String decodedString = new String(decodedBytes, StandardCharsets.UTF_8);
 
         Map<String, String> keyMap = new LinkedHashMap<>();
@@ -90,7 +145,16 @@ public class XURNEncoder {
             }
         }
 
-        return new URN(resourceName, keyMap);
+        return new URN(resourceName, Collections.unmodifiableMap(keyMap));
+    }
+
+    private static boolean isResourceName(String urn, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = urn.charAt(i);
+            if (!(c < 128 && BASE62_INDEX[c] >= 0) && c != '_' && c != '-')
+                return false;
+        }
+        return true;
     }
 
     // ------------------- BASE62 ENCODING -------------------
@@ -98,18 +162,30 @@ public class XURNEncoder {
     /**
      * Encodes a byte array into a Base62 string.
      *
+     * <p>
+     * Digits are produced {@value #BASE62_CHUNK_DIGITS} at a time from the
+     * remainder of a single {@link BigInteger} division.
+     * </p>
+     *
      * @param data byte array to encode
      * @return Base62 string
      */
-    private static String encodeBase62(byte[] data) {
+    static String encodeBase62(byte[] data) {
         BigInteger num = new BigInteger(1, data);
-        StringBuilder sb = new StringBuilder();
-        while (num.compareTo(BigInteger.ZERO) > 0) {
-            BigInteger[] divRem = num.divideAndRemainder(BigInteger.valueOf(62));
-            sb.append(BASE62_CHARS[divRem[1].intValue()]);
+        BigInteger chunk = BASE62_POWERS[BASE62_CHUNK_DIGITS];
+        // log(256) / log(62) < 1.35 digits per byte
+        char[] digits = new char[data.length * 135 / 100 + BASE62_CHUNK_DIGITS + 1];
+        int pos = digits.length;
+        while (num.signum() > 0) {
+            BigInteger[] divRem = num.divideAndRemainder(chunk);
             num = divRem[0];
+            long rem = divRem[1].longValue();
+            for (int i = 0; i < BASE62_CHUNK_DIGITS && (rem > 0 || num.signum() > 0); i++) {
+                digits[--pos] = BASE62_CHARS[(int) (rem % 62)];
+                rem /= 62;
+            }
         }
-        return sb.reverse().toString();
+        return new String(digits, pos, digits.length - pos);
     }
 
     /**
@@ -118,13 +194,20 @@ public class XURNEncoder {
      * @param base62 Base62-encoded string
      * @return decoded byte array
      */
-    private static byte[] decodeBase62(String base62) {
+    static byte[] decodeBase62(String base62) {
         BigInteger num = BigInteger.ZERO;
-        for (char c : base62.toCharArray()) {
-            int index = new String(BASE62_CHARS).indexOf(c);
-            if (index < 0)
-                throw new IllegalArgumentException("Invalid base62 character: " + c);
-            num = num.multiply(BigInteger.valueOf(62)).add(BigInteger.valueOf(index));
+        int length = base62.length();
+        for (int start = 0; start < length; start += BASE62_CHUNK_DIGITS) {
+            int end = Math.min(start + BASE62_CHUNK_DIGITS, length);
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                char c = base62.charAt(i);
+                int index = c < 128 ? BASE62_INDEX[c] : -1;
+                if (index < 0)
+                    throw new IllegalArgumentException("Invalid base62 character: " + c);
+                value = value * 62 + index;
+            }
+            num = num.multiply(BASE62_POWERS[end - start]).add(BigInteger.valueOf(value));
         }
         byte[] bytes = num.toByteArray();
         return (bytes.length > 0 && bytes[0] == 0) ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
@@ -142,29 +225,7 @@ public class XURNEncoder {
      */
     public static String getURN(Object entity, String resourceName, XResourceMetadata metadata) {
         try {
-            Map<String, Object> keyMap = new LinkedHashMap<>();
-            String primaryKeys = metadata.getPrimaryKey();
-            String[] compositeKeys;
-
-            if (metadata.hasCompositeKey()) {
-                Method getter = entity.getClass().getMethod("get" + capitalize(metadata.getEmbeddedKeyFieldName()));
-                Object embeddedKeyObj = getter.invoke(entity);
-                if (embeddedKeyObj == null)
-                    throw new IllegalStateException("Embedded key object is null");
-
-                compositeKeys = primaryKeys.split(",");
-                for (String field : compositeKeys) {
-                    Method emIdFieldGetter = embeddedKeyObj.getClass().getMethod("get" + capitalize(field));
-                    Object embeddedKeyFieldObj = emIdFieldGetter.invoke(embeddedKeyObj);
-                    keyMap.put(field, embeddedKeyFieldObj.toString());
-                }
-
-                return encode(resourceName, keyMap);
-            } else {
-                Object idValue = getFieldValue(entity, primaryKeys);
-                return encode(resourceName, idValue);
-            }
-
+            return toURN(entity, resourceName, metadata);
         } catch (Exception ex) {
             ex.printStackTrace();
             return null;
@@ -172,20 +233,37 @@ public class XURNEncoder {
     }
 
     /**
-     * Retrieves the value of a field using reflection.
+     * Generates a URN for an entity object using resource metadata, reading the
+     * key fields through the cached {@link XEntityAccessor} of the entity class.
+     *
+     * @param entity       the entity instance
+     * @param resourceName the name of the resource
+     * @param metadata     metadata describing the entity's keys
+     * @return encoded URN string
+     * @throws IllegalStateException if the embedded key of a composite-key
+     *                               entity is null
+     */
+    public static String toURN(Object entity, String resourceName, XResourceMetadata metadata) {
+        XEntityAccessor accessor = XEntityAccessor.forEntity(entity);
+        String primaryKeys = metadata.getPrimaryKey();
+
+        if (metadata.hasCompositeKey()) {
+            Map<String, Object> keyMap = accessor.getKeyValues(entity, metadata.getEmbeddedKeyFieldName(),
+                    primaryKeys.split(","));
+            return encode(resourceName, keyMap);
+        }
+        return encode(resourceName, accessor.get(entity, primaryKeys));
+    }
+
+    /**
+     * Retrieves the value of a declared field of an entity.
      *
      * @param entity    object instance
      * @param fieldName field to access
      * @return field value
      */
     public static Object getFieldValue(Object entity, String fieldName) {
-        try {
-            Field field = entity.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
-            return field.get(entity);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to access field '" + fieldName + "'", e);
-        }
+        return XEntityAccessor.forEntity(entity).get(entity, fieldName);
     }
 
     /**
@@ -0,0 +1,4 @@
+-- V2__aco_path_request_time_index.sql
+
+-- Expired path requests are deleted by request_time on every ACO update
+CREATE INDEX IF NOT EXISTS aco_path_request_time_idx ON aco_path_request (request_time);
@@ -0,0 +1,66 @@
+package org.xresource.core.aco;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.xresource.core.aco.AcoIndexAdvisor.Clause;
+import org.xresource.core.aco.AcoIndexAdvisor.ColumnKey;
+import org.xresource.core.aco.AcoIndexAdvisor.ColumnUse;
+import org.xresource.support.XTestJpaConfig;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+public class AcoIndexAdvisorTest {
+
+    private static AnnotationConfigApplicationContext context;
+    private static EntityManagerFactory emf;
+
+    @BeforeClass
+    public static void setUp() {
+        context = new AnnotationConfigApplicationContext(XTestJpaConfig.class);
+        emf = context.getBean(EntityManagerFactory.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void collectsFilteredJoinedAndSortedColumns() {
+        Set<ColumnUse> uses = Set.copyOf(columnsOf("SELECT b.title, a.name FROM Book b JOIN b.author a"
+                + " WHERE b.rating > 3 AND a.name = 'x' ORDER BY b.publishedAt"));
+        assertEquals(Set.of(
+                use("Book", "author_id", Clause.JOIN),
+                use("Author", "id", Clause.JOIN),
+                use("Book", "rating", Clause.WHERE),
+                use("Author", "name", Clause.WHERE),
+                use("Book", "publishedAt", Clause.ORDER_BY)), uses);
+    }
+
+    @Test
+    public void ignoresSelectedColumnsAndUnparsableQueries() {
+        assertEquals(List.of(), columnsOf("SELECT b.title, b.rating FROM Book b"));
+        assertEquals(List.of(), columnsOf("SELECT x FROM Unknown x"));
+    }
+
+    private static List<ColumnUse> columnsOf(String jpql) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return AcoIndexAdvisor.columnsOf(em, jpql);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static ColumnUse use(String table, String column, Clause clause) {
+        return new ColumnUse(new ColumnKey(table, column), clause);
+    }
+}
@@ -0,0 +1,164 @@
+package org.xresource.core.aco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xresource.core.hook.XResourceEventContext;
+import org.xresource.core.hook.XResourceEventType;
+import org.xresource.core.hook.XResourceHookRegistry;
+import org.xresource.core.service.XResourceService;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.intent.core.parser.model.JoinMeta;
+import org.xresource.internal.intent.core.parser.model.SelectAttributeMeta;
+import org.xresource.internal.query.XQueryExecutor;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.support.XTestServiceConfig;
+import org.xresource.support.model.Author;
+import org.xresource.support.model.Book;
+import org.xresource.support.model.BookStatus;
+import org.xresource.support.repository.BookRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+public class AcoMaterializedViewManagerTest {
+
+    private static AnnotationConfigApplicationContext context;
+    private static XQueryExecutor executor;
+    private static AcoMaterializedViewManager views;
+    private static TransactionTemplate transactions;
+    private static EntityManagerFactory emf;
+
+    @BeforeClass
+    public static void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                Map.of("xresource.aco.materialized-views.min-usage", "1")));
+        context.register(XTestServiceConfig.class, AcoMaterializedViewManager.class);
+        context.refresh();
+        context.getBean(XResourceMetadataRegistry.class).get("book").setRepositoryClass(BookRepository.class);
+        executor = context.getBean(XQueryExecutor.class);
+        views = context.getBean(AcoMaterializedViewManager.class);
+
+        emf = context.getBean(EntityManagerFactory.class);
+        transactions = context.getBean(TransactionTemplate.class);
+        transactions.executeWithoutResult(status -> {
+            EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+            Author author = new Author(1L, "author");
+            em.persist(author);
+            BookStatus[] statuses = BookStatus.values();
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Book((long) i + 1, "book " + i, i, statuses[i % statuses.length],
+                        LocalDateTime.of(2024, 1, 1, 12, 30).plusDays(i), i % 2 == 0, author));
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void viewRowsMatchQueryRows() {
+        IntentMeta intent = booksWithAuthor("booksWithAuthor");
+        List<Map<String, Object>> queried = executor.executeIntent(Book.class, intent, Collections.emptyMap());
+        assertNull(views.getViewQuery(intent));
+
+        views.maintain();
+        assertNotNull(views.getViewQuery(intent));
+
+        List<Map<String, Object>> materialized = executor.executeIntent(Book.class, intent,
+                Collections.emptyMap());
+        assertEquals(5, queried.size());
+        assertEquals(queried, materialized);
+        assertEquals(BookStatus.PUBLISHED, materialized.get(1).get("status"));
+        assertEquals(Boolean.TRUE, materialized.get(0).get("available"));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 30), materialized.get(0).get("publishedAt"));
+    }
+
+    @Test
+    public void writesMarkViewsStaleUntilRefreshed() {
+        IntentMeta intent = booksWithAuthor("authorsOfBooks");
+        executor.executeIntent(Book.class, intent, Collections.emptyMap());
+        views.maintain();
+        assertNotNull(views.getViewQuery(intent));
+
+        transactions.executeWithoutResult(status -> EntityManagerFactoryUtils.getTransactionalEntityManager(emf)
+                .find(Author.class, 1L).setName("renamed"));
+        context.getBean(XResourceHookRegistry.class).executeHooks("author", XResourceEventType.AFTER_UPDATE,
+                new XResourceEventContext(null, null, List.of(), Map.of()));
+        assertNull(views.getViewQuery(intent));
+        assertEquals("renamed", executor.executeIntent(Book.class, intent, Collections.emptyMap()).get(0)
+                .get("authorName"));
+
+        views.maintain();
+        assertNotNull(views.getViewQuery(intent));
+        assertEquals("renamed", executor.executeIntent(Book.class, intent, Collections.emptyMap()).get(0)
+                .get("authorName"));
+    }
+
+    @Test
+    public void bulkWritesMarkViewsStale() {
+        IntentMeta intent = booksWithAuthor("bulkWritten");
+        executor.executeIntent(Book.class, intent, Collections.emptyMap());
+        views.maintain();
+        assertNotNull(views.getViewQuery(intent));
+
+        Book book = transactions.execute(status -> EntityManagerFactoryUtils.getTransactionalEntityManager(emf)
+                .find(Book.class, 5L));
+        book.setTitle("rewritten");
+        context.getBean(XResourceService.class).saveAll("book", List.of(book));
+        assertNull(views.getViewQuery(intent));
+        assertEquals("rewritten", executor.executeIntent(Book.class, intent, Collections.emptyMap()).get(4)
+                .get("title"));
+    }
+
+    @Test
+    public void keepsViewsOfSameNamedIntentsApart() {
+        IntentMeta intent = booksWithAuthor("sameName");
+        executor.executeIntent(Book.class, intent, Collections.emptyMap());
+        views.maintain();
+        assertNotNull(views.getViewQuery(intent));
+
+        IntentMeta other = booksWithAuthor("sameName");
+        other.setEntityClass(Author.class);
+        assertNull(views.getViewQuery(other));
+    }
+
+    private static IntentMeta booksWithAuthor(String name) {
+        JoinMeta author = new JoinMeta();
+        author.setResource("Author");
+        author.setAlias("a");
+        author.setOn("a = b.author");
+        return IntentMeta.builder()
+                .name(name)
+                .entityClass(Book.class)
+                .rootAlias("b")
+                .rootResource("book")
+                .selectAttributes(List.of(attribute("id"), attribute("title"), attribute("status"),
+                        attribute("publishedAt"), attribute("available"),
+                        SelectAttributeMeta.builder().alias("a").field("name").aliasAs("authorName").build()))
+                .joins(List.of(author))
+                .parameters(List.of())
+                .sortBy(List.of("b.id"))
+                .build();
+    }
+
+    private static SelectAttributeMeta attribute(String field) {
+        return SelectAttributeMeta.builder().alias("b").field(field).build();
+    }
+}
@@ -0,0 +1,65 @@
+package org.xresource.core.aco;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.xresource.core.aco.AcoTelemetryWriter.EdgeRow;
+import org.xresource.core.aco.AcoTelemetryWriter.PathRow;
+
+public class AcoTelemetryWriterTest {
+
+    private static final long INTERVAL = 60;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @Before
+    public void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/aco/V1__aco_schema.sql"),
+                new ClassPathResource("db/migration/aco/V2__aco_path_request_time_index.sql")).execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void evaporatesOncePerIntervalAcrossInstances() {
+        AcoTelemetryWriter first = new AcoTelemetryWriter(dataSource, INTERVAL, 0);
+        AcoTelemetryWriter second = new AcoTelemetryWriter(dataSource, INTERVAL, 0);
+        first.flush(0.5, 0.001, List.of(new EdgeRow(null, "book", "author", "book.author=author.id", "hash",
+                false, 1.0, 2.0)), List.of());
+
+        second.flush(0.5, 0.001, List.of(), List.of());
+        assertEquals(1.0, pheromone(), 0.0);
+
+        jdbc.update("UPDATE aco_schema_graph_edge SET last_decay = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(INTERVAL)));
+        second.flush(0.5, 0.001, List.of(), List.of());
+        first.flush(0.5, 0.001, List.of(), List.of());
+        assertEquals(0.5, pheromone(), 0.0);
+    }
+
+    @Test
+    public void deletesPathRequestsPastRetention() {
+        AcoTelemetryWriter writer = new AcoTelemetryWriter(dataSource, INTERVAL, 3600);
+        jdbc.update("INSERT INTO aco_path_request (request_time, path, cost, pheromone_contribution)"
+                + " VALUES (?, '[\"old\"]', 1, 1)", Timestamp.valueOf(LocalDateTime.now().minusHours(2)));
+
+        writer.flush(0.5, 0.001, List.of(), List.of(new PathRow("[\"new\"]", 1.0, 1.0, false)));
+        assertEquals(List.of("[\"new\"]"), jdbc.queryForList("SELECT path FROM aco_path_request", String.class));
+    }
+
+    private double pheromone() {
+        return jdbc.queryForObject("SELECT pheromone_level FROM aco_schema_graph_edge", Double.class);
+    }
+}
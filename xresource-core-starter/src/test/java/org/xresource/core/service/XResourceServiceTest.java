@@ -0,0 +1,133 @@
+package org.xresource.core.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.xresource.core.util.XUtils;
+import org.xresource.internal.auth.XAccessManager;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.internal.intent.core.parser.model.SelectAttributeMeta;
+import org.xresource.internal.models.ForeignKeyTree;
+import org.xresource.internal.models.XFieldMetadata;
+import org.xresource.internal.models.XResourceMetadata;
+import org.xresource.internal.query.XProjection;
+import org.xresource.internal.query.XQueryExecutor;
+import org.xresource.internal.query.XQueryResultCache;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.support.XTestServiceConfig;
+import org.xresource.support.model.Author;
+import org.xresource.support.model.Book;
+import org.xresource.support.model.BookStatus;
+import org.xresource.support.repository.BookRepository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class XResourceServiceTest {
+
+    private static AnnotationConfigApplicationContext context;
+    private static XResourceService service;
+    private static XQueryResultCache resultCache;
+    private static XQueryExecutor executor;
+
+    @BeforeClass
+    public static void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                Map.of("xresource.query-cache.enabled", "true")));
+        context.register(XTestServiceConfig.class);
+        context.refresh();
+        context.getBean(XResourceMetadataRegistry.class).get("book").setRepositoryClass(BookRepository.class);
+        service = context.getBean(XResourceService.class);
+        resultCache = context.getBean(XQueryResultCache.class);
+        executor = context.getBean(XQueryExecutor.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void bulkDeleteDropsCachedResults() {
+        service.saveAll("book", List.of(new Book(1L, "book", 1, BookStatus.DRAFT, LocalDateTime.now(), true,
+                null)));
+        IntentMeta intent = IntentMeta.builder()
+                .name("titles")
+                .entityClass(Book.class)
+                .rootAlias("b")
+                .rootResource("book")
+                .selectAttributes(List.of(SelectAttributeMeta.builder().alias("b").field("title").build()))
+                .parameters(List.of())
+                .build();
+
+        assertEquals(1, titles(intent).size());
+        assertEquals(1, resultCache.getStats().get("entries"));
+
+        service.deleteAll("book");
+        assertEquals(List.of(), titles(intent));
+    }
+
+    @Test
+    public void streamingHonoursSparseFieldset() throws Exception {
+        service.saveAll("book", List.of(new Book(2L, "streamed", 4, BookStatus.PUBLISHED, LocalDateTime.now(),
+                true, null)));
+        XResourceMetadata metadata = context.getBean(XResourceMetadataRegistry.class).get("book");
+        for (String field : List.of("title", "rating", "status")) {
+            metadata.addField(field, new XFieldMetadata(field, false, "string", null,
+                    XUtils.findField(Book.class, field), field));
+        }
+        XAccessManager accessManager = context.getBean(XAccessManager.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        List<String> roles = List.of("USER");
+        Set<String> fields = Set.of("title");
+        XProjection projection = executor.compileProjection(metadata,
+                accessManager.resolveReadableFields(metadata, roles, fields));
+
+        List<Book> streamed = new ArrayList<>();
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            service.streamAll("book", projection, entity -> {
+                streamed.add((Book) entity);
+                try {
+                    accessManager.writeFieldsByAccess(generator, entity, "book", metadata, roles,
+                            new ForeignKeyTree(), "http://localhost", fields);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        service.deleteAll("book");
+
+        assertEquals(1, streamed.size());
+        assertEquals("streamed", streamed.get(0).getTitle());
+        // only the requested column was selected
+        assertNull(streamed.get(0).getRating());
+        JsonNode row = objectMapper.readTree(out.toString());
+        assertEquals("streamed", row.get("title").asText());
+        assertNull(row.get("rating"));
+        assertNull(row.get("status"));
+    }
+
+    private static List<?> titles(IntentMeta intent) {
+        Map<String, Object> body = resultCache.getOrLoad(intent, Collections.emptyMap(), List.of(), List.of(),
+                () -> Map.of("data", executor.executeIntent(Book.class, intent, Collections.emptyMap())));
+        return (List<?>) body.get("data");
+    }
+}
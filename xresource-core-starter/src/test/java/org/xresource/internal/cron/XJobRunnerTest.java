@@ -0,0 +1,80 @@
+package org.xresource.internal.cron;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xresource.core.annotations.XQuery;
+import org.xresource.internal.query.XQueryContextProvider;
+import org.xresource.internal.query.XQueryExecutor;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.support.XTestJpaConfig;
+import org.xresource.support.model.Author;
+import org.xresource.support.model.Book;
+import org.xresource.support.model.BookStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+public class XJobRunnerTest {
+
+    @XQuery(name = "published", where = "e.status = org.xresource.support.model.BookStatus.PUBLISHED")
+    private static final class Queries {
+    }
+
+    private static AnnotationConfigApplicationContext context;
+    private static XJobRunner jobRunner;
+    private static EntityManagerFactory emf;
+
+    @BeforeClass
+    public static void setUp() {
+        context = new AnnotationConfigApplicationContext(XTestJpaConfig.class);
+        emf = context.getBean(EntityManagerFactory.class);
+        XResourceMetadataRegistry registry = context.getBean(XResourceMetadataRegistry.class);
+        registry.get("book").getXQueriesMap().put("published", Queries.class.getAnnotation(XQuery.class));
+        jobRunner = new XJobRunner(new XJobRegistry(), context.getBean(XQueryExecutor.class), registry,
+                new XQueryContextProvider(), emf);
+
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+            Author author = new Author(7L, "Ursula");
+            em.persist(author);
+            em.persist(new Book(1L, "published", 5, BookStatus.PUBLISHED, null, true, author));
+            em.persist(new Book(2L, "draft", 1, BookStatus.DRAFT, null, false, author));
+        });
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void jobsReadLazyAssociationsOfTheirRecords() {
+        List<String> authorNames = new ArrayList<>();
+        List<Boolean> initialized = new ArrayList<>();
+        XRegisteredJob job = new XRegisteredJob("authors", "0 0 * * * *", "", "book", "published", data -> {
+            for (Object row : data) {
+                Author author = ((Book) row).getAuthor();
+                initialized.add(Hibernate.isInitialized(author));
+                authorNames.add(author.getName());
+            }
+        });
+
+        jobRunner.execute(job);
+
+        assertEquals(List.of(false), initialized);
+        assertEquals(List.of("Ursula"), authorNames);
+        assertFalse(TransactionSynchronizationManager.hasResource(emf));
+    }
+}
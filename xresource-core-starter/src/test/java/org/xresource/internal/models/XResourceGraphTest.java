@@ -0,0 +1,89 @@
+package org.xresource.internal.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.xresource.internal.exception.XResourceException;
+
+public class XResourceGraphTest {
+
+    private static XRelationshipMetadata fk(String source, String target, String field) {
+        return new XRelationshipMetadata(source, target, field, field + "_id", "id", "id", false, null);
+    }
+
+    @Test
+    public void prefersTheForeignKeyDeclaredBySource() {
+        XRelationshipMetadata bookAuthor = fk("book", "author", "author");
+        XRelationshipMetadata authorFavourite = fk("author", "book", "favourite");
+        XResourceGraph graph = new XResourceGraph(1, List.of(bookAuthor, authorFavourite));
+
+        assertEquals(bookAuthor, graph.findRelationship("book", "author"));
+        assertEquals(authorFavourite, graph.findRelationship("author", "book"));
+        assertNull(graph.findRelationship("book", "publisher"));
+    }
+
+    @Test
+    public void rejectsSeveralForeignKeysBetweenTheSameResources() {
+        XRelationshipMetadata createdBy = fk("document", "user", "createdBy");
+        XRelationshipMetadata updatedBy = fk("document", "user", "updatedBy");
+        XResourceGraph graph = new XResourceGraph(1, List.of(createdBy, updatedBy));
+
+        for (String[] pair : new String[][] { { "document", "user" }, { "user", "document" } }) {
+            try {
+                graph.findRelationship(pair[0], pair[1]);
+                fail("ambiguous join accepted");
+            } catch (XResourceException e) {
+                assertTrue(e.getMessage().contains("document.createdBy, document.updatedBy"));
+            }
+        }
+        try {
+            graph.requireUnambiguous(createdBy);
+            fail("ambiguous join path accepted");
+        } catch (XResourceException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void joinPathAvoidsAmbiguousPairsWhenAShortestPathDoes() {
+        // order -> warehouse => address (two foreign keys) and order -> customer -> address
+        XRelationshipMetadata orderWarehouse = fk("order", "warehouse", "warehouse");
+        XRelationshipMetadata warehouseAddress = fk("warehouse", "address", "address");
+        XRelationshipMetadata orderCustomer = fk("order", "customer", "customer");
+        XRelationshipMetadata customerAddress = fk("customer", "address", "address");
+        XRelationshipMetadata warehouseReturns = fk("warehouse", "address", "returnAddress");
+        XResourceGraph graph = new XResourceGraph(1, List.of(orderWarehouse, warehouseAddress, warehouseReturns,
+                orderCustomer, customerAddress));
+
+        List<XRelationshipMetadata> path = graph.getJoinPath("order", "address");
+        assertEquals(List.of(orderCustomer, customerAddress), path);
+        path.forEach(graph::requireUnambiguous);
+        assertEquals(List.of(customerAddress, orderCustomer), graph.getJoinPath("address", "order"));
+    }
+
+    @Test
+    public void joinPathIsRejectedWhenEveryShortestPathIsAmbiguous() {
+        XRelationshipMetadata orderWarehouse = fk("order", "warehouse", "warehouse");
+        XRelationshipMetadata warehouseAddress = fk("warehouse", "address", "address");
+        XRelationshipMetadata warehouseReturns = fk("warehouse", "address", "returnAddress");
+        XRelationshipMetadata orderCustomer = fk("order", "customer", "customer");
+        XRelationshipMetadata customerBilling = fk("customer", "address", "billingAddress");
+        XRelationshipMetadata customerShipping = fk("customer", "address", "shippingAddress");
+        XResourceGraph graph = new XResourceGraph(1, List.of(orderWarehouse, warehouseAddress, warehouseReturns,
+                orderCustomer, customerBilling, customerShipping));
+
+        List<XRelationshipMetadata> path = graph.getJoinPath("order", "address");
+        assertEquals(2, path.size());
+        try {
+            path.forEach(graph::requireUnambiguous);
+            fail("ambiguous join path accepted");
+        } catch (XResourceException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.xresource.internal.query;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.xresource.core.annotations.XCountStrategy;
+import org.xresource.core.hook.XResourceEventContext;
+import org.xresource.core.hook.XResourceEventType;
+import org.xresource.core.hook.XResourceHookRegistry;
+import org.xresource.support.XTestJpaConfig;
+
+public class XCountManagerTest {
+
+    private static final List<Integer> FULL_PAGE = List.of(1, 2);
+
+    private static AnnotationConfigApplicationContext context;
+    private static XCountManager countManager;
+    private static XResourceHookRegistry hookRegistry;
+
+    @BeforeClass
+    public static void setUp() {
+        context = new AnnotationConfigApplicationContext(XTestJpaConfig.class);
+        countManager = context.getBean(XCountManager.class);
+        hookRegistry = context.getBean(XResourceHookRegistry.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void writesOfJoinedResourcesDropCachedCounts() {
+        XCountPolicy policy = new XCountPolicy("book", XCountStrategy.CACHED, 60_000, false, Collections.emptySet())
+                .joining(List.of("author"));
+        AtomicInteger counts = new AtomicInteger();
+        LongSupplier exactCount = () -> counts.incrementAndGet() * 10L;
+
+        assertEquals(10, total(policy, exactCount));
+        assertEquals(10, total(policy, exactCount));
+
+        hookRegistry.executeHooks("author", XResourceEventType.AFTER_UPDATE, event("author"));
+        assertEquals(20, total(policy, exactCount));
+
+        hookRegistry.executeHooks("book", XResourceEventType.AFTER_CREATE, event("book"));
+        assertEquals(30, total(policy, exactCount));
+        assertEquals(3, counts.get());
+    }
+
+    @Test
+    public void evictsOnlyLeastRecentlyUsedCachedCounts() {
+        XCountPolicy policy = new XCountPolicy("author", XCountStrategy.CACHED, 60_000, false,
+                Collections.emptySet());
+        AtomicInteger counts = new AtomicInteger();
+        LongSupplier exactCount = () -> counts.incrementAndGet() * 10L;
+
+        assertEquals(10, total(policy, "hot", exactCount));
+        for (int i = 0; i < 2000; i++) {
+            total(policy, "cold" + i, exactCount);
+            assertEquals(10, total(policy, "hot", exactCount));
+        }
+        assertEquals(2001, counts.get());
+    }
+
+    @Test
+    public void writesWhileSeedingDiscardTheMaintainedCount() {
+        XCountPolicy policy = new XCountPolicy("author", XCountStrategy.MAINTAINED, 0, false,
+                Collections.emptySet());
+        AtomicInteger counts = new AtomicInteger();
+        // the first seed misses a record created while it is counted
+        LongSupplier racingCount = () -> {
+            if (counts.incrementAndGet() == 1) {
+                hookRegistry.executeHooks("author", XResourceEventType.AFTER_CREATE, event("author"));
+                return 10;
+            }
+            return 11;
+        };
+        countManager.invalidate("author");
+
+        assertEquals(10, maintainedTotal(policy, racingCount));
+        assertEquals(11, maintainedTotal(policy, racingCount));
+        hookRegistry.executeHooks("author", XResourceEventType.AFTER_CREATE, event("author"));
+        assertEquals(12, maintainedTotal(policy, racingCount));
+        assertEquals(2, counts.get());
+    }
+
+    private static long maintainedTotal(XCountPolicy policy, LongSupplier exactCount) {
+        return countManager.toPage(FULL_PAGE, 0, FULL_PAGE.size(), policy, "select count(a) from Author a",
+                Collections.emptyMap(), true, exactCount).getTotalElements();
+    }
+
+    private static long total(XCountPolicy policy, String name, LongSupplier exactCount) {
+        return countManager.toPage(FULL_PAGE, 0, FULL_PAGE.size(), policy, "select count(a) from Author a",
+                Collections.singletonMap("name", name), false, exactCount).getTotalElements();
+    }
+
+    private static long total(XCountPolicy policy, LongSupplier exactCount) {
+        return countManager.toPage(FULL_PAGE, 0, FULL_PAGE.size(), policy, "select count(b) from Book b",
+                Collections.emptyMap(), false, exactCount).getTotalElements();
+    }
+
+    private static XResourceEventContext event(String resourceName) {
+        return new XResourceEventContext(null, resourceName, Collections.emptyList(), Collections.emptyMap());
+    }
+}
@@ -0,0 +1,112 @@
+package org.xresource.internal.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.support.XTestJpaConfig;
+import org.xresource.support.model.Author;
+import org.xresource.support.model.Book;
+import org.xresource.support.model.BookStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+public class XQueryExecutorKeysetTest {
+
+    private static final Integer[] RATINGS = { 5, null, 3, null, 5, 1, null, 3, 4, null, 2 };
+
+    private static AnnotationConfigApplicationContext context;
+    private static XQueryExecutor executor;
+    private static XResourceMetadataRegistry registry;
+    private static List<Book> books = new ArrayList<>();
+
+    @BeforeClass
+    public static void setUp() {
+        context = new AnnotationConfigApplicationContext(XTestJpaConfig.class);
+        executor = context.getBean(XQueryExecutor.class);
+        registry = context.getBean(XResourceMetadataRegistry.class);
+        EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+            Author author = new Author(1L, "author");
+            em.persist(author);
+            BookStatus[] statuses = BookStatus.values();
+            for (int i = 0; i < RATINGS.length; i++) {
+                Book book = new Book((long) i + 1, "book " + i, RATINGS[i], statuses[i % statuses.length],
+                        LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(i), i % 2 == 0, author);
+                em.persist(book);
+                books.add(book);
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void pagesAscendingWithNullsLast() {
+        Comparator<Book> order = Comparator.comparing(Book::getRating, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Book::getId);
+        assertEquals(ids(sorted(order)), pageThrough("rating", "asc", 2));
+    }
+
+    @Test
+    public void pagesDescendingWithNullsFirst() {
+        Comparator<Book> order = Comparator.comparing(Book::getRating, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Book::getId).reversed();
+        assertEquals(ids(sorted(order)), pageThrough("rating", "desc", 2));
+    }
+
+    @Test
+    public void pagesByEnumSortKey() {
+        Comparator<Book> order = Comparator.comparing(Book::getStatus).thenComparing(Book::getId);
+        assertEquals(ids(sorted(order)), pageThrough("status", "asc", 3));
+    }
+
+    @Test
+    public void pagesByPrimaryKeyWithoutSortField() {
+        assertEquals(ids(sorted(Comparator.comparing(Book::getId))), pageThrough(null, "asc", 4));
+    }
+
+    private List<Long> pageThrough(String sortBy, String direction, int size) {
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        for (int pages = 0; pages <= RATINGS.length; pages++) {
+            XKeysetPage<Book> page = executor.executeKeysetQueries(Book.class, registry.get("book"),
+                    Collections.emptyMap(), Collections.emptyMap(), after, size, sortBy, direction);
+            page.getContent().forEach(book -> ids.add(book.getId()));
+            if (!page.isHasNext()) {
+                assertNull(page.getNextCursor());
+                return ids;
+            }
+            assertFalse(page.getContent().isEmpty());
+            after = page.getNextCursor();
+        }
+        throw new AssertionError("keyset paging did not terminate: " + ids);
+    }
+
+    private static List<Book> sorted(Comparator<Book> order) {
+        return books.stream().sorted(order).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<Book> rows) {
+        return rows.stream().map(Book::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,88 @@
+package org.xresource.internal.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.xresource.internal.intent.core.parser.model.IntentMeta;
+import org.xresource.support.XTestServiceConfig;
+import org.xresource.support.model.Author;
+import org.xresource.support.model.Book;
+
+public class XQueryResultCacheTest {
+
+    private static AnnotationConfigApplicationContext context;
+    private static XQueryResultCache cache;
+
+    @BeforeClass
+    public static void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                Map.of("xresource.query-cache.enabled", "true", "xresource.query-cache.max-rows", "10")));
+        context.register(XTestServiceConfig.class);
+        context.refresh();
+        cache = context.getBean(XQueryResultCache.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void invalidatesOnlyDependentResults() {
+        IntentMeta books = intent(Book.class, "book", "invalidatedBooks");
+        IntentMeta authors = intent(Author.class, "author", "invalidatedAuthors");
+        AtomicInteger loads = new AtomicInteger();
+        load(books, 1, loads);
+        load(authors, 1, loads);
+
+        cache.invalidate("author");
+        load(books, 1, loads);
+        load(authors, 1, loads);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void evictsPastTheRowBound() {
+        IntentMeta first = intent(Book.class, "book", "evictedFirst");
+        IntentMeta second = intent(Book.class, "book", "evictedSecond");
+        IntentMeta third = intent(Book.class, "book", "evictedThird");
+        AtomicInteger loads = new AtomicInteger();
+        load(first, 4, loads);
+        load(second, 4, loads);
+        load(third, 4, loads);
+        assertTrue((Long) cache.getStats().get("rows") <= 10);
+        assertTrue((Long) cache.getStats().get("evictions") > 0);
+
+        // The newest result is never the least recently used one
+        load(third, 4, loads);
+        assertEquals(3, loads.get());
+    }
+
+    private static void load(IntentMeta intent, int rows, AtomicInteger loads) {
+        cache.getOrLoad(intent, Collections.emptyMap(), List.of(), List.of(), () -> {
+            loads.incrementAndGet();
+            return Map.of("data", Collections.nCopies(rows, Map.of()));
+        });
+    }
+
+    private static IntentMeta intent(Class<?> entityClass, String resource, String name) {
+        return IntentMeta.builder()
+                .name(name)
+                .entityClass(entityClass)
+                .rootAlias("x")
+                .rootResource(resource)
+                .parameters(List.of())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package org.xresource.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class XLruCacheTest {
+
+    @Test
+    public void putReplacesAndGetDoesNotLoad() {
+        XLruCache<String, Integer> cache = new XLruCache<>(4);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+
+        cache.put("a", 1);
+        cache.put("a", 2);
+        assertEquals(Integer.valueOf(2), cache.get("a"));
+        assertEquals(Integer.valueOf(2), cache.computeIfAbsent("a", k -> 3));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntries() {
+        XLruCache<Integer, Integer> cache = new XLruCache<>(10);
+        cache.put(0, 0);
+        for (int i = 1; i < 100; i++) {
+            cache.put(i, i);
+        }
+
+        assertTrue(cache.size() <= 10);
+        assertNull(cache.get(0));
+        assertEquals(Integer.valueOf(99), cache.get(99));
+    }
+}
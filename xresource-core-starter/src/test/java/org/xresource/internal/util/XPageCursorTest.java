@@ -0,0 +1,107 @@
+package org.xresource.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.xresource.internal.exception.XResourceException;
+import org.xresource.support.model.BookStatus;
+
+public class XPageCursorTest {
+
+    private static final String SIGNATURE = "rating,id:asc";
+
+    @Test
+    public void roundTripsTypedValues() {
+        UUID uuid = UUID.randomUUID();
+        List<Object> values = Arrays.asList("a&b=c", 42, 7L, new BigDecimal("1.50"), true,
+                LocalDate.of(2024, 2, 29), LocalDateTime.of(2024, 2, 29, 13, 5, 1), uuid);
+
+        String cursor = XPageCursor.encode(SIGNATURE, values);
+
+        assertEquals(values, XPageCursor.decode(cursor, SIGNATURE, Collections.emptyList()));
+    }
+
+    @Test
+    public void roundTripsNullValues() {
+        String cursor = XPageCursor.encode(SIGNATURE, Arrays.asList(null, 3L));
+
+        List<Object> decoded = XPageCursor.decode(cursor, SIGNATURE, Arrays.asList(Integer.class, Long.class));
+
+        assertNull(decoded.get(0));
+        assertEquals(3L, decoded.get(1));
+    }
+
+    @Test
+    public void resolvesEnumsAgainstTheDeclaredKeyType() {
+        String cursor = XPageCursor.encode(SIGNATURE, Arrays.asList(BookStatus.RETIRED, 3L));
+
+        List<Object> decoded = XPageCursor.decode(cursor, SIGNATURE, Arrays.asList(BookStatus.class, Long.class));
+
+        assertSame(BookStatus.RETIRED, decoded.get(0));
+    }
+
+    @Test
+    public void rejectsEnumsWithoutADeclaredEnumType() {
+        String cursor = XPageCursor.encode(SIGNATURE, Arrays.asList(BookStatus.RETIRED, 3L));
+
+        assertInvalid(cursor, SIGNATURE, Arrays.asList(String.class, Long.class));
+        assertInvalid(cursor, SIGNATURE, Collections.emptyList());
+    }
+
+    @Test
+    public void ignoresClassNamesCarriedByTheCursor() {
+        // Cursors used to name the enum class to load; such a cursor must not
+        // cause any class to be resolved
+        String forged = XURNEncoder.encodeBase62(("s=" + SIGNATURE + "&k0=E:java.lang.Runtime%23x&k1=J:3")
+                .getBytes(StandardCharsets.UTF_8));
+
+        assertInvalid(forged, SIGNATURE, Arrays.asList(String.class, Long.class));
+    }
+
+    @Test
+    public void rejectsCursorsOfAnotherOrdering() {
+        String cursor = XPageCursor.encode(SIGNATURE, Arrays.asList(1, 3L));
+
+        try {
+            XPageCursor.decode(cursor, "rating,id:desc", Collections.emptyList());
+            fail("cursor of another ordering accepted");
+        } catch (XResourceException e) {
+            assertTrue(e.getMessage().contains("sort order"));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedCursors() {
+        assertInvalid("not*base62", SIGNATURE, Collections.emptyList());
+        assertInvalid(XURNEncoder.encodeBase62("s=x&k0=Q:1".getBytes(StandardCharsets.UTF_8)), "x",
+                Collections.emptyList());
+    }
+
+    @Test
+    public void blankCursorMeansFirstPage() {
+        assertTrue(XPageCursor.decode(" ", SIGNATURE, Collections.emptyList()).isEmpty());
+        assertTrue(XPageCursor.decode(null, SIGNATURE, Collections.emptyList()).isEmpty());
+    }
+
+    private static void assertInvalid(String cursor, String signature, List<Class<?>> keyTypes) {
+        try {
+            XPageCursor.decode(cursor, signature, keyTypes);
+            fail("invalid cursor accepted: " + cursor);
+        } catch (XResourceException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.xresource.internal.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class XURNEncoderTest {
+
+    @Test
+    public void roundTripsSimpleKeys() throws URISyntaxException {
+        String urn = XURNEncoder.encode("component", 123);
+
+        assertTrue(urn.startsWith("uxr2:component:"));
+        XURNEncoder.URN decoded = XURNEncoder.decode(urn);
+        assertEquals("component", decoded.getResourceName());
+        assertEquals(Map.of("id", "123"), decoded.getKeyMap());
+    }
+
+    @Test
+    public void roundTripsCompositeKeys() throws URISyntaxException {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("version", "v1.0.2");
+        keys.put("componentId", "comp 123/ü");
+
+        XURNEncoder.URN decoded = XURNEncoder.decode(XURNEncoder.encode("patch", keys));
+
+        assertEquals("patch", decoded.getResourceName());
+        assertEquals(Map.of("componentId", "comp 123/ü", "version", "v1.0.2"), decoded.getKeyMap());
+    }
+
+    @Test
+    public void decodesLegacyUrns() throws URISyntaxException {
+        // Produced by the original uxr: (Base62) encoder
+        XURNEncoder.URN simple = XURNEncoder.decode("uxr:component:Wu7NjkUF");
+        assertEquals("component", simple.getResourceName());
+        assertEquals(Map.of("id", "123"), simple.getKeyMap());
+
+        XURNEncoder.URN composite = XURNEncoder.decode("uxr:patch:UOd84HYCEbEP2zOjJtfimvcJ1mlp65tgc6Ro0VAjHNanGV14IQE");
+        assertEquals("patch", composite.getResourceName());
+        assertEquals(Map.of("componentId", "comp 123/ü", "version", "v1.0.2"), composite.getKeyMap());
+    }
+
+    @Test
+    public void roundTripsBase62() {
+        for (String value : new String[] { "", "a", "id=1", "k0=S:x&k1=J:42", "üß€" }) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(value, bytes, XURNEncoder.decodeBase62(XURNEncoder.encodeBase62(bytes)));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedUrns() {
+        for (String urn : new String[] { "urn:component:MTIz", "uxr2::aWQ9MQ", "uxr2:comp onent:aWQ9MQ",
+                "uxr2:component:***", "uxr:component:", "uxr:component:a*b" }) {
+            try {
+                XURNEncoder.decode(urn);
+                fail("malformed URN accepted: " + urn);
+            } catch (URISyntaxException e) {
+                // expected
+            }
+        }
+    }
+}
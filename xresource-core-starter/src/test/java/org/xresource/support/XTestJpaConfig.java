@@ -0,0 +1,102 @@
+package org.xresource.support;
+
+import java.util.Properties;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xresource.core.hook.XResourceHookRegistry;
+import org.xresource.internal.models.XResourceMetadata;
+import org.xresource.internal.query.XCountManager;
+import org.xresource.internal.query.XParallelCounter;
+import org.xresource.internal.query.XQueryExecutor;
+import org.xresource.internal.registry.XResourceMetadataRegistry;
+import org.xresource.support.model.Author;
+import org.xresource.support.model.Book;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Minimal JPA setup for tests: a private in-memory H2 database whose schema
+ * is generated from {@code org.xresource.support.model}, plus the query
+ * beans the tests exercise. Use with an
+ * {@code AnnotationConfigApplicationContext}.
+ */
+@Configuration
+public class XTestJpaConfig {
+
+    @Bean
+    public DataSource dataSource() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        return dataSource;
+    }
+
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(Book.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        factory.setJpaProperties(properties);
+        return factory;
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+        return new JpaTransactionManager(emf);
+    }
+
+    @Bean
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    @Bean
+    public XResourceMetadataRegistry xResourceMetadataRegistry() {
+        XResourceMetadataRegistry registry = new XResourceMetadataRegistry();
+        registry.register("author", metadata(Author.class, "author"));
+        registry.register("book", metadata(Book.class, "book"));
+        return registry;
+    }
+
+    @Bean
+    public XResourceHookRegistry xResourceHookRegistry() {
+        return new XResourceHookRegistry();
+    }
+
+    @Bean
+    public XCountManager xCountManager() {
+        return new XCountManager();
+    }
+
+    @Bean
+    public XParallelCounter xParallelCounter() {
+        return new XParallelCounter();
+    }
+
+    @Bean
+    public XQueryExecutor xQueryExecutor() {
+        return new XQueryExecutor();
+    }
+
+    private static XResourceMetadata metadata(Class<?> entityClass, String resourceName) {
+        XResourceMetadata metadata = new XResourceMetadata();
+        metadata.setEntityClass(entityClass);
+        metadata.setResourceName(resourceName);
+        metadata.setPrimaryKey("id");
+        return metadata;
+    }
+}
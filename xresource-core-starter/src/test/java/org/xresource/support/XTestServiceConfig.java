@@ -0,0 +1,70 @@
+package org.xresource.support;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.xresource.core.auth.XAccessEvaluatorDelegate;
+import org.xresource.core.auth.XCacheableAccessFunction;
+import org.xresource.core.service.XResourceService;
+import org.xresource.core.validation.XValidatorRegistry;
+import org.xresource.internal.auth.XAccessManager;
+import org.xresource.internal.auth.XRoleBasedAccessEvaluator;
+import org.xresource.internal.query.XQueryContextProvider;
+import org.xresource.internal.query.XQueryResultCache;
+import org.xresource.internal.util.XResourceLinkResolver;
+import org.xresource.support.repository.BookRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link XTestJpaConfig} plus {@link XResourceService} and the beans it needs,
+ * with Spring Data repositories for the test model. Access is granted as
+ * declared and cacheable.
+ */
+@Configuration
+@Import(XTestJpaConfig.class)
+@EnableJpaRepositories(basePackageClasses = BookRepository.class)
+public class XTestServiceConfig {
+
+    @Bean
+    public ObjectMapper objectMapper() {
+        return new ObjectMapper().findAndRegisterModules();
+    }
+
+    @Bean
+    public XRoleBasedAccessEvaluator xRoleBasedAccessEvaluator() {
+        return new XRoleBasedAccessEvaluator(new XAccessEvaluatorDelegate(
+                (XCacheableAccessFunction) (type, level, resource, field, roles) -> level));
+    }
+
+    @Bean
+    public XAccessManager xAccessManager(ObjectMapper objectMapper) {
+        return new XAccessManager(objectMapper);
+    }
+
+    @Bean
+    public XResourceLinkResolver xResourceLinkResolver() {
+        return new XResourceLinkResolver();
+    }
+
+    @Bean
+    public XValidatorRegistry xValidatorRegistry() {
+        return new XValidatorRegistry();
+    }
+
+    @Bean
+    public XQueryContextProvider xQueryContextProvider() {
+        return new XQueryContextProvider();
+    }
+
+    @Bean
+    public XQueryResultCache xQueryResultCache() {
+        return new XQueryResultCache();
+    }
+
+    @Bean
+    public XResourceService xResourceService() {
+        return new XResourceService();
+    }
+}
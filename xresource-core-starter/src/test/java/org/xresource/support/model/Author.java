@@ -0,0 +1,24 @@
+package org.xresource.support.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Author {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    public Author(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
@@ -0,0 +1,51 @@
+package org.xresource.support.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Book {
+
+    @Id
+    private Long id;
+
+    private String title;
+
+    /** Nullable sort key. */
+    private Integer rating;
+
+    @Enumerated(EnumType.ORDINAL)
+    private BookStatus status;
+
+    private LocalDateTime publishedAt;
+
+    @Convert(converter = YesNoConverter.class)
+    private Boolean available;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Author author;
+
+    public Book(Long id, String title, Integer rating, BookStatus status, LocalDateTime publishedAt,
+            Boolean available, Author author) {
+        this.id = id;
+        this.title = title;
+        this.rating = rating;
+        this.status = status;
+        this.publishedAt = publishedAt;
+        this.available = available;
+        this.author = author;
+    }
+}
@@ -0,0 +1,5 @@
+package org.xresource.support.model;
+
+public enum BookStatus {
+    DRAFT, PUBLISHED, RETIRED
+}
@@ -0,0 +1,19 @@
+package org.xresource.support.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/** Stores booleans as 'Y' / 'N', so raw column values differ from JPA ones. */
+@Converter
+public class YesNoConverter implements AttributeConverter<Boolean, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Boolean attribute) {
+        return attribute == null ? null : attribute ? "Y" : "N";
+    }
+
+    @Override
+    public Boolean convertToEntityAttribute(String dbData) {
+        return dbData == null ? null : "Y".equals(dbData);
+    }
+}
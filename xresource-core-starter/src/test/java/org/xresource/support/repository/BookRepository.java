@@ -0,0 +1,7 @@
+package org.xresource.support.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.xresource.support.model.Book;
+
+public interface BookRepository extends JpaRepository<Book, Long> {
+}